@@ -3,6 +3,8 @@ plugins {
 	id("org.springframework.boot") version "2.7.0"
 	id("io.spring.dependency-management") version "1.0.15.RELEASE"
 	id("jacoco")
+	id("com.google.protobuf") version "0.9.4"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.sellsocks"
@@ -31,12 +33,17 @@ dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-webflux")
 
 	/**
 	 * Database
 	 */
 	runtimeOnly("org.postgresql:postgresql")
 	implementation("org.liquibase:liquibase-core")
+	implementation("org.springframework:spring-r2dbc")
+	implementation("io.r2dbc:r2dbc-pool")
+	runtimeOnly("org.postgresql:r2dbc-postgresql")
 
 	/**
 	 * Lombok
@@ -50,6 +57,14 @@ dependencies {
 	implementation("org.mapstruct:mapstruct:1.5.3.Final")
 	annotationProcessor("org.mapstruct:mapstruct-processor:1.5.3.Final")
 	implementation ("com.opencsv:opencsv:5.8")
+	implementation("io.airlift:aircompressor:0.25")
+	implementation("org.roaringbitmap:RoaringBitmap:1.0.6")
+	implementation("org.hdrhistogram:HdrHistogram:2.1.12")
+
+	/**
+	 * Protobuf
+	 */
+	implementation("com.google.protobuf:protobuf-java:3.25.3")
 
 	/**
 	 * OpenAPI Documentation
@@ -71,6 +86,46 @@ dependencies {
 	testImplementation("org.testcontainers:postgresql")
 }
 
+protobuf {
+	protoc {
+		artifact = "com.google.protobuf:protoc:3.25.3"
+	}
+}
+
+/**
+ * JMH benchmarks (src/jmh), run with ./gradlew jmh
+ */
+jmh {
+	jmhVersion.set("1.37")
+	fork.set(1)
+	warmupIterations.set(3)
+	iterations.set(5)
+}
+
+/**
+ * Concurrent write stress suite (src/stressTest), run with ./gradlew stressTest; tune with
+ * -Dstress.threads, -Dstress.operations, -Dstress.keys and -Dstress.seed
+ */
+val stressTest: SourceSet by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+	runtimeClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+}
+
+configurations[stressTest.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[stressTest.runtimeOnlyConfigurationName].extendsFrom(configurations.testRuntimeOnly.get())
+
+tasks.register<Test>("stressTest") {
+	group = "verification"
+	description = "Fires concurrent writes at a Testcontainers PostgreSQL and checks that no stock is lost."
+	testClassesDirs = stressTest.output.classesDirs
+	classpath = stressTest.runtimeClasspath
+	systemProperties(System.getProperties()
+		.filterKeys { it.toString().startsWith("stress.") }
+		.mapKeys { it.key.toString() })
+	outputs.upToDateWhen { false }
+	shouldRunAfter(tasks.test)
+}
+
 /**
  * JaCoCo settings
  */
@@ -145,3 +200,65 @@ springBoot {
 tasks.bootJar {
 	archiveFileName.set("SocksManagement.jar")
 }
+
+/**
+ * One-shot schema migration for deployments that start with the fast-startup profile
+ */
+tasks.register<JavaExec>("migrate") {
+	group = "application"
+	description = "Applies the Liquibase changelog and records its fingerprint, then exits."
+	classpath = sourceSets.main.get().runtimeClasspath
+	mainClass.set("org.sellsocks.socksmanagement.startup.SchemaMigrationCommand")
+}
+
+/**
+ * Workload capture tools: replay a capture file against a running instance, generate a synthetic one.
+ * Options go through --args, e.g. ./gradlew replayWorkload --args="--log=data/capture/requests.cap --speed=2"
+ */
+tasks.register<JavaExec>("replayWorkload") {
+	group = "application"
+	description = "Replays a request capture against a running instance and reports latency per endpoint."
+	classpath = sourceSets.main.get().runtimeClasspath
+	mainClass.set("org.sellsocks.socksmanagement.capture.WorkloadReplayCommand")
+}
+
+tasks.register<JavaExec>("generateWorkload") {
+	group = "application"
+	description = "Writes a synthetic request capture with a configurable sock popularity skew."
+	classpath = sourceSets.main.get().runtimeClasspath
+	mainClass.set("org.sellsocks.socksmanagement.capture.WorkloadGeneratorCommand")
+}
+
+/**
+ * AppCDS archive from a training run of the fast-startup profile (needs a running, migrated database).
+ * CDS only archives classes loaded from jars, so the application runs from a flat directory of jars, and the
+ * exact class path of the training run is written next to the archive for the runs that use it.
+ */
+val cdsDirectory = layout.buildDirectory.dir("cds")
+
+val cdsLibs by tasks.registering(Sync::class) {
+	from(tasks.jar)
+	from(configurations.runtimeClasspath)
+	into(cdsDirectory.map { it.dir("lib") })
+}
+
+tasks.register<Exec>("cdsArchive") {
+	group = "build"
+	description = "Creates build/cds/app.jsa from a training run of the fast-startup profile."
+	dependsOn(cdsLibs)
+	val archive = cdsDirectory.map { it.file("app.jsa") }
+	val launcher = javaToolchains.launcherFor(java.toolchain)
+	outputs.file(archive)
+	doFirst {
+		val classpath = cdsDirectory.get().dir("lib").asFile.listFiles()!!
+			.map { it.path }
+			.sorted()
+			.joinToString(File.pathSeparator)
+		cdsDirectory.get().file("classpath.txt").asFile.writeText(classpath)
+		commandLine(
+			launcher.get().executablePath.asFile.path, "-XX:ArchiveClassesAtExit=${archive.get().asFile.path}", "-cp", classpath,
+			springBoot.mainClass.get(),
+			"--spring.profiles.active=fast-startup", "--socks.startup.training-run=true"
+		)
+	}
+}
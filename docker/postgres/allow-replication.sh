@@ -0,0 +1,4 @@
+#!/bin/bash
+# Lets the replica stream WAL from the primary; runs only when the primary's data directory is initialized.
+set -e
+echo "host replication all all md5" >> "$PGDATA/pg_hba.conf"
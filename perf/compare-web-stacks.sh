@@ -0,0 +1,77 @@
+#!/bin/bash
+# Compares the servlet and the reactive stack under many keep-alive connections.
+#
+# Starts the application once per stack, pinned to the same CPUs, and drives it with wrk. Reports requests
+# per second, requests per second per core and the p99 latency for every connection count.
+#
+# Requirements: a built jar (./gradlew bootJar), a running database (docker-compose up -d), wrk and taskset.
+#
+# Usage: perf/compare-web-stacks.sh [cpu-list] [duration] [connection counts...]
+#   perf/compare-web-stacks.sh 0-3 60s 1000 5000 10000
+set -euo pipefail
+
+CPUS=${1:-0-3}
+DURATION=${2:-60s}
+shift $(( $# > 2 ? 2 : $# ))
+if [ $# -gt 0 ]; then
+    CONNECTIONS=("$@")
+else
+    CONNECTIONS=(1000 5000 10000)
+fi
+
+JAR=${JAR:-build/libs/SocksManagement.jar}
+PORT=${PORT:-8080}
+THREADS=${THREADS:-8}
+SCRIPT_DIR=$(cd "$(dirname "$0")" && pwd)
+QUERY_URL="http://localhost:${PORT}/api/socks?color=purple&operation=moreThan&cottonPart=25"
+INCOME_URL="http://localhost:${PORT}/api/socks/income"
+
+cores=0
+IFS=',' read -r -a ranges <<< "$CPUS"
+for range in "${ranges[@]}"; do
+    if [[ $range == *-* ]]; then
+        cores=$(( cores + ${range#*-} - ${range%-*} + 1 ))
+    else
+        cores=$(( cores + 1 ))
+    fi
+done
+
+ulimit -n 65535
+
+run_stack() {
+    local stack=$1 profile_args=()
+    [ "$stack" = "reactive" ] && profile_args=(--spring.profiles.active=reactive)
+
+    taskset -c "$CPUS" java -jar "$JAR" --server.port="$PORT" --socks.bulkhead.enabled=false \
+        --server.tomcat.max-connections=20000 \
+        "${profile_args[@]}" > "/tmp/socks-${stack}.log" 2>&1 &
+    local pid=$!
+    until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do sleep 1; done
+
+    # Warm-up, not reported.
+    wrk -t"$THREADS" -c200 -d15s "$QUERY_URL" > /dev/null
+
+    for connections in "${CONNECTIONS[@]}"; do
+        for request in query income; do
+            local output
+            if [ "$request" = "query" ]; then
+                output=$(wrk -t"$THREADS" -c"$connections" -d"$DURATION" --latency "$QUERY_URL")
+            else
+                output=$(wrk -t"$THREADS" -c"$connections" -d"$DURATION" --latency \
+                    -s "$SCRIPT_DIR/income.lua" "$INCOME_URL")
+            fi
+            local rps p99
+            rps=$(awk '/Requests\/sec/ {print $2}' <<< "$output")
+            p99=$(awk '$1 == "99%" {print $2}' <<< "$output")
+            printf "%-9s %-7s %7s %12s %12.0f %10s\n" "$stack" "$request" "$connections" "$rps" \
+                "$(echo "$rps / $cores" | bc -l)" "$p99"
+        done
+    done
+
+    kill "$pid"
+    wait "$pid" || true
+}
+
+printf "%-9s %-7s %7s %12s %12s %10s\n" stack request conns req/s "req/s/core" p99
+run_stack servlet
+run_stack reactive
@@ -0,0 +1,8 @@
+-- wrk script: posts income for a random sock so that writes spread over many rows.
+local colors = { "WHITE", "BLACK", "PINK", "GREEN", "RED", "PURPLE" }
+
+request = function()
+    local body = string.format('{"color":"%s","cottonPart":%d,"quantity":1}',
+        colors[math.random(#colors)], math.random(0, 100))
+    return wrk.format("POST", nil, { ["Content-Type"] = "application/json" }, body)
+end
@@ -0,0 +1,55 @@
+#!/bin/bash
+# Measures the time from JVM launch to the first successful /api/socks response.
+#
+# Compares the default startup, the fast-startup profile and the fast-startup profile with the AppCDS archive,
+# starting each variant several times and reporting the fastest and the median time in milliseconds.
+#
+# Requirements: a built jar (./gradlew bootJar), the CDS archive (./gradlew cdsArchive), a running database that
+# has been migrated (./gradlew migrate) and curl.
+#
+# Usage: perf/startup-time.sh [runs]
+#   perf/startup-time.sh 5
+set -euo pipefail
+
+RUNS=${1:-5}
+JAR=${JAR:-build/libs/SocksManagement.jar}
+CDS_DIR=${CDS_DIR:-build/cds}
+PORT=${PORT:-8080}
+MAIN_CLASS=org.sellsocks.socksmanagement.SocksManagementApplication
+QUERY_URL="http://localhost:${PORT}/api/socks?color=purple&operation=moreThan&cottonPart=25"
+
+time_to_first_response() {
+    local start pid elapsed
+    start=$(date +%s%N)
+    "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$QUERY_URL"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before answering" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed"
+}
+
+measure() {
+    local label=$1
+    shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(time_to_first_response "$@")")
+    done
+    local sorted
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-20s %10s %10s\n' "$label" "${sorted[0]}" "${sorted[$(( RUNS / 2 ))]}"
+}
+
+printf '%-20s %10s %10s\n' "variant" "min ms" "median ms"
+measure "default" java -jar "$JAR"
+measure "fast-startup" java -jar "$JAR" --spring.profiles.active=fast-startup
+measure "fast-startup+cds" java -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -cp "$(cat "$CDS_DIR/classpath.txt")" \
+    "$MAIN_CLASS" --spring.profiles.active=fast-startup
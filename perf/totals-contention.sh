@@ -0,0 +1,59 @@
+#!/bin/bash
+# Measures what the trigger-maintained per-color totals cost concurrent income to one color.
+#
+# Runs perf/totals-income.sql with pgbench without the totals trigger, with a single stripe per color and with
+# the default 16 stripes, and prints transactions per second and the average latency for every client count.
+# The stripe count is read by the trigger from the socks.totals_stripes setting, which the script sets per run.
+#
+# Requirements: pgbench and psql, and a migrated database (docker-compose up -d, then start the application once).
+#
+# Usage: perf/totals-contention.sh [duration-seconds] [client counts...]
+#   perf/totals-contention.sh 30 1 8 32 64
+set -euo pipefail
+
+DURATION=${1:-30}
+shift $(( $# > 0 ? 1 : 0 ))
+if [ $# -gt 0 ]; then
+    CLIENTS=("$@")
+else
+    CLIENTS=(1 8 32 64)
+fi
+
+export PGHOST=${PGHOST:-localhost}
+export PGPORT=${PGPORT:-5434}
+export PGUSER=${PGUSER:-user}
+export PGPASSWORD=${PGPASSWORD:-password}
+export PGDATABASE=${PGDATABASE:-postgres}
+SCRIPT_DIR=$(cd "$(dirname "$0")" && pwd)
+
+# Runs without the trigger leave the totals behind the sock rows, so they are rebuilt afterwards.
+restore() {
+    psql -q -c "ALTER TABLE sock ENABLE TRIGGER trg_sock_color_totals" \
+            -c "ALTER DATABASE \"$PGDATABASE\" RESET socks.totals_stripes"
+    psql -q -1 -c "LOCK TABLE sock IN SHARE MODE" \
+            -c "DELETE FROM sock_color_totals" \
+            -c "INSERT INTO sock_color_totals (color, stripe, quantity) SELECT color, 0, SUM(quantity) FROM sock GROUP BY color"
+}
+trap restore EXIT
+
+run() {
+    local label=$1 clients=$2
+    local output tps latency
+    output=$(pgbench -n -M prepared -c "$clients" -j "$clients" -T "$DURATION" -f "$SCRIPT_DIR/totals-income.sql")
+    tps=$(grep -oP 'tps = \K[0-9.]+' <<< "$output" | head -1)
+    latency=$(grep -oP 'latency average = \K[0-9.]+ ms' <<< "$output")
+    printf '%-12s %8s %12s %14s\n' "$label" "$clients" "$tps" "$latency"
+}
+
+printf '%-12s %8s %12s %14s\n' "variant" "clients" "tps" "latency"
+for clients in "${CLIENTS[@]}"; do
+    psql -q -c "ALTER TABLE sock DISABLE TRIGGER trg_sock_color_totals"
+    run "no-trigger" "$clients"
+    psql -q -c "ALTER TABLE sock ENABLE TRIGGER trg_sock_color_totals"
+
+    for stripes in 1 16; do
+        psql -q -c "ALTER DATABASE \"$PGDATABASE\" SET socks.totals_stripes = $stripes"
+        run "stripes-$stripes" "$clients"
+    done
+done
+
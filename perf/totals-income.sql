@@ -0,0 +1,6 @@
+-- One income to a random cotton percentage of a single color, so that every client updates the same color total.
+\set cotton_part random(0, 100)
+\set quantity random(1, 10)
+INSERT INTO sock (color, cotton_part, quantity)
+VALUES ('BLACK', :cotton_part, :quantity)
+ON CONFLICT (color, cotton_part) DO UPDATE SET quantity = sock.quantity + EXCLUDED.quantity;
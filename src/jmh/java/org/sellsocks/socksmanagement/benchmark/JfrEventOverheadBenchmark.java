@@ -0,0 +1,76 @@
+package org.sellsocks.socksmanagement.benchmark;
+
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sellsocks.socksmanagement.jfr.StockMovementEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of emitting a {@link StockMovementEvent} around a small unit of work, compared with the work alone. With
+ * {@code recording=false} no recording has the event enabled and the two should not differ measurably.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JfrEventOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private Recording activeRecording;
+    private int delta;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (recording) {
+            activeRecording = new Recording();
+            activeRecording.enable(StockMovementEvent.class).withoutThreshold();
+            activeRecording.setToDisk(false);
+            activeRecording.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (activeRecording != null) {
+            activeRecording.close();
+        }
+    }
+
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        blackhole.consume(work());
+    }
+
+    @Benchmark
+    public void withEvent(Blackhole blackhole) {
+        StockMovementEvent event = new StockMovementEvent();
+        event.begin();
+        int result = work();
+        event.end();
+        if (event.shouldCommit()) {
+            event.setColor("BLACK");
+            event.setCottonPart(30);
+            event.setDelta(result);
+            event.setMovementType("INCOME");
+            event.commit();
+        }
+        blackhole.consume(result);
+    }
+
+    private int work() {
+        Blackhole.consumeCPU(16);
+        return ++delta;
+    }
+}
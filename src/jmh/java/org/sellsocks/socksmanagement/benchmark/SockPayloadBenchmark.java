@@ -0,0 +1,71 @@
+package org.sellsocks.socksmanagement.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sellsocks.socksmanagement.converter.SockProtobufHttpMessageConverter;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.mapper.SockMapperImpl;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.proto.SockMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path cost of an income request body in JSON and in protobuf: decode the body, map it to the entity,
+ * and encode the response. Body sizes are logged once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SockPayloadBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SockPayloadBenchmark.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SockMapper sockMapper = new SockMapperImpl();
+
+    private byte[] jsonBody;
+    private byte[] protobufBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SockDto request = SockDto.builder()
+                .color("purple")
+                .cottonPart(45)
+                .quantity(12)
+                .build();
+        jsonBody = objectMapper.writeValueAsBytes(request);
+        protobufBody = SockMessage.newBuilder()
+                .setColorValue(5)
+                .setCottonPart(45)
+                .setQuantity(12)
+                .build()
+                .toByteArray();
+        log.info("Request body bytes: json={}, protobuf={}", jsonBody.length, protobufBody.length);
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        SockDto request = objectMapper.readValue(jsonBody, SockDto.class);
+        Sock sock = sockMapper.toSockEntity(request);
+        return objectMapper.writeValueAsBytes(sockMapper.toSockDto(sock));
+    }
+
+    @Benchmark
+    public byte[] protobuf() throws IOException {
+        SockDto request = SockProtobufHttpMessageConverter.toSockDto(SockMessage.parseFrom(protobufBody));
+        Sock sock = sockMapper.toSockEntity(request);
+        return SockProtobufHttpMessageConverter.toSockMessage(sockMapper.toSockDto(sock)).toByteArray();
+    }
+}
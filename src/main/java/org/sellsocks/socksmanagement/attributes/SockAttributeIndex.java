@@ -0,0 +1,366 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.AttributeIndexProperties;
+import org.sellsocks.socksmanagement.config.NodeApplicationName;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.routing.RoutingContext;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Opt-in in-memory index of every sock that answers quantity sums and sorted lists, including conjunctive
+ * attribute filters, without a database round trip. It is built from the database on start and then every
+ * refresh interval. Rows written through JPA on this node are re-read by id on a background thread once their
+ * transaction has committed, so the writing request never takes a second connection; until every committed
+ * change has been applied, {@link #isReady()} is false and reads go to the database.
+ * <p>
+ * The index only sees the writes of its own node, so it supports a single node writing to the database: it
+ * refuses to start while another node's sessions are connected, and switches itself off when one shows up later.
+ */
+@Component
+@Slf4j
+public class SockAttributeIndex implements InitializingBean {
+
+    private static final String SELECT_SOCKS = "SELECT id, warehouse, color, cotton_part, quantity, attributes FROM sock";
+    private static final String SELECT_SOCKS_BY_ID = SELECT_SOCKS + " WHERE id = ANY (?)";
+    private static final int REFRESH_BATCH_SIZE = 1000;
+    private static final String SELECT_OTHER_NODES = "SELECT DISTINCT application_name FROM pg_stat_activity " +
+            "WHERE datname = current_database() AND application_name LIKE ? AND application_name <> ?";
+
+    private final AttributeIndexProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final NodeApplicationName nodeApplicationName;
+    private final Timer rebuildTimer;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "attribute-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    /**
+     * Serializes re-reads of changed rows, so that an older read is never applied over a newer one.
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> refreshedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    /**
+     * Counts the calls of {@link #markChanged}; {@code changesApplied} is the count the index has caught up with.
+     */
+    private final AtomicLong changesMarked = new AtomicLong();
+    private volatile long changesApplied;
+
+    private SockBitmapIndex index;
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+
+    public SockAttributeIndex(AttributeIndexProperties properties,
+                              JdbcTemplate jdbcTemplate,
+                              NodeApplicationName nodeApplicationName,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeApplicationName = nodeApplicationName;
+        this.rebuildTimer = Timer.builder("socks.attribute-index.rebuild")
+                .description("Time to build the sock attribute index from the database")
+                .register(meterRegistry);
+        Gauge.builder("socks.attribute-index.rows", this, SockAttributeIndex::size)
+                .description("Socks held by the attribute index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> otherNodes = otherNodes();
+        if (!otherNodes.isEmpty()) {
+            log.error("Sessions of other nodes are connected to the database: {}", otherNodes);
+            throw new IllegalStateException("The sock attribute index only supports a single node; " +
+                    "disable socks.attribute-index.enabled when several nodes share the database");
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Whether reads can be answered from the index: it is built, no other node writes to the database and every
+     * change committed on this node has been applied.
+     */
+    public boolean isReady() {
+        return properties.isEnabled() && ready && changesApplied == changesMarked.get();
+    }
+
+    /**
+     * Switches the index off when sessions of another node are connected to the database; the next rebuild
+     * switches it on again once they are gone.
+     */
+    public void checkSingleNode() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> otherNodes = otherNodes();
+        if (!otherNodes.isEmpty() && ready) {
+            ready = false;
+            log.error("Sessions of other nodes are connected to the database: {}; the sock attribute index is " +
+                    "switched off and reads go to the database", otherNodes);
+        }
+    }
+
+    public int sumQuantity(String warehouse, SockColor color, CriteriaOperation operation, int cottonPart,
+                           Map<String, String> attributes) {
+        indexLock.readLock().lock();
+        try {
+            return Math.toIntExact(index.sumQuantity(index.select(warehouse, color,
+                    operation.lowestMatch(cottonPart), operation.highestMatch(cottonPart), attributes)));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    public List<Sock> find(String warehouse, SockColor color, Integer cottonPartMin, Integer cottonPartMax,
+                           Map<String, String> attributes, Comparator<Sock> order) {
+        List<Sock> socks;
+        indexLock.readLock().lock();
+        try {
+            socks = index.toSocks(index.select(warehouse, color, cottonPartMin != null ? cottonPartMin : 0,
+                    cottonPartMax != null ? cottonPartMax : 100, attributes));
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        socks.sort(order);
+        return socks;
+    }
+
+    /**
+     * Loads every sock into a new index and swaps it in. Rows changed while the table is read are read
+     * again before the swap, so no committed change is lost.
+     */
+    public void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> otherNodes = otherNodes();
+        if (!otherNodes.isEmpty()) {
+            ready = false;
+            log.warn("Sessions of other nodes are connected to the database: {}; the sock attribute index stays " +
+                    "switched off", otherNodes);
+            return;
+        }
+        refreshedDuringRebuild.clear();
+        rebuilding = true;
+        try {
+            SockBitmapIndex rebuilt = rebuildTimer.record(this::loadAll);
+            refreshLock.lock();
+            try {
+                long marked = changesMarked.get();
+                Set<Long> changed = new HashSet<>(refreshedDuringRebuild);
+                changed.addAll(changedIds);
+                changedIds.removeAll(changed);
+                try {
+                    apply(rebuilt, changed, fetch(changed));
+                } catch (DataAccessException e) {
+                    changedIds.addAll(changed);
+                    throw e;
+                }
+                indexLock.writeLock().lock();
+                try {
+                    index = rebuilt;
+                } finally {
+                    indexLock.writeLock().unlock();
+                }
+                changesApplied = Math.max(changesApplied, marked);
+                ready = true;
+                rebuilding = false;
+            } finally {
+                refreshLock.unlock();
+            }
+            log.info("Sock attribute index rebuilt with {} socks", rebuilt.size());
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /**
+     * Hands the given rows to the refresh thread, which re-reads them and applies them to the index. Called
+     * after the transaction that changed them has committed; reads go to the database until they are applied.
+     */
+    public void markChanged(Collection<Long> ids) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        changedIds.addAll(ids);
+        changesMarked.incrementAndGet();
+        if (refreshScheduled.compareAndSet(false, true)) {
+            try {
+                refresher.execute(this::refreshPending);
+            } catch (RejectedExecutionException e) {
+                log.debug("Attribute index refresh skipped, the application is shutting down");
+            }
+        }
+    }
+
+    private void refreshPending() {
+        refreshScheduled.set(false);
+        refreshLock.lock();
+        try {
+            long marked = changesMarked.get();
+            if (refreshChanged()) {
+                changesApplied = Math.max(changesApplied, marked);
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code false} when the rows could not be read; they stay marked for the next refresh or rebuild,
+     * and reads go to the database until then.
+     */
+    private boolean refreshChanged() {
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> pending = changedIds.iterator();
+        while (pending.hasNext()) {
+            ids.add(pending.next());
+            pending.remove();
+        }
+        if (rebuilding) {
+            refreshedDuringRebuild.addAll(ids);
+        }
+        if (index == null) {
+            return true;
+        }
+        Map<Long, Sock> rows;
+        try {
+            rows = fetch(ids);
+        } catch (DataAccessException e) {
+            log.warn("Failed to refresh {} socks in the attribute index, will retry: {}", ids.size(), e.getMessage());
+            changedIds.addAll(ids);
+            return false;
+        }
+        indexLock.writeLock().lock();
+        try {
+            apply(index, ids, rows);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    private List<String> otherNodes() {
+        return RoutingContext.onPrimary(() -> jdbcTemplate.queryForList(SELECT_OTHER_NODES, String.class,
+                NodeApplicationName.PREFIX + "%", nodeApplicationName.getValue()));
+    }
+
+    private SockBitmapIndex loadAll() {
+        SockBitmapIndex loaded = new SockBitmapIndex();
+        RoutingContext.onPrimary(() -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // The driver streams rows in fetch-size batches only inside a transaction.
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_SOCKS)) {
+                statement.setFetchSize(properties.getFetchSize());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        loaded.put(mapSock(resultSet));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        }));
+        return loaded;
+    }
+
+    private Map<Long, Sock> fetch(Collection<Long> ids) {
+        Map<Long, Sock> rows = new HashMap<>();
+        List<Long> batch = new ArrayList<>(Math.min(ids.size(), REFRESH_BATCH_SIZE));
+        Iterator<Long> remaining = ids.iterator();
+        while (remaining.hasNext()) {
+            batch.add(remaining.next());
+            if (batch.size() == REFRESH_BATCH_SIZE || !remaining.hasNext()) {
+                Object[] batchIds = batch.toArray();
+                RoutingContext.onPrimary(() -> jdbcTemplate.query(SELECT_SOCKS_BY_ID,
+                        statement -> statement.setArray(1,
+                                statement.getConnection().createArrayOf("bigint", batchIds)),
+                        (resultSet, rowNumber) -> mapSock(resultSet)))
+                        .forEach(sock -> rows.put(sock.getId(), sock));
+                batch.clear();
+            }
+        }
+        return rows;
+    }
+
+    private static void apply(SockBitmapIndex target, Collection<Long> ids, Map<Long, Sock> rows) {
+        for (Long id : ids) {
+            Sock sock = rows.get(id);
+            if (sock != null) {
+                target.put(sock);
+            } else {
+                target.remove(id);
+            }
+        }
+    }
+
+    private static Sock mapSock(ResultSet resultSet) throws SQLException {
+        return Sock.builder()
+                .id(resultSet.getLong("id"))
+                .warehouse(resultSet.getString("warehouse"))
+                .color(SockColor.valueOf(resultSet.getString("color")))
+                .cottonPart(resultSet.getInt("cotton_part"))
+                .quantity(resultSet.getInt("quantity"))
+                .attributes(resultSet.getString("attributes"))
+                .build();
+    }
+
+    private int size() {
+        indexLock.readLock().lock();
+        try {
+            return index != null ? index.size() : 0;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical text form of the extra SKU attributes stored in {@code sock.attributes}: the pairs sorted by name,
+ * each written as {@code ;name=value}, followed by a closing {@code ;}, e.g. {@code ;brand=acme;size=M;}. A
+ * sock without attributes is the empty string. Every pair is enclosed in separators, so the SKUs carrying a
+ * given pair are found with a plain {@code LIKE '%;name=value;%'}.
+ */
+public final class SockAttributes {
+
+    public static final String NONE = "";
+
+    private static final int MAX_LENGTH = 512;
+    private static final Pattern NAME = Pattern.compile("[a-z][a-z0-9_]{0,31}");
+    private static final Pattern VALUE = Pattern.compile("[A-Za-z0-9][A-Za-z0-9 ._/+-]{0,63}");
+
+    private SockAttributes() {
+    }
+
+    /**
+     * Validates the attributes and returns their canonical form. Names are case-insensitive and stored in
+     * lower case; values keep their case.
+     */
+    public static String format(Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return NONE;
+        }
+        Map<String, String> sorted = new TreeMap<>();
+        attributes.forEach((name, value) -> {
+            String canonicalName = validateName(name);
+            if (sorted.put(canonicalName, validateValue(canonicalName, value)) != null) {
+                throw new InvalidSockParameterException("Attribute " + canonicalName + " is given twice");
+            }
+        });
+
+        StringBuilder canonical = new StringBuilder();
+        sorted.forEach((name, value) -> canonical.append(';').append(name).append('=').append(value));
+        canonical.append(';');
+        if (canonical.length() > MAX_LENGTH) {
+            throw new InvalidSockParameterException("Attributes must not exceed " + MAX_LENGTH + " characters");
+        }
+        return canonical.toString();
+    }
+
+    /**
+     * Parses the canonical form back into attributes ordered by name.
+     */
+    public static Map<String, String> parse(String canonical) {
+        if (canonical == null || canonical.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (String pair : pairs(canonical)) {
+            int separator = pair.indexOf('=');
+            attributes.put(pair.substring(0, separator), pair.substring(separator + 1));
+        }
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * Splits the canonical form into its {@code name=value} pairs.
+     */
+    public static List<String> pairs(String canonical) {
+        List<String> pairs = new ArrayList<>();
+        int start = 1;
+        int end;
+        while (start < canonical.length() && (end = canonical.indexOf(';', start)) > 0) {
+            pairs.add(canonical.substring(start, end));
+            start = end + 1;
+        }
+        return pairs;
+    }
+
+    /**
+     * Parses request filters written as {@code name:value}.
+     */
+    public static Map<String, String> parseFilters(List<String> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> attributes = new TreeMap<>();
+        for (String filter : filters) {
+            int separator = filter.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidSockParameterException("Invalid attribute filter: " + filter +
+                        ". Expected name:value");
+            }
+            String name = validateName(filter.substring(0, separator));
+            String value = validateValue(name, filter.substring(separator + 1));
+            if (attributes.put(name, value) != null) {
+                throw new InvalidSockParameterException("Attribute " + name + " is given twice");
+            }
+        }
+        return attributes;
+    }
+
+    public static String pair(String name, String value) {
+        return name + '=' + value;
+    }
+
+    /**
+     * Returns the {@code LIKE} pattern, with {@code \} as the escape character, that matches canonical forms
+     * containing the pair.
+     */
+    public static String likePattern(String name, String value) {
+        return "%;" + escapeLike(pair(name, value)) + ";%";
+    }
+
+    private static String validateName(String name) {
+        String canonicalName = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        if (!NAME.matcher(canonicalName).matches()) {
+            throw new InvalidSockParameterException("Invalid attribute name: " + name +
+                    ". Use up to 32 letters, digits and underscores, starting with a letter");
+        }
+        return canonicalName;
+    }
+
+    private static String validateValue(String name, String value) {
+        String trimmed = value == null ? "" : value.trim();
+        if (!VALUE.matcher(trimmed).matches()) {
+            throw new InvalidSockParameterException("Invalid value of attribute " + name + ": " + value +
+                    ". Use up to 64 letters, digits, spaces and . _ / + -");
+        }
+        return trimmed;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,179 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sock rows in slot arrays plus one compressed bitmap of slots per warehouse, per color, per cotton percentage
+ * and per attribute pair. A filter is the intersection of the bitmaps it names, so a conjunction of any number of
+ * attributes costs a few word-wise ANDs regardless of how many rows match each of them. Slots of removed rows
+ * are reused. Not thread-safe; {@link SockAttributeIndex} guards it.
+ */
+final class SockBitmapIndex {
+
+    private static final SockColor[] COLORS = SockColor.values();
+    private static final int COTTON_PARTS = 101;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] warehouses = new String[INITIAL_CAPACITY];
+    private SockColor[] colors = new SockColor[INITIAL_CAPACITY];
+    private int[] cottonParts = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private String[] attributes = new String[INITIAL_CAPACITY];
+    private int nextSlot;
+
+    private final RoaringBitmap freeSlots = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byWarehouse = new HashMap<>();
+    private final RoaringBitmap[] byColor = new RoaringBitmap[COLORS.length];
+    private final RoaringBitmap[] byCottonPart = new RoaringBitmap[COTTON_PARTS];
+    private final Map<String, RoaringBitmap> byAttribute = new HashMap<>();
+
+    SockBitmapIndex() {
+        Arrays.setAll(byColor, ignored -> new RoaringBitmap());
+        Arrays.setAll(byCottonPart, ignored -> new RoaringBitmap());
+    }
+
+    int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Adds the row or replaces the indexed state of a row with the same id.
+     */
+    void put(Sock sock) {
+        Integer existing = slotsById.get(sock.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            unindex(slot);
+        } else {
+            slot = allocateSlot();
+            slotsById.put(sock.getId(), slot);
+        }
+        ids[slot] = sock.getId();
+        warehouses[slot] = sock.getWarehouse();
+        colors[slot] = sock.getColor();
+        cottonParts[slot] = sock.getCottonPart();
+        quantities[slot] = sock.getQuantity();
+        attributes[slot] = sock.getAttributes();
+
+        byWarehouse.computeIfAbsent(sock.getWarehouse(), ignored -> new RoaringBitmap()).add(slot);
+        byColor[sock.getColor().ordinal()].add(slot);
+        byCottonPart[sock.getCottonPart()].add(slot);
+        for (String pair : SockAttributes.pairs(sock.getAttributes())) {
+            byAttribute.computeIfAbsent(pair, ignored -> new RoaringBitmap()).add(slot);
+        }
+    }
+
+    void remove(long id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        unindex(slot);
+        warehouses[slot] = null;
+        attributes[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    /**
+     * Returns the slots of the rows of the warehouse matching every given condition; a {@code null} color
+     * matches all colors.
+     */
+    RoaringBitmap select(String warehouse, SockColor color, int cottonPartMin, int cottonPartMax,
+                         Map<String, String> attributeFilter) {
+        int min = Math.max(cottonPartMin, 0);
+        int max = Math.min(cottonPartMax, COTTON_PARTS - 1);
+        RoaringBitmap inWarehouse = byWarehouse.get(warehouse);
+        if (min > max || inWarehouse == null) {
+            return new RoaringBitmap();
+        }
+
+        RoaringBitmap rows = color != null
+                ? RoaringBitmap.and(inWarehouse, byColor[color.ordinal()])
+                : inWarehouse.clone();
+        if (min > 0 || max < COTTON_PARTS - 1) {
+            rows.and(FastAggregation.or(Arrays.asList(byCottonPart).subList(min, max + 1).iterator()));
+        }
+        for (Map.Entry<String, String> filter : attributeFilter.entrySet()) {
+            RoaringBitmap withPair = byAttribute.get(SockAttributes.pair(filter.getKey(), filter.getValue()));
+            if (withPair == null) {
+                return new RoaringBitmap();
+            }
+            rows.and(withPair);
+        }
+        return rows;
+    }
+
+    long sumQuantity(RoaringBitmap rows) {
+        long sum = 0;
+        IntIterator slots = rows.getIntIterator();
+        while (slots.hasNext()) {
+            sum += quantities[slots.next()];
+        }
+        return sum;
+    }
+
+    List<Sock> toSocks(RoaringBitmap rows) {
+        List<Sock> socks = new ArrayList<>(rows.getCardinality());
+        IntIterator slots = rows.getIntIterator();
+        while (slots.hasNext()) {
+            int slot = slots.next();
+            socks.add(Sock.builder()
+                    .id(ids[slot])
+                    .warehouse(warehouses[slot])
+                    .color(colors[slot])
+                    .cottonPart(cottonParts[slot])
+                    .quantity(quantities[slot])
+                    .attributes(attributes[slot])
+                    .build());
+        }
+        return socks;
+    }
+
+    private void unindex(int slot) {
+        RoaringBitmap inWarehouse = byWarehouse.get(warehouses[slot]);
+        inWarehouse.remove(slot);
+        if (inWarehouse.isEmpty()) {
+            byWarehouse.remove(warehouses[slot]);
+        }
+        byColor[colors[slot].ordinal()].remove(slot);
+        byCottonPart[cottonParts[slot]].remove(slot);
+        for (String pair : SockAttributes.pairs(attributes[slot])) {
+            RoaringBitmap withPair = byAttribute.get(pair);
+            withPair.remove(slot);
+            if (withPair.isEmpty()) {
+                byAttribute.remove(pair);
+            }
+        }
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            int slot = freeSlots.first();
+            freeSlots.remove(slot);
+            return slot;
+        }
+        if (nextSlot == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            warehouses = Arrays.copyOf(warehouses, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            cottonParts = Arrays.copyOf(cottonParts, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            attributes = Arrays.copyOf(attributes, capacity);
+        }
+        return nextSlot++;
+    }
+}
@@ -0,0 +1,68 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import lombok.RequiredArgsConstructor;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the ids of the socks written in a transaction and hands them to the {@link SockAttributeIndex}
+ * once the transaction has committed; rolled back writes never reach the index. The index is looked up lazily
+ * because Hibernate creates entity listeners while the entity manager factory is still being built.
+ */
+@Component
+@RequiredArgsConstructor
+public class SockIndexEntityListener {
+
+    private final ObjectProvider<SockAttributeIndex> attributeIndex;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onSockWritten(Sock sock) {
+        SockAttributeIndex index = attributeIndex.getIfAvailable();
+        if (index == null || !index.isEnabled() || sock.getId() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index.markChanged(List.of(sock.getId()));
+            return;
+        }
+        ChangedSocks changed = (ChangedSocks) TransactionSynchronizationManager.getResource(ChangedSocks.class);
+        if (changed == null) {
+            changed = new ChangedSocks(index);
+            TransactionSynchronizationManager.bindResource(ChangedSocks.class, changed);
+            TransactionSynchronizationManager.registerSynchronization(changed);
+        }
+        changed.ids.add(sock.getId());
+    }
+
+    private static class ChangedSocks implements TransactionSynchronization {
+
+        private final SockAttributeIndex index;
+        private final Set<Long> ids = new LinkedHashSet<>();
+
+        ChangedSocks(SockAttributeIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void afterCommit() {
+            index.markChanged(ids);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangedSocks.class);
+        }
+    }
+}
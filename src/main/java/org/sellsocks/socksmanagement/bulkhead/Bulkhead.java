@@ -0,0 +1,97 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of requests of one workload running at the same time. A request that does not get a
+ * permit within {@code maxWait} is rejected instead of queued. Both limits can be changed while running.
+ */
+public class Bulkhead {
+
+    private final Workload workload;
+    private final ResizableSemaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private int maxConcurrent;
+    private volatile Duration maxWait;
+
+    public Bulkhead(Workload workload, int maxConcurrent, Duration maxWait) {
+        this.workload = workload;
+        this.permits = new ResizableSemaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+    }
+
+    public boolean tryAcquire() {
+        boolean acquired;
+        if (maxWait.isZero()) {
+            acquired = permits.tryAcquire();
+        } else {
+            try {
+                acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        }
+        if (acquired) {
+            inFlight.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * Changes the limit; requests already running above a lowered limit finish normally.
+     */
+    public synchronized void resize(int newMaxConcurrent, Duration newMaxWait) {
+        if (newMaxConcurrent < 1) {
+            throw new IllegalArgumentException("Bulkhead limit must be positive");
+        }
+        int delta = newMaxConcurrent - maxConcurrent;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+        maxConcurrent = newMaxConcurrent;
+        if (newMaxWait != null) {
+            maxWait = newMaxWait;
+        }
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/bulkheads}: shows the bulkheads and changes their limits at runtime.
+ */
+@Endpoint(id = "bulkheads")
+@RequiredArgsConstructor
+public class BulkheadEndpoint {
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    @ReadOperation
+    public Map<Workload, BulkheadState> bulkheads() {
+        Map<Workload, BulkheadState> states = new LinkedHashMap<>();
+        bulkheadRegistry.getAll().forEach(bulkhead -> states.put(bulkhead.getWorkload(), BulkheadState.of(bulkhead)));
+        return states;
+    }
+
+    @WriteOperation
+    public BulkheadState resize(@Selector Workload workload, int maxConcurrent, @Nullable Duration maxWait) {
+        bulkheadRegistry.resize(workload, maxConcurrent, maxWait);
+        return BulkheadState.of(bulkheadRegistry.get(workload));
+    }
+
+    public record BulkheadState(int maxConcurrent, Duration maxWait, int inFlight) {
+
+        static BulkheadState of(Bulkhead bulkhead) {
+            return new BulkheadState(bulkhead.getMaxConcurrent(), bulkhead.getMaxWait(), bulkhead.getInFlight());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.BulkheadProperties;
+import org.sellsocks.socksmanagement.exception.BulkheadFullException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Takes a permit from the handler's bulkhead for the whole request. The bulkheads limit concurrent requests,
+ * not database connections: all workloads share one connection pool, and nothing stops a request from
+ * holding more than one connection.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String ACQUIRED_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".ACQUIRED";
+
+    private final BulkheadRegistry bulkheadRegistry;
+    private final BulkheadProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Workload workload = workloadOf(request, handlerMethod);
+        Bulkhead bulkhead = bulkheadRegistry.get(workload);
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRegistry.recordRejection(workload);
+            log.warn("{} bulkhead is full ({} in flight), rejecting {} {}",
+                    workload, bulkhead.getInFlight(), request.getMethod(), request.getRequestURI());
+            throw new BulkheadFullException(workload, properties.getRetryAfter());
+        }
+        request.setAttribute(ACQUIRED_ATTRIBUTE, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object bulkhead = request.getAttribute(ACQUIRED_ATTRIBUTE);
+        if (bulkhead != null) {
+            request.removeAttribute(ACQUIRED_ATTRIBUTE);
+            ((Bulkhead) bulkhead).release();
+        }
+    }
+
+    private Workload workloadOf(HttpServletRequest request, HandlerMethod handlerMethod) {
+        BulkheadWorkload annotation = handlerMethod.getMethodAnnotation(BulkheadWorkload.class);
+        if (annotation != null) {
+            return annotation.value();
+        }
+        return "GET".equals(request.getMethod()) ? Workload.READ : Workload.WRITE;
+    }
+}
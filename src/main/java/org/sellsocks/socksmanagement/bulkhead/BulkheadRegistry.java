@@ -0,0 +1,60 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.BulkheadProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class BulkheadRegistry {
+
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+    private final Map<Workload, Counter> rejections = new EnumMap<>(Workload.class);
+
+    public BulkheadRegistry(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        for (Workload workload : Workload.values()) {
+            BulkheadProperties.Limit limit = properties.limitFor(workload);
+            Bulkhead bulkhead = new Bulkhead(workload, limit.getMaxConcurrent(), limit.getMaxWait());
+            bulkheads.put(workload, bulkhead);
+
+            String tag = workload.name().toLowerCase();
+            Gauge.builder("socks.bulkhead.in.flight", bulkhead, Bulkhead::getInFlight)
+                    .description("Requests currently holding a bulkhead permit")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            Gauge.builder("socks.bulkhead.limit", bulkhead, Bulkhead::getMaxConcurrent)
+                    .description("Maximum concurrent requests allowed by the bulkhead")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            rejections.put(workload, Counter.builder("socks.bulkhead.rejected")
+                    .description("Requests rejected because the bulkhead was full")
+                    .tag("workload", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    public Bulkhead get(Workload workload) {
+        return bulkheads.get(workload);
+    }
+
+    public Collection<Bulkhead> getAll() {
+        return bulkheads.values();
+    }
+
+    public void recordRejection(Workload workload) {
+        rejections.get(workload).increment();
+    }
+
+    public void resize(Workload workload, int maxConcurrent, Duration maxWait) {
+        log.info("Resizing {} bulkhead: maxConcurrent={}, maxWait={}", workload, maxConcurrent, maxWait);
+        bulkheads.get(workload).resize(maxConcurrent, maxWait);
+    }
+}
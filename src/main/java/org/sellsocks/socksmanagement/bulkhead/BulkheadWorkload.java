@@ -0,0 +1,17 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a handler to a bulkhead. Handlers without it are assigned by HTTP method: {@code GET} to
+ * {@link Workload#READ}, everything else to {@link Workload#WRITE}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BulkheadWorkload {
+
+    Workload value();
+}
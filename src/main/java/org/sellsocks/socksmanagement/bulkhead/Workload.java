@@ -0,0 +1,7 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+public enum Workload {
+    IMPORT,
+    WRITE,
+    READ
+}
@@ -0,0 +1,113 @@
+package org.sellsocks.socksmanagement.capture;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of a capture file, shared by the recorder, the generator and the replayer.
+ *
+ * <p>File header: {@code magic(4) | version(1) | startEpochMillis(8)}. Each record follows as
+ * {@code offsetMicros(varint) | method(1) | path | query | headerCount(varint) | (name | value)* | flags(1) |
+ * body}, where strings and the body are a varint length followed by the bytes, strings in UTF-8. The only flag
+ * is bit 0, set when the body is complete. A record cut short by a crash ends the file.
+ */
+final class CaptureLog {
+
+    static final int MAGIC = 0x534B4350;
+    static final int VERSION = 1;
+    static final String FILE_SUFFIX = ".cap";
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "PATCH", "DELETE", "HEAD", "OPTIONS"};
+    private static final int FLAG_BODY_COMPLETE = 1;
+
+    private CaptureLog() {
+    }
+
+    static void writeRecord(DataOutput out, CapturedRequest request) throws IOException {
+        writeVarLong(out, request.offsetMicros());
+        out.writeByte(methodCode(request.method()));
+        writeString(out, request.path());
+        writeString(out, request.query());
+        writeVarLong(out, request.headers().size());
+        for (var header : request.headers().entrySet()) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+        out.writeByte(request.bodyComplete() ? FLAG_BODY_COMPLETE : 0);
+        writeVarLong(out, request.body().length);
+        out.write(request.body());
+    }
+
+    static int methodCode(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported HTTP method: " + method);
+    }
+
+    static String method(int code) throws IOException {
+        if (code < 0 || code >= METHODS.length) {
+            throw new IOException("Unknown HTTP method code: " + code);
+        }
+        return METHODS[code];
+    }
+
+    static boolean isBodyComplete(int flags) {
+        return (flags & FLAG_BODY_COMPLETE) != 0;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt length: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        return readVarLong(in, in.readUnsignedByte());
+    }
+
+    /**
+     * Continues a varint whose first byte the caller has already read, which is how the reader tells a clean
+     * end of file from a truncated record.
+     */
+    static long readVarLong(DataInput in, int firstByte) throws IOException {
+        long value = firstByte & 0x7F;
+        int shift = 7;
+        int b = firstByte;
+        while ((b & 0x80) != 0) {
+            if (shift > 63) {
+                throw new IOException("Corrupt varint");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+package org.sellsocks.socksmanagement.capture;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a capture file record by record, so a replay of a large capture holds one request in memory at a time.
+ */
+@Slf4j
+public class CaptureLogReader implements Closeable {
+
+    private final Path file;
+    private final DataInputStream in;
+    private final long startEpochMillis;
+
+    public CaptureLogReader(Path file) throws IOException {
+        this.file = file;
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        if (in.readInt() != CaptureLog.MAGIC) {
+            in.close();
+            throw new IOException(file + " is not a capture file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != CaptureLog.VERSION) {
+            in.close();
+            throw new IOException("Unsupported capture file version " + version + " in " + file);
+        }
+        startEpochMillis = in.readLong();
+    }
+
+    public long startEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * Returns the next request, or {@code null} at the end of the file or of its last complete record.
+     */
+    public CapturedRequest next() throws IOException {
+        int firstByte = in.read();
+        if (firstByte < 0) {
+            return null;
+        }
+        try {
+            long offsetMicros = CaptureLog.readVarLong(in, firstByte);
+            String method = CaptureLog.method(in.readUnsignedByte());
+            String path = CaptureLog.readString(in);
+            String query = CaptureLog.readString(in);
+            long headerCount = CaptureLog.readVarLong(in);
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (long i = 0; i < headerCount; i++) {
+                headers.put(CaptureLog.readString(in), CaptureLog.readString(in));
+            }
+            boolean bodyComplete = CaptureLog.isBodyComplete(in.readUnsignedByte());
+            byte[] body = CaptureLog.readBytes(in);
+            return new CapturedRequest(offsetMicros, method, path, query, headers, body, bodyComplete);
+        } catch (EOFException e) {
+            log.warn("Capture file {} ends with a truncated record", file);
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
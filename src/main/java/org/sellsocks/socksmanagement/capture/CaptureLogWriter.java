@@ -0,0 +1,72 @@
+package org.sellsocks.socksmanagement.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes a capture file in the {@link CaptureLog} layout. Not thread-safe: the recorder writes from its own
+ * thread and the generator from the main one.
+ */
+public class CaptureLogWriter implements Closeable {
+
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+
+    public CaptureLogWriter(Path file, long startEpochMillis) throws IOException {
+        counter = new CountingOutputStream(Files.newOutputStream(file, CREATE_NEW, WRITE));
+        out = new DataOutputStream(new BufferedOutputStream(counter, 1 << 16));
+        out.writeInt(CaptureLog.MAGIC);
+        out.writeByte(CaptureLog.VERSION);
+        out.writeLong(startEpochMillis);
+    }
+
+    public void write(CapturedRequest request) throws IOException {
+        CaptureLog.writeRecord(out, request);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Bytes handed to the file so far, not counting those still buffered.
+     */
+    public long bytesWritten() {
+        return counter.count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
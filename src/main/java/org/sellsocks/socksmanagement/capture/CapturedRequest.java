@@ -0,0 +1,12 @@
+package org.sellsocks.socksmanagement.capture;
+
+import java.util.Map;
+
+/**
+ * One recorded API request. {@code offsetMicros} is the arrival time relative to the start of the capture;
+ * {@code bodyComplete} is false when the body was larger than the capture limit or not read through the
+ * request, as with multipart uploads, so the request cannot be replayed faithfully.
+ */
+public record CapturedRequest(long offsetMicros, String method, String path, String query,
+                              Map<String, String> headers, byte[] body, boolean bodyComplete) {
+}
@@ -0,0 +1,54 @@
+package org.sellsocks.socksmanagement.capture;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code --name=value} arguments of the capture command-line tools. Unknown names are rejected, so a typo does
+ * not silently fall back to a default.
+ */
+final class CommandOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    CommandOptions(String[] args, Set<String> names) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!names.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + ", expected one of " + names);
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+    }
+
+    String required(String name) {
+        String value = values.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return value;
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
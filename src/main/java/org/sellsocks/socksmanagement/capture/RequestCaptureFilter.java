@@ -0,0 +1,79 @@
+package org.sellsocks.socksmanagement.capture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the method, path, query, body and arrival time of every request it sees. The body is copied as the
+ * controller reads it rather than read ahead, so the request is served exactly as without the filter, and the
+ * record is handed to the {@link RequestRecorder} once the response is done. The arrival is registered with
+ * the recorder up front, so that the capture file keeps arrival order even though requests finish out of order.
+ */
+public class RequestCaptureFilter extends OncePerRequestFilter {
+
+    /**
+     * Headers that change how the sock API handles a request; all others are left out of the capture.
+     */
+    static final List<String> RECORDED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.ACCEPT, "Idempotency-Key");
+
+    private final RequestRecorder recorder;
+    private final int maxBodySize;
+
+    public RequestCaptureFilter(RequestRecorder recorder, int maxBodySize) {
+        this.recorder = recorder;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long offsetMicros = recorder.arrive();
+        BodyCachingRequest cachingRequest = new BodyCachingRequest(request, maxBodySize);
+        try {
+            chain.doFilter(cachingRequest, response);
+        } finally {
+            recorder.record(toCapturedRequest(cachingRequest, offsetMicros));
+        }
+    }
+
+    private static CapturedRequest toCapturedRequest(BodyCachingRequest request, long offsetMicros) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : RECORDED_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        byte[] body = request.getContentAsByteArray();
+        long contentLength = request.getContentLengthLong();
+        boolean bodyComplete = !request.overflowed && (contentLength < 0 || contentLength == body.length);
+        String query = request.getQueryString();
+        return new CapturedRequest(offsetMicros, request.getMethod(), request.getRequestURI(),
+                query == null ? "" : query, headers, body, bodyComplete);
+    }
+
+    private static class BodyCachingRequest extends ContentCachingRequestWrapper {
+
+        private boolean overflowed;
+
+        BodyCachingRequest(HttpServletRequest request, int contentCacheLimit) {
+            super(request, contentCacheLimit);
+        }
+
+        @Override
+        protected void handleContentOverflow(int contentCacheLimit) {
+            overflowed = true;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.sellsocks.socksmanagement.capture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.CaptureProperties;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes captured requests to a new capture file from a single background thread. Request threads only hand
+ * the request to a bounded queue and never wait for the disk: when the queue is full or the file has reached
+ * its size limit the request is dropped and counted in {@code socks.capture.dropped}.
+ * <p>
+ * A request is only recorded once its response is done, so requests complete in a different order than they
+ * arrived. The file keeps arrival order, which is what the replay schedules by: a request registers its arrival
+ * with {@link #arrive()}, and the writer holds back every finished request that arrived after the oldest one
+ * still running. At most as many requests as the queue holds are held back; beyond that the oldest is written
+ * anyway, so a request that runs for very long may be written after later ones.
+ */
+@Slf4j
+public class RequestRecorder implements Closeable {
+
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'requests-'yyyyMMdd-HHmmss-SSS");
+    private static final int DRAIN_BATCH_SIZE = 256;
+    private static final Comparator<CapturedRequest> ARRIVAL_ORDER =
+            Comparator.comparingLong(CapturedRequest::offsetMicros);
+
+    private final long startNanos = System.nanoTime();
+    private final Path file;
+    private final long maxFileSize;
+    private final BlockingQueue<CapturedRequest> queue;
+    private final int maxHeldBack;
+    /**
+     * Arrival offsets of the requests still running, with the number of requests per offset.
+     */
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+    private final CaptureLogWriter writer;
+    private final Counter recorded;
+    private final Counter dropped;
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+    private volatile boolean full;
+
+    public RequestRecorder(CaptureProperties properties, MeterRegistry meterRegistry) throws IOException {
+        Files.createDirectories(properties.getDirectory());
+        file = properties.getDirectory().resolve(LocalDateTime.now().format(FILE_NAME) + CaptureLog.FILE_SUFFIX);
+        maxFileSize = properties.getMaxFileSize().toBytes();
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        maxHeldBack = properties.getQueueCapacity();
+        writer = new CaptureLogWriter(file, System.currentTimeMillis());
+        recorded = meterRegistry.counter("socks.capture.recorded");
+        dropped = meterRegistry.counter("socks.capture.dropped");
+
+        writerThread = new Thread(this::runWriter, "request-capture-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Capturing sock API requests to {}", file);
+    }
+
+    /**
+     * Registers a request that has just arrived and returns its arrival time in microseconds since the capture
+     * started. Every arrival must be followed by {@link #record(CapturedRequest)} with this offset.
+     */
+    public long arrive() {
+        synchronized (inFlight) {
+            long offsetMicros = nowMicros();
+            inFlight.merge(offsetMicros, 1, Integer::sum);
+            return offsetMicros;
+        }
+    }
+
+    public void record(CapturedRequest request) {
+        if (full || !running || !queue.offer(request)) {
+            dropped.increment();
+        }
+        // Only after the offer: the writer reads the oldest running arrival before it drains the queue
+        synchronized (inFlight) {
+            inFlight.computeIfPresent(request.offsetMicros(), (offset, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * The arrival of the oldest request still running or, when none is, the current time: every request that
+     * has not been recorded yet arrived no earlier than this. Read under the lock of {@link #arrive()}, so a
+     * request arriving after the read cannot get an earlier offset.
+     */
+    private long oldestInFlight() {
+        synchronized (inFlight) {
+            return inFlight.isEmpty() ? nowMicros() : inFlight.firstKey();
+        }
+    }
+
+    private long nowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    private void runWriter() {
+        List<CapturedRequest> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        PriorityQueue<CapturedRequest> heldBack = new PriorityQueue<>(ARRIVAL_ORDER);
+        try {
+            while (running || !queue.isEmpty()) {
+                long oldestInFlight = oldestInFlight();
+                CapturedRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                    heldBack.addAll(batch);
+                    batch.clear();
+                }
+                if (writeArrivedBefore(oldestInFlight, heldBack) && queue.isEmpty()) {
+                    writer.flush();
+                }
+            }
+            writeArrivedBefore(Long.MAX_VALUE, heldBack);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to write the capture file {}, recording stopped", file, e);
+            running = false;
+        }
+    }
+
+    /**
+     * Writes the held back requests that arrived before {@code oldestInFlight}, in arrival order. Returns whether
+     * anything was written.
+     */
+    private boolean writeArrivedBefore(long oldestInFlight, PriorityQueue<CapturedRequest> heldBack)
+            throws IOException {
+        boolean written = false;
+        while (!heldBack.isEmpty()
+                && (heldBack.peek().offsetMicros() < oldestInFlight || heldBack.size() > maxHeldBack)) {
+            write(heldBack.poll());
+            written = true;
+        }
+        return written;
+    }
+
+    private void write(CapturedRequest request) throws IOException {
+        if (full) {
+            dropped.increment();
+            return;
+        }
+        writer.write(request);
+        recorded.increment();
+        if (writer.bytesWritten() >= maxFileSize) {
+            full = true;
+            log.warn("Capture file {} reached its size limit, recording stopped", file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        log.info("Request capture closed: {}", file);
+    }
+
+    public Path file() {
+        return file;
+    }
+}
@@ -0,0 +1,157 @@
+package org.sellsocks.socksmanagement.capture;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes a synthetic capture file for {@link WorkloadReplayCommand}. Requests arrive as a Poisson process at
+ * {@code --rate} per second and pick their sock from {@code --skus} distinct ones with Zipf-distributed
+ * popularity: with {@code --skew=0} every sock is equally likely, and the higher the skew the more traffic the
+ * hottest few socks get. {@code --mix} gives the relative weights of the quantity, income, outcome and sorted
+ * requests. Run it with {@code ./gradlew generateWorkload --args="--output=<file> [--requests=100000]
+ * [--rate=200] [--skus=200] [--skew=1.0] [--mix=quantity:60,income:20,outcome:15,sorted:5] [--seed=<n>]"}.
+ */
+@Slf4j
+public class WorkloadGeneratorCommand {
+
+    private static final Set<String> OPTIONS = Set.of("output", "requests", "rate", "skus", "skew", "mix", "seed");
+    private static final int MAX_COTTON_PART = 100;
+    private static final Map<String, String> JSON_HEADERS = Map.of(
+            HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE,
+            HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    private static final Map<String, String> GET_HEADERS = Map.of(
+            HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+
+    enum RequestKind { QUANTITY, INCOME, OUTCOME, SORTED }
+
+    public static void main(String[] args) throws IOException {
+        CommandOptions options = new CommandOptions(args, OPTIONS);
+        Path output = Path.of(options.required("output"));
+        long requests = options.getLong("requests", 100_000);
+        double rate = options.getDouble("rate", 200);
+        int skus = (int) options.getLong("skus", 200);
+        double skew = options.getDouble("skew", 1.0);
+        double[] mix = parseMix(options.get("mix", "quantity:60,income:20,outcome:15,sorted:5"));
+        Random random = new Random(options.getLong("seed", System.nanoTime()));
+        if (rate <= 0 || skew < 0) {
+            throw new IllegalArgumentException("--rate must be positive and --skew non-negative");
+        }
+
+        List<SockKey> socks = pickSocks(skus, random);
+        double[] popularity = zipfCumulative(socks.size(), skew);
+        double[] kinds = cumulative(mix);
+        double offsetSeconds = 0;
+        try (CaptureLogWriter writer = new CaptureLogWriter(output, System.currentTimeMillis())) {
+            for (long i = 0; i < requests; i++) {
+                offsetSeconds += -Math.log(1 - random.nextDouble()) / rate;
+                SockKey sock = socks.get(sample(popularity, random));
+                RequestKind kind = RequestKind.values()[sample(kinds, random)];
+                writer.write(request(kind, sock, (long) (offsetSeconds * 1_000_000), random));
+            }
+        }
+        log.info("Wrote {} requests over {} s for {} socks with skew {} to {}", requests,
+                "%.1f".formatted(offsetSeconds), socks.size(), skew, output);
+    }
+
+    static CapturedRequest request(RequestKind kind, SockKey sock, long offsetMicros, Random random) {
+        String color = sock.color().name().toLowerCase(Locale.ROOT);
+        return switch (kind) {
+            case QUANTITY -> get(offsetMicros, "/api/socks",
+                    "color=" + color + "&operation=equal&cottonPart=" + sock.cottonPart());
+            case INCOME -> post(offsetMicros, "/api/socks/income", sock, 1 + random.nextInt(20));
+            case OUTCOME -> post(offsetMicros, "/api/socks/outcome", sock, 1 + random.nextInt(5));
+            case SORTED -> get(offsetMicros, "/api/socks/sorted", "color=" + color +
+                    "&cottonPartMin=" + Math.max(0, sock.cottonPart() - 5) +
+                    "&cottonPartMax=" + Math.min(MAX_COTTON_PART, sock.cottonPart() + 5) +
+                    "&sortBy=quantity&sortOrder=desc");
+        };
+    }
+
+    private static CapturedRequest get(long offsetMicros, String path, String query) {
+        return new CapturedRequest(offsetMicros, "GET", path, query, GET_HEADERS, new byte[0], true);
+    }
+
+    private static CapturedRequest post(long offsetMicros, String path, SockKey sock, int quantity) {
+        String body = "{\"color\":\"%s\",\"cottonPart\":%d,\"quantity\":%d}".formatted(
+                sock.color().name().toLowerCase(Locale.ROOT), sock.cottonPart(), quantity);
+        return new CapturedRequest(offsetMicros, "POST", path, "", JSON_HEADERS,
+                body.getBytes(StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Picks the distinct socks in random order, so the most popular ones are spread over colors and cotton
+     * parts rather than being the first cotton parts of one color.
+     */
+    private static List<SockKey> pickSocks(int count, Random random) {
+        List<SockKey> all = new ArrayList<>();
+        for (SockColor color : SockColor.values()) {
+            for (int cottonPart = 0; cottonPart <= MAX_COTTON_PART; cottonPart++) {
+                all.add(new SockKey(color, cottonPart));
+            }
+        }
+        if (count < 1 || count > all.size()) {
+            throw new IllegalArgumentException("--skus must be between 1 and " + all.size());
+        }
+        Collections.shuffle(all, random);
+        return List.copyOf(all.subList(0, count));
+    }
+
+    /**
+     * Cumulative probabilities of the ranks 1..n when rank k has weight {@code 1 / k^skew}.
+     */
+    static double[] zipfCumulative(int n, double skew) {
+        double[] weights = new double[n];
+        for (int rank = 1; rank <= n; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, skew);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum / total;
+        }
+        cumulative[weights.length - 1] = 1.0;
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static double[] parseMix(String mix) {
+        double[] weights = new double[RequestKind.values().length];
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected kind:weight in --mix but got " + part);
+            }
+            RequestKind kind = RequestKind.valueOf(nameAndWeight[0].trim().toUpperCase(Locale.ROOT));
+            weights[kind.ordinal()] = Double.parseDouble(nameAndWeight[1].trim());
+        }
+        if (Arrays.stream(weights).sum() <= 0) {
+            throw new IllegalArgumentException("--mix must give at least one request kind a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,197 @@
+package org.sellsocks.socksmanagement.capture;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a capture file against a running instance and reports the latency distribution per endpoint. By
+ * default requests are sent on the recorded schedule, sped up by {@code --speed}; with {@code --rate} they are
+ * sent at a fixed rate instead, ignoring the recorded times. Either way the replay is open-loop: a request is
+ * due at its scheduled time whether or not earlier ones have been answered, and its latency is measured from
+ * that time, so a stalled server shows up in the percentiles instead of slowing the load down.
+ * Run it with {@code ./gradlew replayWorkload --args="--log=<file> [--target=http://localhost:8080]
+ * [--speed=1 | --rate=<requests per second>] [--limit=<requests>] [--max-in-flight=1024] [--timeout=PT30S]
+ * [--histogram-dir=<dir>]"}.
+ */
+@Slf4j
+public class WorkloadReplayCommand {
+
+    private static final Set<String> OPTIONS = Set.of(
+            "log", "target", "speed", "rate", "limit", "max-in-flight", "timeout", "histogram-dir");
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Path logFile;
+    private final String target;
+    private final double speed;
+    private final double rate;
+    private final long limit;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    WorkloadReplayCommand(CommandOptions options) {
+        logFile = Path.of(options.required("log"));
+        target = options.get("target", "http://localhost:8080").replaceAll("/+$", "");
+        speed = options.getDouble("speed", 1.0);
+        rate = options.getDouble("rate", 0);
+        limit = options.getLong("limit", Long.MAX_VALUE);
+        maxInFlight = (int) options.getLong("max-in-flight", 1024);
+        timeout = Duration.parse(options.get("timeout", "PT30S"));
+        if (speed <= 0 || rate < 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("--speed and --max-in-flight must be positive, --rate non-negative");
+        }
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandOptions options = new CommandOptions(args, OPTIONS);
+        WorkloadReplayCommand command = new WorkloadReplayCommand(options);
+        command.replay();
+        if (options.has("histogram-dir")) {
+            command.writeHistograms(Path.of(options.required("histogram-dir")));
+        }
+    }
+
+    void replay() throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long sent = 0;
+        long skipped = 0;
+        long startNanos = System.nanoTime();
+        try (CaptureLogReader reader = new CaptureLogReader(logFile)) {
+            log.info("Replaying {} against {} {}", logFile, target,
+                    rate > 0 ? "at " + rate + " requests/s" : "at " + speed + "x the recorded speed");
+            long firstOffsetMicros = -1;
+            CapturedRequest request;
+            while (sent < limit && (request = reader.next()) != null) {
+                if (!request.bodyComplete()) {
+                    skipped++;
+                    continue;
+                }
+                if (firstOffsetMicros < 0) {
+                    firstOffsetMicros = request.offsetMicros();
+                }
+                long dueNanos = startNanos + (rate > 0
+                        ? (long) (sent * 1e9 / rate)
+                        : (long) ((request.offsetMicros() - firstOffsetMicros) * 1_000 / speed));
+                parkUntil(dueNanos);
+                inFlight.acquire();
+                send(request, dueNanos, inFlight);
+                sent++;
+            }
+        }
+        inFlight.acquire(maxInFlight);
+        report(sent, skipped, System.nanoTime() - startNanos);
+    }
+
+    private void send(CapturedRequest request, long dueNanos, Semaphore inFlight) {
+        EndpointStats endpoint = stats.computeIfAbsent(endpointOf(request), name -> new EndpointStats());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + request.path() +
+                        (request.query().isEmpty() ? "" : "?" + request.query())))
+                .timeout(timeout)
+                .method(request.method(), request.body().length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(request.body()));
+        request.headers().forEach(builder::header);
+        client.sendAsync(builder.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    endpoint.record(System.nanoTime() - dueNanos, response == null ? 0 : response.statusCode());
+                    inFlight.release();
+                });
+    }
+
+    /**
+     * Groups requests by method and path, with numeric path segments such as ids folded into {@code {id}}.
+     */
+    static String endpointOf(CapturedRequest request) {
+        return request.method() + " " + NUMERIC_SEGMENT.matcher(request.path()).replaceAll("/{id}");
+    }
+
+    private static void parkUntil(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void report(long sent, long skipped, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        log.info("Sent {} requests in {} s ({} requests/s), skipped {} with incomplete bodies", sent,
+                "%.1f".formatted(seconds), "%.1f".formatted(sent / seconds), skipped);
+        log.info("{}", "%-36s %8s %9s %9s %9s %9s %9s %7s %7s %7s %7s".formatted("endpoint", "count",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "ok", "4xx", "5xx", "failed"));
+        new TreeMap<>(stats).forEach((endpoint, endpointStats) -> {
+            Histogram latency = endpointStats.latencyMicros;
+            log.info("{}", "%-36s %8d %9.2f %9.2f %9.2f %9.2f %9.2f %7d %7d %7d %7d".formatted(endpoint,
+                    latency.getTotalCount(),
+                    latency.getValueAtPercentile(50) / 1_000.0,
+                    latency.getValueAtPercentile(90) / 1_000.0,
+                    latency.getValueAtPercentile(99) / 1_000.0,
+                    latency.getValueAtPercentile(99.9) / 1_000.0,
+                    latency.getMaxValue() / 1_000.0,
+                    endpointStats.success.sum(), endpointStats.clientErrors.sum(),
+                    endpointStats.serverErrors.sum(), endpointStats.failures.sum()));
+        });
+    }
+
+    /**
+     * Writes each endpoint's full percentile distribution in milliseconds as an {@code .hgrm} file, the format
+     * the HdrHistogram plotter reads.
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, EndpointStats> endpoint : stats.entrySet()) {
+            String fileName = endpoint.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(fileName)))) {
+                endpoint.getValue().latencyMicros.outputPercentileDistribution(out, 1_000.0);
+            }
+        }
+        log.info("Latency histograms written to {}", directory);
+    }
+
+    private static final class EndpointStats {
+
+        private final Histogram latencyMicros = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder success = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        void record(long latencyNanos, int status) {
+            latencyMicros.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            if (status == 0) {
+                failures.increment();
+            } else if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            } else {
+                success.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.sellsocks.socksmanagement.coalescing;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sellsocks.socksmanagement.attributes.SockAttributeIndex;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.config.CoalescingProperties;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.routing.RoutingContext;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sits in front of the read-only {@link SockService} queries and lets concurrent requests with the same
+ * normalized parameters share one database query. The lookup runs outside any transaction, so a waiting
+ * request holds no connection. Requests pinned to the primary for read-your-writes always run their own query:
+ * a flight that started before their write committed, or a cached result, could miss it.
+ * <p>
+ * Once the {@link SockAttributeIndex} is built, reads are answered from it without a query at all, unless the
+ * request needs read-your-writes or write-behind income is pending outside the index.
+ */
+@Component
+public class CoalescingSockReader {
+
+    private final SockService sockService;
+    private final WarehouseService warehouseService;
+    private final SockParametersValidator validator;
+    private final CoalescingProperties properties;
+    private final SockAttributeIndex attributeIndex;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final SingleFlight<QuantityKey, Integer> quantityFlights;
+    private final SingleFlight<SortedKey, List<Sock>> sortedFlights;
+    private final LongAdder quantityBypassed = new LongAdder();
+    private final LongAdder sortedBypassed = new LongAdder();
+
+    public CoalescingSockReader(SockService sockService,
+                                WarehouseService warehouseService,
+                                SockParametersValidator validator,
+                                CoalescingProperties properties,
+                                SockAttributeIndex attributeIndex,
+                                WriteBehindIncomeBuffer writeBehindIncomeBuffer,
+                                MeterRegistry meterRegistry) {
+        this.sockService = sockService;
+        this.warehouseService = warehouseService;
+        this.validator = validator;
+        this.properties = properties;
+        this.attributeIndex = attributeIndex;
+        this.writeBehindIncomeBuffer = writeBehindIncomeBuffer;
+        this.quantityFlights = new SingleFlight<>(properties.getResultTtl(), properties.getMaxCachedResults());
+        this.sortedFlights = new SingleFlight<>(properties.getResultTtl(), properties.getMaxCachedResults());
+        registerMetrics(meterRegistry, "quantity", quantityFlights, quantityBypassed);
+        registerMetrics(meterRegistry, "sorted", sortedFlights, sortedBypassed);
+    }
+
+    public int getFilteredSocksQuantity(String warehouse, String color, String operation, Integer cottonPart,
+                                        Map<String, String> attributes) {
+        if (isAnsweredByIndex()) {
+            return attributeIndex.sumQuantity(requireWarehouse(warehouse), validator.validateAndParseColor(color),
+                    validator.validateAndParseOperation(operation), cottonPart, attributes);
+        }
+        if (!properties.isEnabled()) {
+            return sockService.getFilteredSocksQuantity(warehouse, color, operation, cottonPart, attributes);
+        }
+        if (RoutingContext.isPrimaryRequired()) {
+            quantityBypassed.increment();
+            return sockService.getFilteredSocksQuantity(warehouse, color, operation, cottonPart, attributes);
+        }
+        String warehouseCode = requireWarehouse(warehouse);
+        QuantityKey key = new QuantityKey(warehouseCode, validator.validateAndParseColor(color),
+                validator.validateAndParseOperation(operation), cottonPart, SockAttributes.format(attributes));
+        return quantityFlights.execute(key,
+                () -> sockService.getFilteredSocksQuantity(warehouseCode, color, operation, cottonPart, attributes));
+    }
+
+    public List<Sock> getFilteredAndSortedSocks(String warehouse, String color, Integer cottonPartMin,
+                                                Integer cottonPartMax, Map<String, String> attributes,
+                                                String sortBy, String sortOrder) {
+        if (isAnsweredByIndex()) {
+            return attributeIndex.find(requireWarehouse(warehouse),
+                    color != null ? validator.validateAndParseColor(color) : null,
+                    cottonPartMin, cottonPartMax, attributes, validator.validateAndParseSort(sortBy, sortOrder));
+        }
+        if (!properties.isEnabled()) {
+            return sockService.getFilteredAndSortedSocks(warehouse, color, cottonPartMin, cottonPartMax, attributes,
+                    sortBy, sortOrder);
+        }
+        if (RoutingContext.isPrimaryRequired()) {
+            sortedBypassed.increment();
+            return sockService.getFilteredAndSortedSocks(warehouse, color, cottonPartMin, cottonPartMax, attributes,
+                    sortBy, sortOrder);
+        }
+        String warehouseCode = requireWarehouse(warehouse);
+        SortedKey key = new SortedKey(warehouseCode, color != null ? validator.validateAndParseColor(color) : null,
+                cottonPartMin, cottonPartMax, SockAttributes.format(attributes), sortBy,
+                "desc".equalsIgnoreCase(sortOrder));
+        // The shared list never leaves the flight: every caller gets its own read-only copy
+        return List.copyOf(sortedFlights.execute(key, () -> sockService.getFilteredAndSortedSocks(warehouseCode,
+                color, cottonPartMin, cottonPartMax, attributes, sortBy, sortOrder)));
+    }
+
+    private String requireWarehouse(String warehouse) {
+        String code = validator.validateAndParseWarehouse(warehouse);
+        warehouseService.requireRegistered(code);
+        return code;
+    }
+
+    private boolean isAnsweredByIndex() {
+        return attributeIndex.isReady() && !writeBehindIncomeBuffer.isEnabled()
+                && !RoutingContext.isPrimaryRequired();
+    }
+
+    private static void registerMetrics(MeterRegistry meterRegistry, String query, SingleFlight<?, ?> flights,
+                                        LongAdder bypassed) {
+        FunctionCounter.builder("socks.coalescing.calls", flights, SingleFlight::getExecuted)
+                .description("Read calls that ran their own database query")
+                .tags("query", query, "outcome", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("socks.coalescing.calls", flights, SingleFlight::getJoined)
+                .description("Read calls that waited for an identical in-flight query")
+                .tags("query", query, "outcome", "joined")
+                .register(meterRegistry);
+        FunctionCounter.builder("socks.coalescing.calls", flights, SingleFlight::getCached)
+                .description("Read calls answered from a finished result within its TTL")
+                .tags("query", query, "outcome", "cached")
+                .register(meterRegistry);
+        FunctionCounter.builder("socks.coalescing.calls", bypassed, LongAdder::sum)
+                .description("Read calls pinned to the primary that ran their own query without coalescing")
+                .tags("query", query, "outcome", "bypassed")
+                .register(meterRegistry);
+        Gauge.builder("socks.coalescing.ratio", flights, SingleFlight::getCoalescingRatio)
+                .description("Share of read calls that did not run their own database query")
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+
+    private record QuantityKey(String warehouse, SockColor color, CriteriaOperation operation, Integer cottonPart,
+                               String attributes) {
+    }
+
+    private record SortedKey(String warehouse, SockColor color, Integer cottonPartMin, Integer cottonPartMax,
+                             String attributes, String sortBy, boolean descending) {
+    }
+}
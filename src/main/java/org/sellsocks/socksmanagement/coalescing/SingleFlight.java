@@ -0,0 +1,139 @@
+package org.sellsocks.socksmanagement.coalescing;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one computation per key at a time: callers that arrive while a computation for their key is
+ * running wait for it and receive its result or exception instead of starting their own. A finished result is
+ * forgotten right away unless a result TTL is set.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CachedResult<V>> results = new ConcurrentHashMap<>();
+    private final long resultTtlNanos;
+    private final int maxCachedResults;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+
+    public SingleFlight() {
+        this(Duration.ZERO, 0);
+    }
+
+    public SingleFlight(Duration resultTtl, int maxCachedResults) {
+        this.resultTtlNanos = resultTtl.toNanos();
+        this.maxCachedResults = maxCachedResults;
+    }
+
+    public V execute(K key, Supplier<V> computation) {
+        V cachedValue = cachedResult(key);
+        if (cachedValue != null) {
+            cached.increment();
+            return cachedValue;
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            joined.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        V value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        cacheResult(key, value);
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    /**
+     * Number of calls that ran the computation themselves.
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * Number of calls that waited for a computation started by another caller.
+     */
+    public long getJoined() {
+        return joined.sum();
+    }
+
+    /**
+     * Number of calls answered from a finished result within its TTL.
+     */
+    public long getCached() {
+        return cached.sum();
+    }
+
+    /**
+     * Share of calls that did not run the computation themselves.
+     */
+    public double getCoalescingRatio() {
+        long shared = getJoined() + getCached();
+        long total = shared + getExecuted();
+        return total == 0 ? 0 : (double) shared / total;
+    }
+
+    private V cachedResult(K key) {
+        if (resultTtlNanos <= 0) {
+            return null;
+        }
+        CachedResult<V> result = results.get(key);
+        if (result == null) {
+            return null;
+        }
+        if (System.nanoTime() - result.expiresAt() >= 0) {
+            results.remove(key, result);
+            return null;
+        }
+        return result.value();
+    }
+
+    private void cacheResult(K key, V value) {
+        if (resultTtlNanos <= 0 || value == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (results.size() >= maxCachedResults) {
+            results.values().removeIf(result -> now - result.expiresAt() >= 0);
+            if (results.size() >= maxCachedResults) {
+                return;
+            }
+        }
+        results.put(key, new CachedResult<>(value, now + resultTtlNanos));
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record CachedResult<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,35 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.attribute-index")
+public class AttributeIndexProperties {
+
+    /**
+     * When enabled, quantity and sorted-list reads are answered from an in-memory bitmap index of all socks
+     * instead of the database, once the index is built.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often the index is rebuilt from the database; this also picks up changes made outside JPA.
+     */
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * How often the index checks that no other node is connected to the database; it switches itself off when
+     * one is, because it does not see that node's writes.
+     */
+    private Duration nodeCheckInterval = Duration.ofSeconds(10);
+
+    /**
+     * Rows fetched per round trip while the index is built.
+     */
+    private int fetchSize = 5000;
+}
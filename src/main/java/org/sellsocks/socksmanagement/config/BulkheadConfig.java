@@ -0,0 +1,31 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.RequiredArgsConstructor;
+import org.sellsocks.socksmanagement.bulkhead.BulkheadEndpoint;
+import org.sellsocks.socksmanagement.bulkhead.BulkheadInterceptor;
+import org.sellsocks.socksmanagement.bulkhead.BulkheadRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "socks.bulkhead", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final BulkheadRegistry bulkheadRegistry;
+    private final BulkheadProperties bulkheadProperties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new BulkheadInterceptor(bulkheadRegistry, bulkheadProperties))
+                .addPathPatterns("/api/**");
+    }
+
+    @Bean
+    public BulkheadEndpoint bulkheadEndpoint() {
+        return new BulkheadEndpoint(bulkheadRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.sellsocks.socksmanagement.bulkhead.Workload;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Startup limits of the request bulkheads; they can be changed at runtime through {@code /actuator/bulkheads}.
+ * The limits count requests only. Connections come from the shared pool, so keeping the sum of the limits
+ * below the pool size makes a request less likely to wait for a connection, but does not rule it out.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Value of the {@code Retry-After} header sent with rejected requests.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private Limit imports = new Limit(2, Duration.ZERO);
+
+    private Limit writes = new Limit(6, Duration.ZERO);
+
+    private Limit reads = new Limit(10, Duration.ofMillis(50));
+
+    public Limit limitFor(Workload workload) {
+        return switch (workload) {
+            case IMPORT -> imports;
+            case WRITE -> writes;
+            case READ -> reads;
+        };
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        private int maxConcurrent;
+
+        /**
+         * How long a request waits for a permit before it is rejected.
+         */
+        private Duration maxWait = Duration.ZERO;
+    }
+}
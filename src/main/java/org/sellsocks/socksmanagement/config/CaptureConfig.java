@@ -0,0 +1,39 @@
+package org.sellsocks.socksmanagement.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.sellsocks.socksmanagement.capture.RequestCaptureFilter;
+import org.sellsocks.socksmanagement.capture.RequestRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "socks.capture", name = "enabled", havingValue = "true")
+public class CaptureConfig {
+
+    @Bean(destroyMethod = "close")
+    public RequestRecorder requestRecorder(CaptureProperties properties, MeterRegistry meterRegistry)
+            throws IOException {
+        return new RequestRecorder(properties, meterRegistry);
+    }
+
+    /**
+     * Runs right after the timing filter, in front of everything else, so a request is recorded as the client
+     * sent it. Only the sock API is recorded.
+     */
+    @Bean
+    public FilterRegistrationBean<RequestCaptureFilter> requestCaptureFilter(RequestRecorder recorder,
+                                                                             CaptureProperties properties) {
+        FilterRegistrationBean<RequestCaptureFilter> registration = new FilterRegistrationBean<>(
+                new RequestCaptureFilter(recorder, (int) properties.getMaxBodySize().toBytes()));
+        registration.addUrlPatterns("/api/socks", "/api/socks/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,39 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.capture")
+public class CaptureProperties {
+
+    /**
+     * When enabled, requests to the sock API are recorded to a capture file for later replay.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory of the capture files; every start of the application writes a new one.
+     */
+    private Path directory = Path.of("data/capture");
+
+    /**
+     * Bodies larger than this are recorded cut short and marked incomplete, so the replay skips them.
+     */
+    private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+    /**
+     * Recording stops once the capture file reaches this size.
+     */
+    private DataSize maxFileSize = DataSize.ofGigabytes(1);
+
+    /**
+     * Requests waiting for the writer thread; requests arriving while it is full are dropped and counted.
+     */
+    private int queueCapacity = 8192;
+}
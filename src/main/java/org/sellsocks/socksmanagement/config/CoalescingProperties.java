@@ -0,0 +1,28 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.coalescing")
+public class CoalescingProperties {
+
+    /**
+     * When enabled, concurrent identical quantity and sorted-list reads share one database query.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a finished result keeps answering identical reads; zero shares only in-flight queries.
+     */
+    private Duration resultTtl = Duration.ZERO;
+
+    /**
+     * Upper bound on the number of finished results kept while {@code result-ttl} is positive.
+     */
+    private int maxCachedResults = 1000;
+}
@@ -0,0 +1,79 @@
+package org.sellsocks.socksmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.sellsocks.socksmanagement.routing.DataSourceRoute;
+import org.sellsocks.socksmanagement.routing.ReadWriteRoutingDataSource;
+import org.sellsocks.socksmanagement.routing.ReadYourWritesFilter;
+import org.sellsocks.socksmanagement.routing.ReadYourWritesTracker;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(prefix = "socks.datasource.replica", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties,
+                                              ReplicaDataSourceProperties replicaProperties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        dataSource.setJdbcUrl(replicaProperties.getUrl());
+        dataSource.setUsername(replicaProperties.getUsername());
+        dataSource.setPassword(replicaProperties.getPassword());
+        dataSource.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * The data source used by JPA, JDBC templates and Liquibase: connections are fetched lazily and routed by
+     * the transaction's read-only flag.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                DataSourceRoute.PRIMARY, primaryDataSource,
+                DataSourceRoute.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "socks.datasource.replica", name = "read-your-writes", havingValue = "true",
+            matchIfMissing = true)
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaDataSourceProperties replicaProperties) {
+        return new ReadYourWritesTracker(replicaProperties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "socks.datasource.replica", name = "read-your-writes", havingValue = "true",
+            matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWritesTracker tracker,
+                                                     ReplicaDataSourceProperties replicaProperties) {
+        return new ReadYourWritesFilter(tracker, replicaProperties.getClientIdHeader());
+    }
+}
@@ -0,0 +1,42 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.drop-import")
+public class DropImportProperties {
+
+    /**
+     * When enabled, CSV files dropped into {@link #directory} are imported like uploads to {@code /api/socks/batch}.
+     */
+    private boolean enabled = false;
+
+    private Path directory = Path.of("data", "drop");
+
+    private Path doneDirectory = Path.of("data", "drop", "done");
+
+    private Path failedDirectory = Path.of("data", "drop", "failed");
+
+    /**
+     * Glob the file names must match; anything else, such as files still being copied under a temporary
+     * name, is left alone.
+     */
+    private String filePattern = "*.csv";
+
+    /**
+     * Number of CSV lines imported and checkpointed per transaction.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * How long a file must go unmodified before it is picked up, so that files are not read while a partner
+     * is still writing them.
+     */
+    private Duration settleTime = Duration.ofSeconds(2);
+}
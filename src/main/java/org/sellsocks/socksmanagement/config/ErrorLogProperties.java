@@ -0,0 +1,17 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.error-log")
+public class ErrorLogProperties {
+
+    /**
+     * Client errors of one exception type logged per second at debug level; the rest are only counted and
+     * reported with the next logged line.
+     */
+    private int clientErrorsPerSecond = 5;
+}
@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * How long a completed result is replayed for a repeated {@code Idempotency-Key}.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Completed results kept in memory on each node; older ones are evicted least recently used first and are
+     * then read from the {@code idempotency_record} table.
+     */
+    private int maxCachedResults = 10_000;
+
+    /**
+     * How long a claim on a key stays valid; another node takes over a claim older than this, so it must be
+     * longer than any write takes.
+     */
+    private Duration lockTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How long a duplicate waits for the original running on another node before it is rejected with 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    private Duration purgeInterval = Duration.ofMinutes(10);
+}
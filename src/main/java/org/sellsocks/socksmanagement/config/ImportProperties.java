@@ -0,0 +1,26 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.import")
+public class ImportProperties {
+
+    /**
+     * What a replace import does with socks that are missing from the snapshot.
+     */
+    private AbsentKeys absentKeys = AbsentKeys.ZERO;
+
+    /**
+     * Number of changed rows written to the database per flush during a replace import.
+     */
+    private int applyBatchSize = 500;
+
+    public enum AbsentKeys {
+        ZERO,
+        DELETE
+    }
+}
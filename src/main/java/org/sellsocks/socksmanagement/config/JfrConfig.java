@@ -0,0 +1,14 @@
+package org.sellsocks.socksmanagement.config;
+
+import org.sellsocks.socksmanagement.jfr.JfrRecordingEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JfrConfig {
+
+    @Bean
+    public JfrRecordingEndpoint jfrRecordingEndpoint(JfrProperties properties) {
+        return new JfrRecordingEndpoint(properties);
+    }
+}
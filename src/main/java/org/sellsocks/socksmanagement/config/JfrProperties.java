@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.jfr")
+public class JfrProperties {
+
+    /**
+     * Recording length used when the start request does not give one; a recording stops by itself after it.
+     */
+    private Duration defaultDuration = Duration.ofMinutes(1);
+
+    /**
+     * Longest recording that may be requested.
+     */
+    private Duration maxDuration = Duration.ofMinutes(10);
+
+    /**
+     * Upper bound on the recording size on disk; older data is dropped once it is reached.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+
+    /**
+     * Predefined JFR configuration the custom socks events are added to, {@code default} or {@code profile}.
+     */
+    private String settings = "default";
+
+    private Path directory = Path.of("data", "jfr");
+}
@@ -0,0 +1,21 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.ledger")
+public class LedgerProperties {
+
+    /**
+     * Number of whole months of stock movements kept before their partitions are dropped.
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * Number of future monthly partitions created in advance.
+     */
+    private int partitionsAhead = 2;
+}
@@ -0,0 +1,31 @@
+package org.sellsocks.socksmanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Names every database session of this node {@code socks-inventory/<random id>} through the JDBC
+ * {@code ApplicationName} property, so that {@code pg_stat_activity} tells apart the nodes sharing a database.
+ */
+@Component
+public class NodeApplicationName implements BeanPostProcessor {
+
+    public static final String PREFIX = "socks-inventory/";
+
+    private final String value = PREFIX + UUID.randomUUID();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            dataSource.addDataSourceProperty("ApplicationName", value);
+        }
+        return bean;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,25 @@
+package org.sellsocks.socksmanagement.config;
+
+import org.sellsocks.socksmanagement.outbox.InMemoryOutboxSink;
+import org.sellsocks.socksmanagement.outbox.OutboxEventSink;
+import org.sellsocks.socksmanagement.outbox.RollingFileOutboxSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "socks.outbox", name = "sink", havingValue = "file", matchIfMissing = true)
+    public OutboxEventSink rollingFileOutboxSink(OutboxProperties properties) {
+        return new RollingFileOutboxSink(properties.getFile().getDirectory(),
+                properties.getFile().getMaxFileSize().toBytes());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "socks.outbox", name = "sink", havingValue = "memory")
+    public OutboxEventSink inMemoryOutboxSink() {
+        return new InMemoryOutboxSink();
+    }
+}
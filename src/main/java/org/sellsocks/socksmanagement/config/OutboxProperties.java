@@ -0,0 +1,47 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.outbox")
+public class OutboxProperties {
+
+    /**
+     * Events are always written to the outbox; this only switches the relay that publishes them.
+     */
+    private boolean relayEnabled = true;
+
+    /**
+     * Maximum number of events locked and published in one relay transaction.
+     */
+    private int batchSize = 100;
+
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * Built-in sink the relay publishes to: {@code file} or {@code memory}. Any other value expects an
+     * {@code OutboxEventSink} bean to be provided by the application.
+     */
+    private String sink = "file";
+
+    private File file = new File();
+
+    @Getter
+    @Setter
+    public static class File {
+
+        private Path directory = Path.of("data", "outbox");
+
+        /**
+         * Size after which the current file is closed and a new one is started.
+         */
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+    }
+}
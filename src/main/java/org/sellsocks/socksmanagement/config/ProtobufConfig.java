@@ -0,0 +1,20 @@
+package org.sellsocks.socksmanagement.config;
+
+import org.sellsocks.socksmanagement.converter.SockProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds the protobuf converter after the default ones, so that JSON stays the default for clients accepting any type.
+ */
+@Configuration
+public class ProtobufConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new SockProtobufHttpMessageConverter());
+    }
+}
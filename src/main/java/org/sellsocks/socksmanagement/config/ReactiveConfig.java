@@ -0,0 +1,80 @@
+package org.sellsocks.socksmanagement.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.sellsocks.socksmanagement.reactive.SockHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Non-blocking {@code /api/socks} API, active with the {@code reactive} profile. The R2DBC pool is kept out
+ * of the context on purpose: a {@code ConnectionFactory} bean would switch off the JDBC data source that JPA,
+ * Liquibase and the background jobs still use.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(ReactiveProperties reactiveProperties,
+                                         DataSourceProperties dataSourceProperties,
+                                         WriteBehindProperties writeBehindProperties,
+                                         AttributeIndexProperties attributeIndexProperties) {
+        if (writeBehindProperties.isEnabled()) {
+            throw new IllegalStateException("The reactive profile does not support write-behind income");
+        }
+        if (attributeIndexProperties.isEnabled()) {
+            // Income and outcome are single SQL statements that the index, fed by JPA entity events, never sees
+            throw new IllegalStateException("The reactive profile does not support the sock attribute index");
+        }
+        String url = reactiveProperties.getUrl() != null
+                ? reactiveProperties.getUrl()
+                : dataSourceProperties.determineUrl().replaceFirst("^jdbc:", "r2dbc:");
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive")
+                .initialSize(reactiveProperties.getInitialPoolSize())
+                .maxSize(reactiveProperties.getMaxPoolSize())
+                .maxIdleTime(reactiveProperties.getMaxIdleTime())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> sockRoutes(SockHandler handler) {
+        return RouterFunctions.route()
+                .path("/api/socks", builder -> builder
+                        .GET("/test", handler::test)
+                        .POST("/income", handler::income)
+                        .POST("/outcome", handler::outcome)
+                        .PUT("/{id}", handler::update)
+                        .POST("/batch", RequestPredicates.contentType(MediaType.MULTIPART_FORM_DATA),
+                                handler::uploadBatch)
+                        .GET("/sorted", handler::sorted)
+                        .GET("", handler::quantity))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
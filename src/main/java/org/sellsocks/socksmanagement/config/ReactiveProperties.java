@@ -0,0 +1,24 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.reactive")
+public class ReactiveProperties {
+
+    /**
+     * R2DBC URL; derived from {@code spring.datasource.url} when not set.
+     */
+    private String url;
+
+    private int initialPoolSize = 10;
+
+    private int maxPoolSize = 50;
+
+    private Duration maxIdleTime = Duration.ofMinutes(30);
+}
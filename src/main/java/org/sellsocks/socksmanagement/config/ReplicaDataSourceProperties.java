@@ -0,0 +1,41 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    /**
+     * When enabled, read-only transactions are served by the replica and the rest by {@code spring.datasource}.
+     */
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private int maximumPoolSize = 10;
+
+    /**
+     * Keeps a client's reads on the primary for a while after it wrote.
+     */
+    private boolean readYourWrites = true;
+
+    /**
+     * How long a client's reads stay on the primary after a write request.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * Request header identifying a client for read-your-writes; the remote address is used without it.
+     */
+    private String clientIdHeader = "X-Client-Id";
+}
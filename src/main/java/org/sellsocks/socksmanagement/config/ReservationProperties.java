@@ -0,0 +1,45 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.reservations")
+public class ReservationProperties {
+
+    /**
+     * How long a reservation holds stock when the request does not give a TTL.
+     */
+    private Duration defaultTtl = Duration.ofMinutes(15);
+
+    private Duration maxTtl = Duration.ofHours(24);
+
+    /**
+     * Resolution of the in-memory expiry wheel and the interval at which it is advanced.
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * Number of wheel slots, rounded up to a power of two; holds longer than {@code tick} times this wrap around.
+     */
+    private int wheelSize = 4096;
+
+    /**
+     * Upper bound on reservations tracked by the wheel on this node; the rest expire through the sweep.
+     */
+    private int maxTracked = 5_000_000;
+
+    /**
+     * Reservations marked expired per statement, both for wheel batches and for the sweep.
+     */
+    private int expireBatchSize = 1000;
+
+    /**
+     * Interval of the database sweep that expires reservations created on other nodes or before a restart.
+     */
+    private Duration sweepInterval = Duration.ofMinutes(1);
+}
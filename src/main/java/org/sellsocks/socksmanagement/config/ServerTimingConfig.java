@@ -0,0 +1,30 @@
+package org.sellsocks.socksmanagement.config;
+
+import org.sellsocks.socksmanagement.timing.PhaseTimingPostProcessor;
+import org.sellsocks.socksmanagement.timing.ServerTimingFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "socks.server-timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingConfig {
+
+    @Bean
+    public static PhaseTimingPostProcessor phaseTimingPostProcessor() {
+        return new PhaseTimingPostProcessor();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(ServerTimingProperties properties) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
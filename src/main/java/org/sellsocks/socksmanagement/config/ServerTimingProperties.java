@@ -0,0 +1,28 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.server-timing")
+public class ServerTimingProperties {
+
+    /**
+     * When enabled, API responses carry a {@code Server-Timing} header with the phase breakdown.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Share of requests, from 0 to 1, whose phases are timed and reported.
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Requests slower than this are logged with their phase breakdown; unsampled ones with the total only.
+     */
+    private Duration slowRequestThreshold = Duration.ofSeconds(1);
+}
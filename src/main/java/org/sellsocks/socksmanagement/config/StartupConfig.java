@@ -0,0 +1,55 @@
+package org.sellsocks.socksmanagement.config;
+
+import org.sellsocks.socksmanagement.startup.ChangelogFingerprint;
+import org.sellsocks.socksmanagement.startup.SchemaFingerprintStore;
+import org.sellsocks.socksmanagement.startup.SchemaFingerprintVerifier;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+public class StartupConfig {
+
+    public static final String FAST_STARTUP_PROFILE = "fast-startup";
+
+    /**
+     * Records the changelog fingerprint after Liquibase migrated the database at startup, so that pods with the
+     * {@code fast-startup} profile accept the schema.
+     */
+    @Bean
+    @DependsOn("liquibase")
+    @ConditionalOnProperty(prefix = "spring.liquibase", name = "enabled", matchIfMissing = true)
+    public ApplicationRunner schemaFingerprintRecorder(JdbcTemplate jdbcTemplate) {
+        return args -> new SchemaFingerprintStore(jdbcTemplate).record(ChangelogFingerprint.compute());
+    }
+
+    @Bean
+    @Profile(FAST_STARTUP_PROFILE)
+    public SchemaFingerprintVerifier schemaFingerprintVerifier(JdbcTemplate jdbcTemplate) {
+        return new SchemaFingerprintVerifier(new SchemaFingerprintStore(jdbcTemplate));
+    }
+
+    /**
+     * Keeps the schema check and every bean with scheduled jobs eager under lazy initialization: a lazy bean that
+     * nothing asks for would never be created, and its jobs would never be scheduled.
+     */
+    @Bean
+    @Profile(FAST_STARTUP_PROFILE)
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (SchemaFingerprintVerifier.class.isAssignableFrom(beanType) || hasScheduledMethods(beanType));
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null).isEmpty();
+    }
+}
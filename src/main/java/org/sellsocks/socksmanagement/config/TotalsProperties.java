@@ -0,0 +1,18 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.totals")
+public class TotalsProperties {
+
+    /**
+     * How often the trigger-maintained per-color totals are compared with the {@code sock} rows and repaired.
+     */
+    private Duration reconcileInterval = Duration.ofMinutes(15);
+}
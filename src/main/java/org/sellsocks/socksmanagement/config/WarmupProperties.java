@@ -0,0 +1,27 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.warmup")
+public class WarmupProperties {
+
+    /**
+     * When enabled, the readiness probe stays down until the connection pools are filled and the read paths
+     * have been exercised.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of rounds of synthetic reads; the warm-up ends after this many rounds or after {@code max-duration},
+     * whichever comes first.
+     */
+    private int iterations = 2000;
+
+    private Duration maxDuration = Duration.ofSeconds(30);
+}
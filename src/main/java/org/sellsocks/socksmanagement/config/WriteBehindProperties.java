@@ -0,0 +1,45 @@
+package org.sellsocks.socksmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "socks.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * When enabled, income is acknowledged once it is durable in the local log and applied to the
+     * database in the background.
+     */
+    private boolean enabled = false;
+
+    private Path directory = Path.of("data", "income-wal");
+
+    /**
+     * Size every log segment is preallocated to.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Maximum number of appends made durable by a single fsync.
+     */
+    private int groupCommitMaxBatch = 512;
+
+    /**
+     * How long the log writer waits for more appends before it fsyncs a batch.
+     */
+    private Duration groupCommitMaxDelay = Duration.ofMillis(2);
+
+    /**
+     * Maximum number of log entries applied to the database in one transaction.
+     */
+    private int applyBatchSize = 5000;
+
+    private Duration applyInterval = Duration.ofMillis(200);
+}
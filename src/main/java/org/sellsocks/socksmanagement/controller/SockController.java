@@ -7,11 +7,33 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.bulkhead.BulkheadWorkload;
+import org.sellsocks.socksmanagement.bulkhead.Workload;
+import org.sellsocks.socksmanagement.coalescing.CoalescingSockReader;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.idempotency.IdempotencyGuard;
 import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.AvailableStockDto;
+import org.sellsocks.socksmanagement.model.dto.ImportDiffDto;
+import org.sellsocks.socksmanagement.model.dto.QuantityQueryDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationRequestDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.dto.SockTotalsDto;
 import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
+import org.sellsocks.socksmanagement.model.dto.TransferDto;
+import org.sellsocks.socksmanagement.model.dto.TransferRequestDto;
+import org.sellsocks.socksmanagement.model.dto.WarehouseTotalsDto;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.service.ReservationService;
+import org.sellsocks.socksmanagement.service.SnapshotImportService;
 import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.SockTotalsService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -21,6 +43,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,18 +52,35 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/socks")
 @Validated
 @RequiredArgsConstructor
 @Tag(name = "Socks Inventory", description = "Operations related to management of socks inventory")
 public class SockController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+    private static final String GZIP_MEDIA_TYPE = "application/gzip";
+    private static final String ZSTD_MEDIA_TYPE = "application/zstd";
+
     private final SockService sockService;
+    private final StockLedgerService stockLedgerService;
+    private final SockTotalsService sockTotalsService;
+    private final ReservationService reservationService;
+    private final SnapshotImportService snapshotImportService;
+    private final WarehouseService warehouseService;
     private final SockMapper sockMapper;
+    private final CoalescingSockReader coalescingSockReader;
+    private final IdempotencyGuard idempotencyGuard;
 
     @GetMapping("/test")
     public String testMe() {
@@ -63,8 +103,15 @@ public class SockController {
                     schema = @Schema(implementation = MethodArgumentNotValidException.class))
     )
     @PostMapping("/income")
-    public SockDto incomeSocks(@Valid @RequestBody SockDto sockIncome) {
-        return sockService.addSockIncome(sockMapper.toSockEntity(sockIncome));
+    public SockDto incomeSocks(@Valid @RequestBody SockDto sockIncome,
+                               @Parameter(description = "Replays the first response for repeated requests")
+                               @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                               String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return sockService.addSockIncome(sockMapper.toSockEntity(sockIncome));
+        }
+        return idempotencyGuard.execute("income", idempotencyKey, sockIncome, SockDto.class, beforeCommit ->
+                sockService.addSockIncome(sockMapper.toSockEntity(sockIncome), beforeCommit));
     }
 
     @Operation(
@@ -89,13 +136,56 @@ public class SockController {
                     schema = @Schema(implementation = IllegalStateException.class))
     )
     @PostMapping("/outcome")
-    public SockDto outcomeSocks(@Valid @RequestBody SockDto sockOutcome) {
-        return sockService.subtractSockOutcome(sockMapper.toSockEntity(sockOutcome));
+    public SockDto outcomeSocks(@Valid @RequestBody SockDto sockOutcome,
+                                @Parameter(description = "Replays the first response for repeated requests")
+                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return sockService.subtractSockOutcome(sockMapper.toSockEntity(sockOutcome));
+        }
+        return idempotencyGuard.execute("outcome", idempotencyKey, sockOutcome, SockDto.class, beforeCommit ->
+                sockService.subtractSockOutcome(sockMapper.toSockEntity(sockOutcome), beforeCommit));
+    }
+
+    @Operation(
+            summary = "Add a batch of incoming socks",
+            description = "Adds all entries in one transaction. Accepts a JSON array or, with Content-Type " +
+                    "application/x-protobuf, a stream of length-delimited SockMessage entries."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "All entries added",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class))
+    )
+    @PostMapping("/income/batch")
+    public List<SockDto> incomeSocksBatch(@RequestBody List<@Valid SockDto> socksIncome) {
+        return sockService.addSockIncomeBatch(socksIncome.stream()
+                .map(sockMapper::toSockEntity)
+                .collect(Collectors.toList()));
+    }
+
+    @Operation(
+            summary = "Remove a batch of outgoing socks",
+            description = "Subtracts all entries in one transaction; fails as a whole if any entry cannot be " +
+                    "subtracted. Accepts the same formats as the income batch."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "All entries subtracted",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class))
+    )
+    @PostMapping("/outcome/batch")
+    public List<SockDto> outcomeSocksBatch(@RequestBody List<@Valid SockDto> socksOutcome) {
+        return sockService.subtractSockOutcomeBatch(socksOutcome.stream()
+                .map(sockMapper::toSockEntity)
+                .collect(Collectors.toList()));
     }
 
     @Operation(
             summary = "Get quantity of socks",
-            description = "Get the quantity of socks based on color, operation, and cotton percentage."
+            description = "Get the quantity of socks of one warehouse based on color, operation, and cotton " +
+                    "percentage. When asOf is given, the quantity at that moment is replayed from the stock movement " +
+                    "ledger, for all warehouses together unless a warehouse is given."
     )
     @ApiResponse(
             responseCode = "200",
@@ -104,6 +194,136 @@ public class SockController {
     )
     @GetMapping
     public int getNumberOfSocks(
+            @Parameter(description = "Color of the socks", required = true)
+            @RequestParam
+            @Schema(allowableValues = {"RED", "PINK", "GREEN", "PURPLE", "BLACK", "WHITE"}) String color,
+            @Parameter(description = "Criteria operation", required = true)
+            @RequestParam
+            @Schema(allowableValues = {"moreThan", "lessThan", "equal"}) String operation,
+            @Parameter(description = "Cotton percentage in the socks", required = true)
+            @RequestParam
+            @Min(value = 0, message = "Cotton percentage must be at least 0")
+            @Max(value = 100, message = "Cotton percentage must be at most 100") Integer cottonPart,
+            @Parameter(description = "Point in time (ISO-8601 date-time) to report the quantity for")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime asOf,
+            @Parameter(description = "Attribute the socks must carry, as name:value; repeat to combine")
+            @RequestParam(name = "attribute", required = false) List<String> attributes,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent; all warehouses " +
+                    "together when absent with asOf")
+            @RequestParam(required = false) String warehouse) {
+        Map<String, String> attributeFilter = SockAttributes.parseFilters(attributes);
+        if (asOf != null) {
+            if (!attributeFilter.isEmpty()) {
+                throw new InvalidSockParameterException("Attribute filters cannot be combined with asOf");
+            }
+            return stockLedgerService.getFilteredSocksQuantityAsOf(warehouse, color, operation, cottonPart, asOf);
+        }
+        return coalescingSockReader.getFilteredSocksQuantity(warehouse, color, operation, cottonPart,
+                attributeFilter);
+    }
+
+    @Operation(
+            summary = "Get available stock",
+            description = "Get the stock of a sock together with the quantity held by active reservations and " +
+                    "the quantity still available to sell."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Available stock fetched successfully",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = AvailableStockDto.class))
+    )
+    @GetMapping("/available")
+    public AvailableStockDto getAvailableStock(
+            @Parameter(description = "Color of the socks", required = true) @RequestParam String color,
+            @Parameter(description = "Cotton percentage", required = true)
+            @RequestParam @Min(0) @Max(100) int cottonPart,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
+        return reservationService.getAvailable(warehouse, color, cottonPart);
+    }
+
+    @Operation(
+            summary = "Reserve socks",
+            description = "Holds a quantity of a sock for a limited time, so that checkout does not oversell " +
+                    "while payment runs. A hold that is neither confirmed nor cancelled expires by itself."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation created",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationDto.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Not enough socks available",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = IllegalStateException.class))
+    )
+    @PostMapping("/reservations")
+    public ReservationDto reserveSocks(@Valid @RequestBody ReservationRequestDto reservationRequest) {
+        return reservationService.reserve(reservationRequest);
+    }
+
+    @Operation(
+            summary = "Confirm a reservation",
+            description = "Subtracts the reserved quantity from the inventory; fails if the reservation expired."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation confirmed",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationDto.class))
+    )
+    @PostMapping("/reservations/{id}/confirm")
+    public ReservationDto confirmReservation(@PathVariable Long id) {
+        return reservationService.confirm(id);
+    }
+
+    @Operation(
+            summary = "Cancel a reservation",
+            description = "Releases the held quantity; cancelling an expired or cancelled reservation is a no-op."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation cancelled",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ReservationDto.class))
+    )
+    @PostMapping("/reservations/{id}/cancel")
+    public ReservationDto cancelReservation(@PathVariable Long id) {
+        return reservationService.cancel(id);
+    }
+
+    @Operation(
+            summary = "Get socks totals",
+            description = "Get the total quantity of socks per color and overall. The totals of all warehouses " +
+                    "are kept up to date by the database on every stock change, so the read does not scan the sock " +
+                    "rows; the totals of one warehouse are summed from its partition."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Totals fetched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = SockTotalsDto.class))
+    )
+    @GetMapping("/totals")
+    public SockTotalsDto getSocksTotals(
+            @Parameter(description = "Warehouse code; the totals of all warehouses when absent")
+            @RequestParam(required = false) String warehouse) {
+        return sockTotalsService.getTotals(warehouse);
+    }
+
+    @Operation(
+            summary = "Get quantity of socks per warehouse",
+            description = "Get the quantity of socks based on color, operation, and cotton percentage in every " +
+                    "registered warehouse, together with the sum over all of them."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Quantities fetched successfully",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = WarehouseTotalsDto.class))
+    )
+    @GetMapping("/warehouses")
+    public WarehouseTotalsDto getNumberOfSocksByWarehouse(
             @Parameter(description = "Color of the socks", required = true)
             @RequestParam
             @Schema(allowableValues = {"RED", "PINK", "GREEN", "PURPLE", "BLACK", "WHITE"}) String color,
@@ -114,7 +334,49 @@ public class SockController {
             @RequestParam
             @Min(value = 0, message = "Cotton percentage must be at least 0")
             @Max(value = 100, message = "Cotton percentage must be at most 100") Integer cottonPart) {
-        return sockService.getFilteredSocksQuantity(color, operation, cottonPart);
+        return warehouseService.getQuantitiesByWarehouse(color, operation, cottonPart);
+    }
+
+    @Operation(
+            summary = "Transfer socks between warehouses",
+            description = "Moves a quantity of a sock from one warehouse to another in one transaction; the target " +
+                    "entry is created when missing. Stock held by reservations in the source warehouse is not moved."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Socks transferred, returns the source and target entries",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = TransferDto.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Not enough socks available in the source warehouse",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = IllegalStateException.class))
+    )
+    @PostMapping("/transfers")
+    public TransferDto transferSocks(@Valid @RequestBody TransferRequestDto transferRequest) {
+        return warehouseService.transfer(transferRequest);
+    }
+
+    @Operation(
+            summary = "Get quantities for several queries at once",
+            description = "Each query sums the given colors over a cotton percentage selected either by operation " +
+                    "and cottonPart or by the closed range cottonPartMin..cottonPartMax. All queries are answered " +
+                    "from one grouped scan; the result lists the quantities in query order."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Quantities fetched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class))
+    )
+    @PostMapping("/quantities")
+    public List<Integer> getSocksQuantities(
+            @RequestBody
+            @Size(min = 1, max = 1000, message = "Between 1 and 1000 queries must be given")
+            List<@Valid QuantityQueryDto> queries,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
+        return sockService.getSocksQuantities(warehouse, queries);
     }
 
     @Operation(
@@ -134,7 +396,8 @@ public class SockController {
 
     @Operation(
             summary = "Upload a batch of socks",
-            description = "This method allows uploading a batch of socks via a CSV file."
+            description = "This method allows uploading a batch of socks via a CSV file, optionally gzip or zstd " +
+                    "compressed."
     )
     @ApiResponse(
             responseCode = "200",
@@ -149,12 +412,78 @@ public class SockController {
             responseCode = "500",
             description = "Error processing the file"
     )
+    @ApiResponse(
+            responseCode = "503",
+            description = "Too many imports are running, retry after the Retry-After interval"
+    )
     @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> uploadSocksBatch(@RequestParam("file") MultipartFile file) {
-        sockService.processCsvFile(file);
+    @BulkheadWorkload(Workload.IMPORT)
+    public ResponseEntity<String> uploadSocksBatch(
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
+        sockService.processCsvFile(file, warehouse);
+        return ResponseEntity.ok("File processed successfully");
+    }
+
+    @Operation(
+            summary = "Upload a batch of socks as a raw CSV body",
+            description = "Streams the request body straight into the CSV parser, so parsing overlaps the upload and " +
+                    "nothing is spooled to memory or disk. The body is decoded as UTF-8 and may be gzip or zstd " +
+                    "compressed."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Body processed successfully"
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid CSV format or encoding"
+    )
+    @ApiResponse(
+            responseCode = "503",
+            description = "Too many imports are running, retry after the Retry-After interval"
+    )
+    @PostMapping(value = "/batch", consumes = {CSV_MEDIA_TYPE, GZIP_MEDIA_TYPE, ZSTD_MEDIA_TYPE})
+    @BulkheadWorkload(Workload.IMPORT)
+    public ResponseEntity<String> uploadSocksBatchStream(
+            InputStream body,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
+        sockService.processCsvFile("request body", body, warehouse);
         return ResponseEntity.ok("File processed successfully");
     }
 
+    @Operation(
+            summary = "Replace inventory with a stock snapshot",
+            description = "Called with mode=replace, makes the inventory of a warehouse equal to a full stock " +
+                    "snapshot in CSV form. " +
+                    "Only socks whose quantity differs are written; socks missing from the snapshot are zeroed " +
+                    "or deleted depending on socks.import.absent-keys. No sock goes below the quantity held by " +
+                    "its active reservations."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Snapshot applied, returns a summary of the differences",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportDiffDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid file format or a sock listed twice"
+    )
+    @ApiResponse(
+            responseCode = "503",
+            description = "Too many imports are running, retry after the Retry-After interval"
+    )
+    @PostMapping(value = "/batch", params = "mode=replace", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @BulkheadWorkload(Workload.IMPORT)
+    public ImportDiffDto replaceSocksFromSnapshot(
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
+        return snapshotImportService.replaceFromCsv(file, warehouse);
+    }
+
     @Operation(
             summary = "Get filtered and sorted socks",
             description = "Get a list of socks filtered by color and/or cotton percentage, and sorted by a given attribute."
@@ -169,10 +498,15 @@ public class SockController {
             @Parameter(description = "Color of the socks") @RequestParam(required = false) String color,
             @Parameter(description = "Minimum cotton percentage") @RequestParam(required = false) Integer cottonPartMin,
             @Parameter(description = "Maximum cotton percentage") @RequestParam(required = false) Integer cottonPartMax,
+            @Parameter(description = "Attribute the socks must carry, as name:value; repeat to combine")
+            @RequestParam(name = "attribute", required = false) List<String> attributes,
             @Parameter(description = "Field to sort by") @RequestParam(defaultValue = "color") String sortBy,
-            @Parameter(description = "Sorting order (asc or desc)") @RequestParam(defaultValue = "asc") String sortOrder) {
+            @Parameter(description = "Sorting order (asc or desc)") @RequestParam(defaultValue = "asc") String sortOrder,
+            @Parameter(description = "Warehouse code, the default warehouse MAIN when absent")
+            @RequestParam(required = false) String warehouse) {
 
-        List<Sock> socks = sockService.getFilteredAndSortedSocks(color, cottonPartMin, cottonPartMax, sortBy, sortOrder);
+        List<Sock> socks = coalescingSockReader.getFilteredAndSortedSocks(warehouse, color, cottonPartMin,
+                cottonPartMax, SockAttributes.parseFilters(attributes), sortBy, sortOrder);
 
         List<SockDto> response = socks.stream()
                 .map(sockMapper::toSockDto)
@@ -0,0 +1,61 @@
+package org.sellsocks.socksmanagement.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.sellsocks.socksmanagement.model.dto.WarehouseDto;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/warehouses")
+@RequiredArgsConstructor
+@Tag(name = "Warehouses", description = "Registration of the warehouses socks are stored in")
+public class WarehouseController {
+
+    private final WarehouseService warehouseService;
+
+    @Operation(
+            summary = "Get registered warehouses",
+            description = "Lists every registered warehouse ordered by code."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Warehouses fetched successfully",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = List.class))
+    )
+    @GetMapping
+    public List<WarehouseDto> getWarehouses() {
+        return warehouseService.getWarehouses();
+    }
+
+    @Operation(
+            summary = "Register a warehouse",
+            description = "Registers a warehouse and creates its own partition of the sock table. Registering a " +
+                    "warehouse that already exists changes nothing."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Warehouse registered",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = WarehouseDto.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid warehouse code"
+    )
+    @PutMapping("/{code}")
+    public WarehouseDto registerWarehouse(@PathVariable String code) {
+        return warehouseService.registerWarehouse(code);
+    }
+}
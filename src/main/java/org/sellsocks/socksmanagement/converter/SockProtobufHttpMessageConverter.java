@@ -0,0 +1,168 @@
+package org.sellsocks.socksmanagement.converter;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.sellsocks.socksmanagement.exception.ErrorResponse;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.model.proto.ErrorMessage;
+import org.sellsocks.socksmanagement.model.proto.QuantityMessage;
+import org.sellsocks.socksmanagement.model.proto.SockMessage;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the socks API in {@code application/x-protobuf}. A single {@link SockDto} is one
+ * {@link SockMessage}, a list of them is a stream of length-delimited messages, a quantity is a
+ * {@link QuantityMessage} and errors are {@link ErrorMessage}s. Colors travel as {@link SockColor} ordinals.
+ */
+public class SockProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    private static final SockColor[] COLORS = SockColor.values();
+
+    public SockProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == SockDto.class || clazz == Integer.class || clazz == int.class
+                || clazz == ErrorResponse.class || List.class.isAssignableFrom(clazz)
+                || Map.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return (type == SockDto.class || isSockDtoList(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        boolean writable = clazz == SockDto.class || clazz == Integer.class || clazz == int.class
+                || clazz == ErrorResponse.class
+                || (List.class.isAssignableFrom(clazz) && (type == null || isSockDtoList(type)))
+                || (Map.class.isAssignableFrom(clazz) && (type == null || isStringMap(type)));
+        return writable && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        InputStream body = inputMessage.getBody();
+        try {
+            if (type == SockDto.class) {
+                return toSockDto(SockMessage.parseFrom(body));
+            }
+            List<SockDto> socks = new ArrayList<>();
+            SockMessage message;
+            while ((message = SockMessage.parseDelimitedFrom(body)) != null) {
+                socks.add(toSockDto(message));
+            }
+            return socks;
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        OutputStream body = outputMessage.getBody();
+        if (value instanceof SockDto sockDto) {
+            toSockMessage(sockDto).writeTo(body);
+        } else if (value instanceof Integer quantity) {
+            QuantityMessage.newBuilder().setQuantity(quantity).build().writeTo(body);
+        } else if (value instanceof List<?> socks) {
+            for (Object sock : socks) {
+                toSockMessage((SockDto) sock).writeDelimitedTo(body);
+            }
+        } else if (value instanceof ErrorResponse errorResponse) {
+            ErrorMessage.Builder error = ErrorMessage.newBuilder().setError(errorResponse.error());
+            if (errorResponse.message() != null) {
+                error.setMessage(errorResponse.message());
+            }
+            error.build().writeTo(body);
+        } else if (value instanceof Map<?, ?> fieldErrors) {
+            ErrorMessage.Builder error = ErrorMessage.newBuilder().setError("Validation Error");
+            fieldErrors.forEach((field, message) -> error.putFieldErrors(String.valueOf(field), String.valueOf(message)));
+            error.build().writeTo(body);
+        } else {
+            throw new HttpMessageNotWritableException("Cannot write " + value.getClass() + " as protobuf");
+        }
+    }
+
+    public static SockDto toSockDto(SockMessage message) {
+        return SockDto.builder()
+                .id(message.hasId() ? message.getId() : null)
+                .color(message.hasColor() ? colorName(message.getColorValue()) : null)
+                .cottonPart(message.hasCottonPart() ? message.getCottonPart() : null)
+                .quantity(message.hasQuantity() ? message.getQuantity() : null)
+                .attributes(message.getAttributesMap())
+                .warehouse(message.hasWarehouse() ? message.getWarehouse() : null)
+                .build();
+    }
+
+    public static SockMessage toSockMessage(SockDto sockDto) {
+        SockMessage.Builder message = SockMessage.newBuilder();
+        if (sockDto.getId() != null) {
+            message.setId(sockDto.getId());
+        }
+        if (sockDto.getColor() != null) {
+            message.setColorValue(SockColor.valueOf(sockDto.getColor()).ordinal());
+        }
+        if (sockDto.getCottonPart() != null) {
+            message.setCottonPart(sockDto.getCottonPart());
+        }
+        if (sockDto.getQuantity() != null) {
+            message.setQuantity(sockDto.getQuantity());
+        }
+        if (sockDto.getAttributes() != null) {
+            message.putAllAttributes(sockDto.getAttributes());
+        }
+        if (sockDto.getWarehouse() != null) {
+            message.setWarehouse(sockDto.getWarehouse());
+        }
+        return message.build();
+    }
+
+    /**
+     * Unknown ordinals are passed on as the number, which the color validation then rejects.
+     */
+    private static String colorName(int ordinal) {
+        return ordinal >= 0 && ordinal < COLORS.length ? COLORS[ordinal].name() : String.valueOf(ordinal);
+    }
+
+    private static boolean isSockDtoList(Type type) {
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolvableType.toClass())
+                && resolvableType.getGeneric(0).toClass() == SockDto.class;
+    }
+
+    private static boolean isStringMap(Type type) {
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        return Map.class.isAssignableFrom(resolvableType.toClass())
+                && resolvableType.getGeneric(0).toClass() == String.class
+                && resolvableType.getGeneric(1).toClass() == String.class;
+    }
+}
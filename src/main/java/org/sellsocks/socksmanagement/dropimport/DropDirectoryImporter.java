@@ -0,0 +1,360 @@
+package org.sellsocks.socksmanagement.dropimport;
+
+import com.opencsv.CSVParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.DropImportProperties;
+import org.sellsocks.socksmanagement.model.entity.ImportCheckpoint;
+import org.sellsocks.socksmanagement.model.enums.ImportCheckpointStatus;
+import org.sellsocks.socksmanagement.repository.ImportCheckpointRepository;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Imports CSV files dropped into a watched directory. Every chunk of lines is imported in one transaction
+ * together with the file's checkpoint, so after a crash or restart the file resumes right after the last
+ * committed chunk. Imported files go to the done directory, rejected ones to the failed directory.
+ * <p>
+ * Watching and importing share one thread: events that arrive during an import wait in the watch service.
+ */
+@Component
+@Slf4j
+public class DropDirectoryImporter {
+
+    private static final long SHUTDOWN_WAIT_MILLIS = 30_000;
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final DropImportProperties properties;
+    private final SockService sockService;
+    private final ImportCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter importedRows;
+    private final Counter importedBytes;
+    private final Counter doneFiles;
+    private final Counter failedFiles;
+    private final Timer chunkTimer;
+
+    /**
+     * Files seen in the directory but not imported yet. Only accessed by the watcher thread.
+     */
+    private final Set<Path> candidates = new LinkedHashSet<>();
+
+    private final PathMatcher fileMatcher;
+
+    private WatchService watchService;
+    private Thread watcherThread;
+    private volatile boolean stopping;
+
+    public DropDirectoryImporter(DropImportProperties properties,
+                                 SockService sockService,
+                                 ImportCheckpointRepository checkpointRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sockService = sockService;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importedRows = Counter.builder("socks.drop-import.rows")
+                .description("CSV lines imported from the drop directory")
+                .register(meterRegistry);
+        this.importedBytes = Counter.builder("socks.drop-import.bytes")
+                .description("Bytes of CSV imported from the drop directory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.doneFiles = filesCounter(meterRegistry, "done");
+        this.failedFiles = filesCounter(meterRegistry, "failed");
+        this.chunkTimer = Timer.builder("socks.drop-import.chunk")
+                .description("Time to import and checkpoint one chunk of a dropped file")
+                .register(meterRegistry);
+        this.fileMatcher = FileSystems.getDefault().getPathMatcher("glob:" + properties.getFilePattern());
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(properties.getDirectory());
+        Files.createDirectories(properties.getDoneDirectory());
+        Files.createDirectories(properties.getFailedDirectory());
+        watchService = FileSystems.getDefault().newWatchService();
+        properties.getDirectory().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+        watcherThread = new Thread(this::watch, "drop-import-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        log.info("Watching {} for dropped CSV files matching {}", properties.getDirectory(), properties.getFilePattern());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (watcherThread == null) {
+            return;
+        }
+        stopping = true;
+        watchService.close();
+        watcherThread.join(SHUTDOWN_WAIT_MILLIS);
+    }
+
+    private void watch() {
+        scanDirectory();
+        while (!stopping) {
+            try {
+                WatchKey key = watchService.poll(properties.getSettleTime().toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            scanDirectory();
+                        } else {
+                            addCandidate(properties.getDirectory().resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        log.error("Drop directory {} is no longer accessible", properties.getDirectory());
+                    }
+                }
+                importSettledFiles();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Drop directory watcher failed, will retry", e);
+            }
+        }
+    }
+
+    private void scanDirectory() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(properties.getDirectory())) {
+            files.forEach(this::addCandidate);
+        } catch (IOException e) {
+            log.error("Failed to list drop directory {}: {}", properties.getDirectory(), e.getMessage());
+        }
+    }
+
+    private void addCandidate(Path file) {
+        if (fileMatcher.matches(file.getFileName()) && Files.isRegularFile(file)) {
+            candidates.add(file);
+        }
+    }
+
+    private void importSettledFiles() {
+        long settledBefore = System.currentTimeMillis() - properties.getSettleTime().toMillis();
+        Iterator<Path> files = candidates.iterator();
+        while (files.hasNext() && !stopping) {
+            Path file = files.next();
+            try {
+                if (!Files.isRegularFile(file)) {
+                    files.remove();
+                } else if (Files.getLastModifiedTime(file).toMillis() <= settledBefore && importFile(file)) {
+                    files.remove();
+                }
+            } catch (IOException e) {
+                log.warn("Cannot read dropped file {}, will retry: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Imports a file from its checkpoint on and returns {@code true} once it has been moved out of the
+     * directory, or {@code false} if it should be retried later.
+     */
+    boolean importFile(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        ImportCheckpoint checkpoint = transactionTemplate.execute(status -> claim(fileName, attributes));
+        if (checkpoint.getStatus() == ImportCheckpointStatus.DONE) {
+            moveTo(file, properties.getDoneDirectory());
+            return true;
+        }
+        if (checkpoint.getStatus() == ImportCheckpointStatus.FAILED) {
+            moveTo(file, properties.getFailedDirectory());
+            return true;
+        }
+
+        try {
+            if (!importFrom(file, checkpoint)) {
+                return false;
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Dropped file {} rejected: {}", fileName, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> finish(fileName, ImportCheckpointStatus.FAILED,
+                    e.getMessage()));
+            moveTo(file, properties.getFailedDirectory());
+            failedFiles.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to import dropped file {}, will retry", fileName, e);
+            return false;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> finish(fileName, ImportCheckpointStatus.DONE, null));
+        moveTo(file, properties.getDoneDirectory());
+        doneFiles.increment();
+        return true;
+    }
+
+    private ImportCheckpoint claim(String fileName, BasicFileAttributes attributes) {
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime modifiedAt = attributes.lastModifiedTime().toInstant()
+                .truncatedTo(ChronoUnit.MICROS)
+                .atOffset(ZoneOffset.UTC);
+        checkpointRepository.insertIfAbsent(fileName, attributes.size(), modifiedAt, now);
+        ImportCheckpoint checkpoint = checkpointRepository.findForUpdate(fileName).orElseThrow();
+
+        boolean sameFile = checkpoint.getFileSize() == attributes.size()
+                && checkpoint.getModifiedAt().toInstant().equals(modifiedAt.toInstant());
+        boolean finished = checkpoint.getStatus() != ImportCheckpointStatus.IN_PROGRESS;
+        if ((finished && !sameFile) || attributes.size() < checkpoint.getByteOffset()) {
+            log.info("Dropped file {} differs from the one checkpointed under its name, importing it from the start",
+                    fileName);
+            checkpoint.setByteOffset(0);
+            checkpoint.setLineNumber(0);
+            checkpoint.setStatus(ImportCheckpointStatus.IN_PROGRESS);
+            checkpoint.setErrorMessage(null);
+        }
+        checkpoint.setFileSize(attributes.size());
+        checkpoint.setModifiedAt(modifiedAt);
+        checkpoint.setUpdatedAt(now);
+        return checkpoint;
+    }
+
+    /**
+     * Imports the file chunk by chunk. Returns {@code false} if the import stopped early, because the
+     * application is shutting down or another node advanced the checkpoint.
+     */
+    private boolean importFrom(Path file, ImportCheckpoint checkpoint) throws IOException {
+        String fileName = checkpoint.getFileName();
+        long committedOffset = checkpoint.getByteOffset();
+        int lineNumber = checkpoint.getLineNumber();
+        if (committedOffset > 0) {
+            log.info("Resuming dropped file {} after line {} (byte {})", fileName, lineNumber, committedOffset);
+        } else {
+            log.info("Importing dropped file {}", fileName);
+        }
+
+        CSVParser parser = new CSVParser();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(committedOffset);
+            OffsetLineReader reader = new OffsetLineReader(Channels.newInputStream(channel), committedOffset);
+            if (lineNumber == 0 && reader.readLine() != null) {
+                lineNumber = 1;
+            }
+
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                if (stopping) {
+                    return false;
+                }
+                List<String[]> chunk = new ArrayList<>(properties.getChunkSize());
+                int firstLineNumber = lineNumber + 1;
+                String line;
+                while (chunk.size() < properties.getChunkSize() && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String[] fields = parser.parseLine(line);
+                    if (parser.isPending()) {
+                        throw new IllegalArgumentException("Invalid CSV format: unterminated quote. " +
+                                "See CSV file line no. " + lineNumber);
+                    }
+                    chunk.add(fields);
+                }
+                endOfFile = chunk.size() < properties.getChunkSize();
+                if (reader.getOffset() == committedOffset) {
+                    break;
+                }
+
+                if (!commitChunk(fileName, chunk, firstLineNumber, committedOffset, reader.getOffset(), lineNumber)) {
+                    log.info("Checkpoint of dropped file {} was advanced elsewhere, backing off", fileName);
+                    return false;
+                }
+                importedRows.increment(chunk.size());
+                importedBytes.increment(reader.getOffset() - committedOffset);
+                committedOffset = reader.getOffset();
+            }
+        }
+        log.info("Dropped file {} imported: {} lines", fileName, lineNumber);
+        return true;
+    }
+
+    /**
+     * Imports one chunk and moves the checkpoint past it in the same transaction, provided the checkpoint
+     * is still where this import expects it.
+     */
+    private boolean commitChunk(String fileName, List<String[]> chunk, int firstLineNumber,
+                                long fromOffset, long toOffset, int lastLineNumber) {
+        Boolean committed = chunkTimer.record(() -> transactionTemplate.execute(status -> {
+            ImportCheckpoint checkpoint = checkpointRepository.findForUpdate(fileName).orElseThrow();
+            if (checkpoint.getStatus() != ImportCheckpointStatus.IN_PROGRESS
+                    || checkpoint.getByteOffset() != fromOffset) {
+                return false;
+            }
+            sockService.processCsvChunk(chunk, firstLineNumber);
+            checkpoint.setByteOffset(toOffset);
+            checkpoint.setLineNumber(lastLineNumber);
+            checkpoint.setUpdatedAt(OffsetDateTime.now());
+            return true;
+        }));
+        return Boolean.TRUE.equals(committed);
+    }
+
+    private void finish(String fileName, ImportCheckpointStatus status, String errorMessage) {
+        ImportCheckpoint checkpoint = checkpointRepository.findForUpdate(fileName).orElseThrow();
+        checkpoint.setStatus(status);
+        checkpoint.setErrorMessage(errorMessage == null || errorMessage.length() <= MAX_ERROR_LENGTH
+                ? errorMessage
+                : errorMessage.substring(0, MAX_ERROR_LENGTH));
+        checkpoint.setUpdatedAt(OffsetDateTime.now());
+    }
+
+    private static void moveTo(Path file, Path directory) throws IOException {
+        Path target = directory.resolve(file.getFileName());
+        if (Files.exists(target)) {
+            target = directory.resolve(file.getFileName() + "." + System.currentTimeMillis());
+        }
+        try {
+            Files.move(file, target);
+        } catch (NoSuchFileException e) {
+            log.debug("Dropped file {} was already moved", file);
+        }
+    }
+
+    private static Counter filesCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("socks.drop-import.files")
+                .description("Dropped files processed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
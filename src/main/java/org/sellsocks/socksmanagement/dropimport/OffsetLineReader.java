@@ -0,0 +1,64 @@
+package org.sellsocks.socksmanagement.dropimport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines and keeps the byte offset just past the last line read, which is what an import
+ * checkpoint records and resumes from. Lines end with {@code \n} or {@code \r\n}.
+ */
+final class OffsetLineReader {
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private byte[] line = new byte[256];
+    private int position;
+    private int limit;
+    private long offset;
+
+    OffsetLineReader(InputStream in, long startOffset) {
+        this.in = in;
+        this.offset = startOffset;
+    }
+
+    /**
+     * Returns the next line without its terminator, or {@code null} at the end of the input.
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    break;
+                }
+            }
+            read = true;
+            byte next = buffer[position++];
+            offset++;
+            if (next == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = next;
+        }
+        if (!read) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,19 @@
+package org.sellsocks.socksmanagement.exception;
+
+import lombok.Getter;
+import org.sellsocks.socksmanagement.bulkhead.Workload;
+
+import java.time.Duration;
+
+@Getter
+public class BulkheadFullException extends RuntimeException {
+
+    private final Workload workload;
+    private final Duration retryAfter;
+
+    public BulkheadFullException(Workload workload, Duration retryAfter) {
+        super("Too many concurrent " + workload.name().toLowerCase() + " requests, retry later");
+        this.workload = workload;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,82 @@
+package org.sellsocks.socksmanagement.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.ErrorLogProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records 4xx responses caused by client input: every one is counted in {@code socks.errors.client} by
+ * exception type and status, but only a few per type and second are logged, at debug level and without the
+ * stack trace, so a client flooding us with bad input costs neither CPU nor log I/O.
+ */
+@Component
+@Slf4j
+public class ClientErrorLog {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ErrorLogProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, ErrorType> errorTypes = new ConcurrentHashMap<>();
+
+    public ClientErrorLog(ErrorLogProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(HttpStatus status, Throwable e) {
+        ErrorType errorType = errorTypes.computeIfAbsent(e.getClass(), type -> new ErrorType(
+                Counter.builder("socks.errors.client")
+                        .description("Requests rejected because of client input")
+                        .tag("type", type.getSimpleName())
+                        .tag("status", String.valueOf(status.value()))
+                        .register(meterRegistry)));
+        errorType.counter.increment();
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        long suppressed = errorType.tryAcquire(properties.getClientErrorsPerSecond());
+        if (suppressed >= 0) {
+            log.debug("{} {}: {} ({} similar suppressed)",
+                    status.value(), e.getClass().getSimpleName(), e.getMessage(), suppressed);
+        }
+    }
+
+    private static final class ErrorType {
+
+        private final Counter counter;
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final AtomicInteger logged = new AtomicInteger();
+        private final LongAdder suppressed = new LongAdder();
+
+        ErrorType(Counter counter) {
+            this.counter = counter;
+        }
+
+        /**
+         * Returns the number of lines suppressed since the last logged one, or -1 when this one is suppressed.
+         */
+        long tryAcquire(int perSecond) {
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                logged.set(0);
+            }
+            if (logged.incrementAndGet() <= perSecond) {
+                return suppressed.sumThenReset();
+            }
+            suppressed.increment();
+            return -1;
+        }
+    }
+}
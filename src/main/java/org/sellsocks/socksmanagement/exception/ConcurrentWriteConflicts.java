@@ -0,0 +1,40 @@
+package org.sellsocks.socksmanagement.exception;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+/**
+ * Tells a write that lost a race on the same sock from a real data fault. Only a lock or serialization failure
+ * and a unique violation are races: repeating the request applies it to the current stock. Any other integrity
+ * violation, such as a check or not-null constraint, fails the same way on every retry.
+ */
+public final class ConcurrentWriteConflicts {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private ConcurrentWriteConflicts() {
+    }
+
+    public static boolean isConcurrentWriteConflict(DataAccessException e) {
+        return e instanceof ConcurrencyFailureException || isUniqueViolation(e);
+    }
+
+    /**
+     * JDBC translates a unique violation into {@link DuplicateKeyException}, while JPA reports it as a plain
+     * {@link org.springframework.dao.DataIntegrityViolationException}, so the SQL state of the cause decides.
+     */
+    static boolean isUniqueViolation(DataAccessException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
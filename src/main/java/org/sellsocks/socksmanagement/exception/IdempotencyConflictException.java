@@ -0,0 +1,17 @@
+package org.sellsocks.socksmanagement.exception;
+
+/**
+ * An {@code Idempotency-Key} was reused for a different request, or its original request is still running on
+ * another node. Created without a stack trace.
+ */
+public class IdempotencyConflictException extends IllegalStateException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
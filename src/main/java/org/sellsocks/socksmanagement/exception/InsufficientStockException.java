@@ -0,0 +1,24 @@
+package org.sellsocks.socksmanagement.exception;
+
+import lombok.Getter;
+
+/**
+ * An outcome asks for more socks than are in stock. Created without a stack trace.
+ */
+@Getter
+public class InsufficientStockException extends IllegalStateException {
+
+    private final int available;
+    private final int requested;
+
+    public InsufficientStockException(int available, int requested) {
+        super("Not enough socks in stock: available=" + available + ", requested=" + requested);
+        this.available = available;
+        this.requested = requested;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,17 @@
+package org.sellsocks.socksmanagement.exception;
+
+/**
+ * A color, operation, cotton percentage or quantity given by the client is invalid. Created without a stack
+ * trace.
+ */
+public class InvalidSockParameterException extends IllegalArgumentException {
+
+    public InvalidSockParameterException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
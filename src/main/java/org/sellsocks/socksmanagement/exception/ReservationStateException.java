@@ -0,0 +1,16 @@
+package org.sellsocks.socksmanagement.exception;
+
+/**
+ * A reservation cannot be confirmed or cancelled in its current state. Created without a stack trace.
+ */
+public class ReservationStateException extends IllegalStateException {
+
+    public ReservationStateException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,18 @@
+package org.sellsocks.socksmanagement.exception;
+
+import javax.persistence.EntityNotFoundException;
+
+/**
+ * No sock or reservation matches the request. Thrown for ordinary client input, so it is created without a stack trace.
+ */
+public class SockNotFoundException extends EntityNotFoundException {
+
+    public SockNotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,13 +1,28 @@
 package org.sellsocks.socksmanagement.exception.advice;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.exception.BulkheadFullException;
+import org.sellsocks.socksmanagement.exception.ClientErrorLog;
+import org.sellsocks.socksmanagement.exception.ConcurrentWriteConflicts;
 import org.sellsocks.socksmanagement.exception.ErrorResponse;
+import org.sellsocks.socksmanagement.exception.IdempotencyConflictException;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.exception.ReservationStateException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.ConstraintViolationException;
@@ -15,10 +30,18 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Maps exceptions to responses. The domain exceptions thrown for client input and the validation failures go to
+ * the rate-limited {@link ClientErrorLog}; any other exception, including a plain {@link IllegalArgumentException}
+ * or {@link IllegalStateException}, may be a server fault and is logged with its stack trace.
+ */
 @Slf4j
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final ClientErrorLog clientErrorLog;
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
@@ -26,10 +49,17 @@ public class GlobalExceptionHandler {
         for (FieldError fieldError : ex.getFieldErrors()) {
             errorResponse.put(fieldError.getField(), fieldError.getDefaultMessage());
         }
-        log.error("Validation failed for request. MethodArgumentNotValidException", ex);
+        clientErrorLog.record(HttpStatus.BAD_REQUEST, ex);
         return errorResponse;
     }
 
+    @ExceptionHandler(SockNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleSockNotFound(SockNotFoundException e) {
+        clientErrorLog.record(HttpStatus.NOT_FOUND, e);
+        return new ErrorResponse("EntityNotFoundException", e.getMessage());
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleEntityNotFound(EntityNotFoundException e) {
@@ -37,6 +67,13 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("EntityNotFoundException", e.getMessage());
     }
 
+    @ExceptionHandler(InvalidSockParameterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidSockParameter(InvalidSockParameterException e) {
+        clientErrorLog.record(HttpStatus.BAD_REQUEST, e);
+        return new ErrorResponse("IllegalArgumentException", e.getMessage());
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIllegalArgumentException(IllegalArgumentException e) {
@@ -44,14 +81,30 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("IllegalArgumentException", e.getMessage());
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException e) {
+        clientErrorLog.record(HttpStatus.BAD_REQUEST, e);
+        return new ErrorResponse("MethodArgumentTypeMismatchException",
+                "Invalid value '" + e.getValue() + "' for parameter '" + e.getName() + "'");
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConstraintViolation(ConstraintViolationException ex) {
         String message = ex.getConstraintViolations().iterator().next().getMessage();
-        log.error("Validation Error", ex);
+        clientErrorLog.record(HttpStatus.BAD_REQUEST, ex);
         return new ErrorResponse("Validation Error", message);
     }
 
+    @ExceptionHandler({InsufficientStockException.class, IdempotencyConflictException.class,
+            ReservationStateException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleStockConflict(IllegalStateException e) {
+        clientErrorLog.record(HttpStatus.CONFLICT, e);
+        return new ErrorResponse("IllegalStateException", e.getMessage());
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleIllegalState(IllegalStateException e) {
@@ -59,6 +112,31 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("IllegalStateException", e.getMessage());
     }
 
+    /**
+     * A write that lost a race on the same sock: a deadlock PostgreSQL broke by aborting it, or a move onto a key
+     * another transaction has just created. Repeating the request applies it to the current stock. Any other
+     * integrity violation is a server fault.
+     */
+    @ExceptionHandler({ConcurrencyFailureException.class, DataIntegrityViolationException.class})
+    public ResponseEntity<ErrorResponse> handleConcurrentWrite(DataAccessException e) {
+        if (!ConcurrentWriteConflicts.isConcurrentWriteConflict(e)) {
+            log.error("DataIntegrityViolationException", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("DataIntegrityViolationException", e.getMessage()));
+        }
+        clientErrorLog.record(HttpStatus.CONFLICT, e);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse("ConcurrentWriteConflict", "The sock was changed concurrently, please retry"));
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ErrorResponse> handleBulkheadFull(BulkheadFullException e) {
+        log.warn("BulkheadFullException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(new ErrorResponse("BulkheadFullException", e.getMessage()));
+    }
+
     @ExceptionHandler(IOException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleIOException(IOException e) {
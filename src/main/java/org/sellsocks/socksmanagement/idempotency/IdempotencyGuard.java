@@ -0,0 +1,245 @@
+package org.sellsocks.socksmanagement.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.coalescing.SingleFlight;
+import org.sellsocks.socksmanagement.config.IdempotencyProperties;
+import org.sellsocks.socksmanagement.exception.IdempotencyConflictException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a write at most once per {@code Idempotency-Key} and replays its stored response for duplicates.
+ * Duplicates on the same node wait for the in-flight original; across nodes the key is claimed in
+ * {@code idempotency_record} and the response is stored in the write's own transaction. Completed responses
+ * are also kept in a bounded in-memory LRU so that most replays do not touch the database.
+ */
+@Component
+@Slf4j
+public class IdempotencyGuard {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final SingleFlight<RequestKey, Completed> flights = new SingleFlight<>();
+    private final Map<RequestKey, CachedResult> results;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    public IdempotencyGuard(IdempotencyStore store,
+                            IdempotencyProperties properties,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int maxCachedResults = properties.getMaxCachedResults();
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RequestKey, CachedResult> eldest) {
+                return size() > maxCachedResults;
+            }
+        };
+        registerMetrics(meterRegistry);
+    }
+
+    /**
+     * Runs the write unless the key has been used before for the operation, in which case the first response
+     * is returned. Reusing a key with a different request is rejected.
+     */
+    public <T> T execute(String operation, String idempotencyKey, Object request, Class<T> responseType,
+                         Supplier<T> write) {
+        return execute(operation, idempotencyKey, request, responseType,
+                beforeCommit -> transactionTemplate.execute(status -> {
+                    T response = write.get();
+                    beforeCommit.accept(response);
+                    return response;
+                }));
+    }
+
+    /**
+     * Like {@link #execute(String, String, Object, Class, Supplier)} for a write that opens its own
+     * transaction, so that it can do work that must not hold a connection before the transaction starts. The
+     * write has to hand its response to the given callback inside that transaction, which stores it together
+     * with the write.
+     */
+    public <T> T execute(String operation, String idempotencyKey, Object request, Class<T> responseType,
+                         Function<Consumer<T>, T> write) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidSockParameterException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH +
+                    " characters long");
+        }
+        RequestKey key = new RequestKey(operation, idempotencyKey);
+        String requestHash = hash(request);
+        Completed completed = flights.execute(key, () -> resolve(key, requestHash, write));
+        if (!completed.requestHash().equals(requestHash)) {
+            log.debug("Idempotency-Key {} of {} reused with a different request", idempotencyKey, operation);
+            throw new IdempotencyConflictException("Idempotency-Key " + idempotencyKey +
+                    " was already used for a different " + operation + " request");
+        }
+        return fromJson(completed.responseBody(), responseType);
+    }
+
+    private <T> Completed resolve(RequestKey key, String requestHash, Function<Consumer<T>, T> write) {
+        Completed cached = cachedResult(key);
+        if (cached != null) {
+            replayed.increment();
+            return cached;
+        }
+
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+        while (true) {
+            Optional<UUID> claimToken = store.claim(key.operation(), key.idempotencyKey(), requestHash,
+                    properties.getLockTimeout(), properties.getTtl());
+            if (claimToken.isPresent()) {
+                executed.increment();
+                return runClaimed(key, claimToken.get(), requestHash, write);
+            }
+            Optional<IdempotencyRecord> record = store.find(key.operation(), key.idempotencyKey());
+            if (record.isPresent() && record.get().status() == IdempotencyStatus.COMPLETED) {
+                Completed completed = new Completed(record.get().requestHash(), record.get().responseBody());
+                cacheResult(key, completed);
+                replayed.increment();
+                return completed;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                log.debug("Idempotency-Key {} of {} is still in progress on another node",
+                        key.idempotencyKey(), key.operation());
+                throw new IdempotencyConflictException("Request with Idempotency-Key " + key.idempotencyKey() +
+                        " is still in progress, retry later");
+            }
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * Runs the write under the claim identified by the token. The response is only stored while the claim is
+     * still ours: if it timed out and another request took the key over, the callback throws inside the
+     * write's transaction, so the write rolls back instead of being applied a second time.
+     */
+    private <T> Completed runClaimed(RequestKey key, UUID claimToken, String requestHash,
+                                     Function<Consumer<T>, T> write) {
+        AtomicReference<String> storedResponse = new AtomicReference<>();
+        try {
+            write.apply(response -> {
+                String responseBody = toJson(response);
+                if (!store.complete(key.operation(), key.idempotencyKey(), claimToken, responseBody)) {
+                    log.warn("Claim of Idempotency-Key {} of {} timed out and was taken over, rolling back",
+                            key.idempotencyKey(), key.operation());
+                    throw new IdempotencyConflictException("Request with Idempotency-Key " + key.idempotencyKey() +
+                            " took longer than its claim and was rolled back, retry to get the stored response");
+                }
+                storedResponse.set(responseBody);
+            });
+        } catch (RuntimeException e) {
+            store.release(key.operation(), key.idempotencyKey(), claimToken);
+            throw e;
+        }
+        if (storedResponse.get() == null) {
+            store.release(key.operation(), key.idempotencyKey(), claimToken);
+            throw new IllegalStateException("Idempotent " + key.operation() + " write did not store its response");
+        }
+        Completed completed = new Completed(requestHash, storedResponse.get());
+        cacheResult(key, completed);
+        return completed;
+    }
+
+    private Completed cachedResult(RequestKey key) {
+        synchronized (results) {
+            CachedResult result = results.get(key);
+            if (result == null) {
+                return null;
+            }
+            if (System.nanoTime() - result.expiresAt() >= 0) {
+                results.remove(key);
+                return null;
+            }
+            return result.completed();
+        }
+    }
+
+    private void cacheResult(RequestKey key, Completed completed) {
+        long expiresAt = System.nanoTime() + properties.getTtl().toNanos();
+        synchronized (results) {
+            results.put(key, new CachedResult(completed, expiresAt));
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize request for its idempotency hash", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response for idempotent replay", e);
+        }
+    }
+
+    private <T> T fromJson(String responseBody, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(responseBody, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read stored idempotent response", e);
+        }
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("socks.idempotency.calls", executed, LongAdder::sum)
+                .description("Idempotent writes that ran the write")
+                .tag("outcome", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("socks.idempotency.calls", replayed, LongAdder::sum)
+                .description("Idempotent writes answered with a stored response")
+                .tag("outcome", "replayed")
+                .register(meterRegistry);
+        FunctionCounter.builder("socks.idempotency.calls", flights, SingleFlight::getJoined)
+                .description("Idempotent writes that waited for the in-flight original on this node")
+                .tag("outcome", "joined")
+                .register(meterRegistry);
+    }
+
+    private record RequestKey(String operation, String idempotencyKey) {
+    }
+
+    private record Completed(String requestHash, String responseBody) {
+    }
+
+    private record CachedResult(Completed completed, long expiresAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package org.sellsocks.socksmanagement.idempotency;
+
+import java.time.OffsetDateTime;
+
+public record IdempotencyRecord(String requestHash,
+                                IdempotencyStatus status,
+                                String responseBody,
+                                OffsetDateTime lockedUntil) {
+}
@@ -0,0 +1,6 @@
+package org.sellsocks.socksmanagement.idempotency;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,91 @@
+package org.sellsocks.socksmanagement.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reads and writes {@code idempotency_record}, the cross-node source of truth for idempotency keys.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims the key for the caller and returns the token that identifies this claim. Succeeds when the key is
+     * new, its record has expired, or the claim of another node has timed out without completing; otherwise
+     * returns an empty result.
+     */
+    public Optional<UUID> claim(String operation, String key, String requestHash, Duration lockTimeout,
+                                Duration ttl) {
+        UUID claimToken = UUID.randomUUID();
+        int claimed = jdbcTemplate.update("""
+                INSERT INTO idempotency_record
+                    (operation, idempotency_key, request_hash, status, response_body, claim_token, locked_until,
+                     expires_at)
+                VALUES (?, ?, ?, 'IN_PROGRESS', NULL, ?,
+                        now() + make_interval(secs => ?), now() + make_interval(secs => ?))
+                ON CONFLICT (operation, idempotency_key) DO UPDATE
+                    SET request_hash = EXCLUDED.request_hash,
+                        status = EXCLUDED.status,
+                        response_body = NULL,
+                        claim_token = EXCLUDED.claim_token,
+                        locked_until = EXCLUDED.locked_until,
+                        expires_at = EXCLUDED.expires_at
+                    WHERE idempotency_record.expires_at < now()
+                       OR (idempotency_record.status = 'IN_PROGRESS' AND idempotency_record.locked_until < now())
+                """, operation, key, requestHash, claimToken, seconds(lockTimeout), seconds(ttl));
+        return claimed == 1 ? Optional.of(claimToken) : Optional.empty();
+    }
+
+    /**
+     * Stores the response of a claimed key if the claim is still the caller's. Meant to run in the transaction
+     * of the write itself, so that the write and its record commit or roll back together. Returns false when
+     * the claim timed out and another request has taken the key over; the caller must then roll its write back.
+     */
+    public boolean complete(String operation, String key, UUID claimToken, String responseBody) {
+        return jdbcTemplate.update("""
+                UPDATE idempotency_record
+                SET status = 'COMPLETED', response_body = ?, locked_until = NULL
+                WHERE operation = ? AND idempotency_key = ? AND claim_token = ? AND status = 'IN_PROGRESS'
+                """, responseBody, operation, key, claimToken) == 1;
+    }
+
+    /**
+     * Drops a claim whose write failed, so that a retry runs the write again. A claim another request has
+     * taken over in the meantime is left alone.
+     */
+    public void release(String operation, String key, UUID claimToken) {
+        jdbcTemplate.update("DELETE FROM idempotency_record WHERE operation = ? AND idempotency_key = ? " +
+                "AND claim_token = ? AND status = 'IN_PROGRESS'", operation, key, claimToken);
+    }
+
+    public Optional<IdempotencyRecord> find(String operation, String key) {
+        return jdbcTemplate.query("""
+                        SELECT request_hash, status, response_body, locked_until
+                        FROM idempotency_record
+                        WHERE operation = ? AND idempotency_key = ? AND expires_at >= now()
+                        """,
+                (rs, rowNum) -> new IdempotencyRecord(
+                        rs.getString("request_hash"),
+                        IdempotencyStatus.valueOf(rs.getString("status")),
+                        rs.getString("response_body"),
+                        rs.getObject("locked_until", OffsetDateTime.class)),
+                operation, key).stream().findFirst();
+    }
+
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_record WHERE expires_at < now()");
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,27 @@
+package org.sellsocks.socksmanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A chunk of consecutive CSV rows imported into the database; the event duration is the time the chunk took.
+ */
+@Name("org.sellsocks.CsvImportChunk")
+@Label("CSV Import Chunk")
+@Category({"Socks", "Import"})
+@Description("Consecutive rows of a CSV import and the time spent importing them")
+@Getter
+@Setter
+public class CsvImportChunkEvent extends Event {
+
+    @Label("First Line")
+    private int firstLine;
+
+    @Label("Rows")
+    private int rows;
+}
@@ -0,0 +1,136 @@
+package org.sellsocks.socksmanagement.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.JfrProperties;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@code /actuator/jfr}: starts a bounded flight recording with the socks events enabled ({@code POST}), shows
+ * its state ({@code GET}) and stops it, returning the {@code .jfr} file ({@code DELETE}). Only one recording
+ * runs at a time.
+ */
+@Endpoint(id = "jfr")
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final List<Class<? extends jdk.jfr.Event>> SOCKS_EVENTS =
+            List.of(StockMovementEvent.class, CsvImportChunkEvent.class, SockMergeEvent.class);
+
+    private static final String DUMP_PREFIX = "socks-";
+
+    private final JfrProperties properties;
+
+    private Recording recording;
+
+    public JfrRecordingEndpoint(JfrProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public synchronized RecordingStatus status() {
+        return RecordingStatus.of(recording);
+    }
+
+    @WriteOperation
+    public synchronized RecordingStatus start(@Nullable Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        Duration length = duration != null ? duration : properties.getDefaultDuration();
+        if (length.isNegative() || length.isZero() || length.compareTo(properties.getMaxDuration()) > 0) {
+            throw new IllegalArgumentException("Recording duration must be positive and at most " +
+                    properties.getMaxDuration());
+        }
+        closeRecording();
+
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration(properties.getSettings()));
+            SOCKS_EVENTS.forEach(event -> newRecording.enable(event).withoutThreshold());
+            newRecording.setName("socks");
+            newRecording.setToDisk(true);
+            newRecording.setDuration(length);
+            newRecording.setMaxSize(properties.getMaxSize().toBytes());
+            newRecording.start();
+            recording = newRecording;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid JFR settings: " + properties.getSettings(), e);
+        }
+        log.info("JFR recording started for {}", length);
+        return RecordingStatus.of(recording);
+    }
+
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Resource> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Files.createDirectories(properties.getDirectory());
+            deletePreviousDumps();
+            Path file = properties.getDirectory().resolve(DUMP_PREFIX + Instant.now().toEpochMilli() + ".jfr");
+            recording.dump(file);
+            log.info("JFR recording stopped and written to {}", file);
+            return new WebEndpointResponse<>(new FileSystemResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeRecording();
+        }
+    }
+
+    /**
+     * Keeps only the latest dump on disk; earlier ones have already been downloaded.
+     */
+    private void deletePreviousDumps() throws IOException {
+        List<Path> previousDumps;
+        try (Stream<Path> files = Files.list(properties.getDirectory())) {
+            previousDumps = files.filter(path -> path.getFileName().toString().startsWith(DUMP_PREFIX)).toList();
+        }
+        for (Path previousDump : previousDumps) {
+            Files.deleteIfExists(previousDump);
+        }
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public record RecordingStatus(String state, Instant startTime, Duration duration, long size) {
+
+        static RecordingStatus of(Recording recording) {
+            if (recording == null) {
+                return new RecordingStatus("NONE", null, null, 0);
+            }
+            return new RecordingStatus(recording.getState().name(), recording.getStartTime(),
+                    recording.getDuration(), recording.getSize());
+        }
+    }
+}
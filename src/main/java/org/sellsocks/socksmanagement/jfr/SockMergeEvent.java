@@ -0,0 +1,34 @@
+package org.sellsocks.socksmanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * An update that made a sock identical to another one and merged it into that sock.
+ */
+@Name("org.sellsocks.SockMerge")
+@Label("Sock Merge")
+@Category({"Socks", "Inventory"})
+@Description("Sock merged into an existing sock with the same color and cotton part on update")
+@Setter
+public class SockMergeEvent extends Event {
+
+    @Label("Merged Sock Id")
+    private long mergedId;
+
+    @Label("Target Sock Id")
+    private long targetId;
+
+    @Label("Color")
+    private String color;
+
+    @Label("Cotton Part")
+    private int cottonPart;
+
+    @Label("Merged Quantity")
+    private int mergedQuantity;
+}
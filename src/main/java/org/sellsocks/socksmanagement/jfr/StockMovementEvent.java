@@ -0,0 +1,35 @@
+package org.sellsocks.socksmanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * One stock change written to the database; the event duration is the database time of the sock update, the
+ * ledger row and the outbox row.
+ */
+@Name("org.sellsocks.StockMovement")
+@Label("Stock Movement")
+@Category({"Socks", "Inventory"})
+@Description("Stock change of one sock and the time spent writing it to the database")
+@Setter
+public class StockMovementEvent extends Event {
+
+    @Label("Warehouse")
+    private String warehouse;
+
+    @Label("Color")
+    private String color;
+
+    @Label("Cotton Part")
+    private int cottonPart;
+
+    @Label("Delta")
+    private int delta;
+
+    @Label("Movement Type")
+    private String movementType;
+}
@@ -4,24 +4,51 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.model.dto.ReservationDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.SockReservation;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
 
+import java.util.Map;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface SockMapper {
 
     @Mapping(target = "color", source = "color", qualifiedByName = "stringToEnum")
+    @Mapping(target = "attributes", source = "attributes", qualifiedByName = "formatAttributes")
+    @Mapping(target = "warehouse", source = "warehouse", qualifiedByName = "warehouseOrDefault")
     Sock toSockEntity(SockDto sockDto);
 
+    @Mapping(target = "attributes", source = "attributes", qualifiedByName = "parseAttributes")
     SockDto toSockDto(Sock sock);
 
+    ReservationDto toReservationDto(SockReservation reservation);
+
     @Named("stringToEnum")
     default SockColor stringToEnum(String color) {
-        try {
-            return SockColor.valueOf(color.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid color: " + color);
+        SockColor sockColor = SockColor.find(color);
+        if (sockColor == null) {
+            throw new InvalidSockParameterException("Invalid color: " + color);
         }
+        return sockColor;
+    }
+
+    @Named("warehouseOrDefault")
+    default String warehouseOrDefault(String warehouse) {
+        return warehouse != null ? warehouse : Warehouse.DEFAULT_CODE;
+    }
+
+    @Named("formatAttributes")
+    default String formatAttributes(Map<String, String> attributes) {
+        return SockAttributes.format(attributes);
+    }
+
+    @Named("parseAttributes")
+    default Map<String, String> parseAttributes(String attributes) {
+        return SockAttributes.parse(attributes);
     }
 }
@@ -0,0 +1,29 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Stock of one sock in one warehouse: {@code available} is what can still be sold or reserved, i.e.
+ * {@code inStock} minus the quantity {@code held} by active reservations.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class AvailableStockDto {
+
+    private String warehouse;
+
+    private String color;
+
+    private int cottonPart;
+
+    private long inStock;
+
+    private long held;
+
+    private long available;
+}
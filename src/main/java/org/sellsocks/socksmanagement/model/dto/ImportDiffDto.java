@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ImportDiffDto {
+
+    private int rowsRead;
+
+    private int inserted;
+
+    private int updated;
+
+    private int unchanged;
+
+    /**
+     * Socks absent from the snapshot whose quantity was set to zero.
+     */
+    private int zeroed;
+
+    /**
+     * Socks absent from the snapshot that were deleted.
+     */
+    private int deleted;
+
+    /**
+     * Socks the snapshot would have left with fewer socks than their active reservations hold. They keep the
+     * held quantity instead and are counted as updated or unchanged as well.
+     */
+    private int clamped;
+}
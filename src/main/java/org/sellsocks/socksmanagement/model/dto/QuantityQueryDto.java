@@ -0,0 +1,47 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * One query of a multi-query quantity request: the colors are summed together and the cotton percentage is
+ * either compared with {@code operation} and {@code cottonPart} or limited to the closed range
+ * [{@code cottonPartMin}, {@code cottonPartMax}].
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class QuantityQueryDto {
+
+    @NotEmpty(message = "At least one color must be given")
+    private List<@NotBlank(message = "Color must not be blank") String> colors;
+
+    @Schema(allowableValues = {"moreThan", "lessThan", "equal"})
+    private String operation;
+
+    @Min(value = 0, message = "Cotton percentage must be at least 0")
+    @Max(value = 100, message = "Cotton percentage must be at most 100")
+    private Integer cottonPart;
+
+    @Min(value = 0, message = "Cotton percentage must be at least 0")
+    @Max(value = 100, message = "Cotton percentage must be at most 100")
+    private Integer cottonPartMin;
+
+    @Min(value = 0, message = "Cotton percentage must be at least 0")
+    @Max(value = 100, message = "Cotton percentage must be at most 100")
+    private Integer cottonPartMax;
+}
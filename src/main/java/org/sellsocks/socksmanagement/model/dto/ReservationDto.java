@@ -0,0 +1,33 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.OffsetDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ReservationDto {
+
+    private Long id;
+
+    private String warehouse;
+
+    private String color;
+
+    private int cottonPart;
+
+    private int quantity;
+
+    private String status;
+
+    private OffsetDateTime expiresAt;
+}
@@ -11,6 +11,7 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -33,4 +34,10 @@ public class SockDto {
     @NotNull(message = "Quantity must not be null")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
+
+    @Schema(description = "Warehouse code, the default warehouse MAIN when absent")
+    private String warehouse;
+
+    @Schema(description = "Extra SKU attributes such as size, material or brand")
+    private Map<String, String> attributes;
 }
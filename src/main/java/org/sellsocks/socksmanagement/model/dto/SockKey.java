@@ -0,0 +1,11 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+public record SockKey(SockColor color, int cottonPart) {
+
+    public static SockKey of(Sock sock) {
+        return new SockKey(sock.getColor(), sock.getCottonPart());
+    }
+}
@@ -0,0 +1,19 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SockTotalsDto {
+
+    private Map<String, Long> byColor;
+
+    private long total;
+}
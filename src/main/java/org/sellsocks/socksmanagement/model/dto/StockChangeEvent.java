@@ -0,0 +1,8 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+public record StockChangeEvent(String warehouse, SockColor color, int cottonPart, String attributes, int delta,
+                               MovementType movementType) {
+}
@@ -0,0 +1,20 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The sock in the source and in the target warehouse after a transfer.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class TransferDto {
+
+    private SockDto from;
+
+    private SockDto to;
+}
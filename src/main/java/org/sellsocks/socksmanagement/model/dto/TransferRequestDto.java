@@ -0,0 +1,45 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class TransferRequestDto {
+
+    @NotBlank(message = "Source warehouse must not be blank")
+    private String fromWarehouse;
+
+    @NotBlank(message = "Target warehouse must not be blank")
+    private String toWarehouse;
+
+    @NotBlank(message = "Color must not be blank")
+    private String color;
+
+    @NotNull(message = "Cotton percentage must not be null")
+    @Min(value = 0, message = "Cotton percentage must be at least 0")
+    @Max(value = 100, message = "Cotton percentage must be at most 100")
+    private Integer cottonPart;
+
+    @NotNull(message = "Quantity must not be null")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    @Schema(description = "Extra SKU attributes such as size, material or brand")
+    private Map<String, String> attributes;
+}
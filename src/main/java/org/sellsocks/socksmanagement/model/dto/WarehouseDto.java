@@ -0,0 +1,19 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.OffsetDateTime;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class WarehouseDto {
+
+    private String code;
+
+    private OffsetDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package org.sellsocks.socksmanagement.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Quantity of the selected socks per warehouse, every registered warehouse listed, and over all warehouses.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class WarehouseTotalsDto {
+
+    private Map<String, Long> byWarehouse;
+
+    private long total;
+}
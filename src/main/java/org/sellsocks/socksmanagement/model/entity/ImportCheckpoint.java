@@ -0,0 +1,54 @@
+package org.sellsocks.socksmanagement.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.sellsocks.socksmanagement.model.enums.ImportCheckpointStatus;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.OffsetDateTime;
+
+/**
+ * How far a drop-directory file has been imported. It is updated in the same transaction as the chunk of
+ * socks it covers, which is what makes resuming after a restart exactly-once.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "import_checkpoint")
+public class ImportCheckpoint {
+
+    @Id
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    @Column(name = "modified_at", nullable = false)
+    private OffsetDateTime modifiedAt;
+
+    @Column(name = "byte_offset", nullable = false)
+    private long byteOffset;
+
+    @Column(name = "line_number", nullable = false)
+    private int lineNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ImportCheckpointStatus status;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -5,10 +5,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.sellsocks.socksmanagement.attributes.SockIndexEntityListener;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
@@ -25,6 +27,7 @@ import javax.validation.constraints.Min;
 @Builder
 @ToString
 @Table(name = "sock")
+@EntityListeners(SockIndexEntityListener.class)
 public class Sock {
 
     @Id
@@ -32,6 +35,13 @@ public class Sock {
     @Column(name = "id")
     private Long id;
 
+    /**
+     * Code of the warehouse holding the stock; it is the partition key of {@code sock}, so it never changes.
+     */
+    @Builder.Default
+    @Column(name = "warehouse", nullable = false, updatable = false)
+    private String warehouse = Warehouse.DEFAULT_CODE;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "color", nullable = false)
     private SockColor color;
@@ -44,9 +54,18 @@ public class Sock {
     @Column(name = "quantity", nullable = false)
     private int quantity;
 
+    /**
+     * Extra SKU attributes in canonical form, empty for a plain (color, cottonPart) sock.
+     */
+    @Builder.Default
+    @Column(name = "attributes", nullable = false)
+    private String attributes = "";
+
     public Sock(SockColor color, int cottonPart, int quantity) {
         this.color = color;
         this.cottonPart = cottonPart;
         this.quantity = quantity;
+        this.warehouse = Warehouse.DEFAULT_CODE;
+        this.attributes = "";
     }
 }
@@ -0,0 +1,64 @@
+package org.sellsocks.socksmanagement.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.sellsocks.socksmanagement.model.enums.ReservationStatus;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.OffsetDateTime;
+
+/**
+ * Stock held for a checkout. It counts against available stock while it is {@code ACTIVE} and not past
+ * {@code expiresAt}, whether or not the sweep has marked it {@code EXPIRED} yet.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "sock_reservation")
+public class SockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Builder.Default
+    @Column(name = "warehouse", nullable = false)
+    private String warehouse = Warehouse.DEFAULT_CODE;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "color", nullable = false)
+    private SockColor color;
+
+    @Column(name = "cotton_part", nullable = false)
+    private int cottonPart;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    public boolean isHolding(OffsetDateTime now) {
+        return status == ReservationStatus.ACTIVE && expiresAt.isAfter(now);
+    }
+}
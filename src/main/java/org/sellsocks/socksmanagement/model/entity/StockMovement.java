@@ -0,0 +1,59 @@
+package org.sellsocks.socksmanagement.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.OffsetDateTime;
+
+/**
+ * Append-only record of a single stock change. Rows are never updated; the table is
+ * range-partitioned by {@code created_at} and old partitions are dropped as a whole.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "stock_movement")
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "warehouse", nullable = false)
+    private String warehouse;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "color", nullable = false)
+    private SockColor color;
+
+    @Column(name = "cotton_part", nullable = false)
+    private int cottonPart;
+
+    @Column(name = "attributes", nullable = false)
+    private String attributes;
+
+    @Column(name = "delta", nullable = false)
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false)
+    private MovementType movementType;
+}
@@ -0,0 +1,36 @@
+package org.sellsocks.socksmanagement.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.OffsetDateTime;
+
+/**
+ * A registered warehouse. Its stock lives in its own partition of {@code sock}, which is created together
+ * with this row.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "warehouse")
+public class Warehouse {
+
+    /**
+     * The warehouse that requests without an explicit warehouse read and write, and that holds all stock
+     * recorded before warehouses were introduced.
+     */
+    public static final String DEFAULT_CODE = "MAIN";
+
+    @Id
+    @Column(name = "code")
+    private String code;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
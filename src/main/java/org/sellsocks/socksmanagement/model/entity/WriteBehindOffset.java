@@ -0,0 +1,29 @@
+package org.sellsocks.socksmanagement.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Offset of the last write-ahead log entry applied to {@code sock}. It is updated in the same
+ * transaction as the applied quantities, which is what makes replay after a restart exactly-once.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "write_behind_offset")
+public class WriteBehindOffset {
+
+    @Id
+    @Column(name = "log_name")
+    private String logName;
+
+    @Column(name = "applied_offset", nullable = false)
+    private long appliedOffset;
+}
@@ -1,7 +1,60 @@
 package org.sellsocks.socksmanagement.model.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum CriteriaOperation {
     MORETHAN,
     LESSTHAN,
-    EQUAL
+    EQUAL;
+
+    private static final Map<String, CriteriaOperation> BY_NAME = new HashMap<>();
+
+    static {
+        for (CriteriaOperation operation : values()) {
+            BY_NAME.put(operation.name(), operation);
+        }
+        BY_NAME.put("moreThan", MORETHAN);
+        BY_NAME.put("lessThan", LESSTHAN);
+        BY_NAME.put("equal", EQUAL);
+    }
+
+    /**
+     * Case-insensitive lookup that returns {@code null} for unknown names instead of throwing like
+     * {@link #valueOf}.
+     */
+    public static CriteriaOperation find(String name) {
+        CriteriaOperation operation = BY_NAME.get(name);
+        return operation != null ? operation : BY_NAME.get(name.toUpperCase());
+    }
+
+    public boolean matches(int cottonPart, int threshold) {
+        return switch (this) {
+            case MORETHAN -> cottonPart > threshold;
+            case LESSTHAN -> cottonPart < threshold;
+            case EQUAL -> cottonPart == threshold;
+        };
+    }
+
+    /**
+     * Lowest cotton percentage that {@link #matches} the threshold.
+     */
+    public int lowestMatch(int threshold) {
+        return switch (this) {
+            case MORETHAN -> threshold + 1;
+            case LESSTHAN -> 0;
+            case EQUAL -> threshold;
+        };
+    }
+
+    /**
+     * Highest cotton percentage that {@link #matches} the threshold.
+     */
+    public int highestMatch(int threshold) {
+        return switch (this) {
+            case MORETHAN -> 100;
+            case LESSTHAN -> threshold - 1;
+            case EQUAL -> threshold;
+        };
+    }
 }
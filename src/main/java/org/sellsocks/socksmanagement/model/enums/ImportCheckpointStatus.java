@@ -0,0 +1,7 @@
+package org.sellsocks.socksmanagement.model.enums;
+
+public enum ImportCheckpointStatus {
+    IN_PROGRESS,
+    DONE,
+    FAILED
+}
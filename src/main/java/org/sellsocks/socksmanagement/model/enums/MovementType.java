@@ -0,0 +1,12 @@
+package org.sellsocks.socksmanagement.model.enums;
+
+public enum MovementType {
+    INCOME,
+    OUTCOME,
+    UPDATE,
+    MERGE,
+    CSV_IMPORT,
+    RECONCILE,
+    TRANSFER_OUT,
+    TRANSFER_IN
+}
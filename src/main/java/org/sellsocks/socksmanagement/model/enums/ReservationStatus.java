@@ -0,0 +1,8 @@
+package org.sellsocks.socksmanagement.model.enums;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONFIRMED,
+    CANCELLED,
+    EXPIRED
+}
@@ -1,10 +1,31 @@
 package org.sellsocks.socksmanagement.model.enums;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum SockColor {
     WHITE,
     BLACK,
     PINK,
     GREEN,
     RED,
-    PURPLE
+    PURPLE;
+
+    private static final Map<String, SockColor> BY_NAME = new HashMap<>();
+
+    static {
+        for (SockColor color : values()) {
+            BY_NAME.put(color.name(), color);
+            BY_NAME.put(color.name().toLowerCase(), color);
+        }
+    }
+
+    /**
+     * Case-insensitive lookup that returns {@code null} for unknown names instead of throwing like
+     * {@link #valueOf}.
+     */
+    public static SockColor find(String name) {
+        SockColor color = BY_NAME.get(name);
+        return color != null ? color : BY_NAME.get(name.toUpperCase());
+    }
 }
@@ -0,0 +1,27 @@
+package org.sellsocks.socksmanagement.outbox;
+
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps published events in memory; meant for tests and local runs.
+ */
+public class InMemoryOutboxSink implements OutboxEventSink {
+
+    private final List<OutboxEvent> published = new ArrayList<>();
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        published.addAll(events);
+    }
+
+    public synchronized List<OutboxEvent> getPublished() {
+        return List.copyOf(published);
+    }
+
+    public synchronized void clear() {
+        published.clear();
+    }
+}
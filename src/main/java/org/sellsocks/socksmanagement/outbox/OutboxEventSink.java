@@ -0,0 +1,16 @@
+package org.sellsocks.socksmanagement.outbox;
+
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination the outbox relay publishes inventory change events to. Events arrive in outbox order, which
+ * keeps them ordered per sock key. The relay deletes a batch only after {@link #publish} returns, so a
+ * failure leads to the batch being retried and a sink has to tolerate redelivery.
+ */
+public interface OutboxEventSink {
+
+    void publish(List<OutboxEvent> events) throws IOException;
+}
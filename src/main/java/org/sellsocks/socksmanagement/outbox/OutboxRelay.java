@@ -0,0 +1,136 @@
+package org.sellsocks.socksmanagement.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.OutboxProperties;
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+import org.sellsocks.socksmanagement.repository.OutboxEventRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox events to the configured sink. Each batch is locked with {@code FOR UPDATE SKIP LOCKED},
+ * so several instances can relay concurrently, and deleted in the same transaction once the sink accepted it.
+ * Events of a key that still has an earlier event locked by another relay are left for a later poll, which
+ * keeps delivery ordered per key.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventSink sink;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter publishedEvents;
+    private final Timer deliveryLag;
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxEventSink sink,
+                       OutboxProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedEvents = Counter.builder("socks.outbox.published")
+                .description("Outbox events published to the sink")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("socks.outbox.delivery.lag")
+                .description("Time from writing an outbox event to publishing it")
+                .register(meterRegistry);
+        Gauge.builder("socks.outbox.relay.lag", oldestPendingAgeMillis, age -> age.get() / 1000.0)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${socks.outbox.poll-interval:PT0.5S}")
+    public void relay() {
+        if (!properties.isRelayEnabled()) {
+            return;
+        }
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } while (published == properties.getBatchSize());
+        } catch (RuntimeException e) {
+            log.error("Failed to relay outbox events, will retry", e);
+        } finally {
+            updateRelayLag();
+        }
+    }
+
+    /**
+     * Locks, publishes and deletes one batch. Returns the number of events published.
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(properties.getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<String> blockedKeys = findBlockedKeys(batch);
+        List<OutboxEvent> deliverable = blockedKeys.isEmpty()
+                ? batch
+                : batch.stream().filter(event -> !blockedKeys.contains(event.getAggregateKey())).toList();
+        if (deliverable.isEmpty()) {
+            log.debug("All {} locked outbox events wait for earlier events of keys {}", batch.size(), blockedKeys);
+            return 0;
+        }
+
+        try {
+            sink.publish(deliverable);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        outboxEventRepository.deleteAllByIdInBatch(deliverable.stream().map(OutboxEvent::getId).toList());
+
+        OffsetDateTime now = OffsetDateTime.now();
+        deliverable.forEach(event -> deliveryLag.record(Duration.between(event.getCreatedAt(), now)));
+        publishedEvents.increment(deliverable.size());
+        log.debug("Published {} outbox events, {} held back for ordering", deliverable.size(),
+                batch.size() - deliverable.size());
+        return deliverable.size();
+    }
+
+    private Set<String> findBlockedKeys(List<OutboxEvent> batch) {
+        Set<String> keys = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        long maxId = Long.MIN_VALUE;
+        for (OutboxEvent event : batch) {
+            keys.add(event.getAggregateKey());
+            ids.add(event.getId());
+            maxId = Math.max(maxId, event.getId());
+        }
+        return new HashSet<>(outboxEventRepository.findKeysWithEarlierEvents(keys, maxId, ids));
+    }
+
+    private void updateRelayLag() {
+        try {
+            long ageMillis = outboxEventRepository.findFirstByOrderByIdAsc()
+                    .map(oldest -> Math.max(0, Duration.between(oldest.getCreatedAt(), OffsetDateTime.now()).toMillis()))
+                    .orElse(0L);
+            oldestPendingAgeMillis.set(ageMillis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to measure outbox relay lag: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.sellsocks.socksmanagement.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as JSON lines to {@code outbox-<first event id>.jsonl} files and starts a new file once the
+ * current one exceeds the configured size. A batch is forced to disk before it is reported as published.
+ */
+@Slf4j
+public class RollingFileOutboxSink implements OutboxEventSink {
+
+    private final Path directory;
+    private final long maxFileSize;
+
+    private FileChannel current;
+
+    public RollingFileOutboxSink(Path directory, long maxFileSize) {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (current == null || current.size() >= maxFileSize) {
+            roll(events.get(0).getId());
+        }
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            lines.append("{\"id\":").append(event.getId())
+                    .append(",\"createdAt\":\"").append(event.getCreatedAt())
+                    .append("\",\"key\":\"").append(event.getAggregateKey())
+                    .append("\",\"type\":\"").append(event.getEventType())
+                    .append("\",\"payload\":").append(event.getPayload())
+                    .append("}\n");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            current.write(buffer);
+        }
+        current.force(false);
+    }
+
+    private void roll(long firstEventId) throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("outbox-%020d.jsonl", firstEventId));
+        current = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        log.info("Outbox sink writing to {}", file);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.sellsocks.socksmanagement.reactive;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@code SockRepository} for the {@code reactive} profile. Income and outcome are
+ * single statements: the stock change, its ledger movement and its outbox event are written together by one
+ * data-modifying CTE, so they commit atomically without a reactive transaction manager. Only the default
+ * warehouse is served.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveSockRepository {
+
+    /**
+     * Appended to a CTE named {@code changed} that returns the changed sock row. The aggregate key and the outbox
+     * payload match those written by {@code OutboxServiceImpl}.
+     */
+    private static final String RECORD_CHANGE_SQL = """
+            , movement AS (
+                INSERT INTO stock_movement (warehouse, color, cotton_part, attributes, delta, movement_type)
+                SELECT warehouse, color, cotton_part, attributes, :delta, :movementType FROM changed
+            ), event AS (
+                INSERT INTO outbox_event (aggregate_key, event_type, payload, warehouse, attributes)
+                SELECT warehouse || ':' || color || ':' || cotton_part || attributes, :movementType,
+                       json_build_object('warehouse', warehouse, 'color', color, 'cottonPart', cotton_part,
+                                         'attributes', attributes, 'delta', CAST(:delta AS INTEGER),
+                                         'movementType', CAST(:movementType AS VARCHAR))::text,
+                       warehouse, attributes
+                FROM changed
+            )
+            SELECT id, color, cotton_part, quantity FROM changed
+            """;
+
+    private static final String INCOME_SQL = """
+            WITH changed AS (
+                INSERT INTO sock (color, cotton_part, quantity)
+                VALUES (:color, :cottonPart, :quantity)
+                ON CONFLICT (color, cotton_part, attributes, warehouse)
+                    DO UPDATE SET quantity = sock.quantity + EXCLUDED.quantity
+                RETURNING id, warehouse, color, cotton_part, attributes, quantity
+            )
+            """ + RECORD_CHANGE_SQL;
+
+    /**
+     * Guards against the stock left after active reservations, like {@code SockServiceImpl} does. The holds are
+     * summed from the statement snapshot, so a reservation committed while the update waits for the row lock is
+     * not counted.
+     */
+    private static final String OUTCOME_SQL = """
+            WITH changed AS (
+                UPDATE sock SET quantity = quantity - :quantity
+                WHERE warehouse = 'MAIN' AND color = :color AND cotton_part = :cottonPart AND attributes = ''
+                  AND quantity - COALESCE((
+                      SELECT SUM(r.quantity) FROM sock_reservation r
+                      WHERE r.warehouse = 'MAIN' AND r.color = :color AND r.cotton_part = :cottonPart
+                        AND r.status = 'ACTIVE' AND r.expires_at > now()
+                  ), 0) >= :quantity
+                RETURNING id, warehouse, color, cotton_part, attributes, quantity
+            )
+            """ + RECORD_CHANGE_SQL;
+
+    private static final Map<CriteriaOperation, String> QUANTITY_SQL = Map.of(
+            CriteriaOperation.MORETHAN,
+            "SELECT COALESCE(SUM(quantity), 0) AS total FROM sock " +
+                    "WHERE warehouse = 'MAIN' AND color = :color AND cotton_part > :cottonPart",
+            CriteriaOperation.LESSTHAN,
+            "SELECT COALESCE(SUM(quantity), 0) AS total FROM sock " +
+                    "WHERE warehouse = 'MAIN' AND color = :color AND cotton_part < :cottonPart",
+            CriteriaOperation.EQUAL,
+            "SELECT COALESCE(SUM(quantity), 0) AS total FROM sock " +
+                    "WHERE warehouse = 'MAIN' AND color = :color AND cotton_part = :cottonPart");
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "color", "color",
+            "cottonPart", "cotton_part",
+            "quantity", "quantity");
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Adds income, creating the sock if it does not exist yet.
+     */
+    public Mono<Sock> addIncome(SockColor color, int cottonPart, int quantity) {
+        return changeStock(INCOME_SQL, color, cottonPart, quantity, quantity, MovementType.INCOME);
+    }
+
+    /**
+     * Subtracts outcome only if enough socks are in stock and not held by active reservations; completes empty
+     * otherwise.
+     */
+    public Mono<Sock> subtractOutcome(SockColor color, int cottonPart, int quantity) {
+        return changeStock(OUTCOME_SQL, color, cottonPart, quantity, -quantity, MovementType.OUTCOME);
+    }
+
+    public Mono<Integer> findQuantityByColorAndCottonPart(SockColor color, int cottonPart) {
+        return databaseClient.sql("SELECT quantity FROM sock " +
+                        "WHERE warehouse = 'MAIN' AND color = :color AND cotton_part = :cottonPart AND attributes = ''")
+                .bind("color", color.name())
+                .bind("cottonPart", cottonPart)
+                .map((row, metadata) -> row.get("quantity", Integer.class))
+                .one();
+    }
+
+    public Mono<Integer> sumQuantity(SockColor color, CriteriaOperation operation, int cottonPart) {
+        return databaseClient.sql(QUANTITY_SQL.get(operation))
+                .bind("color", color.name())
+                .bind("cottonPart", cottonPart)
+                .map((row, metadata) -> row.get("total", Long.class).intValue())
+                .one();
+    }
+
+    public Flux<Sock> findSorted(SockColor color, Integer cottonPartMin, Integer cottonPartMax,
+                                 String sortBy, boolean descending) {
+        String sortColumn = SORT_COLUMNS.get(sortBy);
+        if (sortColumn == null) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy);
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                SELECT id, color, cotton_part, quantity FROM sock
+                WHERE warehouse = 'MAIN'
+                  AND (CAST(:color AS VARCHAR) IS NULL OR color = :color)
+                  AND (CAST(:cottonPartMin AS INTEGER) IS NULL OR cotton_part >= :cottonPartMin)
+                  AND (CAST(:cottonPartMax AS INTEGER) IS NULL OR cotton_part <= :cottonPartMax)
+                ORDER BY %s %s
+                """.formatted(sortColumn, descending ? "DESC" : "ASC"));
+        spec = color != null ? spec.bind("color", color.name()) : spec.bindNull("color", String.class);
+        spec = cottonPartMin != null
+                ? spec.bind("cottonPartMin", cottonPartMin)
+                : spec.bindNull("cottonPartMin", Integer.class);
+        spec = cottonPartMax != null
+                ? spec.bind("cottonPartMax", cottonPartMax)
+                : spec.bindNull("cottonPartMax", Integer.class);
+        return spec.map((row, metadata) -> toSock(row)).all();
+    }
+
+    private Mono<Sock> changeStock(String sql, SockColor color, int cottonPart, int quantity, int delta,
+                                   MovementType movementType) {
+        return databaseClient.sql(sql)
+                .bind("color", color.name())
+                .bind("cottonPart", cottonPart)
+                .bind("quantity", quantity)
+                .bind("delta", delta)
+                .bind("movementType", movementType.name())
+                .map((row, metadata) -> toSock(row))
+                .one();
+    }
+
+    private static Sock toSock(Row row) {
+        return Sock.builder()
+                .id(row.get("id", Long.class))
+                .color(SockColor.valueOf(row.get("color", String.class)))
+                .cottonPart(row.get("cotton_part", Integer.class))
+                .quantity(row.get("quantity", Integer.class))
+                .build();
+    }
+}
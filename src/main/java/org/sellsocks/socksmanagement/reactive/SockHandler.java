@@ -0,0 +1,271 @@
+package org.sellsocks.socksmanagement.reactive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.exception.ClientErrorLog;
+import org.sellsocks.socksmanagement.exception.ErrorResponse;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.persistence.EntityNotFoundException;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WebFlux handlers serving the {@code /api/socks} API in the {@code reactive} profile. Income, outcome and the
+ * queries run on R2DBC; updates, CSV imports and historical queries reuse the blocking services on the
+ * bounded elastic scheduler.
+ */
+@Component
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class SockHandler {
+
+    private final ReactiveSockRepository sockRepository;
+    private final SockService sockService;
+    private final StockLedgerService stockLedgerService;
+    private final SockMapper sockMapper;
+    private final SockParametersValidator validator;
+    private final Validator beanValidator;
+    private final ClientErrorLog clientErrorLog;
+
+    public Mono<ServerResponse> test(ServerRequest request) {
+        return ServerResponse.ok().bodyValue("I'm working as intended for testing");
+    }
+
+    public Mono<ServerResponse> income(ServerRequest request) {
+        return requestBody(request, SockDto.class)
+                .map(sockMapper::toSockEntity)
+                .map(this::requirePlainSock)
+                .flatMap(income -> {
+                    log.info("Adding sock income: color={}, cottonPart={}, quantity={}",
+                            income.getColor(), income.getCottonPart(), income.getQuantity());
+                    return sockRepository.addIncome(income.getColor(), income.getCottonPart(), income.getQuantity());
+                })
+                .doOnNext(sock -> log.info("Sock income added successfully: {}", sock))
+                .flatMap(this::sockResponse)
+                .onErrorResume(this::errorResponse);
+    }
+
+    public Mono<ServerResponse> outcome(ServerRequest request) {
+        return requestBody(request, SockDto.class)
+                .map(sockMapper::toSockEntity)
+                .map(this::requirePlainSock)
+                .flatMap(outcome -> {
+                    log.info("Subtracting sock outcome: color={}, cottonPart={}, quantity={}",
+                            outcome.getColor(), outcome.getCottonPart(), outcome.getQuantity());
+                    return sockRepository.subtractOutcome(
+                                    outcome.getColor(), outcome.getCottonPart(), outcome.getQuantity())
+                            .switchIfEmpty(Mono.defer(() -> outcomeRejected(outcome)));
+                })
+                .doOnNext(sock -> log.info("Sock outcome subtracted successfully: {}", sock))
+                .flatMap(this::sockResponse)
+                .onErrorResume(this::errorResponse);
+    }
+
+    public Mono<ServerResponse> quantity(ServerRequest request) {
+        return Mono.defer(() -> {
+                    String color = requiredParam(request, "color");
+                    String operation = requiredParam(request, "operation");
+                    int cottonPart = validator.validateCottonPart(parseInt(requiredParam(request, "cottonPart"),
+                            "cottonPart"));
+                    OffsetDateTime asOf = request.queryParam("asOf").map(this::parseDateTime).orElse(null);
+                    if (asOf != null) {
+                        return Mono.fromCallable(() -> stockLedgerService.getFilteredSocksQuantityAsOf(
+                                        null, color, operation, cottonPart, asOf))
+                                .subscribeOn(Schedulers.boundedElastic());
+                    }
+                    log.info("Fetching socks quantity: color={}, operation={}, cottonPart={}",
+                            color, operation, cottonPart);
+                    SockColor sockColor = validator.validateAndParseColor(color);
+                    CriteriaOperation criteriaOperation = validator.validateAndParseOperation(operation);
+                    return sockRepository.sumQuantity(sockColor, criteriaOperation, cottonPart);
+                })
+                .flatMap(quantity -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(quantity))
+                .onErrorResume(this::errorResponse);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return Mono.defer(() -> {
+                    Long id = Long.valueOf(request.pathVariable("id"));
+                    return requestBody(request, SockUpdateDto.class)
+                            .flatMap(update -> Mono.fromCallable(() -> sockService.updateSock(id, update))
+                                    .subscribeOn(Schedulers.boundedElastic()));
+                })
+                .flatMap(sockDto -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(sockDto))
+                .onErrorResume(this::errorResponse);
+    }
+
+    public Mono<ServerResponse> uploadBatch(ServerRequest request) {
+        return request.multipartData()
+                .flatMap(parts -> {
+                    Part part = parts.getFirst("file");
+                    if (!(part instanceof FilePart filePart)) {
+                        return Mono.error(new IllegalArgumentException("Required part 'file' is not present"));
+                    }
+                    return DataBufferUtils.join(filePart.content())
+                            .map(buffer -> {
+                                byte[] content = new byte[buffer.readableByteCount()];
+                                buffer.read(content);
+                                DataBufferUtils.release(buffer);
+                                return content;
+                            })
+                            .defaultIfEmpty(new byte[0])
+                            .flatMap(content -> {
+                                if (content.length == 0) {
+                                    log.error("Uploaded file is empty");
+                                    return Mono.error(new IllegalArgumentException("Uploaded file is empty"));
+                                }
+                                return Mono.fromRunnable(() -> sockService.processCsvFile(
+                                                filePart.filename(), new ByteArrayInputStream(content), null))
+                                        .subscribeOn(Schedulers.boundedElastic());
+                            });
+                })
+                .then(ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).bodyValue("File processed successfully"))
+                .onErrorResume(this::errorResponse);
+    }
+
+    public Mono<ServerResponse> sorted(ServerRequest request) {
+        return Mono.defer(() -> {
+                    SockColor color = request.queryParam("color").map(validator::validateAndParseColor).orElse(null);
+                    Integer cottonPartMin = request.queryParam("cottonPartMin")
+                            .map(value -> parseInt(value, "cottonPartMin")).orElse(null);
+                    Integer cottonPartMax = request.queryParam("cottonPartMax")
+                            .map(value -> parseInt(value, "cottonPartMax")).orElse(null);
+                    String sortBy = request.queryParam("sortBy").orElse("color");
+                    boolean descending = "desc".equalsIgnoreCase(request.queryParam("sortOrder").orElse("asc"));
+                    return sockRepository.findSorted(color, cottonPartMin, cottonPartMax, sortBy, descending)
+                            .map(sockMapper::toSockDto)
+                            .collectList();
+                })
+                .flatMap(socks -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(socks))
+                .onErrorResume(this::errorResponse);
+    }
+
+    private <T> Mono<T> requestBody(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Required request body is missing")))
+                .map(this::validated);
+    }
+
+    private <T> T validated(T body) {
+        Set<ConstraintViolation<T>> violations = beanValidator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return body;
+    }
+
+    /**
+     * The reactive statements address socks by (color, cottonPart) only, so socks with attributes are left to
+     * the servlet API.
+     */
+    private Sock requirePlainSock(Sock sock) {
+        if (!sock.getAttributes().isEmpty()) {
+            log.debug("Sock attributes are not supported by the reactive API: {}", sock.getAttributes());
+            throw new InvalidSockParameterException("Sock attributes are not supported by the reactive API");
+        }
+        return sock;
+    }
+
+    private Mono<Sock> outcomeRejected(Sock outcome) {
+        return sockRepository.findQuantityByColorAndCottonPart(outcome.getColor(), outcome.getCottonPart())
+                .flatMap(available -> {
+                    log.debug("Not enough socks in stock: available={}, requested={}",
+                            available, outcome.getQuantity());
+                    return Mono.<Sock>error(new InsufficientStockException(available, outcome.getQuantity()));
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("No socks found with given parameters: color={}, cottonPart={}",
+                            outcome.getColor(), outcome.getCottonPart());
+                    return Mono.error(new SockNotFoundException("No socks found with given parameters: color = " +
+                            outcome.getColor() + ", cotton percentage = " + outcome.getCottonPart()));
+                }));
+    }
+
+    private Mono<ServerResponse> sockResponse(Sock sock) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(sockMapper.toSockDto(sock));
+    }
+
+    private String requiredParam(ServerRequest request, String name) {
+        return request.queryParam(name).orElseThrow(() ->
+                new IllegalArgumentException("Required request parameter '" + name + "' is not present"));
+    }
+
+    private int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidSockParameterException("Invalid value '" + value + "' for parameter '" + name + "'");
+        }
+    }
+
+    private OffsetDateTime parseDateTime(String value) {
+        try {
+            return OffsetDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidSockParameterException("Invalid value '" + value + "' for parameter 'asOf'");
+        }
+    }
+
+    /**
+     * Mirrors the status mapping of {@code GlobalExceptionHandler}.
+     */
+    private Mono<ServerResponse> errorResponse(Throwable e) {
+        if (e instanceof ConstraintViolationException violationException) {
+            Map<String, String> errors = new HashMap<>();
+            violationException.getConstraintViolations().forEach(violation ->
+                    errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+            clientErrorLog.record(HttpStatus.BAD_REQUEST, e);
+            return ServerResponse.badRequest().contentType(MediaType.APPLICATION_JSON).bodyValue(errors);
+        }
+        HttpStatus status;
+        if (e instanceof EntityNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof IllegalArgumentException || e instanceof ServerWebInputException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (e instanceof IllegalStateException) {
+            status = HttpStatus.CONFLICT;
+        } else {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        if (status.is5xxServerError()) {
+            log.error(e.getClass().getSimpleName(), e);
+        } else {
+            clientErrorLog.record(status, e);
+        }
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(e.getClass().getSimpleName(), e.getMessage()));
+    }
+}
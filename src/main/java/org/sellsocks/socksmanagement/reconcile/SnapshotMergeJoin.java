@@ -0,0 +1,68 @@
+package org.sellsocks.socksmanagement.reconcile;
+
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import java.util.Iterator;
+
+/**
+ * Sorted merge-join of a stock snapshot with the current {@code sock} rows. Both sides are read once in
+ * {@code (color name, cottonPart)} order, so the diff costs one pass and no lookups per row.
+ */
+public final class SnapshotMergeJoin {
+
+    public interface DiffHandler {
+
+        void onlyInSnapshot(SockColor color, int cottonPart, int quantity);
+
+        void inBoth(Sock current, int snapshotQuantity);
+
+        void onlyInStock(Sock current);
+    }
+
+    private SnapshotMergeJoin() {
+    }
+
+    /**
+     * Joins the snapshot with stock rows that must arrive in {@code (color name, cottonPart)} order. Rows out of
+     * order or a key read twice mean the stock query is broken, a server fault that no retry can fix.
+     *
+     * @throws DataRetrievalFailureException if the stock rows are out of order or contain a key twice
+     */
+    public static void join(SnapshotQuantities snapshot, Iterator<Sock> currentStock, DiffHandler handler) {
+        int snapshotIndex = snapshot.nextIndex(-1);
+        Sock current = null;
+        int currentIndex = -1;
+        if (currentStock.hasNext()) {
+            current = currentStock.next();
+            currentIndex = SnapshotQuantities.indexOf(current.getColor(), current.getCottonPart());
+        }
+
+        while (snapshotIndex >= 0 || current != null) {
+            if (current == null || (snapshotIndex >= 0 && snapshotIndex < currentIndex)) {
+                handler.onlyInSnapshot(SnapshotQuantities.colorAt(snapshotIndex),
+                        snapshotIndex % SnapshotQuantities.COTTON_PARTS, snapshot.quantityAt(snapshotIndex));
+                snapshotIndex = snapshot.nextIndex(snapshotIndex);
+                continue;
+            }
+
+            if (snapshotIndex == currentIndex) {
+                handler.inBoth(current, snapshot.quantityAt(snapshotIndex));
+                snapshotIndex = snapshot.nextIndex(snapshotIndex);
+            } else {
+                handler.onlyInStock(current);
+            }
+
+            int previousIndex = currentIndex;
+            current = null;
+            if (currentStock.hasNext()) {
+                current = currentStock.next();
+                currentIndex = SnapshotQuantities.indexOf(current.getColor(), current.getCottonPart());
+                if (currentIndex <= previousIndex) {
+                    throw new DataRetrievalFailureException("Stock rows are not in key order at " + current);
+                }
+            }
+        }
+    }
+}
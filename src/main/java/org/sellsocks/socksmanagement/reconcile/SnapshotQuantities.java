@@ -0,0 +1,76 @@
+package org.sellsocks.socksmanagement.reconcile;
+
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Quantities of a full stock snapshot kept in a dense array in {@code (color name, cottonPart)} order, the order
+ * in which the database returns {@code sock} rows. Filling it is a counting sort, so the snapshot side of the
+ * merge-join needs no comparison sort however the file is ordered.
+ */
+public final class SnapshotQuantities {
+
+    static final int COTTON_PARTS = 101;
+
+    private static final SockColor[] BY_RANK = Arrays.stream(SockColor.values())
+            .sorted(Comparator.comparing(SockColor::name))
+            .toArray(SockColor[]::new);
+    private static final int[] RANK = new int[BY_RANK.length];
+    private static final int ABSENT = -1;
+
+    static {
+        for (int rank = 0; rank < BY_RANK.length; rank++) {
+            RANK[BY_RANK[rank].ordinal()] = rank;
+        }
+    }
+
+    private final int[] quantities = new int[BY_RANK.length * COTTON_PARTS];
+    private int size;
+
+    public SnapshotQuantities() {
+        Arrays.fill(quantities, ABSENT);
+    }
+
+    /**
+     * Records the quantity of a key and returns {@code false} if the snapshot already contains it.
+     */
+    public boolean put(SockColor color, int cottonPart, int quantity) {
+        int index = indexOf(color, cottonPart);
+        if (quantities[index] != ABSENT) {
+            return false;
+        }
+        quantities[index] = quantity;
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    static int indexOf(SockColor color, int cottonPart) {
+        return RANK[color.ordinal()] * COTTON_PARTS + cottonPart;
+    }
+
+    static SockColor colorAt(int index) {
+        return BY_RANK[index / COTTON_PARTS];
+    }
+
+    /**
+     * Returns the first index after {@code index} that holds a quantity, or {@code -1} past the last one.
+     */
+    int nextIndex(int index) {
+        for (int next = index + 1; next < quantities.length; next++) {
+            if (quantities[next] != ABSENT) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    int quantityAt(int index) {
+        return quantities[index];
+    }
+}
@@ -0,0 +1,35 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from ImportCheckpoint c where c.fileName = :fileName")
+    Optional<ImportCheckpoint> findForUpdate(@Param("fileName") String fileName);
+
+    /**
+     * Creates the checkpoint of a file seen for the first time; a no-op if another node created it first.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO import_checkpoint (file_name, file_size, modified_at, byte_offset, line_number, status, updated_at)
+            VALUES (:fileName, :fileSize, :modifiedAt, 0, 0, 'IN_PROGRESS', :now)
+            ON CONFLICT (file_name) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("fileName") String fileName,
+                       @Param("fileSize") long fileSize,
+                       @Param("modifiedAt") OffsetDateTime modifiedAt,
+                       @Param("now") OffsetDateTime now);
+}
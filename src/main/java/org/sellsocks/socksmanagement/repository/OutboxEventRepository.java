@@ -0,0 +1,31 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query(value = "SELECT * FROM outbox_event ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("batchSize") int batchSize);
+
+    /**
+     * Returns the keys that still have an earlier event outside the given batch, i.e. one that is locked by
+     * another relay. Events of these keys must wait, otherwise they would overtake it.
+     */
+    @Query(value = "SELECT DISTINCT aggregate_key FROM outbox_event " +
+            "WHERE aggregate_key IN (:keys) AND id < :maxId AND id NOT IN (:batchIds)", nativeQuery = true)
+    List<String> findKeysWithEarlierEvents(@Param("keys") Collection<String> keys,
+                                           @Param("maxId") long maxId,
+                                           @Param("batchIds") Collection<Long> batchIds);
+
+    Optional<OutboxEvent> findFirstByOrderByIdAsc();
+}
@@ -1,17 +1,147 @@
 package org.sellsocks.socksmanagement.repository;
 
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.projection.ColorCottonPartQuantity;
+import org.sellsocks.socksmanagement.repository.projection.ColorQuantity;
+import org.sellsocks.socksmanagement.repository.projection.WarehouseQuantity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface SockRepository extends JpaRepository<Sock, Long>, JpaSpecificationExecutor<Sock> {
 
-    Optional<Sock> findByColorAndCottonPart(SockColor color, int cottonPart);
+    Optional<Sock> findByWarehouseAndColorAndCottonPartAndAttributes(String warehouse, SockColor color, int cottonPart,
+                                                                     String attributes);
+
+    /**
+     * Finds the plain sock, the one without extra attributes, of the default warehouse.
+     */
+    default Optional<Sock> findByColorAndCottonPart(SockColor color, int cottonPart) {
+        return findByWarehouseAndColorAndCottonPartAndAttributes(Warehouse.DEFAULT_CODE, color, cottonPart, SockAttributes.NONE);
+    }
+
+    Optional<Sock> findByWarehouseAndColorAndCottonPartAndAttributesAndIdNot(String warehouse, SockColor color,
+                                                                             int cottonPart, String attributes,
+                                                                             Long id);
+
+    default Optional<Sock> findByColorAndCottonPartAndIdNot(SockColor color, int cottonPart, Long id) {
+        return findByWarehouseAndColorAndCottonPartAndAttributesAndIdNot(Warehouse.DEFAULT_CODE, color, cottonPart,
+                SockAttributes.NONE, id);
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Sock s where s.warehouse = :warehouse and s.color = :color " +
+            "and s.cottonPart = :cottonPart and s.attributes = :attributes")
+    Optional<Sock> findForUpdate(@Param("warehouse") String warehouse,
+                                 @Param("color") SockColor color,
+                                 @Param("cottonPart") int cottonPart,
+                                 @Param("attributes") String attributes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Sock s where s.id = :id")
+    Optional<Sock> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Creates the sock with zero quantity; a no-op if it exists or another transaction created it first.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO sock (warehouse, color, cotton_part, quantity, attributes)
+            VALUES (:warehouse, :color, :cottonPart, 0, :attributes)
+            ON CONFLICT (color, cotton_part, attributes, warehouse) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("warehouse") String warehouse,
+                       @Param("color") String color,
+                       @Param("cottonPart") int cottonPart,
+                       @Param("attributes") String attributes);
+
+    /**
+     * Locks the sock for a read-modify-write of its quantity, creating it first when it does not exist. Two
+     * first writes of the same sock then queue on the row lock instead of one failing on the unique key.
+     */
+    default Sock findOrCreateForUpdate(String warehouse, SockColor color, int cottonPart, String attributes) {
+        return findForUpdate(warehouse, color, cottonPart, attributes).orElseGet(() -> {
+            insertIfAbsent(warehouse, color.name(), cottonPart, attributes);
+            return findForUpdate(warehouse, color, cottonPart, attributes).orElseThrow();
+        });
+    }
+
+    /**
+     * Streams and locks every plain sock of the warehouse in {@code (color, cottonPart)} order, the order a
+     * snapshot merge-join expects. Only the warehouse's partition is read.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from Sock s where s.warehouse = :warehouse and s.attributes = '' order by s.color, s.cottonPart")
+    Stream<Sock> streamAllForUpdate(@Param("warehouse") String warehouse);
+
+    @Query("select s.color as color, s.cottonPart as cottonPart, sum(s.quantity) as quantity from Sock s " +
+            "where s.warehouse = :warehouse and s.color in :colors group by s.color, s.cottonPart")
+    List<ColorCottonPartQuantity> sumQuantitiesByColorAndCottonPart(@Param("warehouse") String warehouse,
+                                                                    @Param("colors") Collection<SockColor> colors);
+
+    /**
+     * Sums the socks of one color within a cotton range per warehouse, the one query that reads every partition.
+     */
+    @Query("select s.warehouse as warehouse, sum(s.quantity) as quantity from Sock s where s.color = :color " +
+            "and s.cottonPart between :cottonPartMin and :cottonPartMax group by s.warehouse")
+    List<WarehouseQuantity> sumQuantitiesByWarehouse(@Param("color") SockColor color,
+                                                     @Param("cottonPartMin") int cottonPartMin,
+                                                     @Param("cottonPartMax") int cottonPartMax);
+
+    @Query(value = "SELECT color, SUM(quantity) AS quantity FROM sock_color_totals GROUP BY color",
+            nativeQuery = true)
+    List<ColorQuantity> findColorTotals();
+
+    @Query("select s.color as color, sum(s.quantity) as quantity from Sock s where s.warehouse = :warehouse " +
+            "group by s.color")
+    List<ColorQuantity> findColorTotals(@Param("warehouse") String warehouse);
+
+    /**
+     * Adds the difference between the summed {@code sock} rows and the recorded totals to stripe 0 of every
+     * drifted color and returns those differences. Both sums come from the same snapshot and the repair is an
+     * increment, so writes committing concurrently are neither lost nor counted twice.
+     */
+    @Query(value = """
+            WITH actual AS (SELECT color, SUM(quantity) AS quantity FROM sock GROUP BY color),
+                 recorded AS (SELECT color, SUM(quantity) AS quantity FROM sock_color_totals GROUP BY color),
+                 drift AS (SELECT COALESCE(a.color, r.color) AS color,
+                                  COALESCE(a.quantity, 0) - COALESCE(r.quantity, 0) AS quantity
+                           FROM actual a
+                                    FULL JOIN recorded r ON r.color = a.color
+                           WHERE COALESCE(a.quantity, 0) <> COALESCE(r.quantity, 0)),
+                 repaired AS (INSERT INTO sock_color_totals (color, stripe, quantity)
+                     SELECT color, 0, quantity FROM drift
+                     ON CONFLICT (color, stripe) DO UPDATE SET quantity = sock_color_totals.quantity + EXCLUDED.quantity)
+            SELECT color, quantity FROM drift
+            """, nativeQuery = true)
+    List<ColorQuantity> repairColorTotals();
+
+    @Query("select s.quantity from Sock s where s.warehouse = :warehouse and s.color = :color " +
+            "and s.cottonPart = :cottonPart and s.attributes = ''")
+    Optional<Integer> findQuantityByWarehouseAndColorAndCottonPart(@Param("warehouse") String warehouse,
+                                                                   @Param("color") SockColor color,
+                                                                   @Param("cottonPart") int cottonPart);
 
-    Optional<Sock> findByColorAndCottonPartAndIdNot(SockColor color, int cottonPart, Long id);
+    default Optional<Integer> findQuantityByColorAndCottonPart(SockColor color, int cottonPart) {
+        return findQuantityByWarehouseAndColorAndCottonPart(Warehouse.DEFAULT_CODE, color, cottonPart);
+    }
 }
@@ -0,0 +1,51 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.SockReservation;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface SockReservationRepository extends JpaRepository<SockReservation, Long> {
+
+    @Query("select coalesce(sum(r.quantity), 0) from SockReservation r where r.warehouse = :warehouse " +
+            "and r.color = :color and r.cottonPart = :cottonPart " +
+            "and r.status = org.sellsocks.socksmanagement.model.enums.ReservationStatus.ACTIVE and r.expiresAt > :now")
+    long sumHeldQuantity(@Param("warehouse") String warehouse,
+                         @Param("color") SockColor color,
+                         @Param("cottonPart") int cottonPart,
+                         @Param("now") OffsetDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from SockReservation r where r.id = :id")
+    Optional<SockReservation> findForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE sock_reservation SET status = 'EXPIRED' " +
+            "WHERE id IN (:ids) AND status = 'ACTIVE' AND expires_at <= :now", nativeQuery = true)
+    int expireByIds(@Param("ids") Collection<Long> ids, @Param("now") OffsetDateTime now);
+
+    /**
+     * Marks up to {@code limit} overdue reservations {@code EXPIRED}, oldest first, skipping rows locked by a
+     * confirm or cancel in progress.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE sock_reservation SET status = 'EXPIRED'
+            WHERE id IN (SELECT id FROM sock_reservation
+                         WHERE status = 'ACTIVE' AND expires_at <= :now
+                         ORDER BY expires_at
+                         LIMIT :limit
+                         FOR UPDATE SKIP LOCKED)
+            """, nativeQuery = true)
+    int expireOverdue(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,51 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.StockMovement;
+import org.sellsocks.socksmanagement.repository.projection.CottonPartQuantity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Appends a movement stamped with the database clock. Pending changes are flushed first, so the
+     * {@code sock} row is already locked by the time the timestamp is taken, which keeps the ledger
+     * consistent with snapshots taken under a table lock.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO stock_movement " +
+            "(created_at, warehouse, color, cotton_part, attributes, delta, movement_type) " +
+            "VALUES (clock_timestamp(), :warehouse, :color, :cottonPart, :attributes, :delta, :movementType)",
+            nativeQuery = true)
+    void append(@Param("warehouse") String warehouse,
+                @Param("color") String color,
+                @Param("cottonPart") int cottonPart,
+                @Param("attributes") String attributes,
+                @Param("delta") int delta,
+                @Param("movementType") String movementType);
+
+    /**
+     * Sums the snapshot and the later movements per cotton part; a null {@code warehouse} covers all of them.
+     */
+    @Query(value = "SELECT b.cotton_part AS cottonPart, SUM(b.quantity) AS quantity FROM (" +
+            "  SELECT i.cotton_part, i.quantity FROM stock_snapshot_item i " +
+            "  WHERE i.snapshot_id = :snapshotId AND i.color = :color " +
+            "    AND (CAST(:warehouse AS VARCHAR) IS NULL OR i.warehouse = :warehouse) " +
+            "  UNION ALL " +
+            "  SELECT m.cotton_part, m.delta FROM stock_movement m " +
+            "  WHERE m.color = :color AND m.created_at > :snapshotTakenAt AND m.created_at <= :asOf" +
+            "    AND (CAST(:warehouse AS VARCHAR) IS NULL OR m.warehouse = :warehouse)" +
+            ") b GROUP BY b.cotton_part", nativeQuery = true)
+    List<CottonPartQuantity> findQuantitiesAsOf(@Param("snapshotId") Long snapshotId,
+                                                @Param("snapshotTakenAt") OffsetDateTime snapshotTakenAt,
+                                                @Param("asOf") OffsetDateTime asOf,
+                                                @Param("warehouse") String warehouse,
+                                                @Param("color") String color);
+}
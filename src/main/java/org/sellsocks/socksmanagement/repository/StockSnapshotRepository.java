@@ -0,0 +1,21 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    Optional<StockSnapshot> findFirstByTakenAtLessThanEqualOrderByTakenAtDesc(OffsetDateTime asOf);
+
+    @Modifying
+    @Query("delete from StockSnapshot s where s.takenAt < :cutoff")
+    int deleteTakenBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package org.sellsocks.socksmanagement.repository;
+
+import org.sellsocks.socksmanagement.model.entity.WriteBehindOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WriteBehindOffsetRepository extends JpaRepository<WriteBehindOffset, String> {
+}
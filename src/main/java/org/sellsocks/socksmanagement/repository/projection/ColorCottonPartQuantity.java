@@ -0,0 +1,12 @@
+package org.sellsocks.socksmanagement.repository.projection;
+
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+public interface ColorCottonPartQuantity {
+
+    SockColor getColor();
+
+    Integer getCottonPart();
+
+    Long getQuantity();
+}
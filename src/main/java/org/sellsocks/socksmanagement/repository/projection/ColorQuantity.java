@@ -0,0 +1,10 @@
+package org.sellsocks.socksmanagement.repository.projection;
+
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+public interface ColorQuantity {
+
+    SockColor getColor();
+
+    Long getQuantity();
+}
@@ -0,0 +1,8 @@
+package org.sellsocks.socksmanagement.repository.projection;
+
+public interface CottonPartQuantity {
+
+    Integer getCottonPart();
+
+    Long getQuantity();
+}
@@ -0,0 +1,8 @@
+package org.sellsocks.socksmanagement.repository.projection;
+
+public interface WarehouseQuantity {
+
+    String getWarehouse();
+
+    Long getQuantity();
+}
@@ -0,0 +1,131 @@
+package org.sellsocks.socksmanagement.reservation;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Hashed timer wheel of reservation ids keyed by expiry time. Scheduling is O(1), and advancing only visits the
+ * slots of the ticks that have passed, so millions of short holds cost two longs each and no timer task.
+ * Entries are never removed on confirm or cancel; the expiry update ignores reservations that are no longer
+ * active.
+ */
+public class ExpiryWheel {
+
+    private static final long[] NONE = new long[0];
+
+    private final long tickMillis;
+    private final int mask;
+    private final Slot[] slots;
+    private final int maxTracked;
+
+    private long currentTick;
+    private int tracked;
+
+    public ExpiryWheel(Duration tick, int wheelSize, int maxTracked, long nowMillis) {
+        if (tick.toMillis() < 1 || wheelSize < 1) {
+            throw new IllegalArgumentException("Expiry wheel tick and size must be positive");
+        }
+        this.tickMillis = tick.toMillis();
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.slots = new Slot[Math.max(size, 1)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = slots.length - 1;
+        this.maxTracked = maxTracked;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Tracks the id until its expiry. Returns {@code false} when the wheel is full; such reservations are
+     * left to the database sweep.
+     */
+    public synchronized boolean schedule(long id, long expiresAtMillis) {
+        if (tracked >= maxTracked) {
+            return false;
+        }
+        long tick = Math.max(-Math.floorDiv(-expiresAtMillis, tickMillis), currentTick + 1);
+        slots[(int) (tick & mask)].add(id, tick);
+        tracked++;
+        return true;
+    }
+
+    /**
+     * Removes and returns the ids that expire at or before {@code nowMillis}.
+     */
+    public synchronized long[] advance(long nowMillis) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        if (nowTick <= currentTick || tracked == 0) {
+            currentTick = Math.max(currentTick, nowTick);
+            return NONE;
+        }
+        DueIds due = new DueIds();
+        long passedTicks = Math.min(nowTick - currentTick, slots.length);
+        for (long i = 1; i <= passedTicks; i++) {
+            slots[(int) ((currentTick + i) & mask)].drainDue(nowTick, due);
+        }
+        currentTick = nowTick;
+        tracked -= due.size;
+        return due.toArray();
+    }
+
+    public synchronized int getTracked() {
+        return tracked;
+    }
+
+    private static final class Slot {
+
+        private long[] ids = NONE;
+        private long[] ticks = NONE;
+        private int size;
+
+        void add(long id, long tick) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                ticks = Arrays.copyOf(ticks, capacity);
+            }
+            ids[size] = id;
+            ticks[size] = tick;
+            size++;
+        }
+
+        /**
+         * Moves due entries to {@code due} and compacts entries of later revolutions in place.
+         */
+        void drainDue(long nowTick, DueIds due) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (ticks[i] <= nowTick) {
+                    due.add(ids[i]);
+                } else {
+                    ids[kept] = ids[i];
+                    ticks[kept] = ticks[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size == 0 && ids.length > 1024) {
+                ids = NONE;
+                ticks = NONE;
+            }
+        }
+    }
+
+    private static final class DueIds {
+
+        private long[] ids = NONE;
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(64, size * 2));
+            }
+            ids[size++] = id;
+        }
+
+        long[] toArray() {
+            return size == 0 ? NONE : Arrays.copyOf(ids, size);
+        }
+    }
+}
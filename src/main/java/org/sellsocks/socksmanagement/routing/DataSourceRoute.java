@@ -0,0 +1,6 @@
+package org.sellsocks.socksmanagement.routing;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary. Must be wrapped in a
+ * {@code LazyConnectionDataSourceProxy}, so that the connection is looked up after the transaction has been
+ * marked read-only. A read-write transaction registers the request's write-commit listener, if any, to run
+ * once it has committed.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !RoutingContext.isPrimaryRequired()) {
+            return DataSourceRoute.REPLICA;
+        }
+        notifyOnCommit();
+        return DataSourceRoute.PRIMARY;
+    }
+
+    private static void notifyOnCommit() {
+        Runnable listener = RoutingContext.getWriteCommitListener();
+        if (listener == null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                listener.run();
+            }
+        });
+    }
+}
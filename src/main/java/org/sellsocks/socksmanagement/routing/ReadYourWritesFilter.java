@@ -0,0 +1,43 @@
+package org.sellsocks.socksmanagement.routing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Pins a client to the primary as soon as a read-write transaction of its request commits, so the pin is in
+ * place before the response reaches the client and its next read cannot race ahead of it. Clients are
+ * identified by the configured header and fall back to the remote address.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final String clientIdHeader;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, String clientIdHeader) {
+        this.tracker = tracker;
+        this.clientIdHeader = clientIdHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientId = clientId(request);
+        RoutingContext.setPrimaryRequired(tracker.isPinned(clientId));
+        RoutingContext.setWriteCommitListener(() -> tracker.pin(clientId));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(clientIdHeader);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+}
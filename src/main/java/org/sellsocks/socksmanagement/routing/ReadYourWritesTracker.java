@@ -0,0 +1,46 @@
+package org.sellsocks.socksmanagement.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which clients wrote recently; their reads stay on the primary until the window has passed, so
+ * they do not read stale data from a lagging replica. The state is local to the instance.
+ */
+@Slf4j
+public class ReadYourWritesTracker {
+
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void pin(String clientId) {
+        pinnedUntil.put(clientId, System.nanoTime() + windowNanos);
+    }
+
+    public boolean isPinned(String clientId) {
+        Long until = pinnedUntil.get(clientId);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        pinnedUntil.remove(clientId, until);
+        return false;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        pinnedUntil.entrySet().removeIf(entry -> entry.getValue() - now <= 0);
+        log.debug("{} clients pinned to the primary", pinnedUntil.size());
+    }
+}
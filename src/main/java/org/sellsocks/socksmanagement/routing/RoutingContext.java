@@ -0,0 +1,48 @@
+package org.sellsocks.socksmanagement.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that sends read-only transactions to the primary. It has to be in place before the
+ * transaction runs its first statement, because that is when the connection is obtained. Also carries the
+ * listener that is told when a read-write transaction of the current request commits.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<Runnable> WRITE_COMMIT_LISTENER = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    public static void setPrimaryRequired(boolean primaryRequired) {
+        PRIMARY_REQUIRED.set(primaryRequired);
+    }
+
+    public static Runnable getWriteCommitListener() {
+        return WRITE_COMMIT_LISTENER.get();
+    }
+
+    public static void setWriteCommitListener(Runnable listener) {
+        WRITE_COMMIT_LISTENER.set(listener);
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+        WRITE_COMMIT_LISTENER.remove();
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_REQUIRED.set(previous);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.sellsocks.socksmanagement.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.idempotency.IdempotencyStore;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyPurgeScheduler {
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Scheduled(fixedDelayString = "${socks.idempotency.purge-interval:PT10M}",
+            initialDelayString = "${socks.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        try {
+            int purged = idempotencyStore.purgeExpired();
+            log.info("Purged {} expired idempotency records", purged);
+        } catch (RuntimeException e) {
+            log.error("Failed to purge expired idempotency records", e);
+        }
+    }
+}
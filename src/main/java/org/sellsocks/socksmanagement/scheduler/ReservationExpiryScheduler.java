@@ -0,0 +1,34 @@
+package org.sellsocks.socksmanagement.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.service.ReservationService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryScheduler {
+
+    private final ReservationService reservationService;
+
+    @Scheduled(fixedDelayString = "${socks.reservations.tick:PT1S}")
+    public void expireDue() {
+        try {
+            reservationService.expireDue();
+        } catch (RuntimeException e) {
+            log.error("Failed to expire due reservations", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${socks.reservations.sweep-interval:PT1M}",
+            initialDelayString = "${socks.reservations.sweep-interval:PT1M}")
+    public void sweepExpired() {
+        try {
+            reservationService.sweepExpired();
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep overdue reservations", e);
+        }
+    }
+}
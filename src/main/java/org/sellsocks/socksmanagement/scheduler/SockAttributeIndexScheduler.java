@@ -0,0 +1,33 @@
+package org.sellsocks.socksmanagement.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributeIndex;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SockAttributeIndexScheduler {
+
+    private final SockAttributeIndex sockAttributeIndex;
+
+    @Scheduled(fixedDelayString = "${socks.attribute-index.refresh-interval:PT5M}")
+    public void rebuild() {
+        try {
+            sockAttributeIndex.rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild the sock attribute index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${socks.attribute-index.node-check-interval:PT10S}")
+    public void checkSingleNode() {
+        try {
+            sockAttributeIndex.checkSingleNode();
+        } catch (RuntimeException e) {
+            log.error("Failed to check the nodes connected to the database", e);
+        }
+    }
+}
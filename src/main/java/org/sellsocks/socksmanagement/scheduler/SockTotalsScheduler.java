@@ -0,0 +1,25 @@
+package org.sellsocks.socksmanagement.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.service.SockTotalsService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SockTotalsScheduler {
+
+    private final SockTotalsService sockTotalsService;
+
+    @Scheduled(fixedDelayString = "${socks.totals.reconcile-interval:PT15M}",
+            initialDelayString = "${socks.totals.reconcile-interval:PT15M}")
+    public void reconcile() {
+        try {
+            sockTotalsService.reconcile();
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile per-color socks totals", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.sellsocks.socksmanagement.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerScheduler {
+
+    private final StockLedgerService stockLedgerService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${socks.ledger.snapshot-interval:PT1H}",
+            initialDelayString = "${socks.ledger.snapshot-interval:PT1H}")
+    public void takeSnapshot() {
+        try {
+            stockLedgerService.takeSnapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to take stock snapshot", e);
+        }
+    }
+
+    @Scheduled(cron = "${socks.ledger.maintenance-cron:0 30 3 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        try {
+            stockLedgerService.maintainPartitions();
+        } catch (RuntimeException e) {
+            log.error("Failed to maintain stock movement partitions", e);
+        }
+    }
+}
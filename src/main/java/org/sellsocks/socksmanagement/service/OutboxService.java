@@ -0,0 +1,14 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+public interface OutboxService {
+
+    /**
+     * Writes a stock change event to the outbox; must run inside the transaction that changes the stock. Events
+     * of one sock row share an aggregate key, so they are published in order.
+     */
+    void enqueue(String warehouse, SockColor color, int cottonPart, String attributes, int delta,
+                 MovementType movementType);
+}
@@ -0,0 +1,32 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.dto.AvailableStockDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationRequestDto;
+
+public interface ReservationService {
+
+    ReservationDto reserve(ReservationRequestDto request);
+
+    /**
+     * Turns an active reservation into an outcome of its quantity.
+     */
+    ReservationDto confirm(Long id);
+
+    ReservationDto cancel(Long id);
+
+    /**
+     * Returns the stock of a sock in a warehouse; {@code null} stands for the default warehouse.
+     */
+    AvailableStockDto getAvailable(String warehouse, String color, int cottonPart);
+
+    /**
+     * Marks the reservations due on this node's expiry wheel as expired and returns their number.
+     */
+    int expireDue();
+
+    /**
+     * Marks all overdue reservations in the database as expired and returns their number.
+     */
+    int sweepExpired();
+}
@@ -0,0 +1,13 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.dto.ImportDiffDto;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface SnapshotImportService {
+
+    /**
+     * Makes the inventory of a warehouse equal to a full stock snapshot in CSV form, writing only the rows that
+     * differ; {@code null} stands for the default warehouse.
+     */
+    ImportDiffDto replaceFromCsv(MultipartFile file, String warehouse);
+}
@@ -1,19 +1,57 @@
 package org.sellsocks.socksmanagement.service;
 
+import org.sellsocks.socksmanagement.model.dto.QuantityQueryDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
 import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
 import org.sellsocks.socksmanagement.model.entity.Sock;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface SockService {
 
     SockDto addSockIncome(Sock sockIncome);
+
+    /**
+     * Adds the income and hands the response to {@code beforeCommit} in the transaction that writes the stock,
+     * so that whatever the callback writes commits or rolls back with it. This holds with write-behind enabled
+     * too: such income bypasses the write-ahead log.
+     */
+    SockDto addSockIncome(Sock sockIncome, Consumer<SockDto> beforeCommit);
     SockDto subtractSockOutcome(Sock sockOutcome);
+
+    /**
+     * Subtracts the outcome and hands the response to {@code beforeCommit} in the transaction that writes the
+     * stock.
+     */
+    SockDto subtractSockOutcome(Sock sockOutcome, Consumer<SockDto> beforeCommit);
+    List<SockDto> addSockIncomeBatch(List<Sock> socksIncome);
+    List<SockDto> subtractSockOutcomeBatch(List<Sock> socksOutcome);
     int getFilteredSocksQuantity(String color, String operation, Integer cottonPart);
+
+    /**
+     * Sums the quantity of the socks in the warehouse that also carry every given attribute; without attributes
+     * all socks of the color and cotton percentage count, whatever attributes they have. A {@code null}
+     * warehouse is the default warehouse.
+     */
+    int getFilteredSocksQuantity(String warehouse, String color, String operation, Integer cottonPart,
+                                 Map<String, String> attributes);
+    List<Integer> getSocksQuantities(List<QuantityQueryDto> queries);
+    List<Integer> getSocksQuantities(String warehouse, List<QuantityQueryDto> queries);
     SockDto updateSock(Long id, SockUpdateDto sockUpdate);
-    void processCsvFile(MultipartFile file);
+    void processCsvFile(MultipartFile file, String warehouse);
+    void processCsvFile(String fileName, InputStream content, String warehouse);
+
+    /**
+     * Imports already split CSV lines into the default warehouse, numbered from {@code firstLineNumber} in
+     * error messages, in the caller's transaction if there is one.
+     */
+    void processCsvChunk(List<String[]> lines, int firstLineNumber);
     List<Sock> getFilteredAndSortedSocks(String color, Integer cottonPartMin, Integer cottonPartMax,
                                          String sortBy, String sortOrder);
+    List<Sock> getFilteredAndSortedSocks(String warehouse, String color, Integer cottonPartMin, Integer cottonPartMax,
+                                         Map<String, String> attributes, String sortBy, String sortOrder);
 }
\ No newline at end of file
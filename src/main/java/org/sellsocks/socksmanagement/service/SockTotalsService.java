@@ -0,0 +1,18 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.dto.SockTotalsDto;
+
+public interface SockTotalsService {
+
+    SockTotalsDto getTotals();
+
+    /**
+     * Returns the per-color totals of one warehouse, or of all warehouses together when it is {@code null}.
+     */
+    SockTotalsDto getTotals(String warehouse);
+
+    /**
+     * Repairs totals that drifted from the {@code sock} rows and returns the number of colors repaired.
+     */
+    int reconcile();
+}
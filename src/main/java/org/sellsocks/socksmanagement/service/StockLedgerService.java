@@ -0,0 +1,24 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import java.time.OffsetDateTime;
+
+public interface StockLedgerService {
+
+    /**
+     * Appends a movement of one sock row to the ledger and writes the matching change event to the outbox, both
+     * in the caller's transaction.
+     */
+    void recordMovement(String warehouse, SockColor color, int cottonPart, String attributes, int delta,
+                        MovementType movementType);
+
+    /**
+     * Replays the quantity at {@code asOf} for one warehouse, or for all of them when {@code warehouse} is null.
+     */
+    int getFilteredSocksQuantityAsOf(String warehouse, String color, String operation, Integer cottonPart,
+                                     OffsetDateTime asOf);
+    void takeSnapshot();
+    void maintainPartitions();
+}
@@ -0,0 +1,35 @@
+package org.sellsocks.socksmanagement.service;
+
+import org.sellsocks.socksmanagement.model.dto.TransferDto;
+import org.sellsocks.socksmanagement.model.dto.TransferRequestDto;
+import org.sellsocks.socksmanagement.model.dto.WarehouseDto;
+import org.sellsocks.socksmanagement.model.dto.WarehouseTotalsDto;
+
+import java.util.List;
+
+public interface WarehouseService {
+
+    List<WarehouseDto> getWarehouses();
+
+    /**
+     * Registers the warehouse and creates its partition of {@code sock}; registering an existing warehouse
+     * returns it unchanged.
+     */
+    WarehouseDto registerWarehouse(String code);
+
+    /**
+     * Fails with a not-found error unless the warehouse with the given canonical code is registered.
+     */
+    void requireRegistered(String code);
+
+    /**
+     * Sums the quantity of the socks matching the criteria in every warehouse.
+     */
+    WarehouseTotalsDto getQuantitiesByWarehouse(String color, String operation, Integer cottonPart);
+
+    /**
+     * Moves stock of one sock between two warehouses in one transaction; stock held by reservations in the
+     * source warehouse cannot be moved.
+     */
+    TransferDto transfer(TransferRequestDto request);
+}
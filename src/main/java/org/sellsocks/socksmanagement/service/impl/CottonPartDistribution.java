@@ -0,0 +1,42 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+/**
+ * Quantities of one color by cotton percentage, with cumulative sums so that any cotton range is answered in
+ * constant time.
+ */
+final class CottonPartDistribution {
+
+    private static final int MAX_COTTON_PART = 100;
+
+    private final long[] quantities = new long[MAX_COTTON_PART + 1];
+    private long[] cumulative;
+
+    void add(int cottonPart, long quantity) {
+        quantities[cottonPart] += quantity;
+        cumulative = null;
+    }
+
+    /**
+     * Total quantity with a cotton percentage in the closed range; empty ranges sum to zero.
+     */
+    long sumBetween(int min, int max) {
+        int from = Math.max(min, 0);
+        int to = Math.min(max, MAX_COTTON_PART);
+        if (from > to) {
+            return 0;
+        }
+        long[] sums = cumulativeSums();
+        return sums[to + 1] - sums[from];
+    }
+
+    private long[] cumulativeSums() {
+        if (cumulative == null) {
+            long[] sums = new long[MAX_COTTON_PART + 2];
+            for (int cottonPart = 0; cottonPart <= MAX_COTTON_PART; cottonPart++) {
+                sums[cottonPart + 1] = sums[cottonPart] + quantities[cottonPart];
+            }
+            cumulative = sums;
+        }
+        return cumulative;
+    }
+}
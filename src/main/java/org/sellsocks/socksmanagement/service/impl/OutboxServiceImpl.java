@@ -0,0 +1,49 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.model.dto.StockChangeEvent;
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.OutboxEventRepository;
+import org.sellsocks.socksmanagement.service.OutboxService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The aggregate key is {@code <warehouse>:<color>:<cotton part>} followed by the canonical attributes, which
+     * start with {@code ;} when present, so every sock row has its own key.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String warehouse, SockColor color, int cottonPart, String attributes, int delta,
+                        MovementType movementType) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(
+                    new StockChangeEvent(warehouse, color, cottonPart, attributes, delta, movementType));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize stock change event: {}", e.getMessage());
+            throw new IllegalStateException("Failed to serialize stock change event", e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateKey(warehouse + ":" + color.name() + ":" + cottonPart + attributes)
+                .eventType(movementType.name())
+                .payload(payload)
+                .warehouse(warehouse)
+                .attributes(attributes)
+                .build());
+    }
+}
@@ -0,0 +1,271 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.config.ReservationProperties;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.exception.ReservationStateException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.AvailableStockDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationDto;
+import org.sellsocks.socksmanagement.model.dto.ReservationRequestDto;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.SockReservation;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.ReservationStatus;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.SockReservationRepository;
+import org.sellsocks.socksmanagement.reservation.ExpiryWheel;
+import org.sellsocks.socksmanagement.service.ReservationService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@Slf4j
+public class ReservationServiceImpl implements ReservationService {
+
+    private final SockReservationRepository reservationRepository;
+    private final SockRepository sockRepository;
+    private final SockMapper sockMapper;
+    private final SockParametersValidator validator;
+    private final StockLedgerService stockLedgerService;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final WarehouseService warehouseService;
+    private final ReservationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpiryWheel expiryWheel;
+    private final Counter expiredByWheel;
+    private final Counter expiredBySweep;
+
+    public ReservationServiceImpl(SockReservationRepository reservationRepository,
+                                  SockRepository sockRepository,
+                                  SockMapper sockMapper,
+                                  SockParametersValidator validator,
+                                  StockLedgerService stockLedgerService,
+                                  WriteBehindIncomeBuffer writeBehindIncomeBuffer,
+                                  WarehouseService warehouseService,
+                                  ReservationProperties properties,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+        this.sockRepository = sockRepository;
+        this.sockMapper = sockMapper;
+        this.validator = validator;
+        this.stockLedgerService = stockLedgerService;
+        this.writeBehindIncomeBuffer = writeBehindIncomeBuffer;
+        this.warehouseService = warehouseService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expiryWheel = new ExpiryWheel(properties.getTick(), properties.getWheelSize(),
+                properties.getMaxTracked(), System.currentTimeMillis());
+        this.expiredByWheel = expiredCounter(meterRegistry, "wheel");
+        this.expiredBySweep = expiredCounter(meterRegistry, "sweep");
+        Gauge.builder("socks.reservations.tracked", expiryWheel, ExpiryWheel::getTracked)
+                .description("Reservations waiting for expiry on this node's expiry wheel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies pending write-behind income before its transaction starts, so that the applier's own
+     * transaction does not take a second pooled connection while this one holds the first.
+     */
+    @Override
+    public ReservationDto reserve(ReservationRequestDto request) {
+        log.info("Reserving socks: {}", request);
+        String warehouse = requireWarehouse(request.getWarehouse());
+        SockColor color = validator.validateAndParseColor(request.getColor());
+        int cottonPart = validator.validateCottonPart(request.getCottonPart());
+        int quantity = validator.validateQuantity(request.getQuantity());
+        Duration ttl = request.getTtlSeconds() != null
+                ? Duration.ofSeconds(request.getTtlSeconds())
+                : properties.getDefaultTtl();
+        if (ttl.compareTo(properties.getMaxTtl()) > 0) {
+            log.debug("Reservation TTL {} exceeds the maximum {}", ttl, properties.getMaxTtl());
+            throw new InvalidSockParameterException("Reservation TTL must be at most " +
+                    properties.getMaxTtl().toSeconds() + " seconds");
+        }
+
+        if (Warehouse.DEFAULT_CODE.equals(warehouse)) {
+            writeBehindIncomeBuffer.applyPendingFor(new SockKey(color, cottonPart));
+        }
+        return transactionTemplate.execute(status -> reserve(warehouse, color, cottonPart, quantity, ttl));
+    }
+
+    private ReservationDto reserve(String warehouse, SockColor color, int cottonPart, int quantity, Duration ttl) {
+        Sock sock = sockRepository.findForUpdate(warehouse, color, cottonPart, SockAttributes.NONE)
+                .orElseThrow(() -> {
+                    log.debug("No socks found with given parameters: warehouse={}, color={}, cottonPart={}",
+                            warehouse, color, cottonPart);
+                    return new SockNotFoundException("No socks found with given parameters: color = " +
+                            color + ", cotton percentage = " + cottonPart + ", warehouse = " + warehouse);
+                });
+        OffsetDateTime now = OffsetDateTime.now();
+        long available = sock.getQuantity()
+                - reservationRepository.sumHeldQuantity(warehouse, color, cottonPart, now);
+        if (available < quantity) {
+            log.debug("Not enough socks to reserve: available={}, requested={}", available, quantity);
+            throw new InsufficientStockException((int) Math.max(0, available), quantity);
+        }
+
+        SockReservation reservation = reservationRepository.save(SockReservation.builder()
+                .warehouse(warehouse)
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(quantity)
+                .status(ReservationStatus.ACTIVE)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        expiryWheel.schedule(reservation.getId(), reservation.getExpiresAt().toInstant().toEpochMilli());
+        log.info("Reservation created: {}", reservation);
+        return sockMapper.toReservationDto(reservation);
+    }
+
+    @Override
+    @Transactional
+    public ReservationDto confirm(Long id) {
+        log.info("Confirming reservation with id: {}", id);
+        SockReservation reservation = findForUpdate(id);
+        if (!reservation.isHolding(OffsetDateTime.now())) {
+            throw notHolding(reservation, "confirmed");
+        }
+
+        Sock sock = sockRepository.findForUpdate(reservation.getWarehouse(), reservation.getColor(),
+                        reservation.getCottonPart(), SockAttributes.NONE)
+                .orElseThrow(() -> new SockNotFoundException("No socks found with given parameters: color = " +
+                        reservation.getColor() + ", cotton percentage = " + reservation.getCottonPart() +
+                        ", warehouse = " + reservation.getWarehouse()));
+        if (sock.getQuantity() < reservation.getQuantity()) {
+            log.debug("Not enough socks to confirm reservation {}: available={}, requested={}",
+                    id, sock.getQuantity(), reservation.getQuantity());
+            throw new InsufficientStockException(sock.getQuantity(), reservation.getQuantity());
+        }
+        sock.setQuantity(sock.getQuantity() - reservation.getQuantity());
+        stockLedgerService.recordMovement(sock.getWarehouse(), sock.getColor(), sock.getCottonPart(),
+                sock.getAttributes(), -reservation.getQuantity(), MovementType.OUTCOME);
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        log.info("Reservation confirmed: {}", reservation);
+        return sockMapper.toReservationDto(reservation);
+    }
+
+    @Override
+    @Transactional
+    public ReservationDto cancel(Long id) {
+        log.info("Cancelling reservation with id: {}", id);
+        SockReservation reservation = findForUpdate(id);
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+            throw notHolding(reservation, "cancelled");
+        }
+        if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+            reservation.setStatus(ReservationStatus.CANCELLED);
+        }
+        log.info("Reservation cancelled: {}", reservation);
+        return sockMapper.toReservationDto(reservation);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AvailableStockDto getAvailable(String warehouse, String color, int cottonPart) {
+        log.info("Fetching available stock: warehouse={}, color={}, cottonPart={}", warehouse, color, cottonPart);
+        String warehouseCode = requireWarehouse(warehouse);
+        SockColor sockColor = validator.validateAndParseColor(color);
+        validator.validateCottonPart(cottonPart);
+        long inStock = sockRepository.findQuantityByWarehouseAndColorAndCottonPart(warehouseCode, sockColor,
+                cottonPart).orElse(0);
+        if (Warehouse.DEFAULT_CODE.equals(warehouseCode)) {
+            inStock += writeBehindIncomeBuffer.pendingFor(new SockKey(sockColor, cottonPart));
+        }
+        long held = reservationRepository.sumHeldQuantity(warehouseCode, sockColor, cottonPart, OffsetDateTime.now());
+        return new AvailableStockDto(warehouseCode, sockColor.name(), cottonPart, inStock, held,
+                Math.max(0, inStock - held));
+    }
+
+    @Override
+    public int expireDue() {
+        long[] due = expiryWheel.advance(System.currentTimeMillis());
+        if (due.length == 0) {
+            return 0;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        int expired = 0;
+        for (int from = 0; from < due.length; from += properties.getExpireBatchSize()) {
+            int to = Math.min(due.length, from + properties.getExpireBatchSize());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ids.add(due[i]);
+            }
+            Integer updated = transactionTemplate.execute(status -> reservationRepository.expireByIds(ids, now));
+            expired += updated != null ? updated : 0;
+        }
+        expiredByWheel.increment(expired);
+        log.info("Expired {} of {} reservations due on the expiry wheel", expired, due.length);
+        return expired;
+    }
+
+    @Override
+    public int sweepExpired() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int batchSize = properties.getExpireBatchSize();
+        int expired = 0;
+        int updated;
+        do {
+            Integer batch = transactionTemplate.execute(status -> reservationRepository.expireOverdue(now, batchSize));
+            updated = batch != null ? batch : 0;
+            expired += updated;
+        } while (updated == batchSize);
+        expiredBySweep.increment(expired);
+        if (expired > 0) {
+            log.info("Swept {} overdue reservations", expired);
+        }
+        return expired;
+    }
+
+    private String requireWarehouse(String warehouse) {
+        String code = validator.validateAndParseWarehouse(warehouse);
+        warehouseService.requireRegistered(code);
+        return code;
+    }
+
+    private SockReservation findForUpdate(Long id) {
+        return reservationRepository.findForUpdate(id)
+                .orElseThrow(() -> {
+                    log.debug("Reservation not found with id: {}", id);
+                    return new SockNotFoundException("Reservation not found with id: " + id);
+                });
+    }
+
+    private static ReservationStateException notHolding(SockReservation reservation, String action) {
+        ReservationStatus status = reservation.getStatus() == ReservationStatus.ACTIVE
+                ? ReservationStatus.EXPIRED
+                : reservation.getStatus();
+        log.debug("Reservation {} is {} and cannot be {}", reservation.getId(), status, action);
+        return new ReservationStateException("Reservation " + reservation.getId() + " is " + status +
+                " and cannot be " + action);
+    }
+
+    private static Counter expiredCounter(MeterRegistry meterRegistry, String via) {
+        return Counter.builder("socks.reservations.expired")
+                .description("Reservations marked expired")
+                .tag("via", via)
+                .register(meterRegistry);
+    }
+}
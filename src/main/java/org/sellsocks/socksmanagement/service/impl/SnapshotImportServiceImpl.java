@@ -0,0 +1,271 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.config.ImportProperties;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.model.dto.ImportDiffDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.reconcile.SnapshotMergeJoin;
+import org.sellsocks.socksmanagement.reconcile.SnapshotQuantities;
+import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.SockReservationRepository;
+import org.sellsocks.socksmanagement.service.SnapshotImportService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.upload.CsvUploadStreams;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.time.OffsetDateTime;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SnapshotImportServiceImpl implements SnapshotImportService {
+
+    private final SockRepository sockRepository;
+    private final SockReservationRepository reservationRepository;
+    private final SockParametersValidator validator;
+    private final StockLedgerService stockLedgerService;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final WarehouseService warehouseService;
+    private final ImportProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Reads and validates the whole snapshot before its transaction starts, and applies pending write-behind
+     * income there too: the applier commits in a transaction of its own, which must not wait for a second
+     * pooled connection while this one holds the first.
+     */
+    @Override
+    public ImportDiffDto replaceFromCsv(MultipartFile file, String warehouse) {
+        log.info("Replacing stock of warehouse {} from CSV snapshot: {}", warehouse, file.getOriginalFilename());
+        String warehouseCode = validator.validateAndParseWarehouse(warehouse);
+        warehouseService.requireRegistered(warehouseCode);
+        if (file.isEmpty()) {
+            log.debug("Uploaded file is empty");
+            throw new InvalidSockParameterException("Uploaded file is empty");
+        }
+
+        SnapshotQuantities snapshot;
+        try (InputStream content = file.getInputStream()) {
+            snapshot = readSnapshot(content);
+        } catch (IOException e) {
+            log.debug("Error processing CSV file: {}", e.getMessage());
+            throw new InvalidSockParameterException("Error processing the CSV file");
+        }
+
+        // Pending write-behind income predates the snapshot, so it is applied first and then overwritten
+        if (Warehouse.DEFAULT_CODE.equals(warehouseCode)) {
+            writeBehindIncomeBuffer.applyPending();
+        }
+        ImportDiffDto diff = new TransactionTemplate(transactionManager).execute(status ->
+                applySnapshot(warehouseCode, snapshot));
+        log.info("CSV snapshot applied: {}", diff);
+        return diff;
+    }
+
+    private ImportDiffDto applySnapshot(String warehouseCode, SnapshotQuantities snapshot) {
+        DiffApplier applier = new DiffApplier(warehouseCode);
+        try (Stream<Sock> currentStock = sockRepository.streamAllForUpdate(warehouseCode)) {
+            SnapshotMergeJoin.join(snapshot, currentStock.iterator(), applier);
+        }
+        entityManager.flush();
+        return applier.toDiff(snapshot.size());
+    }
+
+    private SnapshotQuantities readSnapshot(InputStream content) throws IOException {
+        SnapshotQuantities snapshot = new SnapshotQuantities();
+        try (Reader reader = CsvUploadStreams.openReader(content)) {
+            CSVReader csvReader = new CSVReader(reader);
+            String[] line;
+
+            csvReader.readNext();
+            int lineNumber = 1;
+            while ((line = csvReader.readNext()) != null) {
+                lineNumber++;
+                if (line.length != 3) {
+                    log.debug("Invalid CSV format in line {}", lineNumber);
+                    throw new InvalidSockParameterException("Invalid CSV format. " +
+                            "Each line must have 3 columns: color, cottonPart, quantity");
+                }
+
+                SockColor color = parseColor(line[0], lineNumber);
+                int cottonPart = parseCottonPart(line[1], lineNumber);
+                int quantity = parseQuantity(line[2], lineNumber);
+                if (!snapshot.put(color, cottonPart, quantity)) {
+                    log.debug("Duplicate sock {} {} in csv file line {}", color, cottonPart, lineNumber);
+                    throw new InvalidSockParameterException("Duplicate sock in snapshot: color = " + color +
+                            ", cotton percentage = " + cottonPart + ". See CSV file line no. " + lineNumber);
+                }
+            }
+        } catch (CsvValidationException e) {
+            log.debug("Error processing CSV file: {}", e.getMessage());
+            throw new InvalidSockParameterException("Error processing the CSV file");
+        }
+        return snapshot;
+    }
+
+    private SockColor parseColor(String value, int lineNumber) {
+        try {
+            return validator.validateAndParseColor(value.trim());
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid color: {} in csv file line {}", value, lineNumber);
+            throw new InvalidSockParameterException("Invalid color: " + value + ". See CSV file line no. " + lineNumber);
+        }
+    }
+
+    private int parseCottonPart(String value, int lineNumber) {
+        try {
+            return validator.validateCottonPart(Integer.parseInt(value.trim()));
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid cottonPart: {} in csv file line {}", value, lineNumber);
+            throw new InvalidSockParameterException("Invalid cotton percentage: " + value +
+                    ". See CSV file line no. " + lineNumber);
+        }
+    }
+
+    /**
+     * A snapshot may list a sock that ran out, so unlike income a quantity of zero is valid here.
+     */
+    private int parseQuantity(String value, int lineNumber) {
+        try {
+            int quantity = Integer.parseInt(value.trim());
+            if (quantity >= 0) {
+                return quantity;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        log.debug("Invalid quantity value: {} in csv file line {}", value, lineNumber);
+        throw new InvalidSockParameterException("Invalid quantity: " + value + ". See CSV file line no. " + lineNumber);
+    }
+
+    /**
+     * Writes only the rows that differ from the snapshot and flushes them in batches, so Hibernate sends
+     * the updates as JDBC batches and the persistence context does not grow with the table. A sock is never
+     * lowered below the quantity its active reservations hold: reservations are taken under the sock's row
+     * lock, so once the merge-join has locked a row its held quantity cannot grow until the import commits.
+     */
+    private class DiffApplier implements SnapshotMergeJoin.DiffHandler {
+
+        private final String warehouse;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+        private int zeroed;
+        private int deleted;
+        private int clamped;
+        private int pendingWrites;
+
+        DiffApplier(String warehouse) {
+            this.warehouse = warehouse;
+        }
+
+        @Override
+        public void onlyInSnapshot(SockColor color, int cottonPart, int quantity) {
+            sockRepository.save(Sock.builder()
+                    .warehouse(warehouse)
+                    .color(color)
+                    .cottonPart(cottonPart)
+                    .quantity(quantity)
+                    .build());
+            stockLedgerService.recordMovement(warehouse, color, cottonPart, SockAttributes.NONE, quantity,
+                    MovementType.RECONCILE);
+            inserted++;
+            written();
+        }
+
+        @Override
+        public void inBoth(Sock current, int snapshotQuantity) {
+            update(current, snapshotQuantity < current.getQuantity()
+                    ? atLeastHeld(current, snapshotQuantity)
+                    : snapshotQuantity);
+        }
+
+        @Override
+        public void onlyInStock(Sock current) {
+            int held = current.getQuantity() == 0 ? 0 : atLeastHeld(current, 0);
+            if (held > 0) {
+                update(current, held);
+            } else if (properties.getAbsentKeys() == ImportProperties.AbsentKeys.DELETE) {
+                stockLedgerService.recordMovement(warehouse, current.getColor(), current.getCottonPart(),
+                        current.getAttributes(), -current.getQuantity(), MovementType.RECONCILE);
+                sockRepository.delete(current);
+                deleted++;
+                written();
+            } else if (current.getQuantity() != 0) {
+                setQuantity(current, 0);
+                zeroed++;
+            } else {
+                unchanged++;
+                entityManager.detach(current);
+            }
+        }
+
+        ImportDiffDto toDiff(int rowsRead) {
+            return new ImportDiffDto(rowsRead, inserted, updated, unchanged, zeroed, deleted, clamped);
+        }
+
+        /**
+         * Returns the quantity to lower a sock to: the requested one, or the quantity held by its active
+         * reservations if that is more. Only read for socks that go down, which the import has already locked.
+         */
+        private int atLeastHeld(Sock current, int quantity) {
+            long held = Math.min(current.getQuantity(), reservationRepository.sumHeldQuantity(warehouse,
+                    current.getColor(), current.getCottonPart(), OffsetDateTime.now()));
+            if (held <= quantity) {
+                return quantity;
+            }
+            log.debug("Snapshot quantity {} of sock {} {} is below its {} reserved socks, keeping those", quantity,
+                    current.getColor(), current.getCottonPart(), held);
+            clamped++;
+            return (int) held;
+        }
+
+        private void update(Sock current, int quantity) {
+            if (current.getQuantity() == quantity) {
+                unchanged++;
+                entityManager.detach(current);
+                return;
+            }
+            setQuantity(current, quantity);
+            updated++;
+        }
+
+        private void setQuantity(Sock current, int quantity) {
+            stockLedgerService.recordMovement(warehouse, current.getColor(), current.getCottonPart(),
+                    current.getAttributes(), quantity - current.getQuantity(), MovementType.RECONCILE);
+            current.setQuantity(quantity);
+            written();
+        }
+
+        private void written() {
+            if (++pendingWrites == properties.getApplyBatchSize()) {
+                entityManager.flush();
+                entityManager.clear();
+                pendingWrites = 0;
+            }
+        }
+    }
+}
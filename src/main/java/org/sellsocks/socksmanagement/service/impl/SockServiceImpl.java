@@ -4,33 +4,59 @@ import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.jfr.CsvImportChunkEvent;
+import org.sellsocks.socksmanagement.jfr.SockMergeEvent;
 import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.QuantityQueryDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
 import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
 import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
 import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.SockReservationRepository;
 import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.upload.CsvUploadStreams;
 import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityManager;
-import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.Reader;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,74 +64,254 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SockServiceImpl implements SockService {
 
+    private static final int CSV_EVENT_CHUNK_ROWS = 1000;
+
     private final SockRepository sockRepository;
     private final SockMapper sockMapper;
     private final SockParametersValidator validator;
+    private final StockLedgerService stockLedgerService;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final SockReservationRepository reservationRepository;
+    private final WarehouseService warehouseService;
+    private final PlatformTransactionManager transactionManager;
 
     @PersistenceContext
     EntityManager entityManager;
 
+    /**
+     * Opens its own transaction instead of being {@code @Transactional}: write-behind income waits until the
+     * log is on disk, and must not hold a pooled connection while it does.
+     */
     @Override
-    @Transactional
     public SockDto addSockIncome(Sock sockIncome) {
-        log.info("Adding sock income: color={}, cottonPart={}, quantity={}",
-                sockIncome.getColor(), sockIncome.getCottonPart(), sockIncome.getQuantity());
-        Sock sock = saveOrUpdateSock(sockIncome.getColor(), sockIncome.getCottonPart(), sockIncome.getQuantity());
-        log.info("Sock income added successfully: {}", sock);
-        return sockMapper.toSockDto(sock);
+        log.info("Adding sock income: warehouse={}, color={}, cottonPart={}, attributes={}, quantity={}",
+                sockIncome.getWarehouse(), sockIncome.getColor(), sockIncome.getCottonPart(),
+                sockIncome.getAttributes(), sockIncome.getQuantity());
+        String warehouse = requireWarehouse(sockIncome.getWarehouse());
+        if (isWriteBehind(warehouse, sockIncome.getAttributes().isEmpty())) {
+            return addSockIncomeWriteBehind(sockIncome);
+        }
+        return inTransaction(() -> applyIncome(warehouse, sockIncome));
+    }
+
+    /**
+     * Always writes in a transaction, even with write-behind enabled: what {@code beforeCommit} writes must
+     * commit together with the income, which an entry in the write-ahead log cannot. Pending write-behind
+     * income is applied first, as for outcome, so that the response counts it.
+     */
+    @Override
+    public SockDto addSockIncome(Sock sockIncome, Consumer<SockDto> beforeCommit) {
+        log.info("Adding sock income: warehouse={}, color={}, cottonPart={}, attributes={}, quantity={}",
+                sockIncome.getWarehouse(), sockIncome.getColor(), sockIncome.getCottonPart(),
+                sockIncome.getAttributes(), sockIncome.getQuantity());
+        String warehouse = requireWarehouse(sockIncome.getWarehouse());
+        if (isWriteBehind(warehouse, sockIncome.getAttributes().isEmpty())) {
+            writeBehindIncomeBuffer.applyPendingFor(SockKey.of(sockIncome));
+        }
+        return inTransaction(() -> {
+            SockDto response = applyIncome(warehouse, sockIncome);
+            beforeCommit.accept(response);
+            return response;
+        });
     }
 
     @Override
-    @Transactional
     public SockDto subtractSockOutcome(Sock sockOutcome) {
-        log.info("Subtracting sock outcome: color={}, cottonPart={}, quantity={}",
-                sockOutcome.getColor(), sockOutcome.getCottonPart(), sockOutcome.getQuantity());
-        Sock sock = sockRepository.findByColorAndCottonPart(sockOutcome.getColor(), sockOutcome.getCottonPart())
+        return subtractSockOutcome(sockOutcome, response -> {
+        });
+    }
+
+    /**
+     * Applies pending write-behind income before its transaction starts: the applier commits in a transaction
+     * of its own, which inside ours would take a second pooled connection per request and can drain the pool.
+     */
+    @Override
+    public SockDto subtractSockOutcome(Sock sockOutcome, Consumer<SockDto> beforeCommit) {
+        log.info("Subtracting sock outcome: warehouse={}, color={}, cottonPart={}, quantity={}",
+                sockOutcome.getWarehouse(), sockOutcome.getColor(), sockOutcome.getCottonPart(),
+                sockOutcome.getQuantity());
+        String warehouse = requireWarehouse(sockOutcome.getWarehouse());
+        if (isWriteBehind(warehouse, sockOutcome.getAttributes().isEmpty())) {
+            writeBehindIncomeBuffer.applyPendingFor(SockKey.of(sockOutcome));
+        }
+        return inTransaction(() -> {
+            SockDto response = applyOutcome(warehouse, sockOutcome);
+            beforeCommit.accept(response);
+            return response;
+        });
+    }
+
+    /**
+     * The entries written to the database commit together; write-behind entries are appended to their log
+     * once that transaction is done, so a rejected entry rejects the batch before anything is appended.
+     */
+    @Override
+    public List<SockDto> addSockIncomeBatch(List<Sock> socksIncome) {
+        log.info("Adding sock income batch of {} entries", socksIncome.size());
+        validateBatchNotEmpty(socksIncome);
+        List<String> warehouses = requireWarehouses(socksIncome);
+        SockDto[] added = new SockDto[socksIncome.size()];
+        inTransaction(() -> {
+            for (int i = 0; i < added.length; i++) {
+                Sock sockIncome = socksIncome.get(i);
+                if (!isWriteBehind(warehouses.get(i), sockIncome.getAttributes().isEmpty())) {
+                    added[i] = applyIncome(warehouses.get(i), sockIncome);
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < added.length; i++) {
+            if (added[i] == null) {
+                added[i] = addSockIncomeWriteBehind(socksIncome.get(i));
+            }
+        }
+        return Arrays.asList(added);
+    }
+
+    @Override
+    public List<SockDto> subtractSockOutcomeBatch(List<Sock> socksOutcome) {
+        log.info("Subtracting sock outcome batch of {} entries", socksOutcome.size());
+        validateBatchNotEmpty(socksOutcome);
+        List<String> warehouses = requireWarehouses(socksOutcome);
+        for (int i = 0; i < socksOutcome.size(); i++) {
+            Sock sockOutcome = socksOutcome.get(i);
+            if (isWriteBehind(warehouses.get(i), sockOutcome.getAttributes().isEmpty())) {
+                writeBehindIncomeBuffer.applyPendingFor(SockKey.of(sockOutcome));
+            }
+        }
+        return inTransaction(() -> {
+            List<SockDto> subtracted = new ArrayList<>(socksOutcome.size());
+            for (int i = 0; i < socksOutcome.size(); i++) {
+                subtracted.add(applyOutcome(warehouses.get(i), socksOutcome.get(i)));
+            }
+            return subtracted;
+        });
+    }
+
+    private SockDto applyIncome(String warehouse, Sock sockIncome) {
+        Sock sock = saveOrUpdateSock(warehouse, sockIncome.getColor(), sockIncome.getCottonPart(),
+                sockIncome.getAttributes(), sockIncome.getQuantity());
+        stockLedgerService.recordMovement(sock.getWarehouse(), sock.getColor(), sock.getCottonPart(),
+                sock.getAttributes(), sockIncome.getQuantity(), MovementType.INCOME);
+        log.info("Sock income added successfully: {}", sock);
+        return sockMapper.toSockDto(sock);
+    }
+
+    private SockDto applyOutcome(String warehouse, Sock sockOutcome) {
+        Sock sock = sockRepository.findForUpdate(warehouse, sockOutcome.getColor(), sockOutcome.getCottonPart(),
+                        sockOutcome.getAttributes())
                 .orElseThrow(() -> {
-                    log.error("No socks found with given parameters: color={}, cottonPart={}",
-                            sockOutcome.getColor(), sockOutcome.getCottonPart());
-                    return new EntityNotFoundException("No socks found with given parameters: color = " +
-                            sockOutcome.getColor() + ", cotton percentage = " + sockOutcome.getCottonPart());
+                    log.debug("No socks found with given parameters: warehouse={}, color={}, cottonPart={}, " +
+                                    "attributes={}", warehouse, sockOutcome.getColor(), sockOutcome.getCottonPart(),
+                            sockOutcome.getAttributes());
+                    return new SockNotFoundException("No socks found with given parameters: color = " +
+                            sockOutcome.getColor() + ", cotton percentage = " + sockOutcome.getCottonPart() +
+                            (sockOutcome.getAttributes().isEmpty() ? "" :
+                                    ", attributes = " + SockAttributes.parse(sockOutcome.getAttributes())) +
+                            (Warehouse.DEFAULT_CODE.equals(warehouse) ? "" : ", warehouse = " + warehouse));
                 });
 
         validateAndSubtractQuantity(sock, sockOutcome.getQuantity());
+        stockLedgerService.recordMovement(sock.getWarehouse(), sock.getColor(), sock.getCottonPart(),
+                sock.getAttributes(), -sockOutcome.getQuantity(), MovementType.OUTCOME);
         log.info("Sock outcome subtracted successfully: {}", sock);
         return sockMapper.toSockDto(sock);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public int getFilteredSocksQuantity(String color, String operation, Integer cottonPart) {
-        log.info("Fetching socks quantity: color={}, operation={}, cottonPart={}", color, operation, cottonPart);
+        return getFilteredSocksQuantity(null, color, operation, cottonPart, Map.of());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getFilteredSocksQuantity(String warehouse, String color, String operation, Integer cottonPart,
+                                        Map<String, String> attributes) {
+        log.info("Fetching socks quantity: warehouse={}, color={}, operation={}, cottonPart={}, attributes={}",
+                warehouse, color, operation, cottonPart, attributes);
+        String warehouseCode = requireWarehouse(warehouse);
         SockColor sockColor = validator.validateAndParseColor(color);
         CriteriaOperation criteriaOperation = validator.validateAndParseOperation(operation);
 
-        List<Sock> socks = sockRepository.findAll((root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(criteriaBuilder.equal(root.get("color"), sockColor));
+        int quantity;
+        if (isWriteBehind(warehouseCode, attributes.isEmpty())) {
+            quantity = writeBehindIncomeBuffer.readWithPendingIncome(
+                    () -> detached(findSocksByCriteria(warehouseCode, sockColor, criteriaOperation, cottonPart,
+                            attributes)).stream()
+                            .mapToInt(Sock::getQuantity)
+                            .sum(),
+                    (fromDatabase, pending) -> fromDatabase + pending.entrySet().stream()
+                            .filter(entry -> entry.getKey().color() == sockColor
+                                    && criteriaOperation.matches(entry.getKey().cottonPart(), cottonPart))
+                            .mapToInt(Map.Entry::getValue)
+                            .sum());
+        } else {
+            quantity = findSocksByCriteria(warehouseCode, sockColor, criteriaOperation, cottonPart, attributes).stream()
+                    .mapToInt(Sock::getQuantity)
+                    .sum();
+        }
+        log.info("Total socks quantity found: {}", quantity);
+        return quantity;
+    }
 
-            switch (criteriaOperation) {
-                case MORETHAN -> predicates.add(criteriaBuilder.gt(root.get("cottonPart"), cottonPart));
-                case LESSTHAN -> predicates.add(criteriaBuilder.lt(root.get("cottonPart"), cottonPart));
-                case EQUAL -> predicates.add(criteriaBuilder.equal(root.get("cottonPart"), cottonPart));
-            }
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> getSocksQuantities(List<QuantityQueryDto> queries) {
+        return getSocksQuantities(null, queries);
+    }
 
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        });
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> getSocksQuantities(String warehouse, List<QuantityQueryDto> queries) {
+        log.info("Fetching socks quantities for {} queries in warehouse {}", queries.size(), warehouse);
+        List<CottonPartRange> ranges = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            ranges.add(toCottonPartRange(queries.get(i), i + 1));
+        }
+        Set<SockColor> colors = EnumSet.noneOf(SockColor.class);
+        ranges.forEach(range -> colors.addAll(range.colors()));
+
+        String warehouseCode = requireWarehouse(warehouse);
+
+        Map<SockColor, CottonPartDistribution> distributions;
+        if (isWriteBehind(warehouseCode, true)) {
+            distributions = writeBehindIncomeBuffer.readWithPendingIncome(
+                    () -> loadDistributions(warehouseCode, colors),
+                    (fromDatabase, pending) -> {
+                        pending.forEach((key, quantity) -> {
+                            CottonPartDistribution distribution = fromDatabase.get(key.color());
+                            if (distribution != null) {
+                                distribution.add(key.cottonPart(), quantity);
+                            }
+                        });
+                        return fromDatabase;
+                    });
+        } else {
+            distributions = loadDistributions(warehouseCode, colors);
+        }
 
-        int quantity = socks.stream().mapToInt(Sock::getQuantity).sum();
-        log.info("Total socks quantity found: {}", quantity);
-        return quantity;
+        List<Integer> quantities = ranges.stream()
+                .map(range -> Math.toIntExact(range.colors().stream()
+                        .mapToLong(color -> distributions.get(color).sumBetween(range.min(), range.max()))
+                        .sum()))
+                .collect(Collectors.toList());
+        log.info("Socks quantities found: {}", quantities);
+        return quantities;
     }
 
     @Override
     @Transactional
     public SockDto updateSock(Long id, SockUpdateDto sockUpdate) {
         log.info("Updating sock with id: {}, new data: {}", id, sockUpdate);
-        Sock sockToUpdate = sockRepository.findById(id)
+        Sock sockToUpdate = sockRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> {
-                    log.error("Sock not found with id: {}", id);
-                    return new EntityNotFoundException("Sock not found with id: " + id);
+                    log.debug("Sock not found with id: {}", id);
+                    return new SockNotFoundException("Sock not found with id: " + id);
                 });
+        SockColor originalColor = sockToUpdate.getColor();
+        int originalCottonPart = sockToUpdate.getCottonPart();
+        int originalQuantity = sockToUpdate.getQuantity();
 
         if (sockUpdate.getColor() != null) {
             sockToUpdate.setColor(validator.validateAndParseColor(sockUpdate.getColor()));
@@ -119,29 +325,48 @@ public class SockServiceImpl implements SockService {
 
         Sock mergedSock = mergeWithDuplicateIfExists(sockToUpdate, id);
         if (mergedSock != null) {
+            stockLedgerService.recordMovement(sockToUpdate.getWarehouse(), originalColor, originalCottonPart,
+                    sockToUpdate.getAttributes(), -originalQuantity, MovementType.MERGE);
+            stockLedgerService.recordMovement(mergedSock.getWarehouse(), mergedSock.getColor(),
+                    mergedSock.getCottonPart(), mergedSock.getAttributes(), sockToUpdate.getQuantity(),
+                    MovementType.MERGE);
             return sockMapper.toSockDto(mergedSock);
         }
 
         sockRepository.save(sockToUpdate);
+        recordUpdateMovements(originalColor, originalCottonPart, originalQuantity, sockToUpdate);
         log.info("Sock updated successfully: {}", sockToUpdate);
         return sockMapper.toSockDto(sockToUpdate);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Sock> getFilteredAndSortedSocks(String color, Integer cottonPartMin, Integer cottonPartMax, String sortBy, String sortOrder) {
-        log.info("Fetching filtered and sorted socks: color={}, cottonPartMin={}, cottonPartMax={}, sortBy={}, sortOrder={}",
-                color, cottonPartMin, cottonPartMax, sortBy, sortOrder);
-        Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Sort sort = Sort.by(direction, sortBy);
+        return getFilteredAndSortedSocks(null, color, cottonPartMin, cottonPartMax, Map.of(), sortBy, sortOrder);
+    }
 
-        List<Sock> socks = sockRepository.findAll((root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = buildSockFilters(color, cottonPartMin, cottonPartMax, criteriaBuilder, root);
-            query.orderBy(direction == Sort.Direction.ASC
-                    ? criteriaBuilder.asc(root.get(sortBy))
-                    : criteriaBuilder.desc(root.get(sortBy)));
+    @Override
+    @Transactional(readOnly = true)
+    public List<Sock> getFilteredAndSortedSocks(String warehouse, String color, Integer cottonPartMin,
+                                                Integer cottonPartMax, Map<String, String> attributes,
+                                                String sortBy, String sortOrder) {
+        log.info("Fetching filtered and sorted socks: warehouse={}, color={}, cottonPartMin={}, cottonPartMax={}, " +
+                        "attributes={}, sortBy={}, sortOrder={}",
+                warehouse, color, cottonPartMin, cottonPartMax, attributes, sortBy, sortOrder);
+        String warehouseCode = requireWarehouse(warehouse);
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
 
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        }, sort);
+        List<Sock> socks;
+        if (isWriteBehind(warehouseCode, attributes.isEmpty())) {
+            SockColor sockColor = color != null ? validator.validateAndParseColor(color) : null;
+            socks = writeBehindIncomeBuffer.readWithPendingIncome(
+                    () -> detached(findSortedSocks(warehouseCode, color, cottonPartMin, cottonPartMax, attributes,
+                            sortBy, direction)),
+                    (fromDatabase, pending) -> addPendingIncome(fromDatabase, pending,
+                            sockColor, cottonPartMin, cottonPartMax, sortBy, direction));
+        } else {
+            socks = findSortedSocks(warehouseCode, color, cottonPartMin, cottonPartMax, attributes, sortBy, direction);
+        }
 
         List<Long> sockIds = socks.stream()
                 .map(Sock::getId)
@@ -152,42 +377,236 @@ public class SockServiceImpl implements SockService {
     }
 
     @Override
-    @Transactional
-    public void processCsvFile(MultipartFile file) {
-        log.info("Processing CSV file: {}", file.getOriginalFilename());
+    public void processCsvFile(MultipartFile file, String warehouse) {
+        log.info("Processing CSV file: {} into warehouse {}", file.getOriginalFilename(), warehouse);
+        String warehouseCode = requireWarehouse(warehouse);
         if (file.isEmpty()) {
-            log.error("Uploaded file is empty");
-            throw new IllegalArgumentException("Uploaded file is empty");
+            log.debug("Uploaded file is empty");
+            throw new InvalidSockParameterException("Uploaded file is empty");
+        }
+
+        try {
+            importCsv(file.getInputStream(), warehouseCode);
+        } catch (IOException e) {
+            log.debug("Error processing CSV file: {}", e.getMessage());
+            throw new InvalidSockParameterException("Error processing the CSV file");
         }
 
-        try (Reader reader = new InputStreamReader(file.getInputStream())) {
+        log.info("CSV file processed successfully: {}", file.getOriginalFilename());
+    }
+
+    @Override
+    public void processCsvFile(String fileName, InputStream content, String warehouse) {
+        log.info("Processing CSV file: {} into warehouse {}", fileName, warehouse);
+        importCsv(content, requireWarehouse(warehouse));
+        log.info("CSV file processed successfully: {}", fileName);
+    }
+
+    /**
+     * Parses the CSV as it streams in and only sums the quantities per sock; the sums are written in one
+     * transaction once the whole file is validated. A multi-gigabyte upload therefore costs one row write per
+     * distinct sock rather than per line, parsing keeps pace with the upload, and no database connection is
+     * held while the bytes arrive.
+     */
+    private void importCsv(InputStream content, String warehouse) {
+        Map<SockKey, Long> deltas = new HashMap<>();
+        try (Reader reader = CsvUploadStreams.openReader(content)) {
             CSVReader csvReader = new CSVReader(reader);
             String[] line;
 
             csvReader.readNext();
             int lineNumber = 1;
+            CsvImportChunkEvent chunkEvent = startCsvImportChunk(lineNumber + 1);
 
             while ((line = csvReader.readNext()) != null) {
                 lineNumber++;
-                if (line.length != 3) {
-                    log.error("Invalid CSV format: {}", (Object) line);
-                    throw new IllegalArgumentException("Invalid CSV format. " +
-                            "Each line must have 3 columns: color, cottonPart, quantity");
+                if (lineNumber - chunkEvent.getFirstLine() == CSV_EVENT_CHUNK_ROWS) {
+                    commitCsvImportChunk(chunkEvent, CSV_EVENT_CHUNK_ROWS);
+                    chunkEvent = startCsvImportChunk(lineNumber);
                 }
+                importCsvLine(line, lineNumber, deltas);
+            }
+            commitCsvImportChunk(chunkEvent, lineNumber + 1 - chunkEvent.getFirstLine());
+        } catch (IOException | CsvValidationException e) {
+            log.debug("Error processing CSV file: {}", e.getMessage());
+            throw new InvalidSockParameterException("Error processing the CSV file");
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> applyCsvDeltas(warehouse, deltas));
+    }
+
+    @Override
+    @Transactional
+    public void processCsvChunk(List<String[]> lines, int firstLineNumber) {
+        Map<SockKey, Long> deltas = new HashMap<>();
+        int lineNumber = firstLineNumber;
+        for (String[] line : lines) {
+            importCsvLine(line, lineNumber++, deltas);
+        }
+        applyCsvDeltas(Warehouse.DEFAULT_CODE, deltas);
+    }
+
+    private void importCsvLine(String[] line, int lineNumber, Map<SockKey, Long> deltas) {
+        if (line.length != 3) {
+            log.debug("Invalid CSV format in line {}", lineNumber);
+            throw new InvalidSockParameterException("Invalid CSV format. " +
+                    "Each line must have 3 columns: color, cottonPart, quantity");
+        }
 
-                Object[] validatedFields = validateCsvFields(line, lineNumber);
-                SockColor color = (SockColor) validatedFields[0];
-                int cottonPart = (int) validatedFields[1];
-                int quantity = (int) validatedFields[2];
+        Object[] validatedFields = validateCsvFields(line, lineNumber);
+        SockColor color = (SockColor) validatedFields[0];
+        int cottonPart = (int) validatedFields[1];
+        int quantity = (int) validatedFields[2];
 
-                processSock(color, cottonPart, quantity);
+        deltas.merge(new SockKey(color, cottonPart), (long) quantity, Long::sum);
+    }
+
+    /**
+     * Writes the summed quantities in key order, so that concurrent imports lock rows in the same order.
+     */
+    private void applyCsvDeltas(String warehouse, Map<SockKey, Long> deltas) {
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(SockKey::color)
+                        .thenComparingInt(SockKey::cottonPart)))
+                .forEach(delta -> {
+                    SockKey key = delta.getKey();
+                    if (delta.getValue() > Integer.MAX_VALUE) {
+                        log.debug("CSV quantity for {} overflows: {}", key, delta.getValue());
+                        throw new InvalidSockParameterException("Total quantity for color = " + key.color() +
+                                ", cotton percentage = " + key.cottonPart() + " is too large");
+                    }
+                    processSock(warehouse, key.color(), key.cottonPart(), delta.getValue().intValue());
+                });
+    }
+
+    private SockDto addSockIncomeWriteBehind(Sock sockIncome) {
+        SockKey key = SockKey.of(sockIncome);
+        writeBehindIncomeBuffer.append(key, sockIncome.getQuantity());
+
+        int projectedQuantity = writeBehindIncomeBuffer.readWithPendingIncome(
+                () -> sockRepository.findQuantityByColorAndCottonPart(key.color(), key.cottonPart()).orElse(0),
+                (fromDatabase, pending) -> fromDatabase + pending.getOrDefault(key, 0));
+        Sock projectedSock = Sock.builder()
+                .color(key.color())
+                .cottonPart(key.cottonPart())
+                .quantity(projectedQuantity)
+                .build();
+        log.info("Sock income acknowledged by the write-behind log: {}", projectedSock);
+        return sockMapper.toSockDto(projectedSock);
+    }
+
+    private Map<SockColor, CottonPartDistribution> loadDistributions(String warehouse, Set<SockColor> colors) {
+        Map<SockColor, CottonPartDistribution> distributions = new EnumMap<>(SockColor.class);
+        colors.forEach(color -> distributions.put(color, new CottonPartDistribution()));
+        sockRepository.sumQuantitiesByColorAndCottonPart(warehouse, colors).forEach(row ->
+                distributions.get(row.getColor()).add(row.getCottonPart(), row.getQuantity()));
+        return distributions;
+    }
+
+    /**
+     * Turns a query into the closed cotton range it selects, e.g. {@code moreThan 30} into [31, 100].
+     */
+    private CottonPartRange toCottonPartRange(QuantityQueryDto query, int queryNumber) {
+        Set<SockColor> colors = EnumSet.noneOf(SockColor.class);
+        query.getColors().forEach(color -> colors.add(validator.validateAndParseColor(color)));
+
+        if (query.getOperation() != null) {
+            if (query.getCottonPart() == null || query.getCottonPartMin() != null || query.getCottonPartMax() != null) {
+                log.debug("Query #{} mixes an operation with a cotton range: {}", queryNumber, query);
+                throw new InvalidSockParameterException("Query #" + queryNumber +
+                        ": an operation requires cottonPart and cannot be combined with cottonPartMin/cottonPartMax");
             }
-        } catch (IOException | CsvValidationException e) {
-            log.error("Error processing CSV file: {}", e.getMessage());
-            throw new IllegalArgumentException("Error processing the CSV file");
+            int cottonPart = query.getCottonPart();
+            return switch (validator.validateAndParseOperation(query.getOperation())) {
+                case MORETHAN -> new CottonPartRange(colors, cottonPart + 1, 100);
+                case LESSTHAN -> new CottonPartRange(colors, 0, cottonPart - 1);
+                case EQUAL -> new CottonPartRange(colors, cottonPart, cottonPart);
+            };
         }
 
-        log.info("CSV file processed successfully: {}", file.getOriginalFilename());
+        if (query.getCottonPartMin() == null || query.getCottonPartMax() == null || query.getCottonPart() != null
+                || query.getCottonPartMin() > query.getCottonPartMax()) {
+            log.debug("Query #{} has neither an operation nor a valid cotton range: {}", queryNumber, query);
+            throw new InvalidSockParameterException("Query #" + queryNumber +
+                    ": give either operation and cottonPart, or cottonPartMin <= cottonPartMax");
+        }
+        return new CottonPartRange(colors, query.getCottonPartMin(), query.getCottonPartMax());
+    }
+
+    private record CottonPartRange(Set<SockColor> colors, int min, int max) {
+    }
+
+    private List<Sock> findSocksByCriteria(String warehouse, SockColor sockColor, CriteriaOperation criteriaOperation,
+                                           Integer cottonPart, Map<String, String> attributes) {
+        return sockRepository.findAll((root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(criteriaBuilder.equal(root.get("warehouse"), warehouse));
+            predicates.add(criteriaBuilder.equal(root.get("color"), sockColor));
+
+            switch (criteriaOperation) {
+                case MORETHAN -> predicates.add(criteriaBuilder.gt(root.get("cottonPart"), cottonPart));
+                case LESSTHAN -> predicates.add(criteriaBuilder.lt(root.get("cottonPart"), cottonPart));
+                case EQUAL -> predicates.add(criteriaBuilder.equal(root.get("cottonPart"), cottonPart));
+            }
+            addAttributeFilters(predicates, attributes, criteriaBuilder, root);
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        });
+    }
+
+    private List<Sock> findSortedSocks(String warehouse, String color, Integer cottonPartMin, Integer cottonPartMax,
+                                       Map<String, String> attributes, String sortBy, Sort.Direction direction) {
+        Sort sort = Sort.by(direction, sortBy);
+        return sockRepository.findAll((root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = buildSockFilters(color, cottonPartMin, cottonPartMax, criteriaBuilder, root);
+            predicates.add(criteriaBuilder.equal(root.get("warehouse"), warehouse));
+            addAttributeFilters(predicates, attributes, criteriaBuilder, root);
+            query.orderBy(direction == Sort.Direction.ASC
+                    ? criteriaBuilder.asc(root.get(sortBy))
+                    : criteriaBuilder.desc(root.get(sortBy)));
+
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        }, sort);
+    }
+
+    /**
+     * Detaches read results so that a repeated read returns fresh state instead of cached instances.
+     */
+    private List<Sock> detached(List<Sock> socks) {
+        socks.forEach(entityManager::detach);
+        return socks;
+    }
+
+    private List<Sock> addPendingIncome(List<Sock> socks, Map<SockKey, Integer> pendingIncome,
+                                        SockColor color, Integer cottonPartMin, Integer cottonPartMax,
+                                        String sortBy, Sort.Direction direction) {
+        Map<SockKey, Integer> pending = new HashMap<>(pendingIncome);
+        pending.values().removeIf(quantity -> quantity == 0);
+        if (pending.isEmpty()) {
+            return socks;
+        }
+
+        List<Sock> combined = new ArrayList<>(socks.size() + pending.size());
+        for (Sock sock : socks) {
+            Integer pendingQuantity = sock.getAttributes().isEmpty() ? pending.remove(SockKey.of(sock)) : null;
+            if (pendingQuantity != null) {
+                sock.setQuantity(sock.getQuantity() + pendingQuantity);
+            }
+            combined.add(sock);
+        }
+        pending.forEach((key, quantity) -> {
+            if ((color == null || key.color() == color)
+                    && (cottonPartMin == null || key.cottonPart() >= cottonPartMin)
+                    && (cottonPartMax == null || key.cottonPart() <= cottonPartMax)) {
+                combined.add(Sock.builder()
+                        .color(key.color())
+                        .cottonPart(key.cottonPart())
+                        .quantity(quantity)
+                        .build());
+            }
+        });
+
+        combined.sort(validator.validateAndParseSort(sortBy, direction.name()));
+        return combined;
     }
 
     private Object[] validateCsvFields(String[] line, int lineNumber) {
@@ -195,67 +614,119 @@ public class SockServiceImpl implements SockService {
         try {
             color = validator.validateAndParseColor(line[0].trim());
         } catch (IllegalArgumentException e) {
-            log.error("Invalid color: {} in csv file line {}", line[0], lineNumber);
-            throw new IllegalArgumentException("Invalid color: " + line[0] + ". See CSV file line no. " + lineNumber);
+            log.debug("Invalid color: {} in csv file line {}", line[0], lineNumber);
+            throw new InvalidSockParameterException("Invalid color: " + line[0] + ". See CSV file line no. " + lineNumber);
         }
 
         int cottonPart;
         try {
             cottonPart = validator.validateCottonPart(Integer.parseInt(line[1].trim()));
         } catch (IllegalArgumentException e) {
-            log.error("Invalid cottonPart: {} in csv file line {}", line[1], lineNumber);
-            throw new IllegalArgumentException("Invalid cotton percentage: " + line[1] + ". See CSV file line no. " + lineNumber);
+            log.debug("Invalid cottonPart: {} in csv file line {}", line[1], lineNumber);
+            throw new InvalidSockParameterException("Invalid cotton percentage: " + line[1] + ". See CSV file line no. " + lineNumber);
         }
 
         int quantity;
         try {
             quantity = validator.validateQuantity(Integer.parseInt(line[2].trim()));
         } catch (IllegalArgumentException e) {
-            log.error("Invalid quantity value: {} in csv file line {}", line[2], lineNumber);
-            throw new IllegalArgumentException("Invalid quantity: " + line[2] + ". See CSV file line no. " + lineNumber);
+            log.debug("Invalid quantity value: {} in csv file line {}", line[2], lineNumber);
+            throw new InvalidSockParameterException("Invalid quantity: " + line[2] + ". See CSV file line no. " + lineNumber);
         }
 
         return new Object[]{color, cottonPart, quantity};
     }
 
-    private void processSock(SockColor color, int cottonPart, int quantity) {
-        Optional<Sock> existingSock = sockRepository.findByColorAndCottonPart(color, cottonPart);
+    private void processSock(String warehouse, SockColor color, int cottonPart, int quantity) {
+        Sock sock = sockRepository.findOrCreateForUpdate(warehouse, color, cottonPart, SockAttributes.NONE);
+        sock.setQuantity(sock.getQuantity() + quantity);
+        sockRepository.save(sock);
+        log.info("Updated sock from CSV: {}", sock);
+        stockLedgerService.recordMovement(warehouse, color, cottonPart, SockAttributes.NONE, quantity,
+                MovementType.CSV_IMPORT);
+    }
+
+    private void recordUpdateMovements(SockColor originalColor, int originalCottonPart, int originalQuantity,
+                                       Sock updatedSock) {
+        String warehouse = updatedSock.getWarehouse();
+        String attributes = updatedSock.getAttributes();
+        if (originalColor == updatedSock.getColor() && originalCottonPart == updatedSock.getCottonPart()) {
+            stockLedgerService.recordMovement(warehouse, originalColor, originalCottonPart, attributes,
+                    updatedSock.getQuantity() - originalQuantity, MovementType.UPDATE);
+            return;
+        }
+        stockLedgerService.recordMovement(warehouse, originalColor, originalCottonPart, attributes, -originalQuantity,
+                MovementType.UPDATE);
+        stockLedgerService.recordMovement(warehouse, updatedSock.getColor(), updatedSock.getCottonPart(), attributes,
+                updatedSock.getQuantity(), MovementType.UPDATE);
+    }
 
-        if (existingSock.isPresent()) {
-            Sock sockToUpdate = existingSock.get();
-            sockToUpdate.setQuantity(sockToUpdate.getQuantity() + quantity);
-            sockRepository.save(sockToUpdate);
-            log.info("Updated sock from CSV: {}", sockToUpdate);
-        } else {
-            Sock newSock = Sock.builder()
-                    .color(color)
-                    .cottonPart(cottonPart)
-                    .quantity(quantity)
-                    .build();
-            sockRepository.save(newSock);
-            log.info("Added new sock from CSV: {}", newSock);
+    private void validateBatchNotEmpty(List<Sock> socks) {
+        if (socks.isEmpty()) {
+            log.debug("Received an empty batch");
+            throw new InvalidSockParameterException("Batch must contain at least one sock");
         }
     }
 
+    /**
+     * Subtracts the quantity unless it would dip into stock held by active reservations, which are taken on
+     * plain socks only.
+     */
     private void validateAndSubtractQuantity(Sock sock, int quantity) {
-        if (sock.getQuantity() < quantity) {
-            log.error("Not enough socks in stock: available={}, requested={}", sock.getQuantity(), quantity);
-            throw new IllegalStateException("Not enough socks in stock: available=" + sock.getQuantity() +
-                    ", requested=" + quantity);
+        long held = sock.getAttributes().isEmpty()
+                ? reservationRepository.sumHeldQuantity(sock.getWarehouse(), sock.getColor(), sock.getCottonPart(),
+                        OffsetDateTime.now())
+                : 0;
+        long available = sock.getQuantity() - held;
+        if (available < quantity) {
+            log.debug("Not enough socks in stock: available={}, requested={}", available, quantity);
+            throw new InsufficientStockException((int) Math.max(0, available), quantity);
         }
         sock.setQuantity(sock.getQuantity() - quantity);
     }
 
-    private Sock saveOrUpdateSock(SockColor color, int cottonPart, int quantity) {
-        log.info("Saving or updating sock: color={}, cottonPart={}, quantity={}", color, cottonPart, quantity);
-        Sock sock = sockRepository.findByColorAndCottonPart(color, cottonPart)
-                .orElseGet(() -> new Sock(color, cottonPart, 0));
+    private Sock saveOrUpdateSock(String warehouse, SockColor color, int cottonPart, String attributes, int quantity) {
+        log.info("Saving or updating sock: warehouse={}, color={}, cottonPart={}, attributes={}, quantity={}",
+                warehouse, color, cottonPart, attributes, quantity);
+        Sock sock = sockRepository.findOrCreateForUpdate(warehouse, color, cottonPart, attributes);
         sock.setQuantity(sock.getQuantity() + quantity);
         sock = sockRepository.save(sock);
         log.info("Sock saved or updated successfully: {}", sock);
         return sock;
     }
 
+    /**
+     * Returns the canonical code of a registered warehouse; {@code null} stands for the default warehouse.
+     */
+    private String requireWarehouse(String warehouse) {
+        String code = validator.validateAndParseWarehouse(warehouse);
+        warehouseService.requireRegistered(code);
+        return code;
+    }
+
+    private List<String> requireWarehouses(List<Sock> socks) {
+        List<String> warehouses = new ArrayList<>(socks.size());
+        socks.forEach(sock -> warehouses.add(requireWarehouse(sock.getWarehouse())));
+        return warehouses;
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    /**
+     * Write-behind income is only taken for plain socks of the default warehouse.
+     */
+    private boolean isWriteBehind(String warehouse, boolean plain) {
+        return writeBehindIncomeBuffer.isEnabled() && plain && Warehouse.DEFAULT_CODE.equals(warehouse);
+    }
+
+    private void addAttributeFilters(List<Predicate> predicates, Map<String, String> attributes,
+                                     CriteriaBuilder criteriaBuilder, Root<Sock> root) {
+        attributes.forEach((name, value) -> predicates.add(
+                criteriaBuilder.like(root.get("attributes"), SockAttributes.likePattern(name, value), '\\')));
+    }
+
     private List<Predicate> buildSockFilters(
             String color, Integer cottonPartMin, Integer cottonPartMax,
             CriteriaBuilder criteriaBuilder, Root<Sock> root) {
@@ -272,23 +743,48 @@ public class SockServiceImpl implements SockService {
         return predicates;
     }
 
+    private static CsvImportChunkEvent startCsvImportChunk(int firstLine) {
+        CsvImportChunkEvent event = new CsvImportChunkEvent();
+        event.setFirstLine(firstLine);
+        event.begin();
+        return event;
+    }
+
+    private static void commitCsvImportChunk(CsvImportChunkEvent event, int rows) {
+        event.end();
+        if (rows > 0 && event.shouldCommit()) {
+            event.setRows(rows);
+            event.commit();
+        }
+    }
+
     private Sock mergeWithDuplicateIfExists(Sock sockToUpdate, Long id) {
         entityManager.detach(sockToUpdate);
 
-        Optional<Sock> duplicateSock = sockRepository.findByColorAndCottonPartAndIdNot(
-                sockToUpdate.getColor(),
-                sockToUpdate.getCottonPart(),
-                id
-        );
+        // Two updates moving socks onto each other's keys lock the rows in opposite order; PostgreSQL aborts one
+        // of them, which reaches the client as a conflict
+        Optional<Sock> duplicateSock = sockRepository.findForUpdate(sockToUpdate.getWarehouse(),
+                        sockToUpdate.getColor(), sockToUpdate.getCottonPart(), sockToUpdate.getAttributes())
+                .filter(sock -> !sock.getId().equals(id));
 
         if (duplicateSock.isPresent() && !duplicateSock.get().getId().equals(id)) {
             Sock existingSock = duplicateSock.get();
             log.info("Merging sock with id: {} into sock with id: {}", id, existingSock.getId());
+            SockMergeEvent mergeEvent = new SockMergeEvent();
+            mergeEvent.begin();
 
             existingSock.setQuantity(existingSock.getQuantity() + sockToUpdate.getQuantity());
             sockRepository.save(existingSock);
 
             sockRepository.delete(sockToUpdate);
+            if (mergeEvent.shouldCommit()) {
+                mergeEvent.setMergedId(id);
+                mergeEvent.setTargetId(existingSock.getId());
+                mergeEvent.setColor(existingSock.getColor().name());
+                mergeEvent.setCottonPart(existingSock.getCottonPart());
+                mergeEvent.setMergedQuantity(sockToUpdate.getQuantity());
+                mergeEvent.commit();
+            }
             log.info("Sock with id: {} has been merged and deleted", id);
             return existingSock;
         }
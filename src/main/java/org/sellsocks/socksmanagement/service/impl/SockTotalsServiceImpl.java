@@ -0,0 +1,116 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.model.dto.SockTotalsDto;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.projection.ColorQuantity;
+import org.sellsocks.socksmanagement.service.SockTotalsService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class SockTotalsServiceImpl implements SockTotalsService {
+
+    private final SockRepository sockRepository;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final WarehouseService warehouseService;
+    private final SockParametersValidator validator;
+    private final Counter repairedColors;
+
+    public SockTotalsServiceImpl(SockRepository sockRepository,
+                                 WriteBehindIncomeBuffer writeBehindIncomeBuffer,
+                                 WarehouseService warehouseService,
+                                 SockParametersValidator validator,
+                                 MeterRegistry meterRegistry) {
+        this.sockRepository = sockRepository;
+        this.writeBehindIncomeBuffer = writeBehindIncomeBuffer;
+        this.warehouseService = warehouseService;
+        this.validator = validator;
+        this.repairedColors = Counter.builder("socks.totals.repaired")
+                .description("Per-color totals found out of line with the sock rows and repaired")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SockTotalsDto getTotals() {
+        return getTotals(null);
+    }
+
+    /**
+     * The totals of all warehouses come from the trigger-maintained table; the totals of one warehouse are
+     * summed from its partition.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SockTotalsDto getTotals(String warehouse) {
+        log.info("Fetching per-color socks totals: warehouse={}", warehouse);
+        Supplier<List<ColorQuantity>> query;
+        boolean withPending;
+        if (warehouse == null) {
+            query = sockRepository::findColorTotals;
+            withPending = true;
+        } else {
+            String warehouseCode = validator.validateAndParseWarehouse(warehouse);
+            warehouseService.requireRegistered(warehouseCode);
+            query = () -> sockRepository.findColorTotals(warehouseCode);
+            withPending = Warehouse.DEFAULT_CODE.equals(warehouseCode);
+        }
+
+        Map<SockColor, Long> totals;
+        if (writeBehindIncomeBuffer.isEnabled() && withPending) {
+            totals = writeBehindIncomeBuffer.readWithPendingIncome(
+                    () -> toTotals(query.get()),
+                    (fromDatabase, pending) -> {
+                        pending.forEach((key, quantity) -> fromDatabase.merge(key.color(), (long) quantity, Long::sum));
+                        return fromDatabase;
+                    });
+        } else {
+            totals = toTotals(query.get());
+        }
+
+        Map<String, Long> byColor = new LinkedHashMap<>();
+        long total = 0;
+        for (SockColor color : SockColor.values()) {
+            long quantity = totals.getOrDefault(color, 0L);
+            byColor.put(color.name(), quantity);
+            total += quantity;
+        }
+        log.info("Socks totals found: total={}, byColor={}", total, byColor);
+        return new SockTotalsDto(byColor, total);
+    }
+
+    @Override
+    @Transactional
+    public int reconcile() {
+        List<ColorQuantity> drift = sockRepository.repairColorTotals();
+        if (drift.isEmpty()) {
+            log.debug("Per-color socks totals match the sock rows");
+            return 0;
+        }
+        drift.forEach(row -> log.warn("Repaired per-color total drift: color={}, correction={}",
+                row.getColor(), row.getQuantity()));
+        repairedColors.increment(drift.size());
+        return drift.size();
+    }
+
+    private static Map<SockColor, Long> toTotals(List<ColorQuantity> rows) {
+        Map<SockColor, Long> totals = new EnumMap<>(SockColor.class);
+        rows.forEach(row -> totals.put(row.getColor(), row.getQuantity()));
+        return totals;
+    }
+}
@@ -0,0 +1,175 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.LedgerProperties;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.jfr.StockMovementEvent;
+import org.sellsocks.socksmanagement.model.entity.StockSnapshot;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.StockMovementRepository;
+import org.sellsocks.socksmanagement.repository.StockSnapshotRepository;
+import org.sellsocks.socksmanagement.repository.WarehouseRepository;
+import org.sellsocks.socksmanagement.service.OutboxService;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    private static final String LEDGER_TABLE = "stock_movement";
+    private static final String DEFAULT_PARTITION = "stock_movement_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("stock_movement_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final OutboxService outboxService;
+    private final SockParametersValidator validator;
+    private final LedgerProperties ledgerProperties;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordMovement(String warehouse, SockColor color, int cottonPart, String attributes, int delta,
+                               MovementType movementType) {
+        if (delta == 0) {
+            return;
+        }
+        StockMovementEvent event = new StockMovementEvent();
+        event.begin();
+        stockMovementRepository.append(warehouse, color.name(), cottonPart, attributes, delta, movementType.name());
+        outboxService.enqueue(warehouse, color, cottonPart, attributes, delta, movementType);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setWarehouse(warehouse);
+            event.setColor(color.name());
+            event.setCottonPart(cottonPart);
+            event.setDelta(delta);
+            event.setMovementType(movementType.name());
+            event.commit();
+        }
+        log.debug("Stock movement recorded: warehouse={}, color={}, cottonPart={}, attributes={}, delta={}, type={}",
+                warehouse, color, cottonPart, attributes, delta, movementType);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public int getFilteredSocksQuantityAsOf(String warehouse, String color, String operation, Integer cottonPart,
+                                            OffsetDateTime asOf) {
+        log.info("Fetching socks quantity as of {}: warehouse={}, color={}, operation={}, cottonPart={}",
+                asOf, warehouse, color, operation, cottonPart);
+        String warehouseCode = warehouse != null ? validator.validateAndParseWarehouse(warehouse) : null;
+        SockColor sockColor = validator.validateAndParseColor(color);
+        CriteriaOperation criteriaOperation = validator.validateAndParseOperation(operation);
+        if (warehouseCode != null && !warehouseRepository.existsById(warehouseCode)) {
+            log.debug("Warehouse not found: {}", warehouseCode);
+            throw new SockNotFoundException("Warehouse not found: " + warehouseCode);
+        }
+
+        StockSnapshot snapshot = stockSnapshotRepository.findFirstByTakenAtLessThanEqualOrderByTakenAtDesc(asOf)
+                .orElseThrow(() -> {
+                    log.debug("No stock snapshot found at or before {}", asOf);
+                    return new SockNotFoundException("No stock history is available as of " + asOf);
+                });
+
+        int quantity = stockMovementRepository.findQuantitiesAsOf(
+                        snapshot.getId(), snapshot.getTakenAt(), asOf, warehouseCode, sockColor.name()).stream()
+                .filter(row -> criteriaOperation.matches(row.getCottonPart(), cottonPart))
+                .mapToInt(row -> row.getQuantity().intValue())
+                .sum();
+        log.info("Total socks quantity as of {} found: {} (replayed from snapshot taken at {})",
+                asOf, quantity, snapshot.getTakenAt());
+        return quantity;
+    }
+
+    /**
+     * Copies the current quantities under a {@code SHARE} lock on {@code sock}: writers already holding
+     * the table are waited for and new ones are held back, so every movement stamped before
+     * {@code taken_at} is part of the snapshot and every later one is not. Items are kept per sock row, like
+     * the ledger.
+     */
+    @Override
+    @Transactional
+    public void takeSnapshot() {
+        jdbcTemplate.execute("LOCK TABLE sock IN SHARE MODE");
+        Long snapshotId = jdbcTemplate.queryForObject(
+                "INSERT INTO stock_snapshot (taken_at) VALUES (clock_timestamp()) RETURNING id", Long.class);
+        int items = jdbcTemplate.update(
+                "INSERT INTO stock_snapshot_item (snapshot_id, warehouse, color, cotton_part, attributes, quantity) " +
+                        "SELECT ?, warehouse, color, cotton_part, attributes, quantity FROM sock", snapshotId);
+        log.info("Stock snapshot {} taken with {} items", snapshotId, items);
+    }
+
+    @Override
+    @Transactional
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= ledgerProperties.getPartitionsAhead(); i++) {
+            ensurePartition(currentMonth.plusMonths(i));
+        }
+
+        YearMonth oldestRetainedMonth = currentMonth.minusMonths(ledgerProperties.getRetentionMonths());
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = ?", String.class, LEDGER_TABLE);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                if (month.isBefore(oldestRetainedMonth)) {
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                    log.info("Dropped expired stock movement partition {}", partition);
+                }
+            }
+        }
+
+        int removedSnapshots = stockSnapshotRepository.deleteTakenBefore(startOf(oldestRetainedMonth));
+        log.info("Stock ledger maintenance finished: retained since {}, {} expired snapshots removed",
+                oldestRetainedMonth, removedSnapshots);
+    }
+
+    private void ensurePartition(YearMonth month) {
+        String partition = LEDGER_TABLE + "_" + month.format(PARTITION_SUFFIX);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+
+        String from = startOf(month).format(PARTITION_BOUND);
+        String to = startOf(month.plusMonths(1)).format(PARTITION_BOUND);
+        jdbcTemplate.execute("CREATE TABLE " + partition +
+                " (LIKE " + LEDGER_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                " WHERE created_at >= ?::timestamptz AND created_at < ?::timestamptz RETURNING *) " +
+                "INSERT INTO " + partition + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + LEDGER_TABLE + " ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Created stock movement partition {} [{}, {}), {} rows moved from the default partition",
+                partition, from, to, moved);
+    }
+
+    private OffsetDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,217 @@
+package org.sellsocks.socksmanagement.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+import org.sellsocks.socksmanagement.model.dto.TransferDto;
+import org.sellsocks.socksmanagement.model.dto.TransferRequestDto;
+import org.sellsocks.socksmanagement.model.dto.WarehouseDto;
+import org.sellsocks.socksmanagement.model.dto.WarehouseTotalsDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.SockReservationRepository;
+import org.sellsocks.socksmanagement.repository.WarehouseRepository;
+import org.sellsocks.socksmanagement.repository.projection.WarehouseQuantity;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WarehouseServiceImpl implements WarehouseService {
+
+    private static final String PARTITION_PREFIX = "sock_wh_";
+
+    private final WarehouseRepository warehouseRepository;
+    private final SockRepository sockRepository;
+    private final SockReservationRepository reservationRepository;
+    private final StockLedgerService stockLedgerService;
+    private final SockMapper sockMapper;
+    private final SockParametersValidator validator;
+    private final WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Warehouses are never removed, so a code once found registered stays valid and is not looked up again.
+     */
+    private final Set<String> registeredCodes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WarehouseDto> getWarehouses() {
+        return warehouseRepository.findAll(Sort.by("code")).stream()
+                .map(warehouse -> new WarehouseDto(warehouse.getCode(), warehouse.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Inserting the row first makes concurrent registrations of the same code wait for each other, so only
+     * one of them creates the partition. PostgreSQL DDL is transactional: the partition appears together with
+     * the row or not at all.
+     */
+    @Override
+    @Transactional
+    public WarehouseDto registerWarehouse(String code) {
+        String warehouseCode = validator.validateAndParseWarehouse(code);
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO warehouse (code, created_at) VALUES (?, now()) ON CONFLICT (code) DO NOTHING",
+                warehouseCode);
+        if (inserted == 1) {
+            // The code is validated against a strict pattern, so it is safe to inline into the DDL. The prefix
+            // keeps partition names apart from the other sock_ tables whatever the code is.
+            jdbcTemplate.execute("CREATE TABLE \"" + PARTITION_PREFIX + warehouseCode.toLowerCase(Locale.ROOT) +
+                    "\" PARTITION OF sock FOR VALUES IN ('" + warehouseCode + "')");
+            log.info("Registered warehouse {} with its own sock partition", warehouseCode);
+        }
+        Warehouse warehouse = warehouseRepository.findById(warehouseCode).orElseThrow();
+        return new WarehouseDto(warehouse.getCode(), warehouse.getCreatedAt());
+    }
+
+    @Override
+    public void requireRegistered(String code) {
+        if (registeredCodes.contains(code)) {
+            return;
+        }
+        if (!warehouseRepository.existsById(code)) {
+            log.debug("Warehouse not found: {}", code);
+            throw new SockNotFoundException("Warehouse not found: " + code);
+        }
+        registeredCodes.add(code);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WarehouseTotalsDto getQuantitiesByWarehouse(String color, String operation, Integer cottonPart) {
+        log.info("Fetching socks quantity per warehouse: color={}, operation={}, cottonPart={}",
+                color, operation, cottonPart);
+        SockColor sockColor = validator.validateAndParseColor(color);
+        CriteriaOperation criteriaOperation = validator.validateAndParseOperation(operation);
+        int min = criteriaOperation.lowestMatch(cottonPart);
+        int max = criteriaOperation.highestMatch(cottonPart);
+
+        List<Warehouse> warehouses = warehouseRepository.findAll(Sort.by("code"));
+        Map<String, Long> byWarehouse;
+        if (writeBehindIncomeBuffer.isEnabled()) {
+            byWarehouse = writeBehindIncomeBuffer.readWithPendingIncome(
+                    () -> toQuantities(warehouses, sockRepository.sumQuantitiesByWarehouse(sockColor, min, max)),
+                    (fromDatabase, pending) -> {
+                        pending.forEach((key, quantity) -> {
+                            if (key.color() == sockColor && criteriaOperation.matches(key.cottonPart(), cottonPart)) {
+                                fromDatabase.merge(Warehouse.DEFAULT_CODE, (long) quantity, Long::sum);
+                            }
+                        });
+                        return fromDatabase;
+                    });
+        } else {
+            byWarehouse = toQuantities(warehouses, sockRepository.sumQuantitiesByWarehouse(sockColor, min, max));
+        }
+
+        long total = byWarehouse.values().stream().mapToLong(Long::longValue).sum();
+        log.info("Socks quantity per warehouse found: total={}, byWarehouse={}", total, byWarehouse);
+        return new WarehouseTotalsDto(byWarehouse, total);
+    }
+
+    /**
+     * Records a {@code TRANSFER_OUT} movement of the source row and a {@code TRANSFER_IN} movement of the target
+     * row, each with its outbox event, in the transaction that moves the stock. Pending write-behind income is
+     * applied before that transaction starts, so the applier's own transaction never waits for a second pooled
+     * connection.
+     */
+    @Override
+    public TransferDto transfer(TransferRequestDto request) {
+        log.info("Transferring socks: {}", request);
+        String from = validator.validateAndParseWarehouse(request.getFromWarehouse());
+        String to = validator.validateAndParseWarehouse(request.getToWarehouse());
+        if (from.equals(to)) {
+            log.debug("Transfer within warehouse {}", from);
+            throw new InvalidSockParameterException("Source and target warehouse must differ");
+        }
+        requireRegistered(from);
+        requireRegistered(to);
+        SockColor color = validator.validateAndParseColor(request.getColor());
+        int cottonPart = validator.validateCottonPart(request.getCottonPart());
+        int quantity = validator.validateQuantity(request.getQuantity());
+        String attributes = SockAttributes.format(request.getAttributes());
+
+        if (attributes.isEmpty()) {
+            writeBehindIncomeBuffer.applyPendingFor(new SockKey(color, cottonPart));
+        }
+        return new TransactionTemplate(transactionManager).execute(status ->
+                transfer(from, to, color, cottonPart, attributes, quantity));
+    }
+
+    private TransferDto transfer(String from, String to, SockColor color, int cottonPart, String attributes,
+                                 int quantity) {
+        // Both rows are locked in warehouse order, so opposite transfers of the same sock cannot deadlock. The
+        // target row is created under its lock, so concurrent first transfers to a warehouse add up.
+        Sock source;
+        Sock target;
+        if (from.compareTo(to) < 0) {
+            source = findSourceForUpdate(from, color, cottonPart, attributes);
+            target = sockRepository.findOrCreateForUpdate(to, color, cottonPart, attributes);
+        } else {
+            target = sockRepository.findOrCreateForUpdate(to, color, cottonPart, attributes);
+            source = findSourceForUpdate(from, color, cottonPart, attributes);
+        }
+
+        long held = attributes.isEmpty()
+                ? reservationRepository.sumHeldQuantity(from, color, cottonPart, OffsetDateTime.now())
+                : 0;
+        long available = source.getQuantity() - held;
+        if (available < quantity) {
+            log.debug("Not enough socks to transfer: available={}, requested={}", available, quantity);
+            throw new InsufficientStockException((int) Math.max(0, available), quantity);
+        }
+        source.setQuantity(source.getQuantity() - quantity);
+        target.setQuantity(target.getQuantity() + quantity);
+        target = sockRepository.save(target);
+        stockLedgerService.recordMovement(from, color, cottonPart, attributes, -quantity, MovementType.TRANSFER_OUT);
+        stockLedgerService.recordMovement(to, color, cottonPart, attributes, quantity, MovementType.TRANSFER_IN);
+
+        log.info("Transferred {} socks from {} to {}: {}", quantity, from, to, target);
+        return new TransferDto(sockMapper.toSockDto(source), sockMapper.toSockDto(target));
+    }
+
+    private Sock findSourceForUpdate(String warehouse, SockColor color, int cottonPart, String attributes) {
+        return sockRepository.findForUpdate(warehouse, color, cottonPart, attributes).orElseThrow(() -> {
+            log.debug("No socks to transfer: warehouse={}, color={}, cottonPart={}, attributes={}",
+                    warehouse, color, cottonPart, attributes);
+            return new SockNotFoundException("No socks found with given parameters: warehouse = " + warehouse +
+                    ", color = " + color + ", cotton percentage = " + cottonPart);
+        });
+    }
+
+    private static Map<String, Long> toQuantities(List<Warehouse> warehouses, List<WarehouseQuantity> rows) {
+        Map<String, Long> byWarehouse = new LinkedHashMap<>();
+        warehouses.forEach(warehouse -> byWarehouse.put(warehouse.getCode(), 0L));
+        rows.forEach(row -> byWarehouse.merge(row.getWarehouse(), row.getQuantity(), Long::sum));
+        return byWarehouse;
+    }
+}
@@ -0,0 +1,59 @@
+package org.sellsocks.socksmanagement.startup;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 over the names and contents of every file of the Liquibase changelog. Equal fingerprints mean that a
+ * database migrated with one build needs no changeset from the other.
+ */
+public final class ChangelogFingerprint {
+
+    private static final String CHANGELOG_DIRECTORY = "db/changelog/";
+    private static final String CHANGELOG_PATTERN = "classpath*:" + CHANGELOG_DIRECTORY + "**/*.*";
+
+    private ChangelogFingerprint() {
+    }
+
+    public static String compute() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(CHANGELOG_PATTERN);
+            Arrays.sort(resources, Comparator.comparing(ChangelogFingerprint::relativePath));
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource resource : resources) {
+                digest.update(relativePath(resource).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                try (InputStream content = resource.getInputStream()) {
+                    digest.update(StreamUtils.copyToByteArray(content));
+                }
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the Liquibase changelog", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String relativePath(Resource resource) {
+        try {
+            String path = resource.getURL().getPath();
+            return path.substring(path.lastIndexOf(CHANGELOG_DIRECTORY));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.startup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+/**
+ * Reads and writes the changelog fingerprint of the last successful migration.
+ */
+@RequiredArgsConstructor
+public class SchemaFingerprintStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the recorded fingerprint, or nothing when the database has never been migrated by this build.
+     */
+    public Optional<String> find() {
+        try {
+            return jdbcTemplate.queryForList("SELECT fingerprint FROM schema_fingerprint WHERE id = 1", String.class)
+                    .stream()
+                    .findFirst();
+        } catch (DataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void record(String fingerprint) {
+        jdbcTemplate.update("""
+                INSERT INTO schema_fingerprint (id, fingerprint, migrated_at)
+                VALUES (1, ?, now())
+                ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, migrated_at = EXCLUDED.migrated_at
+                """, fingerprint);
+    }
+}
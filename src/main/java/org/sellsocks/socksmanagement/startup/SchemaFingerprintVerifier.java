@@ -0,0 +1,29 @@
+package org.sellsocks.socksmanagement.startup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Replaces the Liquibase run of the {@code fast-startup} profile: the changelog is not parsed and no lock is
+ * taken, the pod only checks that the database was migrated with the changelog it was built with.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaFingerprintVerifier implements InitializingBean {
+
+    private final SchemaFingerprintStore store;
+
+    @Override
+    public void afterPropertiesSet() {
+        String expected = ChangelogFingerprint.compute();
+        String recorded = store.find().orElse(null);
+        if (!expected.equals(recorded)) {
+            log.error("Database schema does not match the changelog: expected fingerprint {}, recorded {}",
+                    expected, recorded);
+            throw new IllegalStateException("Database schema does not match the changelog of this build; " +
+                    "run the migration command (./gradlew migrate) before starting with the fast-startup profile");
+        }
+        log.info("Database schema matches the changelog, migrations skipped");
+    }
+}
@@ -0,0 +1,44 @@
+package org.sellsocks.socksmanagement.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One-shot migration run before pods with the {@code fast-startup} profile are rolled out: applies the
+ * Liquibase changelog with nothing but a data source and records the changelog fingerprint, then exits.
+ * Run it with {@code ./gradlew migrate}.
+ */
+@Configuration
+@Profile(SchemaMigrationCommand.PROFILE)
+@ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        LiquibaseAutoConfiguration.class
+})
+@Slf4j
+public class SchemaMigrationCommand {
+
+    static final String PROFILE = "migrate";
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SchemaMigrationCommand.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(PROFILE)
+                .run(args)) {
+            String fingerprint = ChangelogFingerprint.compute();
+            new SchemaFingerprintStore(context.getBean(JdbcTemplate.class)).record(fingerprint);
+            log.info("Database migrated, changelog fingerprint {}", fingerprint);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.sellsocks.socksmanagement.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Ends the CDS training run: once the application is ready it serves one quantity request, so that the classes of
+ * the request path are loaded too, and exits, which makes the JVM write the class data archive.
+ */
+@Component
+@ConditionalOnProperty(prefix = "socks.startup", name = "training-run", havingValue = "true")
+@Slf4j
+public class TrainingRunExit {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exitAfterFirstRequest(ApplicationReadyEvent event) {
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port", "8080");
+        URI uri = URI.create("http://localhost:" + port + "/api/socks?color=black&operation=moreThan&cottonPart=0");
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient()
+                    .send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+            log.info("Training request answered with status {}", response.statusCode());
+        } catch (IOException e) {
+            log.error("Training request failed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
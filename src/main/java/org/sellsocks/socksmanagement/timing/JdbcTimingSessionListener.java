@@ -0,0 +1,47 @@
+package org.sellsocks.socksmanagement.timing;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener that adds JDBC statement and batch execution to the {@code db} phase. Registered
+ * through {@code hibernate.session.events.auto}, so Hibernate creates one per session.
+ */
+public class JdbcTimingSessionListener extends BaseSessionEventListener {
+
+    private RequestTiming timing;
+    private long token;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        enterDb();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        exitDb();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        enterDb();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        exitDb();
+    }
+
+    private void enterDb() {
+        timing = RequestTiming.active();
+        if (timing != null) {
+            token = timing.enter(Phase.DB);
+        }
+    }
+
+    private void exitDb() {
+        if (timing != null) {
+            timing.exit(Phase.DB, token);
+            timing = null;
+        }
+    }
+}
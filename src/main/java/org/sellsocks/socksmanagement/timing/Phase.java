@@ -0,0 +1,28 @@
+package org.sellsocks.socksmanagement.timing;
+
+import lombok.Getter;
+
+/**
+ * Request phases reported in the {@code Server-Timing} header. Phases nest: {@code svc} contains {@code repo}
+ * and usually {@code map}, {@code repo} contains {@code db}, and {@code hyd} is the part of {@code repo} not
+ * spent waiting for the database.
+ */
+@Getter
+public enum Phase {
+    APP("app", "Handler until response writing"),
+    SERVICE("svc", "SockService"),
+    REPOSITORY("repo", "Repository calls"),
+    DB("db", "JDBC statement execution"),
+    HYDRATION("hyd", "Hibernate hydration"),
+    MAP("map", "MapStruct mapping"),
+    SERIALIZE("ser", "Response serialization"),
+    TOTAL("total", "Total");
+
+    private final String metricName;
+    private final String description;
+
+    Phase(String metricName, String description) {
+        this.metricName = metricName;
+        this.description = description;
+    }
+}
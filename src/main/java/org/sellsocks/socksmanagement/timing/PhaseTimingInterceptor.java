@@ -0,0 +1,44 @@
+package org.sellsocks.socksmanagement.timing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Adds the time spent in service, repository and mapper calls to the phases of the timed request.
+ */
+class PhaseTimingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RequestTiming timing = RequestTiming.active();
+        if (timing == null) {
+            return invocation.proceed();
+        }
+        Phase phase = phaseOf(invocation.getThis());
+        long token = timing.enter(phase);
+        try {
+            return invocation.proceed();
+        } finally {
+            timing.exit(phase, token);
+        }
+    }
+
+    static boolean isTimed(Class<?> type) {
+        return SockService.class.isAssignableFrom(type)
+                || SockMapper.class.isAssignableFrom(type)
+                || Repository.class.isAssignableFrom(type);
+    }
+
+    private static Phase phaseOf(Object target) {
+        if (target instanceof SockService) {
+            return Phase.SERVICE;
+        }
+        if (target instanceof SockMapper) {
+            return Phase.MAP;
+        }
+        return Phase.REPOSITORY;
+    }
+}
@@ -0,0 +1,20 @@
+package org.sellsocks.socksmanagement.timing;
+
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+/**
+ * Puts {@link PhaseTimingInterceptor} in front of the sock service, the mapper and the Spring Data
+ * repositories. Beans that are already proxied, such as the transactional service and the repositories, get
+ * the interceptor as their outermost advice instead of a second proxy, so {@code svc} includes the commit.
+ */
+public class PhaseTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public PhaseTimingPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+        this.advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(PhaseTimingInterceptor::isTimed), new PhaseTimingInterceptor());
+    }
+}
@@ -0,0 +1,134 @@
+package org.sellsocks.socksmanagement.timing;
+
+/**
+ * Per-thread phase accumulator of the request being served. One instance per thread is reused across requests
+ * and the header is built in a reused buffer, so timing a request allocates nothing but the header value.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = ThreadLocal.withInitial(RequestTiming::new);
+    private static final Phase[] PHASES = Phase.values();
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final long[] durations = new long[PHASES.length];
+    private final int[] depths = new int[PHASES.length];
+    private final StringBuilder header = new StringBuilder(256);
+
+    private boolean active;
+    private boolean finished;
+    private long startNanos;
+    private long serializationStartNanos;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Starts timing a request on the calling thread.
+     */
+    public static RequestTiming start(long startNanos) {
+        RequestTiming timing = CURRENT.get();
+        timing.reset();
+        timing.active = true;
+        timing.startNanos = startNanos;
+        return timing;
+    }
+
+    /**
+     * Returns the timing of the request served by the calling thread, or {@code null} when it is not timed.
+     */
+    public static RequestTiming active() {
+        RequestTiming timing = CURRENT.get();
+        return timing.active ? timing : null;
+    }
+
+    /**
+     * Enters a phase and returns the token to pass to {@link #exit}. Re-entering a phase that is already
+     * running is not counted twice.
+     */
+    public long enter(Phase phase) {
+        return depths[phase.ordinal()]++ == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public void exit(Phase phase, long token) {
+        depths[phase.ordinal()]--;
+        if (token != NOT_TIMED) {
+            durations[phase.ordinal()] += System.nanoTime() - token;
+        }
+    }
+
+    public void markSerializationStart() {
+        if (serializationStartNanos == 0) {
+            serializationStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Closes the request-level phases. Called once, right before the response is committed.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long now = System.nanoTime();
+        if (serializationStartNanos != 0) {
+            durations[Phase.APP.ordinal()] = serializationStartNanos - startNanos;
+            durations[Phase.SERIALIZE.ordinal()] = now - serializationStartNanos;
+        } else {
+            durations[Phase.APP.ordinal()] = now - startNanos;
+        }
+        durations[Phase.HYDRATION.ordinal()] = Math.max(0,
+                durations[Phase.REPOSITORY.ordinal()] - durations[Phase.DB.ordinal()]);
+        durations[Phase.TOTAL.ordinal()] = now - startNanos;
+    }
+
+    public void stop() {
+        active = false;
+    }
+
+    public long nanos(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * Renders the phases that took any time as a {@code Server-Timing} header value, durations in milliseconds.
+     */
+    public String toHeaderValue() {
+        header.setLength(0);
+        for (Phase phase : PHASES) {
+            long nanos = durations[phase.ordinal()];
+            if (nanos <= 0 && phase != Phase.TOTAL) {
+                continue;
+            }
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(phase.getMetricName()).append(";dur=");
+            appendMillis(header, nanos);
+            header.append(";desc=\"").append(phase.getDescription()).append('"');
+        }
+        return header.toString();
+    }
+
+    static void appendMillis(StringBuilder target, long nanos) {
+        long micros = Math.max(0, nanos) / 1_000;
+        target.append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            target.append('0');
+        }
+        if (fraction < 10) {
+            target.append('0');
+        }
+        target.append(fraction);
+    }
+
+    private void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            durations[i] = 0;
+            depths[i] = 0;
+        }
+        finished = false;
+        serializationStartNanos = 0;
+    }
+}
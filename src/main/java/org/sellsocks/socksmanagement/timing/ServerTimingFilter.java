@@ -0,0 +1,77 @@
+package org.sellsocks.socksmanagement.timing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.ServerTimingProperties;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times sampled requests by phase, reports the breakdown in the {@code Server-Timing} header and logs requests
+ * slower than the configured threshold as one {@code key=value} line.
+ */
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private final ServerTimingProperties properties;
+
+    public ServerTimingFilter(ServerTimingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        if (!isSampled()) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                logIfSlow(request, response, System.nanoTime() - startNanos, null);
+            }
+            return;
+        }
+
+        RequestTiming timing = RequestTiming.start(startNanos);
+        ServerTimingResponseWrapper timedResponse = new ServerTimingResponseWrapper(response, timing);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            timedResponse.writeHeader();
+            timing.stop();
+            logIfSlow(request, response, System.nanoTime() - startNanos, timing);
+        }
+    }
+
+    private boolean isSampled() {
+        double sampleRate = properties.getSampleRate();
+        return sampleRate >= 1.0 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void logIfSlow(HttpServletRequest request, HttpServletResponse response, long totalNanos,
+                           RequestTiming timing) {
+        if (totalNanos < properties.getSlowRequestThreshold().toNanos() || !log.isWarnEnabled()) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(256)
+                .append("slow_request method=").append(request.getMethod())
+                .append(" uri=").append(request.getRequestURI())
+                .append(" status=").append(response.getStatus())
+                .append(" total_ms=");
+        RequestTiming.appendMillis(line, totalNanos);
+        if (timing != null) {
+            for (Phase phase : Phase.values()) {
+                if (phase != Phase.TOTAL) {
+                    line.append(' ').append(phase.getMetricName()).append("_ms=");
+                    RequestTiming.appendMillis(line, timing.nanos(phase));
+                }
+            }
+        }
+        log.warn(line.toString());
+    }
+}
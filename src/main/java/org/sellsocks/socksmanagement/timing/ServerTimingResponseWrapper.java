@@ -0,0 +1,122 @@
+package org.sellsocks.socksmanagement.timing;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Sets the {@code Server-Timing} header on the first body write, the last moment before the response can be
+ * committed, without buffering the body. Jackson hands its output to the stream in 8 KB chunks, so for larger
+ * bodies {@code ser} covers serialization up to the first chunk.
+ */
+class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+
+    static final String HEADER = "Server-Timing";
+
+    private final RequestTiming timing;
+    private ServletOutputStream outputStream;
+    private boolean headerWritten;
+
+    ServerTimingResponseWrapper(HttpServletResponse response, RequestTiming timing) {
+        super(response);
+        this.timing = timing;
+    }
+
+    /**
+     * Finishes the timing and sets the header unless that already happened or the response is committed.
+     */
+    void writeHeader() {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        timing.finish();
+        if (!isCommitted()) {
+            setHeader(HEADER, timing.toHeaderValue());
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TimingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        writeHeader();
+        return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        writeHeader();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        writeHeader();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        writeHeader();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        writeHeader();
+        super.sendRedirect(location);
+    }
+
+    private final class TimingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        TimingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writeHeader();
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeHeader();
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeHeader();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeHeader();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.sellsocks.socksmanagement.upload;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens uploaded CSV content for streaming parsing. Compression is detected from the magic bytes rather than
+ * from headers or file names, so gzip and zstd bodies work whichever way they were uploaded.
+ */
+public final class CsvUploadStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 4;
+    private static final int[] GZIP_MAGIC = {0x1F, 0x8B};
+    private static final int[] ZSTD_MAGIC = {0x28, 0xB5, 0x2F, 0xFD};
+
+    private CsvUploadStreams() {
+    }
+
+    /**
+     * Returns a reader that decompresses gzip or zstd content on the fly and decodes it as UTF-8, failing
+     * with {@link java.nio.charset.MalformedInputException} on invalid bytes instead of replacing them.
+     */
+    public static Reader openReader(InputStream content) throws IOException {
+        return new InputStreamReader(decompressing(content), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT));
+    }
+
+    static InputStream decompressing(InputStream content) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(content, BUFFER_SIZE);
+        buffered.mark(MAGIC_LENGTH);
+        int[] magic = new int[MAGIC_LENGTH];
+        int length = 0;
+        int next;
+        while (length < MAGIC_LENGTH && (next = buffered.read()) != -1) {
+            magic[length++] = next;
+        }
+        buffered.reset();
+
+        if (startsWith(magic, length, GZIP_MAGIC)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        if (startsWith(magic, length, ZSTD_MAGIC)) {
+            return new BufferedInputStream(new ZstdInputStream(buffered), BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    private static boolean startsWith(int[] magic, int length, int[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (magic[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,49 +1,87 @@
 package org.sellsocks.socksmanagement.validation;
 
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
 import org.sellsocks.socksmanagement.model.enums.CriteriaOperation;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
 import org.springframework.stereotype.Component;
 
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 @Component
 public class SockParametersValidator {
 
+    private static final Pattern WAREHOUSE_CODE = Pattern.compile("[A-Z][A-Z0-9_]{0,31}");
+
     public SockColor validateAndParseColor(String color) {
         if (color.isBlank()) {
-            throw new IllegalArgumentException("Color must not be blank");
+            throw new InvalidSockParameterException("Color must not be blank");
         }
 
-        try {
-            return SockColor.valueOf(color.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid sock color: " + color);
+        SockColor sockColor = SockColor.find(color);
+        if (sockColor == null) {
+            throw new InvalidSockParameterException("Invalid sock color: " + color);
         }
+        return sockColor;
     }
 
     public int validateCottonPart(int cottonPart) {
         if (cottonPart < 0 || cottonPart > 100) {
-            throw new IllegalArgumentException("Cotton percentage must be between 0 and 100");
+            throw new InvalidSockParameterException("Cotton percentage must be between 0 and 100");
         }
         return cottonPart;
     }
 
     public int validateQuantity(int quantity) {
         if (quantity < 1) {
-            throw new IllegalArgumentException("Quantity must be greater than 0");
+            throw new InvalidSockParameterException("Quantity must be greater than 0");
         }
         return quantity;
     }
 
     public CriteriaOperation validateAndParseOperation(String operation) {
         if (operation == null || operation.isBlank()) {
-            throw new IllegalArgumentException("Operation must not be null or blank " +
+            throw new InvalidSockParameterException("Operation must not be null or blank " +
                     "and must be one of the following: moreThan, lessThan, equal.");
         }
 
-        try {
-            return CriteriaOperation.valueOf(operation.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid operation: " + operation +
+        CriteriaOperation criteriaOperation = CriteriaOperation.find(operation);
+        if (criteriaOperation == null) {
+            throw new InvalidSockParameterException("Invalid operation: " + operation +
                     ". Valid values: moreThan, lessThan, equal.");
         }
+        return criteriaOperation;
+    }
+
+    /**
+     * Returns the upper-cased warehouse code, or the default warehouse when none is given.
+     */
+    public String validateAndParseWarehouse(String warehouse) {
+        if (warehouse == null) {
+            return Warehouse.DEFAULT_CODE;
+        }
+        String code = warehouse.trim().toUpperCase(Locale.ROOT);
+        if (!WAREHOUSE_CODE.matcher(code).matches()) {
+            throw new InvalidSockParameterException("Invalid warehouse code: " + warehouse +
+                    ". It must start with a letter and contain at most 32 letters, digits or underscores");
+        }
+        return code;
+    }
+
+    /**
+     * Returns the in-memory order matching the database sort by the given field and order.
+     */
+    public Comparator<Sock> validateAndParseSort(String sortBy, String sortOrder) {
+        Comparator<Sock> comparator = switch (sortBy) {
+            case "id" -> Comparator.comparing(Sock::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+            case "color" -> Comparator.comparing(sock -> sock.getColor().name());
+            case "cottonPart" -> Comparator.comparingInt(Sock::getCottonPart);
+            case "quantity" -> Comparator.comparingInt(Sock::getQuantity);
+            default -> throw new InvalidSockParameterException("Invalid sort field: " + sortBy);
+        };
+        return "desc".equalsIgnoreCase(sortOrder) ? comparator.reversed() : comparator;
     }
 }
@@ -0,0 +1,29 @@
+package org.sellsocks.socksmanagement.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Part of the readiness group: out of service while the warm-up runs. A failed warm-up is reported as up,
+ * because a cold instance is still better than one that never takes traffic.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupRunner warmupRunner;
+
+    @Override
+    public Health health() {
+        WarmupState state = warmupRunner.getState();
+        Health.Builder builder = state == WarmupState.COMPLETED || state == WarmupState.FAILED
+                ? Health.up()
+                : Health.outOfService();
+        return builder
+                .withDetail("state", state)
+                .withDetail("iterations", warmupRunner.getCompletedIterations())
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+package org.sellsocks.socksmanagement.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.config.WarmupProperties;
+import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.QuantityQueryDto;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.SockTotalsService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Warms the application up before it takes traffic: fills the connection pools, then runs read-only calls
+ * through the service query paths and the MapStruct and Jackson serialization of their results until the JIT
+ * and Hibernate's query plan cache have seen them. Spring Boot reports readiness only after all application
+ * runners have returned, so the readiness probe stays down for the whole warm-up.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String[] OPERATIONS = {"moreThan", "lessThan", "equal"};
+    private static final String[] SORT_FIELDS = {"color", "cottonPart", "quantity"};
+
+    private final WarmupProperties properties;
+    private final List<HikariDataSource> connectionPools;
+    private final SockService sockService;
+    private final SockTotalsService sockTotalsService;
+    private final SockMapper sockMapper;
+    private final ObjectMapper objectMapper;
+    private final Timer warmupTimer;
+    private final Counter warmupIterations;
+
+    private volatile WarmupState state = WarmupState.PENDING;
+    private volatile int completedIterations;
+
+    public WarmupRunner(WarmupProperties properties,
+                        List<HikariDataSource> connectionPools,
+                        SockService sockService,
+                        SockTotalsService sockTotalsService,
+                        SockMapper sockMapper,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.connectionPools = connectionPools;
+        this.sockService = sockService;
+        this.sockTotalsService = sockTotalsService;
+        this.sockMapper = sockMapper;
+        this.objectMapper = objectMapper;
+        this.warmupTimer = Timer.builder("socks.warmup.duration")
+                .description("Time spent warming up before accepting traffic")
+                .register(meterRegistry);
+        this.warmupIterations = Counter.builder("socks.warmup.iterations")
+                .description("Rounds of synthetic reads run during warm-up")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            state = WarmupState.COMPLETED;
+            return;
+        }
+        state = WarmupState.RUNNING;
+        log.info("Warming up: at most {} iterations or {}", properties.getIterations(), properties.getMaxDuration());
+        long start = System.nanoTime();
+        try {
+            for (HikariDataSource pool : connectionPools) {
+                prefill(pool);
+            }
+            long deadline = start + properties.getMaxDuration().toNanos();
+            int iteration = 0;
+            while (iteration < properties.getIterations() && System.nanoTime() - deadline < 0) {
+                exerciseReadPaths(iteration);
+                completedIterations = ++iteration;
+                warmupIterations.increment();
+            }
+            state = WarmupState.COMPLETED;
+        } catch (RuntimeException | SQLException | IOException e) {
+            state = WarmupState.FAILED;
+            log.error("Warm-up failed after {} iterations, taking traffic anyway", completedIterations, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            warmupTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Warm-up {} in {} ms after {} iterations",
+                    state == WarmupState.COMPLETED ? "completed" : "stopped", elapsed / 1_000_000, completedIterations);
+        }
+    }
+
+    public WarmupState getState() {
+        return state;
+    }
+
+    public int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    /**
+     * Opens every idle connection the pool is configured to keep at once, instead of leaving it to the pool's
+     * background filling while the first requests are already waiting.
+     */
+    private void prefill(HikariDataSource pool) throws SQLException {
+        int connections = Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize());
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : opened) {
+                connection.close();
+            }
+        }
+        log.info("Connection pool {} prefilled with {} connections", pool.getPoolName(), opened.size());
+    }
+
+    private void exerciseReadPaths(int iteration) throws IOException {
+        SockColor[] colors = SockColor.values();
+        String color = colors[iteration % colors.length].name().toLowerCase();
+        int cottonPart = iteration % 101;
+
+        int quantity = sockService.getFilteredSocksQuantity(color, OPERATIONS[iteration % OPERATIONS.length], cottonPart);
+
+        List<Sock> socks = sockService.getFilteredAndSortedSocks(iteration % 2 == 0 ? color : null,
+                cottonPart / 2, cottonPart, SORT_FIELDS[iteration % SORT_FIELDS.length],
+                iteration % 2 == 0 ? "asc" : "desc");
+        List<SockDto> dtos = socks.stream()
+                .map(sockMapper::toSockDto)
+                .collect(Collectors.toList());
+
+        List<Integer> quantities = sockService.getSocksQuantities(List.of(QuantityQueryDto.builder()
+                .colors(List.of(color))
+                .cottonPartMin(cottonPart / 2)
+                .cottonPartMax(cottonPart)
+                .build()));
+
+        objectMapper.writeValueAsBytes(quantity);
+        objectMapper.writeValueAsBytes(dtos);
+        objectMapper.writeValueAsBytes(quantities);
+        objectMapper.writeValueAsBytes(sockTotalsService.getTotals());
+        objectMapper.readValue(objectMapper.writeValueAsBytes(SockDto.builder()
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(1)
+                .build()), SockDto.class);
+    }
+}
@@ -0,0 +1,8 @@
+package org.sellsocks.socksmanagement.warmup;
+
+public enum WarmupState {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
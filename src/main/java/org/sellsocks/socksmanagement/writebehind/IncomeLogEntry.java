@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.writebehind;
+
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public record IncomeLogEntry(SockKey key, int quantity) {
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(key.color().name());
+            out.writeInt(key.cottonPart());
+            out.writeInt(quantity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static IncomeLogEntry decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            SockColor color = SockColor.valueOf(in.readUTF());
+            int cottonPart = in.readInt();
+            int quantity = in.readInt();
+            return new IncomeLogEntry(new SockKey(color, cottonPart), quantity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
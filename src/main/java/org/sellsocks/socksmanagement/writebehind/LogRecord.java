@@ -0,0 +1,4 @@
+package org.sellsocks.socksmanagement.writebehind;
+
+public record LogRecord(long offset, byte[] payload) {
+}
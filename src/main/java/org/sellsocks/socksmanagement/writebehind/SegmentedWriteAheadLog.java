@@ -0,0 +1,406 @@
+package org.sellsocks.socksmanagement.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only log split into preallocated segment files. A single writer thread takes appends from a queue,
+ * writes them through a {@link FileChannel} and makes a whole group durable with one {@code force}, so the
+ * cost of an fsync is shared by every append that arrived while the previous one was running.
+ *
+ * <p>Record layout: {@code magic(4) | payloadLength(4) | offset(8) | payload | crc32(4)}, where the CRC
+ * covers the length, the offset and the payload. The zero-filled tail of a segment marks its end.
+ */
+@Slf4j
+public class SegmentedWriteAheadLog implements Closeable {
+
+    private static final int RECORD_MAGIC = 0x57414C31;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int CRC_SIZE = Integer.BYTES;
+    private static final int PREALLOCATION_CHUNK = 1 << 20;
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final BlockingQueue<PendingAppend> appendQueue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+    private volatile IOException failure;
+    private volatile long durableEnd;
+
+    private FileChannel activeChannel;
+    private long writePosition;
+    private long nextOffset;
+
+    private long readCursorOffset = -1;
+    private long readCursorSegment;
+    private long readCursorPosition;
+
+    public SegmentedWriteAheadLog(Path directory, long segmentSize, int maxBatchSize, Duration maxBatchDelay)
+            throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+
+        Files.createDirectories(directory);
+        recover();
+
+        writerThread = new Thread(this::runWriter, "wal-writer-" + directory.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a record for the next group commit. The returned future completes with the record offset once
+     * the record has been forced to disk; {@code onDurable} runs on the writer thread right before that and
+     * before the record becomes visible to {@link #read(long, int)}.
+     */
+    public CompletableFuture<Long> append(byte[] payload, Runnable onDurable) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        if (failure != null) {
+            future.completeExceptionally(failure);
+            return future;
+        }
+        if (!running) {
+            future.completeExceptionally(new IOException("Write-ahead log is closed"));
+            return future;
+        }
+        appendQueue.add(new PendingAppend(payload, onDurable, future));
+        return future;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} durable records starting at {@code fromOffset}.
+     */
+    public synchronized List<LogRecord> read(long fromOffset, int maxRecords) throws IOException {
+        List<LogRecord> records = new ArrayList<>();
+        long end = durableEnd;
+        if (fromOffset >= end) {
+            return records;
+        }
+
+        Map.Entry<Long, Path> segment;
+        long position;
+        if (fromOffset == readCursorOffset && segments.containsKey(readCursorSegment)) {
+            segment = segments.floorEntry(readCursorSegment);
+            position = readCursorPosition;
+        } else {
+            segment = segments.floorEntry(fromOffset);
+            position = 0;
+        }
+
+        while (segment != null && records.size() < maxRecords) {
+            try (FileChannel channel = FileChannel.open(segment.getValue(), READ)) {
+                Decoded decoded;
+                while (records.size() < maxRecords && (decoded = decodeAt(channel, position)) != null) {
+                    if (decoded.offset() >= end) {
+                        break;
+                    }
+                    position += decoded.size();
+                    if (decoded.offset() >= fromOffset) {
+                        records.add(new LogRecord(decoded.offset(), decoded.payload()));
+                    }
+                }
+            }
+            if (records.size() >= maxRecords || (!records.isEmpty()
+                    && records.get(records.size() - 1).offset() == end - 1)) {
+                break;
+            }
+            segment = segments.higherEntry(segment.getKey());
+            position = 0;
+        }
+
+        if (!records.isEmpty() && segment != null) {
+            readCursorOffset = records.get(records.size() - 1).offset() + 1;
+            readCursorSegment = segment.getKey();
+            readCursorPosition = position;
+        }
+        return records;
+    }
+
+    /**
+     * Deletes every segment whose records all precede {@code offset}. The active segment is always kept.
+     */
+    public void deleteSegmentsBefore(long offset) {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Map.Entry<Long, Path> next = segments.higherEntry(segment.getKey());
+            if (next == null || next.getKey() > offset) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+                log.info("Deleted fully applied write-ahead log segment {}", segment.getValue());
+            } catch (IOException e) {
+                log.warn("Failed to delete write-ahead log segment {}: {}", segment.getValue(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public long durableEnd() {
+        return durableEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(path -> segments.put(baseOffsetOf(path), path));
+        }
+
+        if (segments.isEmpty()) {
+            openSegment(0);
+            nextOffset = 0;
+        } else {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            activeChannel = FileChannel.open(last.getValue(), READ, WRITE);
+            long position = 0;
+            long offset = last.getKey();
+            Decoded decoded;
+            while ((decoded = decodeAt(activeChannel, position)) != null && decoded.offset() == offset) {
+                position += decoded.size();
+                offset = decoded.offset() + 1;
+            }
+            writePosition = position;
+            nextOffset = offset;
+            zeroTail();
+        }
+        durableEnd = nextOffset;
+        log.info("Write-ahead log opened in {}: {} segments, next offset {}", directory, segments.size(), nextOffset);
+    }
+
+    private void runWriter() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (running || !appendQueue.isEmpty()) {
+            try {
+                PendingAppend first = appendQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Write-ahead log failed, further appends are rejected", e);
+                failure = e;
+                batch.forEach(append -> append.future().completeExceptionally(e));
+                PendingAppend rejected;
+                while ((rejected = appendQueue.poll()) != null) {
+                    rejected.future().completeExceptionally(e);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingAppend> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            PendingAppend next = appendQueue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                next = appendQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) throws IOException {
+        long[] offsets = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] payload = batch.get(i).payload();
+            int recordSize = HEADER_SIZE + payload.length + CRC_SIZE;
+            if (recordSize > segmentSize) {
+                throw new IOException("Record of " + recordSize + " bytes does not fit into a segment");
+            }
+            if (writePosition + recordSize > segmentSize) {
+                activeChannel.force(false);
+                activeChannel.close();
+                openSegment(nextOffset);
+            }
+            writeFully(activeChannel, encode(nextOffset, payload), writePosition);
+            offsets[i] = nextOffset;
+            writePosition += recordSize;
+            nextOffset++;
+        }
+        activeChannel.force(false);
+
+        for (PendingAppend append : batch) {
+            if (append.onDurable() != null) {
+                append.onDurable().run();
+            }
+        }
+        durableEnd = nextOffset;
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(offsets[i]);
+        }
+    }
+
+    private void openSegment(long baseOffset) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        ByteBuffer zeros = ByteBuffer.allocateDirect(PREALLOCATION_CHUNK);
+        for (long position = 0; position < segmentSize; position += PREALLOCATION_CHUNK) {
+            zeros.clear();
+            zeros.limit((int) Math.min(PREALLOCATION_CHUNK, segmentSize - position));
+            writeFully(channel, zeros, position);
+        }
+        channel.force(true);
+        forceDirectory();
+
+        segments.put(baseOffset, path);
+        activeChannel = channel;
+        writePosition = 0;
+        log.info("Preallocated write-ahead log segment {} ({} bytes)", path, segmentSize);
+    }
+
+    /**
+     * Clears whatever a crash left behind the last valid record, so that a torn batch can never be read back
+     * once new records have been written over its beginning.
+     */
+    private void zeroTail() throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocateDirect(PREALLOCATION_CHUNK);
+        for (long position = writePosition; position < segmentSize; position += PREALLOCATION_CHUNK) {
+            zeros.clear();
+            zeros.limit((int) Math.min(PREALLOCATION_CHUNK, segmentSize - position));
+            writeFully(activeChannel, zeros, position);
+        }
+        activeChannel.force(false);
+    }
+
+    private void forceDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(directory, READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync is not supported for {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static ByteBuffer encode(long offset, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length + CRC_SIZE);
+        record.putInt(RECORD_MAGIC);
+        record.putInt(payload.length);
+        record.putLong(offset);
+        record.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, Integer.BYTES + Long.BYTES + payload.length);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static Decoded decodeAt(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position + HEADER_SIZE + CRC_SIZE > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, position);
+        header.flip();
+        if (header.getInt() != RECORD_MAGIC) {
+            return null;
+        }
+        int payloadLength = header.getInt();
+        long offset = header.getLong();
+        if (payloadLength < 0 || position + HEADER_SIZE + payloadLength + CRC_SIZE > size) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(payloadLength + CRC_SIZE);
+        readFully(channel, body, position + HEADER_SIZE);
+        body.flip();
+        byte[] payload = new byte[payloadLength];
+        body.get(payload);
+        int storedCrc = body.getInt();
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), Integer.BYTES, Integer.BYTES + Long.BYTES);
+        crc.update(payload);
+        if ((int) crc.getValue() != storedCrc) {
+            return null;
+        }
+        return new Decoded(offset, payload, HEADER_SIZE + payloadLength + CRC_SIZE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of write-ahead log segment");
+            }
+            current += read;
+        }
+    }
+
+    private static long baseOffsetOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record PendingAppend(byte[] payload, Runnable onDurable, CompletableFuture<Long> future) {
+    }
+
+    private record Decoded(long offset, byte[] payload, int size) {
+    }
+}
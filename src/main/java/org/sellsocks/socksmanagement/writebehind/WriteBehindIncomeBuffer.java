@@ -0,0 +1,262 @@
+package org.sellsocks.socksmanagement.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sellsocks.socksmanagement.attributes.SockAttributes;
+import org.sellsocks.socksmanagement.config.WriteBehindProperties;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.entity.WriteBehindOffset;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
+import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.WriteBehindOffsetRepository;
+import org.sellsocks.socksmanagement.routing.RoutingContext;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in write-behind path for income. Income is acknowledged once it is durable in the local write-ahead
+ * log and is applied to {@code sock} by a background applier; until then it is tracked as a pending delta
+ * that read paths add on top of the database state.
+ */
+@Component
+@Slf4j
+public class WriteBehindIncomeBuffer {
+
+    private static final String LOG_NAME = "income";
+    private static final long STABLE_WAIT_NANOS = 50_000;
+
+    private final WriteBehindProperties properties;
+    private final SockRepository sockRepository;
+    private final StockLedgerService stockLedgerService;
+    private final WriteBehindOffsetRepository offsetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<SockKey, Integer> pendingIncome = new ConcurrentHashMap<>();
+    /**
+     * Odd while an applier transaction is committing; readers retry when it changes under them.
+     */
+    private final AtomicLong applyGeneration = new AtomicLong();
+    private final ReentrantLock applyLock = new ReentrantLock();
+
+    private SegmentedWriteAheadLog writeAheadLog;
+    private long appliedOffset = -1;
+
+    public WriteBehindIncomeBuffer(WriteBehindProperties properties,
+                                   SockRepository sockRepository,
+                                   StockLedgerService stockLedgerService,
+                                   WriteBehindOffsetRepository offsetRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.sockRepository = sockRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.offsetRepository = offsetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        writeAheadLog = new SegmentedWriteAheadLog(
+                properties.getDirectory(),
+                properties.getSegmentSize().toBytes(),
+                properties.getGroupCommitMaxBatch(),
+                properties.getGroupCommitMaxDelay());
+        appliedOffset = offsetRepository.findById(LOG_NAME)
+                .map(WriteBehindOffset::getAppliedOffset)
+                .orElse(-1L);
+
+        long replayed = 0;
+        List<LogRecord> records;
+        long nextOffset = appliedOffset + 1;
+        while (!(records = writeAheadLog.read(nextOffset, properties.getApplyBatchSize())).isEmpty()) {
+            for (LogRecord record : records) {
+                IncomeLogEntry entry = IncomeLogEntry.decode(record.payload());
+                pendingIncome.merge(entry.key(), entry.quantity(), Integer::sum);
+            }
+            replayed += records.size();
+            nextOffset = records.get(records.size() - 1).offset() + 1;
+        }
+        log.info("Write-behind income enabled: applied offset {}, {} unapplied entries pending", appliedOffset, replayed);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Appends income to the write-ahead log and blocks until it is durable on disk. Must be called outside any
+     * transaction, so that no pooled connection is held while the log is synced.
+     */
+    public void append(SockKey key, int quantity) {
+        requireNoTransaction("Write-behind income");
+        byte[] payload = new IncomeLogEntry(key, quantity).encode();
+        try {
+            writeAheadLog.append(payload, () -> pendingIncome.merge(key, quantity, Integer::sum)).join();
+        } catch (CompletionException e) {
+            log.error("Failed to append income to the write-ahead log: {}", e.getCause().getMessage());
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            throw e;
+        }
+    }
+
+    public int pendingFor(SockKey key) {
+        return pendingIncome.getOrDefault(key, 0);
+    }
+
+    /**
+     * Runs a database read and combines it with the pending deltas such that no acknowledged income is missed
+     * or counted twice while the applier moves it from the log into the database. The read always goes to the
+     * primary, because a lagging replica would miss income that has already left the pending map.
+     */
+    public <T> T readWithPendingIncome(Supplier<T> databaseRead, BiFunction<T, Map<SockKey, Integer>, T> combiner) {
+        while (true) {
+            long generation = applyGeneration.get();
+            if ((generation & 1) == 1) {
+                LockSupport.parkNanos(STABLE_WAIT_NANOS);
+                continue;
+            }
+            T fromDatabase = RoutingContext.onPrimary(databaseRead);
+            Map<SockKey, Integer> pending = Map.copyOf(pendingIncome);
+            if (applyGeneration.get() == generation) {
+                return combiner.apply(fromDatabase, pending);
+            }
+        }
+    }
+
+    /**
+     * Applies pending income for the key right away, so that a synchronous write sees it in the database.
+     * Must be called before the write's transaction starts: the applier commits in a transaction of its own,
+     * which inside another one would hold a second pooled connection per request and can drain the pool.
+     */
+    public void applyPendingFor(SockKey key) {
+        if (isEnabled() && pendingFor(key) > 0) {
+            applyPending();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${socks.write-behind.apply-interval:PT0.2S}")
+    public void applyPending() {
+        if (!isEnabled()) {
+            return;
+        }
+        requireNoTransaction("Applying write-behind income");
+        applyLock.lock();
+        try {
+            List<LogRecord> records;
+            do {
+                records = writeAheadLog.read(appliedOffset + 1, properties.getApplyBatchSize());
+                if (!records.isEmpty()) {
+                    applyBatch(records);
+                }
+            } while (records.size() == properties.getApplyBatchSize());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to apply write-behind income, will retry", e);
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private void applyBatch(List<LogRecord> records) {
+        Map<SockKey, Integer> deltas = new HashMap<>();
+        for (LogRecord record : records) {
+            IncomeLogEntry entry = IncomeLogEntry.decode(record.payload());
+            deltas.merge(entry.key(), entry.quantity(), Integer::sum);
+        }
+        long lastOffset = records.get(records.size() - 1).offset();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Locks the rows in the same key order as CSV imports, so the two cannot deadlock
+            SortedMap<SockKey, Integer> ordered = new TreeMap<>(Comparator.comparing(SockKey::color)
+                    .thenComparingInt(SockKey::cottonPart));
+            ordered.putAll(deltas);
+            ordered.forEach((key, quantity) -> {
+                Sock sock = sockRepository.findOrCreateForUpdate(Warehouse.DEFAULT_CODE, key.color(), key.cottonPart(),
+                        SockAttributes.NONE);
+                sock.setQuantity(sock.getQuantity() + quantity);
+                sockRepository.save(sock);
+                stockLedgerService.recordMovement(Warehouse.DEFAULT_CODE, key.color(), key.cottonPart(),
+                        SockAttributes.NONE, quantity, MovementType.INCOME);
+            });
+            offsetRepository.save(new WriteBehindOffset(LOG_NAME, lastOffset));
+            TransactionSynchronizationManager.registerSynchronization(new PendingIncomeRelease(deltas));
+        });
+
+        appliedOffset = lastOffset;
+        writeAheadLog.deleteSegmentsBefore(appliedOffset + 1);
+        log.info("Applied {} write-behind income entries for {} socks, applied offset {}",
+                records.size(), deltas.size(), appliedOffset);
+    }
+
+    private static void requireNoTransaction(String operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(operation + " must not run inside a transaction");
+        }
+    }
+
+    /**
+     * Removes applied deltas from the pending map inside an odd generation window that spans the commit.
+     */
+    private class PendingIncomeRelease implements TransactionSynchronization {
+
+        private final Map<SockKey, Integer> deltas;
+        private boolean committing;
+
+        PendingIncomeRelease(Map<SockKey, Integer> deltas) {
+            this.deltas = deltas;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            applyGeneration.incrementAndGet();
+            committing = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                deltas.forEach((key, quantity) -> pendingIncome.computeIfPresent(key,
+                        (ignored, pending) -> pending - quantity == 0 ? null : pending - quantity));
+            }
+            if (committing) {
+                applyGeneration.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.sellsocks.socksmanagement.stress;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.exception.ConcurrentWriteConflicts;
+import org.sellsocks.socksmanagement.exception.InsufficientStockException;
+import org.sellsocks.socksmanagement.exception.SockNotFoundException;
+import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.util.ContainerCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires concurrent income, outcome, merging updates and CSV imports at a handful of socks and checks that no
+ * stock is lost or invented: every successful write is accounted for in the rows, the ledger and the per-color
+ * totals, and no row goes negative. The load is set with the {@code stress.threads}, {@code stress.operations}
+ * (per thread), {@code stress.keys} and {@code stress.seed} system properties; throughput and conflict rates are
+ * only reported, as they depend on the machine.
+ */
+@SpringBootTest
+public class SockWriteStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SockWriteStressTest.class);
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 16);
+    private static final int OPERATIONS = Integer.getInteger("stress.operations", 500);
+    private static final int KEYS = Integer.getInteger("stress.keys", 4);
+    private static final long SEED = Long.getLong("stress.seed", System.nanoTime());
+
+    /**
+     * The stressed socks are GREEN ones from this cotton part up, none of which the initial data fills.
+     */
+    private static final SockColor COLOR = SockColor.GREEN;
+    private static final int FIRST_COTTON_PART = 50;
+    private static final int SEED_QUANTITY = 1_000;
+    private static final int MAX_QUANTITY = 20;
+
+    @Autowired
+    SockService sockService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private enum Operation { INCOME, OUTCOME, UPDATE, CSV }
+
+    private enum Outcome { SUCCESS, REJECTED, CONFLICT, FAILURE }
+
+    private final Map<Operation, Map<Outcome, LongAdder>> counts = new EnumMap<>(Operation.class);
+
+    /**
+     * Stock added by successful income and CSV imports minus stock taken by successful outcome.
+     */
+    private final LongAdder expectedDelta = new LongAdder();
+
+    @DynamicPropertySource
+    static void overrideSourceProperties(DynamicPropertyRegistry registry) {
+        ContainerCreator.registerOwnDatabase(registry, "sock_write_stress", false);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS + 2);
+        registry.add("socks.outbox.relay-enabled", () -> false);
+    }
+
+    @BeforeEach
+    void seed() {
+        assertTrue(KEYS >= 2 && FIRST_COTTON_PART + KEYS <= 101, "stress.keys must be between 2 and 51");
+        for (int key = 0; key < KEYS; key++) {
+            jdbcTemplate.update("""
+                    INSERT INTO sock (warehouse, color, cotton_part, quantity)
+                    VALUES ('MAIN', ?, ?, ?)
+                    ON CONFLICT (color, cotton_part, attributes, warehouse) DO UPDATE SET quantity = EXCLUDED.quantity
+                    """, COLOR.name(), FIRST_COTTON_PART + key, SEED_QUANTITY);
+        }
+        for (Operation operation : Operation.values()) {
+            Map<Outcome, LongAdder> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, new LongAdder());
+            }
+            counts.put(operation, byOutcome);
+        }
+    }
+
+    @Test
+    @DisplayName("Should account for every unit of stock under concurrent writes to the same socks")
+    void testConcurrentWritesConserveStock() throws Exception {
+        long seedQuantity = stressedQuantity();
+        long seedLedger = stressedLedger();
+        log.info("Stressing {} socks with {} threads x {} operations, seed {}", KEYS, THREADS, OPERATIONS, SEED);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            SplittableRandom random = new SplittableRandom(SEED + thread);
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    runOperation(random);
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        executor.shutdown();
+
+        report(seconds);
+        assertEquals(0, countOf(Outcome.FAILURE), "Writes failed for reasons other than stock or a lost race");
+        long finalQuantity = stressedQuantity();
+        assertEquals(seedQuantity + expectedDelta.sum(), finalQuantity, "Stock was lost or invented");
+        assertEquals(finalQuantity - seedQuantity, stressedLedger() - seedLedger,
+                "The ledger disagrees with the stock");
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM sock WHERE quantity < 0", Long.class),
+                "A sock went negative");
+        assertEquals(List.of(), jdbcTemplate.queryForList("""
+                SELECT color FROM sock_color_totals t GROUP BY color
+                HAVING SUM(t.quantity) <> (SELECT COALESCE(SUM(s.quantity), 0) FROM sock s WHERE s.color = t.color)
+                """, String.class), "The per-color totals disagree with the stock");
+    }
+
+    private void runOperation(SplittableRandom random) {
+        Operation operation = Operation.values()[random.nextInt(Operation.values().length)];
+        int cottonPart = FIRST_COTTON_PART + random.nextInt(KEYS);
+        int quantity = 1 + random.nextInt(MAX_QUANTITY);
+        Outcome outcome;
+        try {
+            switch (operation) {
+                case INCOME -> {
+                    sockService.addSockIncome(sock(cottonPart, quantity));
+                    expectedDelta.add(quantity);
+                }
+                case OUTCOME -> {
+                    sockService.subtractSockOutcome(sock(cottonPart, quantity));
+                    expectedDelta.add(-quantity);
+                }
+                case UPDATE -> moveSock(cottonPart, FIRST_COTTON_PART + random.nextInt(KEYS));
+                case CSV -> expectedDelta.add(importCsv(random));
+            }
+            outcome = Outcome.SUCCESS;
+        } catch (InsufficientStockException | SockNotFoundException e) {
+            outcome = Outcome.REJECTED;
+        } catch (DataAccessException e) {
+            if (ConcurrentWriteConflicts.isConcurrentWriteConflict(e)) {
+                outcome = Outcome.CONFLICT;
+            } else {
+                log.error("{} failed", operation, e);
+                outcome = Outcome.FAILURE;
+            }
+        } catch (RuntimeException e) {
+            log.error("{} failed", operation, e);
+            outcome = Outcome.FAILURE;
+        }
+        counts.get(operation).get(outcome).increment();
+    }
+
+    /**
+     * Moves all stock of one sock onto another key of the stressed set, merging it into the sock already there.
+     * The total is unchanged; a sock merged away by a concurrent move is rejected as not found.
+     */
+    private void moveSock(int fromCottonPart, int toCottonPart) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM sock WHERE warehouse = 'MAIN' AND color = ? AND cotton_part = ? AND attributes = ''",
+                Long.class, COLOR.name(), fromCottonPart);
+        if (ids.isEmpty()) {
+            throw new SockNotFoundException("Sock not found with cotton part: " + fromCottonPart);
+        }
+        sockService.updateSock(ids.get(0), SockUpdateDto.builder().cottonPart(toCottonPart).build());
+    }
+
+    private long importCsv(SplittableRandom random) {
+        StringBuilder csv = new StringBuilder("color,cottonPart,quantity\n");
+        long total = 0;
+        int lines = 1 + random.nextInt(2 * KEYS);
+        for (int line = 0; line < lines; line++) {
+            int quantity = 1 + random.nextInt(MAX_QUANTITY);
+            csv.append(COLOR.name().toLowerCase()).append(',')
+                    .append(FIRST_COTTON_PART + random.nextInt(KEYS)).append(',')
+                    .append(quantity).append('\n');
+            total += quantity;
+        }
+        sockService.processCsvFile("stress.csv",
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), null);
+        return total;
+    }
+
+    private static Sock sock(int cottonPart, int quantity) {
+        return Sock.builder()
+                .color(COLOR)
+                .cottonPart(cottonPart)
+                .quantity(quantity)
+                .build();
+    }
+
+    private long stressedQuantity() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM sock " +
+                        "WHERE warehouse = 'MAIN' AND color = ? AND cotton_part BETWEEN ? AND ? AND attributes = ''",
+                Long.class, COLOR.name(), FIRST_COTTON_PART, FIRST_COTTON_PART + KEYS - 1);
+    }
+
+    private long stressedLedger() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(delta), 0) FROM stock_movement " +
+                        "WHERE color = ? AND cotton_part BETWEEN ? AND ?",
+                Long.class, COLOR.name(), FIRST_COTTON_PART, FIRST_COTTON_PART + KEYS - 1);
+    }
+
+    private long countOf(Outcome outcome) {
+        return counts.values().stream().mapToLong(byOutcome -> byOutcome.get(outcome).sum()).sum();
+    }
+
+    private void report(double seconds) {
+        long total = (long) THREADS * OPERATIONS;
+        log.info("{} operations in {} s: {} ops/s", total, "%.2f".formatted(seconds),
+                "%.0f".formatted(total / seconds));
+        counts.forEach((operation, byOutcome) -> {
+            long attempts = byOutcome.values().stream().mapToLong(LongAdder::sum).sum();
+            log.info("{}: attempts={}, success={}, rejected={}, conflicts={} ({}%), failures={}", operation, attempts,
+                    byOutcome.get(Outcome.SUCCESS).sum(), byOutcome.get(Outcome.REJECTED).sum(),
+                    byOutcome.get(Outcome.CONFLICT).sum(),
+                    "%.2f".formatted(attempts == 0 ? 0.0 : 100.0 * byOutcome.get(Outcome.CONFLICT).sum() / attempts),
+                    byOutcome.get(Outcome.FAILURE).sum());
+        });
+    }
+}
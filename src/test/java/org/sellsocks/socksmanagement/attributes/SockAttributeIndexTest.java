@@ -0,0 +1,97 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.config.AttributeIndexProperties;
+import org.sellsocks.socksmanagement.config.NodeApplicationName;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sellsocks.socksmanagement.model.enums.CriteriaOperation.EQUAL;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.BLACK;
+
+public class SockAttributeIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private SockAttributeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        AttributeIndexProperties properties = new AttributeIndexProperties();
+        properties.setEnabled(true);
+        index = new SockAttributeIndex(properties, jdbcTemplate, new NodeApplicationName(), new SimpleMeterRegistry());
+        otherNodes(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Should send reads to the database until a committed change is applied by the refresh thread")
+    void markChanged_RefreshesInBackground() throws Exception {
+        index.rebuild();
+        assertTrue(index.isReady());
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(Sock.builder().id(1L).warehouse("MAIN").color(BLACK).cottonPart(15).quantity(3)
+                            .attributes("").build());
+                });
+
+        index.markChanged(List.of(1L));
+        assertFalse(index.isReady());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!index.isReady() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(index.isReady());
+        assertEquals(3, index.sumQuantity("MAIN", BLACK, EQUAL, 15, Map.of()));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start and switch off while another node is connected to the database")
+    void checkSingleNode_SwitchesOffForOtherNodes() {
+        index.rebuild();
+        otherNodes(List.of("socks-inventory/other"));
+
+        assertThrows(IllegalStateException.class, index::afterPropertiesSet);
+        index.checkSingleNode();
+        assertFalse(index.isReady());
+        index.rebuild();
+        assertFalse(index.isReady());
+
+        otherNodes(List.of());
+        index.rebuild();
+        assertTrue(index.isReady());
+    }
+
+    private void otherNodes(List<String> applicationNames) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any())).thenReturn(applicationNames);
+    }
+}
@@ -0,0 +1,122 @@
+package org.sellsocks.socksmanagement.attributes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.BLACK;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.PURPLE;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.WHITE;
+
+public class SockBitmapIndexTest {
+
+    private static final String MAIN = "MAIN";
+
+    private SockBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SockBitmapIndex();
+        index.put(sock(1, BLACK, 15, 108, Map.of()));
+        index.put(sock(2, BLACK, 15, 10, Map.of("size", "M", "brand", "acme")));
+        index.put(sock(3, BLACK, 40, 7, Map.of("size", "M", "material", "wool")));
+        index.put(sock(4, PURPLE, 30, 42, Map.of("size", "L", "brand", "acme")));
+        index.put(sock(5, WHITE, 90, 3, Map.of("size", "M", "brand", "acme")));
+    }
+
+    @Test
+    @DisplayName("Should intersect color, cotton range and every attribute filter")
+    void select_AnswersConjunctiveFilters() {
+        assertEquals(List.of(2L, 3L, 5L), ids(null, 0, 100, Map.of("size", "M")));
+        assertEquals(List.of(2L, 5L), ids(null, 0, 100, Map.of("size", "M", "brand", "acme")));
+        assertEquals(List.of(2L), ids(BLACK, 0, 30, Map.of("size", "M", "brand", "acme")));
+        assertEquals(List.of(1L, 2L, 3L), ids(BLACK, 0, 100, Map.of()));
+        assertEquals(List.of(), ids(null, 0, 100, Map.of("size", "XL")));
+        assertEquals(List.of(), ids(null, 50, 40, Map.of()));
+    }
+
+    @Test
+    @DisplayName("Should sum the quantity of the matching rows only")
+    void sumQuantity_SumsMatchingRows() {
+        assertEquals(125, index.sumQuantity(index.select(MAIN, BLACK, 0, 100, Map.of())));
+        assertEquals(17, index.sumQuantity(index.select(MAIN, BLACK, 0, 100, Map.of("size", "M"))));
+        assertEquals(13, index.sumQuantity(index.select(MAIN, null, 0, 100, Map.of("brand", "acme", "size", "M"))));
+        assertEquals(42, index.sumQuantity(index.select(MAIN, PURPLE, 30, 30, Map.of("brand", "acme"))));
+    }
+
+    @Test
+    @DisplayName("Should move a row between bitmaps when it is replaced and forget it when removed")
+    void putAndRemove_KeepBitmapsInSync() {
+        index.put(sock(2, BLACK, 60, 11, Map.of("size", "S")));
+        index.remove(3);
+
+        assertEquals(List.of(5L), ids(null, 0, 100, Map.of("size", "M")));
+        assertEquals(List.of(2L), ids(BLACK, 50, 100, Map.of("size", "S")));
+        assertEquals(4, index.size());
+
+        index.put(sock(6, BLACK, 40, 1, Map.of("material", "wool")));
+        assertEquals(List.of(6L), ids(null, 0, 100, Map.of("material", "wool")));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    @DisplayName("Should only select rows of the requested warehouse")
+    void select_KeepsWarehousesApart() {
+        Sock north = sock(7, BLACK, 15, 20, Map.of("size", "M"));
+        north.setWarehouse("NORTH");
+        index.put(north);
+
+        assertEquals(List.of(7L), ids("NORTH", BLACK, 0, 100, Map.of()));
+        assertEquals(List.of(2L, 3L, 5L), ids(null, 0, 100, Map.of("size", "M")));
+        assertEquals(List.of(), ids("SOUTH", null, 0, 100, Map.of()));
+
+        index.remove(7);
+        assertEquals(List.of(), ids("NORTH", null, 0, 100, Map.of()));
+    }
+
+    @Test
+    @DisplayName("Should store attributes in a canonical form that is independent of the input order")
+    void format_IsCanonical() {
+        String canonical = SockAttributes.format(Map.of("Size", "M", "brand", "acme"));
+
+        assertEquals(";brand=acme;size=M;", canonical);
+        assertEquals(Map.of("brand", "acme", "size", "M"), SockAttributes.parse(canonical));
+        assertEquals("", SockAttributes.format(Map.of()));
+        assertTrue(SockAttributes.parse("").isEmpty());
+        assertEquals("%;pattern\\_name=a;%", SockAttributes.likePattern("pattern_name", "a"));
+        assertThrows(InvalidSockParameterException.class, () -> SockAttributes.format(Map.of("size", "M;L")));
+        assertThrows(InvalidSockParameterException.class, () -> SockAttributes.parseFilters(List.of("size")));
+    }
+
+    private List<Long> ids(SockColor color, int cottonPartMin, int cottonPartMax, Map<String, String> filter) {
+        return ids(MAIN, color, cottonPartMin, cottonPartMax, filter);
+    }
+
+    private List<Long> ids(String warehouse, SockColor color, int cottonPartMin, int cottonPartMax,
+                           Map<String, String> filter) {
+        return index.toSocks(index.select(warehouse, color, cottonPartMin, cottonPartMax, filter)).stream()
+                .sorted(Comparator.comparing(Sock::getId))
+                .map(Sock::getId)
+                .toList();
+    }
+
+    private static Sock sock(long id, SockColor color, int cottonPart, int quantity, Map<String, String> attributes) {
+        return Sock.builder()
+                .id(id)
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(quantity)
+                .attributes(SockAttributes.format(attributes))
+                .build();
+    }
+}
@@ -0,0 +1,57 @@
+package org.sellsocks.socksmanagement.bulkhead;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadTest {
+
+    @Test
+    @DisplayName("Should reject requests above the limit instead of queuing them")
+    void tryAcquire_RejectsWhenFull() {
+        Bulkhead bulkhead = new Bulkhead(Workload.IMPORT, 2, Duration.ZERO);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(2, bulkhead.getInFlight());
+
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should apply a raised or lowered limit to new requests")
+    void resize_Success() {
+        Bulkhead bulkhead = new Bulkhead(Workload.READ, 1, Duration.ZERO);
+        assertTrue(bulkhead.tryAcquire());
+
+        bulkhead.resize(3, null);
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+
+        bulkhead.resize(1, Duration.ofMillis(1));
+        bulkhead.release();
+        bulkhead.release();
+        assertFalse(bulkhead.tryAcquire());
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+        assertEquals(1, bulkhead.getMaxConcurrent());
+        assertEquals(Duration.ofMillis(1), bulkhead.getMaxWait());
+    }
+
+    @Test
+    @DisplayName("Should refuse a non-positive limit")
+    void resize_InvalidLimit() {
+        Bulkhead bulkhead = new Bulkhead(Workload.WRITE, 1, Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> bulkhead.resize(0, null));
+    }
+}
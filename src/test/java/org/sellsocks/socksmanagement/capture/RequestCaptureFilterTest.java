@@ -0,0 +1,214 @@
+package org.sellsocks.socksmanagement.capture;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sellsocks.socksmanagement.config.CaptureProperties;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestCaptureFilterTest {
+
+    private static final String INCOME = "{\"color\":\"red\",\"cottonPart\":30,\"quantity\":5}";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should record method, path, query, relevant headers and body in arrival order")
+    void doFilter_RecordsRequests() throws Exception {
+        RequestRecorder recorder = new RequestRecorder(properties(), new SimpleMeterRegistry());
+        RequestCaptureFilter filter = new RequestCaptureFilter(recorder, 1024);
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/socks");
+        get.setQueryString("color=red&operation=equal&cottonPart=30");
+        get.addHeader("Accept", "application/json");
+        get.addHeader("Authorization", "Bearer secret");
+        filter.doFilter(get, new MockHttpServletResponse(), new MockFilterChain(new BodyReadingServlet()));
+
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/api/socks/income");
+        post.setContentType("application/json");
+        post.setContent(INCOME.getBytes(StandardCharsets.UTF_8));
+        filter.doFilter(post, new MockHttpServletResponse(), new MockFilterChain(new BodyReadingServlet()));
+        recorder.close();
+
+        List<CapturedRequest> captured = readAll(recorder.file());
+        assertEquals(2, captured.size());
+        CapturedRequest first = captured.get(0);
+        assertEquals("GET", first.method());
+        assertEquals("/api/socks", first.path());
+        assertEquals("color=red&operation=equal&cottonPart=30", first.query());
+        assertEquals(Map.of("Accept", "application/json"), first.headers());
+        assertTrue(first.bodyComplete());
+
+        CapturedRequest second = captured.get(1);
+        assertEquals("POST", second.method());
+        assertEquals("", second.query());
+        assertEquals(Map.of("Content-Type", "application/json"), second.headers());
+        assertArrayEquals(INCOME.getBytes(StandardCharsets.UTF_8), second.body());
+        assertTrue(second.bodyComplete());
+        assertTrue(second.offsetMicros() >= first.offsetMicros());
+    }
+
+    @Test
+    @DisplayName("Should keep arrival order when a later request finishes first")
+    void doFilter_KeepsArrivalOrderWhenRequestsFinishOutOfOrder() throws Exception {
+        RequestRecorder recorder = new RequestRecorder(properties(), new SimpleMeterRegistry());
+        RequestCaptureFilter filter = new RequestCaptureFilter(recorder, 1024);
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/socks/sorted"), new MockHttpServletResponse(),
+                        new MockFilterChain(new WaitingServlet(slowStarted, fastDone)));
+                return null;
+            });
+            slowStarted.await(5, TimeUnit.SECONDS);
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/socks"), new MockHttpServletResponse(),
+                    new MockFilterChain(new BodyReadingServlet()));
+            fastDone.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            fastDone.countDown();
+            executor.shutdownNow();
+        }
+        recorder.close();
+
+        List<CapturedRequest> captured = readAll(recorder.file());
+        assertEquals(List.of("/api/socks/sorted", "/api/socks"), captured.stream().map(CapturedRequest::path).toList());
+        assertTrue(captured.get(1).offsetMicros() >= captured.get(0).offsetMicros());
+    }
+
+    @Test
+    @DisplayName("Should keep arrival order for requests that arrive while the writer waits for the queue")
+    void record_KeepsArrivalOrderWhileWriterPolls() throws Exception {
+        RequestRecorder recorder = new RequestRecorder(properties(), new SimpleMeterRegistry());
+        awaitWriterPolling();
+
+        long slow = recorder.arrive();
+        Thread.sleep(1);
+        long fast = recorder.arrive();
+        recorder.record(get(fast, "/api/socks"));
+        Thread.sleep(200);
+        recorder.record(get(slow, "/api/socks/sorted"));
+        recorder.close();
+
+        List<CapturedRequest> captured = readAll(recorder.file());
+        assertEquals(List.of("/api/socks/sorted", "/api/socks"), captured.stream().map(CapturedRequest::path).toList());
+    }
+
+    @Test
+    @DisplayName("Should mark a body larger than the limit as incomplete")
+    void doFilter_MarksOversizedBodyIncomplete() throws Exception {
+        RequestRecorder recorder = new RequestRecorder(properties(), new SimpleMeterRegistry());
+        RequestCaptureFilter filter = new RequestCaptureFilter(recorder, 16);
+
+        MockHttpServletRequest put = new MockHttpServletRequest("PUT", "/api/socks/42");
+        put.setContentType("application/json");
+        put.setContent(INCOME.getBytes(StandardCharsets.UTF_8));
+        filter.doFilter(put, new MockHttpServletResponse(), new MockFilterChain(new BodyReadingServlet()));
+        recorder.close();
+
+        CapturedRequest captured = readAll(recorder.file()).get(0);
+        assertFalse(captured.bodyComplete());
+        assertEquals(16, captured.body().length);
+        assertEquals("PUT /api/socks/{id}", WorkloadReplayCommand.endpointOf(captured));
+    }
+
+    @Test
+    @DisplayName("Should give the most popular socks the largest share under a Zipf skew")
+    void zipfCumulative_SkewsTowardsTopRanks() {
+        double[] uniform = WorkloadGeneratorCommand.zipfCumulative(4, 0);
+        assertEquals(0.25, uniform[0], 1e-9);
+        assertEquals(1.0, uniform[3], 1e-9);
+
+        double[] skewed = WorkloadGeneratorCommand.zipfCumulative(100, 1.2);
+        assertTrue(skewed[0] > 0.15, "top sock share " + skewed[0]);
+        assertTrue(skewed[9] > 0.5, "top ten socks share " + skewed[9]);
+    }
+
+    private CaptureProperties properties() {
+        CaptureProperties properties = new CaptureProperties();
+        properties.setDirectory(directory);
+        return properties;
+    }
+
+    private static CapturedRequest get(long offsetMicros, String path) {
+        return new CapturedRequest(offsetMicros, "GET", path, "", Map.of(), new byte[0], true);
+    }
+
+    /**
+     * Waits until the writer thread is blocked polling the empty queue, the only timed wait it makes.
+     */
+    private static void awaitWriterPolling() {
+        while (Thread.getAllStackTraces().keySet().stream().noneMatch(thread ->
+                thread.getName().equals("request-capture-writer") && thread.getState() == Thread.State.TIMED_WAITING)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static List<CapturedRequest> readAll(Path file) throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        try (CaptureLogReader reader = new CaptureLogReader(file)) {
+            CapturedRequest request;
+            while ((request = reader.next()) != null) {
+                requests.add(request);
+            }
+        }
+        return requests;
+    }
+
+    private static class WaitingServlet extends HttpServlet {
+
+        private final CountDownLatch started;
+        private final CountDownLatch proceed;
+
+        WaitingServlet(CountDownLatch started, CountDownLatch proceed) {
+            this.started = started;
+            this.proceed = proceed;
+        }
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            started.countDown();
+            try {
+                proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setStatus(200);
+        }
+    }
+
+    private static class BodyReadingServlet extends HttpServlet {
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            request.getInputStream().readAllBytes();
+            response.setStatus(200);
+        }
+    }
+}
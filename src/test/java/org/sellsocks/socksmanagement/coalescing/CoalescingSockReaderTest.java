@@ -0,0 +1,163 @@
+package org.sellsocks.socksmanagement.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.attributes.SockAttributeIndex;
+import org.sellsocks.socksmanagement.config.CoalescingProperties;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.routing.RoutingContext;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.PURPLE;
+
+public class CoalescingSockReaderTest {
+
+    private final SockService sockService = mock(SockService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CoalescingSockReader reader;
+
+    @BeforeEach
+    void setUp() {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setResultTtl(Duration.ofMinutes(1));
+        reader = new CoalescingSockReader(sockService, mock(WarehouseService.class), new SockParametersValidator(),
+                properties, mock(SockAttributeIndex.class), mock(WriteBehindIncomeBuffer.class), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    @DisplayName("Should share one query between identical reads and count them in the metrics")
+    void getFilteredSocksQuantity_CoalescesIdenticalReads() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sockService.getFilteredSocksQuantity(eq("MAIN"), eq("purple"), eq("moreThan"), eq(25), anyMap()))
+                .thenAnswer(invocation -> {
+                    queryStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return 84;
+                });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> first = executor.submit(() -> quantity("purple"));
+            queryStarted.await(5, TimeUnit.SECONDS);
+            Thread joining = new Thread(() -> quantity("PURPLE"));
+            joining.start();
+            while (count("quantity", "joined") < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            joining.join(5_000);
+
+            assertEquals(84, first.get(5, TimeUnit.SECONDS));
+            assertEquals(84, quantity("purple"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        verify(sockService, times(1)).getFilteredSocksQuantity(any(), any(), any(), any(), anyMap());
+        assertEquals(1, count("quantity", "executed"));
+        assertEquals(1, count("quantity", "joined"));
+        assertEquals(1, count("quantity", "cached"));
+        assertEquals(2.0 / 3, meterRegistry.get("socks.coalescing.ratio").tag("query", "quantity").gauge().value(),
+                1e-9);
+    }
+
+    @Test
+    @DisplayName("Should run a pinned read on its own instead of joining a flight or using a cached result")
+    void getFilteredSocksQuantity_PinnedReadBypassesFlights() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(sockService.getFilteredSocksQuantity(eq("MAIN"), eq("purple"), eq("moreThan"), eq(25), anyMap()))
+                .thenAnswer(invocation -> {
+                    queryStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return 84;
+                });
+        when(sockService.getFilteredSocksQuantity(eq(null), eq("purple"), eq("moreThan"), eq(25), anyMap()))
+                .thenReturn(92);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> stale = executor.submit(() -> quantity("purple"));
+            queryStarted.await(5, TimeUnit.SECONDS);
+
+            RoutingContext.setPrimaryRequired(true);
+            assertEquals(92, quantity("purple"));
+            release.countDown();
+            assertEquals(84, stale.get(5, TimeUnit.SECONDS));
+            assertEquals(92, quantity("purple"));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, count("quantity", "executed"));
+        assertEquals(0, count("quantity", "joined"));
+        assertEquals(0, count("quantity", "cached"));
+        assertEquals(2, count("quantity", "bypassed"));
+    }
+
+    @Test
+    @DisplayName("Should give every caller of a shared sorted read its own read-only list")
+    void getFilteredAndSortedSocks_ReturnsReadOnlyCopies() {
+        when(sockService.getFilteredAndSortedSocks("MAIN", "purple", 20, 50, Map.of(), "cottonPart", "asc"))
+                .thenReturn(new ArrayList<>(List.of(
+                        Sock.builder().id(1L).color(PURPLE).cottonPart(30).quantity(42).build(),
+                        Sock.builder().id(2L).color(PURPLE).cottonPart(45).quantity(42).build())));
+
+        List<Sock> first = sorted();
+        List<Sock> second = sorted();
+
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertThrows(UnsupportedOperationException.class, first::clear);
+        assertEquals(2, sorted().size());
+        assertEquals(1, count("sorted", "executed"));
+        assertEquals(2, count("sorted", "cached"));
+    }
+
+    private int quantity(String color) {
+        return reader.getFilteredSocksQuantity(null, color, "moreThan", 25, Map.of());
+    }
+
+    private List<Sock> sorted() {
+        return reader.getFilteredAndSortedSocks(null, "purple", 20, 50, Map.of(), "cottonPart", "asc");
+    }
+
+    private double count(String query, String outcome) {
+        return meterRegistry.get("socks.coalescing.calls").tags("query", query, "outcome", outcome)
+                .functionCounter().count();
+    }
+}
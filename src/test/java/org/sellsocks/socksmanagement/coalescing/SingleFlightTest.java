@@ -0,0 +1,105 @@
+package org.sellsocks.socksmanagement.coalescing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Should run one computation for concurrent calls with the same key")
+    void execute_CoalescesConcurrentCalls() throws Exception {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flights.execute("purple", () -> {
+                    computations.incrementAndGet();
+                    awaitUninterruptibly(release);
+                    return 84;
+                })));
+            }
+            while (flights.getExecuted() + flights.getJoined() < callers) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(84, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, computations.get());
+        assertEquals(1, flights.getExecuted());
+        assertEquals(callers - 1, flights.getJoined());
+        assertEquals((double) (callers - 1) / callers, flights.getCoalescingRatio());
+    }
+
+    @Test
+    @DisplayName("Should forget a finished result when no TTL is configured")
+    void execute_NoCachingByDefault() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+
+        flights.execute("black", computations::incrementAndGet);
+        flights.execute("black", computations::incrementAndGet);
+
+        assertEquals(2, computations.get());
+        assertEquals(0, flights.getCached());
+    }
+
+    @Test
+    @DisplayName("Should reuse a finished result within its TTL")
+    void execute_CachesWithinTtl() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofMinutes(1), 10);
+        AtomicInteger computations = new AtomicInteger();
+
+        assertEquals(1, flights.execute("black", computations::incrementAndGet));
+        assertEquals(1, flights.execute("black", computations::incrementAndGet));
+        assertEquals(2, flights.execute("white", computations::incrementAndGet));
+
+        assertEquals(1, flights.getCached());
+    }
+
+    @Test
+    @DisplayName("Should pass the exception of a failed computation on and not keep it")
+    void execute_PropagatesFailure() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofMinutes(1), 10);
+        IllegalArgumentException failure = new IllegalArgumentException("Invalid color");
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> flights.execute("brown", () -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals(7, flights.execute("brown", () -> 7));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package org.sellsocks.socksmanagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.converter.SockProtobufHttpMessageConverter;
+import org.sellsocks.socksmanagement.model.dto.ReservationRequestDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
 import org.sellsocks.socksmanagement.model.dto.SockUpdateDto;
+import org.sellsocks.socksmanagement.model.dto.TransferRequestDto;
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+import org.sellsocks.socksmanagement.model.proto.Color;
+import org.sellsocks.socksmanagement.model.proto.QuantityMessage;
+import org.sellsocks.socksmanagement.model.proto.SockMessage;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.outbox.InMemoryOutboxSink;
+import org.sellsocks.socksmanagement.outbox.OutboxEventSink;
+import org.sellsocks.socksmanagement.outbox.OutboxRelay;
 import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.service.SockTotalsService;
 import org.sellsocks.socksmanagement.util.ContainerCreator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -24,13 +36,20 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import static java.lang.String.valueOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.sellsocks.socksmanagement.model.enums.SockColor.BLACK;
 import static org.sellsocks.socksmanagement.model.enums.SockColor.GREEN;
@@ -41,6 +60,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -59,6 +79,18 @@ public class SockControllerIT {
     @Autowired
     JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    @Autowired
+    SockTotalsService sockTotalsService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    OutboxEventSink outboxEventSink;
+
     private File tempCsvFile;
 
     @Container
@@ -72,7 +104,9 @@ public class SockControllerIT {
         registry.add("spring.datasource.username", postgresContainer::getUsername);
         registry.add("spring.datasource.password", postgresContainer::getPassword);
         registry.add("spring.datasource.driver-class-name", postgresContainer::getDriverClassName);
+        registry.add("socks.warmup.iterations", () -> 20);
         registry.add("spring.liquibase.enabled", () -> false);
+        registry.add("socks.outbox.sink", () -> "memory");
     }
 
     @BeforeEach
@@ -117,6 +151,232 @@ public class SockControllerIT {
         assertEquals(150, savedSock.getQuantity());
     }
 
+    @Test
+    @DisplayName("Should apply income once and replay the response for a repeated Idempotency-Key")
+    void testAddSockIncome_Idempotent() throws Exception {
+        String contentJson = objectMapper.writeValueAsString(SockDto.builder()
+                .color("black")
+                .cottonPart(15)
+                .quantity(42)
+                .build());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/socks/income")
+                            .header("Idempotency-Key", "income-retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(contentJson))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.color").value("BLACK"))
+                    .andExpect(jsonPath("$.quantity").value(150));
+        }
+        assertEquals(150, sockRepository.findByColorAndCottonPart(BLACK, 15).orElseThrow().getQuantity());
+
+        mockMvc.perform(post("/api/socks/income")
+                        .header("Idempotency-Key", "income-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(1)
+                                .build())))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Should hold reserved socks until the reservation is confirmed")
+    void testReservation_HoldsStockUntilConfirmed() throws Exception {
+        String reservationJson = mockMvc.perform(post("/api/socks/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ReservationRequestDto.builder()
+                                .color("purple")
+                                .cottonPart(30)
+                                .quantity(40)
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andReturn().getResponse().getContentAsString();
+        long reservationId = objectMapper.readTree(reservationJson).get("id").asLong();
+
+        mockMvc.perform(get("/api/socks/available")
+                        .param("color", "purple")
+                        .param("cottonPart", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inStock").value(42))
+                .andExpect(jsonPath("$.held").value(40))
+                .andExpect(jsonPath("$.available").value(2));
+
+        mockMvc.perform(post("/api/socks/outcome")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .color("purple")
+                                .cottonPart(30)
+                                .quantity(5)
+                                .build())))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/socks/reservations/{id}/confirm", reservationId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CONFIRMED"));
+        assertEquals(2, sockRepository.findByColorAndCottonPart(PURPLE, 30).orElseThrow().getQuantity());
+
+        mockMvc.perform(post("/api/socks/reservations/{id}/cancel", reservationId))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Should keep the stock of every warehouse apart and transfer socks between warehouses")
+    void testWarehouses_QuantitiesAndTransfer() throws Exception {
+        jdbcTemplate.update("INSERT INTO stock_snapshot (id, taken_at) VALUES (1, clock_timestamp() - interval '1 hour')");
+        jdbcTemplate.update("INSERT INTO stock_snapshot_item " +
+                "(snapshot_id, warehouse, color, cotton_part, attributes, quantity) " +
+                "SELECT 1, warehouse, color, cotton_part, attributes, quantity FROM sock");
+        mockMvc.perform(put("/api/warehouses/{code}", "east"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value("EAST"));
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .warehouse("EAST")
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(10)
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.warehouse").value("EAST"))
+                .andExpect(jsonPath("$.quantity").value(10));
+
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15")
+                        .param("warehouse", "EAST"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("10"));
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("108"));
+
+        mockMvc.perform(post("/api/socks/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(TransferRequestDto.builder()
+                                .fromWarehouse("MAIN")
+                                .toWarehouse("EAST")
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(8)
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from.quantity").value(100))
+                .andExpect(jsonPath("$.to.quantity").value(18));
+        assertEquals(List.of("MAIN:-8", "EAST:8"), jdbcTemplate.queryForList(
+                "SELECT warehouse || ':' || delta FROM stock_movement " +
+                        "WHERE movement_type IN ('TRANSFER_OUT', 'TRANSFER_IN') ORDER BY id", String.class));
+        assertEquals(List.of("MAIN:BLACK:15:TRANSFER_OUT", "EAST:BLACK:15:TRANSFER_IN"), jdbcTemplate.queryForList(
+                "SELECT aggregate_key || ':' || event_type FROM outbox_event " +
+                        "WHERE event_type IN ('TRANSFER_OUT', 'TRANSFER_IN') ORDER BY id", String.class));
+        mockMvc.perform(post("/api/socks/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(TransferRequestDto.builder()
+                                .fromWarehouse("EAST")
+                                .toWarehouse("MAIN")
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(19)
+                                .build())))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/socks/warehouses")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byWarehouse.EAST").value(18))
+                .andExpect(jsonPath("$.byWarehouse.MAIN").value(100))
+                .andExpect(jsonPath("$.total").value(118));
+        String afterTransfer = OffsetDateTime.now().plusMinutes(1).toString();
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15")
+                        .param("warehouse", "EAST")
+                        .param("asOf", afterTransfer))
+                .andExpect(status().isOk())
+                .andExpect(content().string("18"));
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15")
+                        .param("asOf", afterTransfer))
+                .andExpect(status().isOk())
+                .andExpect(content().string("118"));
+        mockMvc.perform(get("/api/socks/sorted")
+                        .param("warehouse", "WEST"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should keep socks with attributes apart and filter by every given attribute")
+    void testSockAttributes_FilterQuantityAndSortedList() throws Exception {
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(5)
+                                .attributes(Map.of("size", "M", "brand", "acme"))
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(5))
+                .andExpect(jsonPath("$.attributes.brand").value("acme"));
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(3)
+                                .attributes(Map.of("size", "L"))
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(3));
+
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("116"));
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15")
+                        .param("attribute", "size:M"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+
+        mockMvc.perform(get("/api/socks/sorted")
+                        .param("color", "black")
+                        .param("attribute", "size:M", "brand:acme"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].quantity").value(5))
+                .andExpect(jsonPath("$[0].attributes.size").value("M"));
+
+        mockMvc.perform(post("/api/socks/outcome")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SockDto.builder()
+                                .color("black")
+                                .cottonPart(15)
+                                .quantity(2)
+                                .attributes(Map.of("size", "L"))
+                                .build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(1));
+        assertEquals(108, sockRepository.findByColorAndCottonPart(BLACK, 15).orElseThrow().getQuantity());
+    }
+
     @Test
     @DisplayName("Should return Bad Request in case of null/blank arguments")
     void testAddSockIncome_BadRequest() throws Exception {
@@ -166,6 +426,77 @@ public class SockControllerIT {
         assertEquals(1, savedSock.getQuantity());
     }
 
+    @Test
+    @DisplayName("Should import a gzip-compressed CSV streamed as the request body")
+    public void testUploadSocksBatchStream_Gzip() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("color,cottonPart,quantity\nblack,15,2\nred,100,5\nblack,15,3\n".getBytes());
+        }
+
+        mockMvc.perform(post("/api/socks/batch")
+                        .contentType("text/csv")
+                        .content(compressed.toByteArray()))
+                .andExpect(status().isOk());
+
+        assertEquals(113, sockRepository.findByColorAndCottonPart(BLACK, 15).orElseThrow().getQuantity());
+        assertEquals(5, sockRepository.findByColorAndCottonPart(RED, 100).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should replace stock with a snapshot, writing only the differences")
+    public void testReplaceSocksFromSnapshot_Success() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "snapshot.csv",
+                MediaType.MULTIPART_FORM_DATA_VALUE,
+                "color,cottonPart,quantity\ngreen,10,7\nblack,15,108\npurple,30,50\n".getBytes()
+        );
+
+        mockMvc.perform(multipart("/api/socks/batch")
+                        .file(file)
+                        .param("mode", "replace")
+                        .contentType(MediaType.MULTIPART_FORM_DATA_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(3))
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.zeroed").value(1))
+                .andExpect(jsonPath("$.deleted").value(0));
+
+        assertEquals(7, sockRepository.findByColorAndCottonPart(GREEN, 10).orElseThrow().getQuantity());
+        assertEquals(108, sockRepository.findByColorAndCottonPart(BLACK, 15).orElseThrow().getQuantity());
+        assertEquals(50, sockRepository.findByColorAndCottonPart(PURPLE, 30).orElseThrow().getQuantity());
+        assertEquals(0, sockRepository.findByColorAndCottonPart(PURPLE, 45).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should keep reserved socks when a snapshot lowers or drops them")
+    public void testReplaceSocksFromSnapshot_KeepsReservedStock() throws Exception {
+        reserve("purple", 30, 40);
+        reserve("purple", 45, 10);
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "snapshot.csv",
+                MediaType.MULTIPART_FORM_DATA_VALUE,
+                "color,cottonPart,quantity\npurple,30,10\nblack,15,108\n".getBytes()
+        );
+
+        mockMvc.perform(multipart("/api/socks/batch")
+                        .file(file)
+                        .param("mode", "replace")
+                        .contentType(MediaType.MULTIPART_FORM_DATA_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.unchanged").value(1))
+                .andExpect(jsonPath("$.zeroed").value(0))
+                .andExpect(jsonPath("$.clamped").value(2));
+
+        assertEquals(40, sockRepository.findByColorAndCottonPart(PURPLE, 30).orElseThrow().getQuantity());
+        assertEquals(10, sockRepository.findByColorAndCottonPart(PURPLE, 45).orElseThrow().getQuantity());
+    }
+
     @Test
     @DisplayName("Should upload socks batch with real CSV file")
     public void testUploadSocksBatch_Success() throws Exception {
@@ -208,6 +539,67 @@ public class SockControllerIT {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    @DisplayName("Should answer several quantity queries in one request")
+    void testGetSocksQuantities_Success() throws Exception {
+        String body = """
+                [
+                  {"colors": ["purple"], "operation": "moreThan", "cottonPart": 25},
+                  {"colors": ["purple", "black"], "cottonPartMin": 15, "cottonPartMax": 30},
+                  {"colors": ["black"], "operation": "equal", "cottonPart": 50}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/socks/quantities")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[84, 150, 0]"))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    @DisplayName("Should keep per-color totals in step with stock changes and repair drift")
+    void testGetSocksTotals_Success() throws Exception {
+        SockDto sockDto = SockDto.builder()
+                .color("purple")
+                .cottonPart(30)
+                .quantity(10)
+                .build();
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sockDto)))
+                .andExpect(status().isOk());
+        sockRepository.flush();
+
+        mockMvc.perform(get("/api/socks/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byColor.PURPLE").value(94))
+                .andExpect(jsonPath("$.byColor.BLACK").value(108))
+                .andExpect(jsonPath("$.byColor.RED").value(0))
+                .andExpect(jsonPath("$.total").value(202));
+
+        jdbcTemplate.update("UPDATE sock_color_totals SET quantity = quantity + 5 WHERE color = 'BLACK'");
+        assertEquals(1, sockTotalsService.reconcile());
+        assertEquals(0, sockTotalsService.reconcile());
+
+        mockMvc.perform(get("/api/socks/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byColor.BLACK").value(108))
+                .andExpect(jsonPath("$.total").value(202));
+    }
+
+    @Test
+    @DisplayName("Should report readiness only after the warm-up has run")
+    void testReadinessAfterWarmup() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+
+        assertEquals(1, meterRegistry.get("socks.warmup.duration").timer().count());
+        assertEquals(20, meterRegistry.get("socks.warmup.iterations").counter().count());
+    }
+
     @Test
     @DisplayName("Should update entry in database according to data provided")
     void testUpdateSock_Success() throws Exception {
@@ -271,6 +663,20 @@ public class SockControllerIT {
         assertEquals(200, savedSock.getQuantity());
     }
 
+    @Test
+    @DisplayName("Should report the phase breakdown in the Server-Timing header")
+    void testServerTimingHeader() throws Exception {
+        mockMvc.perform(get("/api/socks/sorted")
+                        .param("cottonPartMin", "0")
+                        .param("cottonPartMax", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("svc;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("db;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("map;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("ser;dur=")))
+                .andExpect(header().string("Server-Timing", containsString("total;dur=")));
+    }
+
     @Test
     @DisplayName("Should return list of sorted entities according to parameters provided")
     void testGetFilteredAndSortedSocks_Success() throws Exception {
@@ -299,4 +705,120 @@ public class SockControllerIT {
                 .andExpect(jsonPath("$[2].cottonPart").value(45))
                 .andDo(MockMvcResultHandlers.print());
     }
+
+    @Test
+    @DisplayName("Should replay quantity at a given moment from the latest snapshot and the ledger")
+    void testGetNumberOfSocksAsOf_Success() throws Exception {
+        jdbcTemplate.update("INSERT INTO stock_snapshot (id, taken_at) VALUES (1, clock_timestamp() - interval '1 hour')");
+        jdbcTemplate.update("INSERT INTO stock_snapshot_item (snapshot_id, color, cotton_part, quantity) " +
+                "SELECT 1, color, cotton_part, quantity FROM sock");
+
+        String beforeIncome = OffsetDateTime.now().minusSeconds(1).toString();
+
+        SockDto sockDto = SockDto.builder()
+                .color("purple")
+                .cottonPart(30)
+                .quantity(8)
+                .build();
+
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sockDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "purple")
+                        .param("operation", "moreThan")
+                        .param("cottonPart", "25")
+                        .param("asOf", beforeIncome))
+                .andExpect(status().isOk())
+                .andExpect(content().string("84"))
+                .andDo(MockMvcResultHandlers.print());
+
+        mockMvc.perform(get("/api/socks")
+                        .param("color", "purple")
+                        .param("operation", "moreThan")
+                        .param("cottonPart", "25")
+                        .param("asOf", OffsetDateTime.now().plusMinutes(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("92"))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    @DisplayName("Should write outbox events with each stock change and relay them in order")
+    void testStockChangesRelayedThroughOutbox() throws Exception {
+        InMemoryOutboxSink sink = (InMemoryOutboxSink) outboxEventSink;
+        sink.clear();
+
+        SockDto sockDto = SockDto.builder()
+                .color("black")
+                .cottonPart(15)
+                .quantity(42)
+                .build();
+
+        mockMvc.perform(post("/api/socks/income")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sockDto)))
+                .andExpect(status().isOk());
+
+        sockDto.setQuantity(10);
+        mockMvc.perform(post("/api/socks/outcome")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sockDto)))
+                .andExpect(status().isOk());
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_event WHERE aggregate_key = 'MAIN:BLACK:15'", Integer.class));
+
+        outboxRelay.relay();
+
+        List<OutboxEvent> published = sink.getPublished();
+        assertEquals(2, published.size());
+        assertEquals("INCOME", published.get(0).getEventType());
+        assertEquals(42, objectMapper.readTree(published.get(0).getPayload()).get("delta").asInt());
+        assertEquals("OUTCOME", published.get(1).getEventType());
+        assertEquals(-10, objectMapper.readTree(published.get(1).getPayload()).get("delta").asInt());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_event", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should accept and return protobuf when negotiated through Content-Type and Accept")
+    void testAddSockIncome_Protobuf() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        SockMessage.newBuilder().setColor(Color.BLACK).setCottonPart(15).setQuantity(2).build().writeDelimitedTo(body);
+        SockMessage.newBuilder().setColor(Color.WHITE).setCottonPart(5).setQuantity(3).build().writeDelimitedTo(body);
+
+        byte[] response = mockMvc.perform(post("/api/socks/income/batch")
+                        .contentType(SockProtobufHttpMessageConverter.PROTOBUF)
+                        .accept(SockProtobufHttpMessageConverter.PROTOBUF)
+                        .content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SockProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteArrayInputStream socks = new ByteArrayInputStream(response);
+        assertEquals(110, SockMessage.parseDelimitedFrom(socks).getQuantity());
+        assertEquals(3, SockMessage.parseDelimitedFrom(socks).getQuantity());
+
+        byte[] quantity = mockMvc.perform(get("/api/socks")
+                        .accept(SockProtobufHttpMessageConverter.PROTOBUF)
+                        .param("color", "black")
+                        .param("operation", "equal")
+                        .param("cottonPart", "15"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(110, QuantityMessage.parseFrom(quantity).getQuantity());
+    }
+
+    private void reserve(String color, int cottonPart, int quantity) throws Exception {
+        mockMvc.perform(post("/api/socks/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ReservationRequestDto.builder()
+                                .color(color)
+                                .cottonPart(cottonPart)
+                                .quantity(quantity)
+                                .build())))
+                .andExpect(status().isOk());
+    }
 }
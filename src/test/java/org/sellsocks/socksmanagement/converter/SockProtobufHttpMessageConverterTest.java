@@ -0,0 +1,91 @@
+package org.sellsocks.socksmanagement.converter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.model.proto.Color;
+import org.sellsocks.socksmanagement.model.proto.QuantityMessage;
+import org.sellsocks.socksmanagement.model.proto.SockMessage;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sellsocks.socksmanagement.converter.SockProtobufHttpMessageConverter.PROTOBUF;
+
+public class SockProtobufHttpMessageConverterTest {
+
+    private static final Type SOCK_LIST = new ParameterizedTypeReference<List<SockDto>>() {
+    }.getType();
+
+    private final SockProtobufHttpMessageConverter converter = new SockProtobufHttpMessageConverter();
+
+    @Test
+    @DisplayName("Protobuf color numbers should match SockColor ordinals")
+    void colorNumbersMatchOrdinals() {
+        for (SockColor color : SockColor.values()) {
+            assertEquals(color.name(), Color.forNumber(color.ordinal()).name());
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a single message and leave missing fields empty")
+    void readSingle() throws IOException {
+        byte[] body = SockMessage.newBuilder()
+                .setColor(Color.PURPLE)
+                .setQuantity(3)
+                .build()
+                .toByteArray();
+
+        SockDto sockDto = (SockDto) converter.read(SockDto.class, null, new MockHttpInputMessage(body));
+
+        assertEquals("PURPLE", sockDto.getColor());
+        assertEquals(3, sockDto.getQuantity());
+        assertNull(sockDto.getCottonPart());
+    }
+
+    @Test
+    @DisplayName("Should read and write length-delimited batches")
+    @SuppressWarnings("unchecked")
+    void readAndWriteBatch() throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        SockMessage.newBuilder().setColor(Color.RED).setCottonPart(10).setQuantity(1).build().writeDelimitedTo(body);
+        SockMessage.newBuilder().setColor(Color.BLACK).setCottonPart(90).setQuantity(2).build().writeDelimitedTo(body);
+
+        assertTrue(converter.canRead(SOCK_LIST, null, PROTOBUF));
+        List<SockDto> socks = (List<SockDto>) converter.read(SOCK_LIST, null,
+                new MockHttpInputMessage(body.toByteArray()));
+        assertEquals(List.of("RED", "BLACK"), socks.stream().map(SockDto::getColor).toList());
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(socks, SOCK_LIST, PROTOBUF, output);
+        ByteArrayInputStream written = new ByteArrayInputStream(output.getBodyAsBytes());
+        assertEquals(10, SockMessage.parseDelimitedFrom(written).getCottonPart());
+        assertEquals(90, SockMessage.parseDelimitedFrom(written).getCottonPart());
+        assertNull(SockMessage.parseDelimitedFrom(written));
+    }
+
+    @Test
+    @DisplayName("Should write quantities and pass unknown color numbers on for validation")
+    void writeQuantityAndUnknownColor() throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(84, int.class, PROTOBUF, output);
+        assertEquals(84, QuantityMessage.parseFrom(output.getBodyAsBytes()).getQuantity());
+
+        byte[] body = SockMessage.newBuilder().setColorValue(42).build().toByteArray();
+        SockDto sockDto = (SockDto) converter.read(SockDto.class, null, new MockHttpInputMessage(body));
+        assertEquals("42", sockDto.getColor());
+
+        assertFalse(converter.canWrite(String.class, String.class, PROTOBUF));
+    }
+}
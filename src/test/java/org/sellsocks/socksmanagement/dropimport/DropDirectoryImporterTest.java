@@ -0,0 +1,136 @@
+package org.sellsocks.socksmanagement.dropimport;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.sellsocks.socksmanagement.config.DropImportProperties;
+import org.sellsocks.socksmanagement.exception.InvalidSockParameterException;
+import org.sellsocks.socksmanagement.model.entity.ImportCheckpoint;
+import org.sellsocks.socksmanagement.model.enums.ImportCheckpointStatus;
+import org.sellsocks.socksmanagement.repository.ImportCheckpointRepository;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DropDirectoryImporterTest {
+
+    private static final String HEADER = "color,cottonPart,quantity\n";
+
+    @TempDir
+    Path directory;
+
+    private SockService sockService;
+    private ImportCheckpoint checkpoint;
+    private DropImportProperties properties;
+    private DropDirectoryImporter importer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sockService = mock(SockService.class);
+        ImportCheckpointRepository checkpointRepository = mock(ImportCheckpointRepository.class);
+        checkpoint = ImportCheckpoint.builder()
+                .fileName("socks.csv")
+                .modifiedAt(OffsetDateTime.now())
+                .status(ImportCheckpointStatus.IN_PROGRESS)
+                .build();
+        when(checkpointRepository.findForUpdate("socks.csv")).thenReturn(Optional.of(checkpoint));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        properties = new DropImportProperties();
+        properties.setDirectory(directory);
+        properties.setDoneDirectory(Files.createDirectory(directory.resolve("done")));
+        properties.setFailedDirectory(Files.createDirectory(directory.resolve("failed")));
+        properties.setChunkSize(2);
+        importer = new DropDirectoryImporter(properties, sockService, checkpointRepository, transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should resume a file right after the checkpointed line")
+    void importFile_ResumesFromCheckpoint() throws IOException {
+        String imported = HEADER + "red,10,1\nred,11,2\n";
+        Path file = write(imported + "red,12,3\nred,13,4\nred,14,5\n");
+        checkpoint.setByteOffset(imported.length());
+        checkpoint.setLineNumber(3);
+
+        assertTrue(importer.importFile(file));
+
+        ArgumentCaptor<List<String[]>> chunks = chunkCaptor();
+        ArgumentCaptor<Integer> firstLines = ArgumentCaptor.forClass(Integer.class);
+        verify(sockService, times(2)).processCsvChunk(chunks.capture(), firstLines.capture());
+        assertEquals(List.of(4, 6), firstLines.getAllValues());
+        assertArrayEquals(new String[]{"red", "12", "3"}, chunks.getAllValues().get(0).get(0));
+        assertArrayEquals(new String[]{"red", "14", "5"}, chunks.getAllValues().get(1).get(0));
+        assertEquals(Files.size(properties.getDoneDirectory().resolve("socks.csv")), checkpoint.getByteOffset());
+        assertEquals(6, checkpoint.getLineNumber());
+        assertEquals(ImportCheckpointStatus.DONE, checkpoint.getStatus());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("Should count CRLF line endings in the checkpointed offset")
+    void importFile_CrlfLineEndings() throws IOException {
+        String content = "color,cottonPart,quantity\r\nblack,15,7\r\n";
+        Path file = write(content);
+
+        assertTrue(importer.importFile(file));
+
+        ArgumentCaptor<List<String[]>> chunks = chunkCaptor();
+        verify(sockService).processCsvChunk(chunks.capture(), eq(2));
+        assertArrayEquals(new String[]{"black", "15", "7"}, chunks.getValue().get(0));
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, checkpoint.getByteOffset());
+    }
+
+    @Test
+    @DisplayName("Should move a rejected file to the failed directory and keep the checkpoint of committed chunks")
+    void importFile_RejectedFileMovedToFailed() throws IOException {
+        String firstChunk = HEADER + "red,10,1\nred,11,2\n";
+        Path file = write(firstChunk + "red,12,-3\n");
+        doThrow(new InvalidSockParameterException("Invalid quantity: -3. See CSV file line no. 4"))
+                .when(sockService).processCsvChunk(anyList(), eq(4));
+
+        assertTrue(importer.importFile(file));
+
+        verify(sockService).processCsvChunk(anyList(), eq(2));
+        assertEquals(firstChunk.length(), checkpoint.getByteOffset());
+        assertEquals(ImportCheckpointStatus.FAILED, checkpoint.getStatus());
+        assertEquals("Invalid quantity: -3. See CSV file line no. 4", checkpoint.getErrorMessage());
+        assertTrue(Files.exists(properties.getFailedDirectory().resolve("socks.csv")));
+        verify(sockService, times(2)).processCsvChunk(anyList(), anyInt());
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("socks.csv"), content);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<String[]>> chunkCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
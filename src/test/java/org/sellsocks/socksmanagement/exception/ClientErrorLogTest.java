@@ -0,0 +1,37 @@
+package org.sellsocks.socksmanagement.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.config.ErrorLogProperties;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ClientErrorLogTest {
+
+    @Test
+    @DisplayName("Should count every client error by exception type and status")
+    void record_CountsByTypeAndStatus() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ClientErrorLog clientErrorLog = new ClientErrorLog(new ErrorLogProperties(), meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            clientErrorLog.record(HttpStatus.BAD_REQUEST, new InvalidSockParameterException("Invalid sock color: X"));
+        }
+        clientErrorLog.record(HttpStatus.CONFLICT, new InsufficientStockException(1, 2));
+
+        assertEquals(100, meterRegistry.get("socks.errors.client")
+                .tag("type", "InvalidSockParameterException").tag("status", "400").counter().count());
+        assertEquals(1, meterRegistry.get("socks.errors.client")
+                .tag("type", "InsufficientStockException").tag("status", "409").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should create domain exceptions without capturing a stack trace")
+    void domainExceptions_AreStackless() {
+        assertEquals(0, new InvalidSockParameterException("Invalid sock color: X").getStackTrace().length);
+        assertEquals(0, new SockNotFoundException("Sock not found with id: 1").getStackTrace().length);
+        assertEquals(0, new InsufficientStockException(1, 2).getStackTrace().length);
+    }
+}
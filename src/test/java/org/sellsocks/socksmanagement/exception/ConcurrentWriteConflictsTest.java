@@ -0,0 +1,34 @@
+package org.sellsocks.socksmanagement.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentWriteConflictsTest {
+
+    @Test
+    @DisplayName("Should treat lock failures and unique violations as lost races")
+    void isConcurrentWriteConflict_LockFailureAndUniqueViolation() {
+        assertTrue(ConcurrentWriteConflicts.isConcurrentWriteConflict(new CannotAcquireLockException("deadlock")));
+        assertTrue(ConcurrentWriteConflicts.isConcurrentWriteConflict(new DuplicateKeyException("duplicate")));
+        assertTrue(ConcurrentWriteConflicts.isConcurrentWriteConflict(new DataIntegrityViolationException(
+                "could not execute statement", new RuntimeException(new SQLException("duplicate key", "23505")))));
+    }
+
+    @Test
+    @DisplayName("Should treat check and not-null violations as faults")
+    void isConcurrentWriteConflict_OtherIntegrityViolations() {
+        assertFalse(ConcurrentWriteConflicts.isConcurrentWriteConflict(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("check constraint", "23514"))));
+        assertFalse(ConcurrentWriteConflicts.isConcurrentWriteConflict(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("null value", "23502"))));
+        assertFalse(ConcurrentWriteConflicts.isConcurrentWriteConflict(new DataIntegrityViolationException("unknown")));
+    }
+}
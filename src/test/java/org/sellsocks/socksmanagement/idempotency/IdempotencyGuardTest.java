@@ -0,0 +1,178 @@
+package org.sellsocks.socksmanagement.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.config.IdempotencyProperties;
+import org.sellsocks.socksmanagement.exception.IdempotencyConflictException;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdempotencyGuardTest {
+
+    private static final UUID CLAIM_TOKEN = UUID.randomUUID();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SockDto request = SockDto.builder().color("PURPLE").cottonPart(30).quantity(5).build();
+    private final SockDto response = SockDto.builder().color("PURPLE").cottonPart(30).quantity(47).build();
+
+    private IdempotencyStore store;
+    private PlatformTransactionManager transactionManager;
+    private IdempotencyGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(IdempotencyStore.class);
+        when(store.complete(anyString(), anyString(), any(), anyString())).thenReturn(true);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setWaitTimeout(Duration.ofMillis(200));
+        guard = new IdempotencyGuard(store, properties, objectMapper, transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should run the write once and let a concurrent duplicate wait for its response")
+    void execute_ConcurrentDuplicatesWaitForOriginal() throws Exception {
+        when(store.claim(eq("income"), eq("key-1"), anyString(), any(), any())).thenReturn(Optional.of(CLAIM_TOKEN));
+        AtomicInteger writes = new AtomicInteger();
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SockDto> original = executor.submit(() -> guard.execute("income", "key-1", request,
+                    SockDto.class, () -> {
+                        writes.incrementAndGet();
+                        writeStarted.countDown();
+                        awaitUninterruptibly(release);
+                        return response;
+                    }));
+            writeStarted.await(5, TimeUnit.SECONDS);
+            Future<SockDto> duplicate = executor.submit(() -> guard.execute("income", "key-1", request,
+                    SockDto.class, () -> {
+                        writes.incrementAndGet();
+                        return response;
+                    }));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertEquals(47, original.get(5, TimeUnit.SECONDS).getQuantity());
+            assertEquals(47, duplicate.get(5, TimeUnit.SECONDS).getQuantity());
+            assertEquals(1, writes.get());
+            assertEquals(47, guard.execute("income", "key-1", request, SockDto.class, () -> {
+                throw new AssertionError("Write must not run for a replay");
+            }).getQuantity());
+            verify(store, times(1)).claim(eq("income"), eq("key-1"), anyString(), any(), any());
+            verify(store).complete(eq("income"), eq("key-1"), eq(CLAIM_TOKEN), anyString());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay a response completed on another node without running the write")
+    void execute_ReplaysRecordCompletedElsewhere() throws Exception {
+        String requestHash = hashOfRequest();
+        when(store.claim(eq("outcome"), eq("key-2"), anyString(), any(), any())).thenReturn(Optional.empty());
+        when(store.find("outcome", "key-2")).thenReturn(Optional.of(new IdempotencyRecord(requestHash,
+                IdempotencyStatus.COMPLETED, objectMapper.writeValueAsString(response), null)));
+
+        SockDto replayed = guard.execute("outcome", "key-2", request, SockDto.class, () -> {
+            throw new AssertionError("Write must not run for a replay");
+        });
+
+        assertEquals(47, replayed.getQuantity());
+        verify(store, never()).complete(anyString(), anyString(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for a different request")
+    void execute_RejectsKeyReusedForDifferentRequest() {
+        when(store.claim(eq("income"), eq("key-3"), anyString(), any(), any())).thenReturn(Optional.of(CLAIM_TOKEN));
+        guard.execute("income", "key-3", request, SockDto.class, () -> response);
+
+        SockDto otherRequest = SockDto.builder().color("PURPLE").cottonPart(30).quantity(6).build();
+        assertThrows(IdempotencyConflictException.class,
+                () -> guard.execute("income", "key-3", otherRequest, SockDto.class, () -> response));
+    }
+
+    @Test
+    @DisplayName("Should release the claim when the write fails so that a retry runs it again")
+    void execute_ReleasesClaimOnFailure() {
+        when(store.claim(eq("outcome"), eq("key-4"), anyString(), any(), any())).thenReturn(Optional.of(CLAIM_TOKEN));
+
+        assertThrows(IllegalStateException.class, () -> guard.execute("outcome", "key-4", request, SockDto.class,
+                () -> {
+                    throw new IllegalStateException("Not enough socks in stock");
+                }));
+
+        verify(store).release("outcome", "key-4", CLAIM_TOKEN);
+        assertEquals(47, guard.execute("outcome", "key-4", request, SockDto.class, () -> response).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should roll the write back when its claim was taken over by another request")
+    void execute_RollsBackWhenClaimTakenOver() {
+        when(store.claim(eq("outcome"), eq("key-6"), anyString(), any(), any())).thenReturn(Optional.of(CLAIM_TOKEN));
+        when(store.complete(eq("outcome"), eq("key-6"), eq(CLAIM_TOKEN), anyString())).thenReturn(false);
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> guard.execute("outcome", "key-6", request, SockDto.class, () -> response));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(store).release("outcome", "key-6", CLAIM_TOKEN);
+    }
+
+    @Test
+    @DisplayName("Should give up when the original keeps running on another node")
+    void execute_TimesOutWaitingForOtherNode() {
+        when(store.claim(eq("income"), eq("key-5"), anyString(), any(), any())).thenReturn(Optional.empty());
+        when(store.find("income", "key-5")).thenReturn(Optional.of(new IdempotencyRecord("other",
+                IdempotencyStatus.IN_PROGRESS, null, null)));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> guard.execute("income", "key-5", request, SockDto.class, () -> response));
+    }
+
+    private String hashOfRequest() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(request));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.sellsocks.socksmanagement.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sellsocks.socksmanagement.config.JfrProperties;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JfrRecordingEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrRecordingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        JfrProperties properties = new JfrProperties();
+        properties.setDirectory(directory);
+        endpoint = new JfrRecordingEndpoint(properties);
+    }
+
+    @Test
+    @DisplayName("Should record socks events and return them in the dumped file")
+    void startAndStop_RecordsEvents() throws Exception {
+        assertEquals("RUNNING", endpoint.start(Duration.ofMinutes(1)).state());
+
+        StockMovementEvent event = new StockMovementEvent();
+        event.begin();
+        event.setColor("BLACK");
+        event.setCottonPart(30);
+        event.setDelta(5);
+        event.setMovementType("INCOME");
+        event.commit();
+
+        WebEndpointResponse<Resource> response = endpoint.stop();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(response.getBody().getFile().toPath()).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("org.sellsocks.StockMovement"))
+                .toList();
+
+        assertEquals(1, events.size());
+        assertEquals("BLACK", events.get(0).getString("color"));
+        assertEquals(5, events.get(0).getInt("delta"));
+        assertEquals("NONE", endpoint.status().state());
+    }
+
+    @Test
+    @DisplayName("Should refuse a recording longer than the configured maximum")
+    void start_TooLong() {
+        assertThrows(IllegalArgumentException.class, () -> endpoint.start(Duration.ofHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should answer Not Found when no recording was started")
+    void stop_NoRecording() {
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.stop().getStatus());
+    }
+}
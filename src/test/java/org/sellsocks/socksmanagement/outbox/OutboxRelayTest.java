@@ -0,0 +1,95 @@
+package org.sellsocks.socksmanagement.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sellsocks.socksmanagement.config.OutboxProperties;
+import org.sellsocks.socksmanagement.model.entity.OutboxEvent;
+import org.sellsocks.socksmanagement.repository.OutboxEventRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final InMemoryOutboxSink sink = new InMemoryOutboxSink();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(3);
+        outboxRelay = new OutboxRelay(outboxEventRepository, sink, properties, transactionManager, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should publish and delete the locked batch in order")
+    void relayBatch_Success() {
+        List<OutboxEvent> batch = List.of(event(1, "RED:10"), event(2, "BLUE:20"), event(3, "RED:10"));
+        when(outboxEventRepository.lockNextBatch(3)).thenReturn(batch);
+        when(outboxEventRepository.findKeysWithEarlierEvents(anyCollection(), anyLong(), anyCollection()))
+                .thenReturn(List.of());
+
+        assertEquals(3, outboxRelay.relayBatch());
+
+        assertEquals(batch, sink.getPublished());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        assertEquals(3, meterRegistry.get("socks.outbox.published").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should hold back events of a key whose earlier event is locked by another relay")
+    void relayBatch_HoldsBackBlockedKey() {
+        List<OutboxEvent> batch = List.of(event(5, "RED:10"), event(6, "BLUE:20"));
+        when(outboxEventRepository.lockNextBatch(3)).thenReturn(batch);
+        when(outboxEventRepository.findKeysWithEarlierEvents(anyCollection(), anyLong(), anyCollection()))
+                .thenReturn(List.of("RED:10"));
+
+        assertEquals(1, outboxRelay.relayBatch());
+
+        assertEquals(List.of(batch.get(1)), sink.getPublished());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(6L));
+    }
+
+    @Test
+    @DisplayName("Should publish nothing when the outbox is empty")
+    void relayBatch_Empty() {
+        when(outboxEventRepository.lockNextBatch(3)).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+
+        assertEquals(List.of(), sink.getPublished());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyCollection());
+    }
+
+    private OutboxEvent event(long id, String key) {
+        return OutboxEvent.builder()
+                .id(id)
+                .createdAt(OffsetDateTime.now())
+                .aggregateKey(key)
+                .eventType("INCOME")
+                .payload("{}")
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package org.sellsocks.socksmanagement.reactive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.util.ContainerCreator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Uses its own database because the reactive handlers commit their changes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveSockApiIT {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void overrideSourceProperties(DynamicPropertyRegistry registry) {
+        ContainerCreator.registerOwnDatabase(registry, "reactive_sock_api", true);
+        registry.add("socks.outbox.relay-enabled", () -> false);
+    }
+
+    @Test
+    @DisplayName("Should upsert income and record it in the ledger and the outbox in one statement")
+    void testAddSockIncome_Success() {
+        webTestClient.post().uri("/api/socks/income")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("white").cottonPart(55).quantity(7).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.color").isEqualTo("WHITE")
+                .jsonPath("$.cottonPart").isEqualTo(55)
+                .jsonPath("$.quantity").isEqualTo(7);
+
+        webTestClient.post().uri("/api/socks/income")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("white").cottonPart(55).quantity(5).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(12);
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM stock_movement WHERE color = 'WHITE' AND cotton_part = 55", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM outbox_event WHERE aggregate_key = 'MAIN:WHITE:55'", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should subtract outcome only while enough socks are in stock")
+    void testSubtractSockOutcome_Guarded() {
+        webTestClient.post().uri("/api/socks/outcome")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("black").cottonPart(15).quantity(8).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(100);
+
+        webTestClient.post().uri("/api/socks/outcome")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("black").cottonPart(15).quantity(1000).build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        webTestClient.post().uri("/api/socks/outcome")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("green").cottonPart(99).quantity(1).build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should not subtract outcome from socks held by active reservations")
+    void testSubtractSockOutcome_RespectsReservations() {
+        webTestClient.post().uri("/api/socks/income")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("red").cottonPart(70).quantity(10).build())
+                .exchange()
+                .expectStatus().isOk();
+        jdbcTemplate.update("INSERT INTO sock_reservation (color, cotton_part, quantity, status, created_at, " +
+                "expires_at) VALUES ('RED', 70, 7, 'ACTIVE', now(), now() + interval '1 hour')");
+        jdbcTemplate.update("INSERT INTO sock_reservation (color, cotton_part, quantity, status, created_at, " +
+                "expires_at) VALUES ('RED', 70, 5, 'ACTIVE', now() - interval '2 hours', now() - interval '1 hour')");
+
+        webTestClient.post().uri("/api/socks/outcome")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("red").cottonPart(70).quantity(4).build())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        webTestClient.post().uri("/api/socks/outcome")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("red").cottonPart(70).quantity(3).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.quantity").isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should return the filtered quantity and reject invalid parameters")
+    void testGetNumberOfSocks() {
+        webTestClient.get().uri("/api/socks?color=purple&operation=moreThan&cottonPart=25")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Integer.class).isEqualTo(84);
+
+        webTestClient.get().uri("/api/socks?color=purple&operation=sideways&cottonPart=25")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.post().uri("/api/socks/income")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SockDto.builder().color("").cottonPart(15).quantity(0).build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
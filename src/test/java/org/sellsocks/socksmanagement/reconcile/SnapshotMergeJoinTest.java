@@ -0,0 +1,95 @@
+package org.sellsocks.socksmanagement.reconcile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.springframework.dao.DataRetrievalFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.BLACK;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.GREEN;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.PURPLE;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.WHITE;
+
+public class SnapshotMergeJoinTest {
+
+    @Test
+    @DisplayName("Should pair snapshot entries with stock rows regardless of the snapshot order")
+    void join_ClassifiesEveryKey() {
+        SnapshotQuantities snapshot = new SnapshotQuantities();
+        snapshot.put(WHITE, 100, 3);
+        snapshot.put(PURPLE, 30, 50);
+        snapshot.put(BLACK, 15, 108);
+        snapshot.put(BLACK, 0, 1);
+
+        List<String> diff = join(snapshot, List.of(
+                new Sock(BLACK, 15, 108),
+                new Sock(GREEN, 10, 5),
+                new Sock(PURPLE, 30, 42),
+                new Sock(PURPLE, 45, 42)));
+
+        assertEquals(List.of(
+                "insert BLACK 0 1",
+                "both BLACK 15 108->108",
+                "absent GREEN 10",
+                "both PURPLE 30 42->50",
+                "absent PURPLE 45",
+                "insert WHITE 100 3"), diff);
+    }
+
+    @Test
+    @DisplayName("Should handle an empty side")
+    void join_EmptySides() {
+        SnapshotQuantities snapshot = new SnapshotQuantities();
+        assertEquals(List.of("absent RED 20"), join(snapshot, List.of(new Sock(SockColor.RED, 20, 1))));
+
+        snapshot.put(GREEN, 0, 0);
+        assertEquals(List.of("insert GREEN 0 0"), join(snapshot, List.of()));
+    }
+
+    @Test
+    @DisplayName("Should reject a key listed twice in the snapshot")
+    void put_RejectsDuplicateKey() {
+        SnapshotQuantities snapshot = new SnapshotQuantities();
+        snapshot.put(BLACK, 15, 1);
+
+        assertFalse(snapshot.put(BLACK, 15, 2));
+        assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    @DisplayName("Should fail when stock rows are not in key order")
+    void join_RejectsUnorderedStock() {
+        List<Sock> unordered = List.of(new Sock(PURPLE, 30, 1), new Sock(BLACK, 15, 1));
+
+        assertThrows(DataRetrievalFailureException.class, () -> join(new SnapshotQuantities(), unordered));
+    }
+
+    private static List<String> join(SnapshotQuantities snapshot, List<Sock> stock) {
+        List<String> diff = new ArrayList<>();
+        SnapshotMergeJoin.join(snapshot, stock.iterator(), new SnapshotMergeJoin.DiffHandler() {
+            @Override
+            public void onlyInSnapshot(SockColor color, int cottonPart, int quantity) {
+                diff.add("insert " + color + " " + cottonPart + " " + quantity);
+            }
+
+            @Override
+            public void inBoth(Sock current, int snapshotQuantity) {
+                diff.add("both " + current.getColor() + " " + current.getCottonPart() + " " +
+                        current.getQuantity() + "->" + snapshotQuantity);
+            }
+
+            @Override
+            public void onlyInStock(Sock current) {
+                diff.add("absent " + current.getColor() + " " + current.getCottonPart());
+            }
+        });
+        return diff;
+    }
+}
@@ -0,0 +1,149 @@
+package org.sellsocks.socksmanagement.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.util.ContainerCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares per-warehouse reads of the list-partitioned {@code sock} table with the same reads of an unpartitioned
+ * copy holding the same rows and indexes, with 50 warehouses registered. The latencies are only reported, as
+ * they depend on the machine; the test asserts that a read of one warehouse is planned against that warehouse's
+ * partition alone and that both layouts return the same results.
+ */
+@SpringBootTest
+public class SockPartitionBenchmarkIT {
+
+    private static final Logger log = LoggerFactory.getLogger(SockPartitionBenchmarkIT.class);
+
+    private static final int WAREHOUSES = 50;
+    private static final int WARMUP_RUNS = 100;
+    private static final int MEASURED_RUNS = 1000;
+
+    private static final String QUANTITY_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM %s WHERE warehouse = ? AND color = ? AND cotton_part > ?";
+    private static final String SORTED_SQL = "SELECT id, color, cotton_part, quantity FROM %s " +
+            "WHERE warehouse = ? AND cotton_part BETWEEN ? AND ? ORDER BY quantity DESC";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void overrideSourceProperties(DynamicPropertyRegistry registry) {
+        ContainerCreator.registerOwnDatabase(registry, "sock_partition_benchmark", false);
+        registry.add("socks.outbox.relay-enabled", () -> false);
+    }
+
+    @BeforeAll
+    static void seed(@Autowired JdbcTemplate jdbcTemplate, @Autowired WarehouseService warehouseService) {
+        for (int i = 1; i < WAREHOUSES; i++) {
+            warehouseService.registerWarehouse("W%02d".formatted(i));
+        }
+        jdbcTemplate.update("""
+                INSERT INTO sock (warehouse, color, cotton_part, quantity)
+                SELECT w.code, color, cotton_part, (cotton_part * 7 + length(color) + length(w.code)) % 500
+                FROM warehouse w,
+                     unnest(ARRAY['RED', 'PINK', 'GREEN', 'PURPLE', 'BLACK', 'WHITE']) AS color,
+                     generate_series(0, 100) AS cotton_part
+                ON CONFLICT (color, cotton_part, attributes, warehouse) DO NOTHING
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE sock_unpartitioned AS SELECT * FROM sock;
+                ALTER TABLE sock_unpartitioned ADD PRIMARY KEY (id);
+                ALTER TABLE sock_unpartitioned ADD UNIQUE (color, cotton_part, attributes, warehouse)
+                    INCLUDE (quantity, id);
+                CREATE INDEX ON sock_unpartitioned (cotton_part) INCLUDE (color, quantity, id, attributes, warehouse);
+                CREATE INDEX ON sock_unpartitioned (quantity) INCLUDE (color, cotton_part, id, attributes, warehouse);
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE sock");
+        jdbcTemplate.execute("VACUUM ANALYZE sock_unpartitioned");
+    }
+
+    @Test
+    @DisplayName("Should read only the partition of the requested warehouse")
+    void testWarehouseReadPrunesToOnePartition() throws Exception {
+        assertEquals(Set.of("sock_wh_w17"), scannedRelations(
+                "SELECT COALESCE(SUM(quantity), 0) FROM sock " +
+                        "WHERE warehouse = 'W17' AND color = 'BLACK' AND cotton_part > 30"));
+        assertEquals(Set.of("sock_wh_w17"), scannedRelations(
+                "SELECT id, color, cotton_part, quantity FROM sock " +
+                        "WHERE warehouse = 'W17' AND cotton_part BETWEEN 20 AND 40 ORDER BY quantity DESC"));
+    }
+
+    @Test
+    @DisplayName("Should report per-warehouse read latency of the partitioned and the unpartitioned layout")
+    void testWarehouseReadLatency() {
+        Integer partitioned = jdbcTemplate.queryForObject(QUANTITY_SQL.formatted("sock"), Integer.class,
+                "W17", "BLACK", 30);
+        Integer unpartitioned = jdbcTemplate.queryForObject(QUANTITY_SQL.formatted("sock_unpartitioned"),
+                Integer.class, "W17", "BLACK", 30);
+        assertEquals(unpartitioned, partitioned);
+        assertEquals(jdbcTemplate.queryForList(SORTED_SQL.formatted("sock_unpartitioned"), "W17", 20, 40).size(),
+                jdbcTemplate.queryForList(SORTED_SQL.formatted("sock"), "W17", 20, 40).size());
+
+        for (String table : new String[]{"sock", "sock_unpartitioned"}) {
+            int[] run = new int[1];
+            report("quantity", table, () -> jdbcTemplate.queryForObject(QUANTITY_SQL.formatted(table),
+                    Integer.class, warehouse(run[0]++), "BLACK", 30));
+            report("sorted", table, () -> jdbcTemplate.queryForList(SORTED_SQL.formatted(table),
+                    warehouse(run[0]++), 20, 40));
+        }
+    }
+
+    private void report(String query, String table, Supplier<?> read) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            read.get();
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            read.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        log.info("{} read of one warehouse from {}: p50={} us, p99={} us", query, table,
+                nanos[MEASURED_RUNS / 2] / 1_000, nanos[MEASURED_RUNS * 99 / 100] / 1_000);
+    }
+
+    /**
+     * Spreads the measured reads over every warehouse but MAIN, so no single partition stays hot in the caches.
+     */
+    private static String warehouse(int run) {
+        return "W%02d".formatted(run % (WAREHOUSES - 1) + 1);
+    }
+
+    private Set<String> scannedRelations(String sql) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        Set<String> relations = new TreeSet<>();
+        collectRelations(objectMapper.readTree(plan).get(0).get("Plan"), relations);
+        return relations;
+    }
+
+    private static void collectRelations(JsonNode node, Set<String> relations) {
+        if (node.has("Relation Name")) {
+            relations.add(node.get("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectRelations(child, relations);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.sellsocks.socksmanagement.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
+import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.service.SockService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.util.ContainerCreator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Guards the sock indexes against plan regressions. Every query the application sends for a sock read is
+ * captured from Hibernate and explained as a generic plan, which is what a prepared statement settles on after
+ * a few executions, against a fully seeded and analyzed table built by the Liquibase changelog. A sequential
+ * scan over a table with more than {@link #SEQ_SCAN_ROW_THRESHOLD} rows fails the test. {@code GENERIC_PLAN}
+ * needs PostgreSQL 16 or later.
+ */
+@SpringBootTest
+public class SockQueryPlanIT {
+
+    private static final int SEQ_SCAN_ROW_THRESHOLD = 100;
+
+    @Autowired
+    SockRepository sockRepository;
+
+    @Autowired
+    SockService sockService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void overrideSourceProperties(DynamicPropertyRegistry registry) {
+        ContainerCreator.registerOwnDatabase(registry, "sock_query_plan", false);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                CapturingStatementInspector.class::getName);
+        registry.add("socks.outbox.relay-enabled", () -> false);
+    }
+
+    @BeforeAll
+    static void seed(@Autowired JdbcTemplate jdbcTemplate, @Autowired WarehouseService warehouseService) {
+        jdbcTemplate.update("""
+                INSERT INTO sock (color, cotton_part, quantity)
+                SELECT color, cotton_part, (cotton_part * 7 + length(color)) % 500
+                FROM unnest(ARRAY['RED', 'PINK', 'GREEN', 'PURPLE', 'BLACK', 'WHITE']) AS color,
+                     generate_series(0, 100) AS cotton_part
+                ON CONFLICT (color, cotton_part, attributes, warehouse) DO NOTHING
+                """);
+        jdbcTemplate.execute("VACUUM ANALYZE sock");
+        // Looks the default warehouse up once, so the captured reads are only the sock queries
+        warehouseService.requireRegistered(Warehouse.DEFAULT_CODE);
+    }
+
+    static Stream<Arguments> sockQueries() {
+        return Stream.of(
+                query("findByColorAndCottonPart",
+                        (repository, service) -> repository.findByColorAndCottonPart(SockColor.BLACK, 30)),
+                query("findByColorAndCottonPartAndIdNot",
+                        (repository, service) -> repository.findByColorAndCottonPartAndIdNot(SockColor.BLACK, 30, 1L)),
+                query("findQuantityByColorAndCottonPart",
+                        (repository, service) -> repository.findQuantityByColorAndCottonPart(SockColor.BLACK, 30)),
+                query("sumQuantitiesByColorAndCottonPart",
+                        (repository, service) -> repository.sumQuantitiesByColorAndCottonPart(
+                                Warehouse.DEFAULT_CODE, Set.of(SockColor.BLACK, SockColor.WHITE))),
+                query("quantity with moreThan",
+                        (repository, service) -> service.getFilteredSocksQuantity("black", "moreThan", 30)),
+                query("quantity with equal",
+                        (repository, service) -> service.getFilteredSocksQuantity("black", "equal", 30)),
+                query("sorted by quantity within a cotton range",
+                        (repository, service) -> service.getFilteredAndSortedSocks(null, 20, 40, "quantity", "desc")),
+                query("sorted by cotton part for a color",
+                        (repository, service) -> service.getFilteredAndSortedSocks("white", null, null, "cottonPart", "asc")),
+                query("sorted by quantity without filters",
+                        (repository, service) -> service.getFilteredAndSortedSocks(null, null, null, "quantity", "asc")),
+                query("sorted by color without filters",
+                        (repository, service) -> service.getFilteredAndSortedSocks(null, null, null, "color", "asc")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("sockQueries")
+    @DisplayName("Should not fall back to a sequential scan of a large table")
+    void testQueryPlanAvoidsSequentialScan(String name, BiConsumer<SockRepository, SockService> call) throws Exception {
+        CapturingStatementInspector.CAPTURED.clear();
+        call.accept(sockRepository, sockService);
+
+        List<String> selects = CapturingStatementInspector.CAPTURED.stream()
+                .filter(sql -> sql.stripLeading().toLowerCase().startsWith("select"))
+                .toList();
+        assertEquals(1, selects.size(), "Expected exactly one select for " + name + ": " + selects);
+
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + toNumberedParameters(selects.get(0)), String.class);
+        JsonNode root = objectMapper.readTree(plan).get(0).get("Plan");
+
+        List<String> violations = new ArrayList<>();
+        collectLargeSequentialScans(root, violations);
+        if (!violations.isEmpty()) {
+            fail(name + " scans " + violations + " sequentially:\n" + selects.get(0) + "\n" + root.toPrettyString());
+        }
+    }
+
+    private void collectLargeSequentialScans(JsonNode node, List<String> violations) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            String relation = node.path("Relation Name").asText();
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE relname = ?", Long.class, relation);
+            if (rows != null && rows > SEQ_SCAN_ROW_THRESHOLD) {
+                violations.add(relation + " (" + rows + " rows)");
+            }
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectLargeSequentialScans(child, violations);
+        }
+    }
+
+    /**
+     * Rewrites JDBC placeholders into the {@code $n} form that {@code EXPLAIN (GENERIC_PLAN)} accepts.
+     */
+    private static String toNumberedParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 8);
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static Arguments query(String name, BiConsumer<SockRepository, SockService> call) {
+        return Arguments.of(name, call);
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> CAPTURED = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            CAPTURED.add(sql);
+            return sql;
+        }
+    }
+}
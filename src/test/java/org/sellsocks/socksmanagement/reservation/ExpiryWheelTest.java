@@ -0,0 +1,68 @@
+package org.sellsocks.socksmanagement.reservation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class ExpiryWheelTest {
+
+    @Test
+    @DisplayName("Should return ids once their expiry has passed, and not before")
+    void advance_ReturnsDueIds() {
+        ExpiryWheel wheel = new ExpiryWheel(Duration.ofSeconds(1), 8, 100, 0);
+        wheel.schedule(1, 1_500);
+        wheel.schedule(2, 3_000);
+        wheel.schedule(3, 2_000);
+
+        assertArrayEquals(new long[0], wheel.advance(1_000));
+        assertArrayEquals(new long[]{1, 3}, sorted(wheel.advance(2_000)));
+        assertArrayEquals(new long[]{2}, wheel.advance(3_000));
+        assertEquals(0, wheel.getTracked());
+    }
+
+    @Test
+    @DisplayName("Should keep entries of later revolutions in their slot")
+    void advance_KeepsLaterRevolutions() {
+        ExpiryWheel wheel = new ExpiryWheel(Duration.ofSeconds(1), 4, 100, 0);
+        wheel.schedule(1, 2_000);
+        wheel.schedule(2, 6_000);
+
+        assertArrayEquals(new long[]{1}, wheel.advance(2_000));
+        assertEquals(1, wheel.getTracked());
+        assertArrayEquals(new long[0], wheel.advance(5_000));
+        assertArrayEquals(new long[]{2}, wheel.advance(6_000));
+    }
+
+    @Test
+    @DisplayName("Should catch up after a pause longer than a full revolution")
+    void advance_CatchesUpAfterLongPause() {
+        ExpiryWheel wheel = new ExpiryWheel(Duration.ofSeconds(1), 4, 100, 0);
+        for (long id = 1; id <= 10; id++) {
+            wheel.schedule(id, id * 1_000);
+        }
+
+        assertEquals(10, wheel.advance(60_000).length);
+        assertEquals(0, wheel.getTracked());
+    }
+
+    @Test
+    @DisplayName("Should expire past-due entries on the next tick and refuse entries beyond capacity")
+    void schedule_PastDueAndCapacity() {
+        ExpiryWheel wheel = new ExpiryWheel(Duration.ofSeconds(1), 8, 1, 10_000);
+        wheel.schedule(1, 5_000);
+
+        assertFalse(wheel.schedule(2, 20_000));
+        assertArrayEquals(new long[]{1}, wheel.advance(11_000));
+    }
+
+    private static long[] sorted(long[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+}
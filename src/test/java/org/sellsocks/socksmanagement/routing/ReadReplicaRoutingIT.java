@@ -0,0 +1,106 @@
+package org.sellsocks.socksmanagement.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against two independent databases standing in for a primary and its replica; the replica's data is
+ * changed on purpose so that every response shows where it was read from.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+public class ReadReplicaRoutingIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:latest")
+            .withInitScript("schema_for_sock_controller.sql");
+
+    @Container
+    private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:latest")
+            .withInitScript("schema_for_sock_controller.sql");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void overrideSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("spring.datasource.driver-class-name", primary::getDriverClassName);
+        registry.add("socks.warmup.iterations", () -> 20);
+        registry.add("spring.liquibase.enabled", () -> false);
+        registry.add("socks.outbox.sink", () -> "memory");
+        registry.add("socks.datasource.replica.enabled", () -> true);
+        registry.add("socks.datasource.replica.url", replica::getJdbcUrl);
+        registry.add("socks.datasource.replica.username", replica::getUsername);
+        registry.add("socks.datasource.replica.password", replica::getPassword);
+        registry.add("socks.datasource.replica.read-your-writes-window", () -> "PT1M");
+    }
+
+    @Test
+    @DisplayName("Should read from the replica, write to the primary and pin a writing client to the primary")
+    void testReadWriteRouting() throws Exception {
+        new JdbcTemplate(replicaDataSource).update("UPDATE sock SET quantity = 0 WHERE color = 'PURPLE'");
+
+        mockMvc.perform(quantityRequest("reader"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+
+        SockDto sockDto = SockDto.builder()
+                .color("purple")
+                .cottonPart(30)
+                .quantity(8)
+                .build();
+        mockMvc.perform(post("/api/socks/income")
+                        .header("X-Client-Id", "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sockDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(quantityRequest("writer"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("92"));
+
+        mockMvc.perform(quantityRequest("reader"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0"));
+    }
+
+    private static RequestBuilder quantityRequest(String clientId) {
+        return get("/api/socks")
+                .header("X-Client-Id", clientId)
+                .param("color", "purple")
+                .param("operation", "moreThan")
+                .param("cottonPart", "25");
+    }
+}
@@ -0,0 +1,105 @@
+package org.sellsocks.socksmanagement.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(tracker, "X-Client-Id");
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Should pin the client when its write commits, before the response is committed")
+    void doFilter_PinsOnCommit() throws Exception {
+        AtomicBoolean pinnedBeforeResponse = new AtomicBoolean();
+
+        filter.doFilter(request("POST", "writer"), new MockHttpServletResponse(), new MockFilterChain(
+                new TransactionServlet(false, () -> pinnedBeforeResponse.set(tracker.isPinned("writer")))));
+
+        assertTrue(pinnedBeforeResponse.get());
+        assertTrue(tracker.isPinned("writer"));
+        assertNull(RoutingContext.getWriteCommitListener());
+    }
+
+    @Test
+    @DisplayName("Should not pin the client for read-only transactions or writes that roll back")
+    void doFilter_DoesNotPinWithoutCommittedWrite() throws Exception {
+        filter.doFilter(request("GET", "reader"), new MockHttpServletResponse(),
+                new MockFilterChain(new TransactionServlet(true, () -> {
+                })));
+        filter.doFilter(request("POST", "failed"), new MockHttpServletResponse(),
+                new MockFilterChain(new RollbackServlet()));
+
+        assertFalse(tracker.isPinned("reader"));
+        assertFalse(tracker.isPinned("failed"));
+    }
+
+    private static MockHttpServletRequest request(String method, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/socks/income");
+        request.addHeader("X-Client-Id", clientId);
+        return request;
+    }
+
+    /**
+     * Runs a transaction the way the transaction manager drives it: routes its first statement, then commits.
+     */
+    private static class TransactionServlet extends HttpServlet {
+
+        private final boolean readOnly;
+        private final Runnable beforeResponse;
+
+        TransactionServlet(boolean readOnly, Runnable beforeResponse) {
+            this.readOnly = readOnly;
+            this.beforeResponse = beforeResponse;
+        }
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+            new ReadWriteRoutingDataSource().determineCurrentLookupKey();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            beforeResponse.run();
+            response.setStatus(200);
+        }
+    }
+
+    private static class RollbackServlet extends HttpServlet {
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            TransactionSynchronizationManager.initSynchronization();
+            new ReadWriteRoutingDataSource().determineCurrentLookupKey();
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            response.setStatus(409);
+        }
+    }
+}
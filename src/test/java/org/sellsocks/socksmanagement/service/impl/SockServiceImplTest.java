@@ -5,32 +5,60 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sellsocks.socksmanagement.mapper.SockMapper;
+import org.sellsocks.socksmanagement.model.dto.QuantityQueryDto;
 import org.sellsocks.socksmanagement.model.dto.SockDto;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
 import org.sellsocks.socksmanagement.model.entity.Sock;
+import org.sellsocks.socksmanagement.model.entity.Warehouse;
 import org.sellsocks.socksmanagement.model.enums.SockColor;
+import org.sellsocks.socksmanagement.model.enums.MovementType;
 import org.sellsocks.socksmanagement.repository.SockRepository;
+import org.sellsocks.socksmanagement.repository.SockReservationRepository;
+import org.sellsocks.socksmanagement.repository.projection.ColorCottonPartQuantity;
+import org.sellsocks.socksmanagement.service.StockLedgerService;
+import org.sellsocks.socksmanagement.service.WarehouseService;
+import org.sellsocks.socksmanagement.validation.SockParametersValidator;
+import org.sellsocks.socksmanagement.writebehind.WriteBehindIncomeBuffer;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.sellsocks.socksmanagement.model.enums.SockColor.BLACK;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.PURPLE;
 
 @ExtendWith(MockitoExtension.class)
 public class SockServiceImplTest {
 
+    private static final String MAIN = Warehouse.DEFAULT_CODE;
+
     private Sock existingSock;
     private Sock updatedSock;
     private Sock outputSock;
@@ -44,6 +72,24 @@ public class SockServiceImplTest {
     @Mock
     private SockMapper sockMapper;
 
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private WriteBehindIncomeBuffer writeBehindIncomeBuffer;
+
+    @Mock
+    private SockReservationRepository reservationRepository;
+
+    @Mock
+    private WarehouseService warehouseService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private SockParametersValidator validator = new SockParametersValidator();
+
     @InjectMocks
     private SockServiceImpl sockService;
 
@@ -94,8 +140,8 @@ public class SockServiceImplTest {
                 .quantity(150)
                 .build();
 
-        when(sockRepository.findByColorAndCottonPart(color, cottonPart))
-                .thenReturn(Optional.of(existingSock));
+        when(sockRepository.findOrCreateForUpdate(MAIN, color, cottonPart, ""))
+                .thenReturn(existingSock);
         when(sockRepository.save(Mockito.any(Sock.class)))
                 .thenReturn(updatedSock);
 
@@ -106,13 +152,75 @@ public class SockServiceImplTest {
         assertNotNull(result);
         assertEquals(expectedDto, result);
 
-        verify(sockRepository).findByColorAndCottonPart(color, cottonPart);
+        verify(sockRepository).findOrCreateForUpdate(MAIN, color, cottonPart, "");
         verify(sockRepository).save(argThat(sock ->
                 sock.getColor().equals(color) &&
                         sock.getCottonPart() == cottonPart &&
                         sock.getQuantity() == 150
         ));
         verify(sockMapper).toSockDto(updatedSock);
+        verify(stockLedgerService).recordMovement(MAIN, color, cottonPart, "", deltaQuantity, MovementType.INCOME);
+    }
+
+    @Test
+    @DisplayName("Should acknowledge income from the write-behind log without touching the database row")
+    @SuppressWarnings("unchecked")
+    void addSockIncome_WriteBehind() {
+        Sock inputSock = Sock.builder()
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(deltaQuantity)
+                .build();
+        SockKey key = new SockKey(color, cottonPart);
+
+        SockDto expectedDto = SockDto.builder()
+                .color(color.toString())
+                .cottonPart(cottonPart)
+                .quantity(150)
+                .build();
+
+        when(writeBehindIncomeBuffer.isEnabled()).thenReturn(true);
+        when(writeBehindIncomeBuffer.readWithPendingIncome(any(Supplier.class), any(BiFunction.class)))
+                .thenAnswer(invocation -> {
+                    Supplier<Integer> databaseRead = invocation.getArgument(0);
+                    BiFunction<Integer, Map<SockKey, Integer>, Integer> combiner = invocation.getArgument(1);
+                    return combiner.apply(databaseRead.get(), Map.of(key, deltaQuantity));
+                });
+        when(sockRepository.findQuantityByColorAndCottonPart(color, cottonPart)).thenReturn(Optional.of(100));
+        when(sockMapper.toSockDto(argThat(sock -> sock.getQuantity() == 150))).thenReturn(expectedDto);
+
+        SockDto result = sockService.addSockIncome(inputSock);
+
+        assertEquals(expectedDto, result);
+        verify(writeBehindIncomeBuffer).append(key, deltaQuantity);
+        verify(sockRepository, never()).save(any(Sock.class));
+        verifyNoInteractions(stockLedgerService, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should write idempotent income in a transaction with its callback even with write-behind enabled")
+    void addSockIncome_IdempotentBypassesWriteBehind() {
+        Sock inputSock = Sock.builder()
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(deltaQuantity)
+                .build();
+        when(writeBehindIncomeBuffer.isEnabled()).thenReturn(true);
+        when(sockRepository.findOrCreateForUpdate(MAIN, color, cottonPart, "")).thenReturn(existingSock);
+        when(sockRepository.save(existingSock)).thenReturn(existingSock);
+        List<SockDto> stored = new ArrayList<>();
+
+        sockService.addSockIncome(inputSock, stored::add);
+
+        InOrder inOrder = inOrder(writeBehindIncomeBuffer, transactionManager, sockRepository, stockLedgerService);
+        inOrder.verify(writeBehindIncomeBuffer).applyPendingFor(new SockKey(color, cottonPart));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(sockRepository).findOrCreateForUpdate(MAIN, color, cottonPart, "");
+        inOrder.verify(stockLedgerService)
+                .recordMovement(MAIN, color, cottonPart, "", deltaQuantity, MovementType.INCOME);
+        inOrder.verify(transactionManager).commit(any());
+        verify(writeBehindIncomeBuffer, never()).append(any(), anyInt());
+        assertEquals(1, stored.size());
     }
 
     @Test
@@ -131,7 +239,7 @@ public class SockServiceImplTest {
                 .quantity(50)
                 .build();
 
-        when(sockRepository.findByColorAndCottonPart(BLACK, cottonPart))
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
                 .thenReturn(Optional.of(existingSock));
         when(sockMapper.toSockDto(updatedSock))
                 .thenReturn(expectedDto);
@@ -141,14 +249,47 @@ public class SockServiceImplTest {
         assertNotNull(result);
         assertEquals(expectedDto, result);
 
-        verify(sockRepository).findByColorAndCottonPart(BLACK, cottonPart);
+        verify(sockRepository).findForUpdate(MAIN, BLACK, cottonPart, "");
         verify(sockMapper).toSockDto(updatedSock);
+        verify(stockLedgerService).recordMovement(MAIN, BLACK, cottonPart, "", -deltaQuantity, MovementType.OUTCOME);
+    }
+
+    @Test
+    @DisplayName("Should apply pending write-behind income before the outcome's transaction starts")
+    void subtractSockOutcome_AppliesPendingIncomeFirst() {
+        when(writeBehindIncomeBuffer.isEnabled()).thenReturn(true);
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
+                .thenReturn(Optional.of(existingSock));
+
+        sockService.subtractSockOutcome(outputSock);
+
+        InOrder inOrder = inOrder(writeBehindIncomeBuffer, transactionManager, sockRepository);
+        inOrder.verify(writeBehindIncomeBuffer).applyPendingFor(new SockKey(BLACK, cottonPart));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(sockRepository).findForUpdate(MAIN, BLACK, cottonPart, "");
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should read the sock of an outcome only under its row lock")
+    void subtractSockOutcome_ReadsSockForUpdate() {
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
+                .thenReturn(Optional.of(existingSock));
+
+        sockService.subtractSockOutcome(outputSock);
+        sockService.subtractSockOutcomeBatch(List.of(outputSock));
+
+        verify(sockRepository, times(2)).findForUpdate(MAIN, BLACK, cottonPart, "");
+        verify(sockRepository, never()).findByWarehouseAndColorAndCottonPartAndAttributes(any(), any(), anyInt(),
+                any());
+        verify(sockRepository, never()).findByColorAndCottonPart(any(), anyInt());
+        verify(sockRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("Should throw EntityNotFoundException if socks are not found")
     void subtractSockOutcome_NotFound() {
-        when(sockRepository.findByColorAndCottonPart(BLACK, cottonPart))
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
                 .thenReturn(Optional.empty());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
@@ -157,7 +298,7 @@ public class SockServiceImplTest {
         assertEquals("No socks found with given parameters: color = BLACK, cotton percentage = 30",
                 exception.getMessage());
 
-        verify(sockRepository).findByColorAndCottonPart(BLACK, cottonPart);
+        verify(sockRepository).findForUpdate(MAIN, BLACK, cottonPart, "");
         verifyNoMoreInteractions(sockRepository);
         verifyNoInteractions(sockMapper);
     }
@@ -171,7 +312,7 @@ public class SockServiceImplTest {
                 .quantity(101)
                 .build();
 
-        when(sockRepository.findByColorAndCottonPart(BLACK, cottonPart))
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
                 .thenReturn(Optional.of(existingSock));
 
         IllegalStateException exception = assertThrows(IllegalStateException.class,
@@ -179,8 +320,125 @@ public class SockServiceImplTest {
 
         assertEquals("Not enough socks in stock: available=100, requested=101", exception.getMessage());
 
-        verify(sockRepository).findByColorAndCottonPart(BLACK, cottonPart);
+        verify(sockRepository).findForUpdate(MAIN, BLACK, cottonPart, "");
         verifyNoMoreInteractions(sockRepository);
-        verifyNoInteractions(sockMapper);
+        verifyNoInteractions(sockMapper, stockLedgerService);
+    }
+
+    @Test
+    @DisplayName("Should not subtract stock held by active reservations")
+    void subtractSockOutcome_HeldByReservations() {
+        outputSock = Sock.builder()
+                .color(color)
+                .cottonPart(cottonPart)
+                .quantity(80)
+                .build();
+
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
+                .thenReturn(Optional.of(existingSock));
+        when(reservationRepository.sumHeldQuantity(eq(MAIN), eq(BLACK), eq(cottonPart), any())).thenReturn(30L);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> sockService.subtractSockOutcome(outputSock));
+
+        assertEquals("Not enough socks in stock: available=70, requested=80", exception.getMessage());
+        assertEquals(100, existingSock.getQuantity());
+        verifyNoInteractions(sockMapper, stockLedgerService);
+    }
+
+    @Test
+    @DisplayName("Should reject an empty outcome batch")
+    void subtractSockOutcomeBatch_Empty() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> sockService.subtractSockOutcomeBatch(List.of()));
+
+        assertEquals("Batch must contain at least one sock", exception.getMessage());
+        verifyNoInteractions(sockRepository, stockLedgerService);
+    }
+
+    @Test
+    @DisplayName("Should subtract every entry of an outcome batch")
+    void subtractSockOutcomeBatch_Success() {
+        Sock otherSock = Sock.builder()
+                .id(2L)
+                .color(color)
+                .cottonPart(60)
+                .quantity(20)
+                .build();
+        Sock otherOutcome = Sock.builder()
+                .color(color)
+                .cottonPart(60)
+                .quantity(5)
+                .build();
+
+        when(sockRepository.findForUpdate(MAIN, BLACK, cottonPart, ""))
+                .thenReturn(Optional.of(existingSock));
+        when(sockRepository.findForUpdate(MAIN, BLACK, 60, ""))
+                .thenReturn(Optional.of(otherSock));
+        when(sockMapper.toSockDto(any(Sock.class)))
+                .thenAnswer(invocation -> SockDto.builder()
+                        .quantity(invocation.<Sock>getArgument(0).getQuantity())
+                        .build());
+
+        List<SockDto> result = sockService.subtractSockOutcomeBatch(List.of(outputSock, otherOutcome));
+
+        assertEquals(List.of(50, 15), result.stream().map(SockDto::getQuantity).toList());
+        verify(stockLedgerService).recordMovement(MAIN, BLACK, cottonPart, "", -deltaQuantity, MovementType.OUTCOME);
+        verify(stockLedgerService).recordMovement(MAIN, BLACK, 60, "", -5, MovementType.OUTCOME);
+    }
+
+    @Test
+    @DisplayName("Should answer every quantity query from one grouped read")
+    void getSocksQuantities_Success() {
+        when(writeBehindIncomeBuffer.isEnabled()).thenReturn(false);
+        when(sockRepository.sumQuantitiesByColorAndCottonPart(MAIN, Set.of(BLACK, PURPLE))).thenReturn(List.of(
+                row(BLACK, 15, 108L),
+                row(PURPLE, 30, 42L),
+                row(PURPLE, 45, 42L)));
+
+        List<Integer> result = sockService.getSocksQuantities(List.of(
+                QuantityQueryDto.builder().colors(List.of("purple")).operation("moreThan").cottonPart(30).build(),
+                QuantityQueryDto.builder().colors(List.of("purple", "black")).operation("lessThan").cottonPart(45).build(),
+                QuantityQueryDto.builder().colors(List.of("black")).operation("equal").cottonPart(15).build(),
+                QuantityQueryDto.builder().colors(List.of("purple", "black")).cottonPartMin(15).cottonPartMax(45).build()));
+
+        assertEquals(List.of(42, 150, 108, 192), result);
+        verify(sockRepository).sumQuantitiesByColorAndCottonPart(MAIN, Set.of(BLACK, PURPLE));
+        verifyNoMoreInteractions(sockRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a quantity query that mixes an operation with a cotton range")
+    void getSocksQuantities_MixedCriteria() {
+        List<QuantityQueryDto> queries = List.of(
+                QuantityQueryDto.builder().colors(List.of("black")).cottonPartMin(10).cottonPartMax(20).build(),
+                QuantityQueryDto.builder().colors(List.of("black")).operation("equal").cottonPart(15)
+                        .cottonPartMin(10).build());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> sockService.getSocksQuantities(queries));
+
+        assertEquals("Query #2: an operation requires cottonPart and cannot be combined with " +
+                "cottonPartMin/cottonPartMax", exception.getMessage());
+        verifyNoInteractions(sockRepository);
+    }
+
+    private static ColorCottonPartQuantity row(SockColor color, int cottonPart, long quantity) {
+        return new ColorCottonPartQuantity() {
+            @Override
+            public SockColor getColor() {
+                return color;
+            }
+
+            @Override
+            public Integer getCottonPart() {
+                return cottonPart;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
     }
 }
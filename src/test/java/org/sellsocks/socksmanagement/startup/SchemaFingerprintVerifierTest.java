@@ -0,0 +1,50 @@
+package org.sellsocks.socksmanagement.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SchemaFingerprintVerifierTest {
+
+    @Mock
+    private SchemaFingerprintStore store;
+
+    @InjectMocks
+    private SchemaFingerprintVerifier verifier;
+
+    @Test
+    @DisplayName("Should compute the same fingerprint over the packaged changelog every time")
+    void compute_Stable() {
+        String fingerprint = ChangelogFingerprint.compute();
+
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, ChangelogFingerprint.compute());
+    }
+
+    @Test
+    @DisplayName("Should accept a database migrated with the same changelog")
+    void afterPropertiesSet_Matches() {
+        when(store.find()).thenReturn(Optional.of(ChangelogFingerprint.compute()));
+
+        assertDoesNotThrow(verifier::afterPropertiesSet);
+    }
+
+    @Test
+    @DisplayName("Should refuse to start on a database that was not migrated with this changelog")
+    void afterPropertiesSet_Mismatch() {
+        when(store.find()).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, verifier::afterPropertiesSet);
+    }
+}
@@ -0,0 +1,95 @@
+package org.sellsocks.socksmanagement.timing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.sellsocks.socksmanagement.config.ServerTimingProperties;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServerTimingFilterTest {
+
+    @Test
+    @DisplayName("Should set the Server-Timing header before the body is written")
+    void doFilter_SetsHeaderBeforeBody() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(new ServerTimingProperties());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/socks/sorted"), response,
+                new MockFilterChain(new TimedServlet()));
+
+        String header = response.getHeader("Server-Timing");
+        assertNotNull(header);
+        assertTrue(header.contains("svc;dur="), header);
+        assertTrue(header.contains("repo;dur="), header);
+        assertTrue(header.contains("db;dur="), header);
+        assertTrue(header.contains("ser;dur="), header);
+        assertTrue(header.contains("total;dur="), header);
+        assertEquals("[]", response.getContentAsString());
+        assertNull(RequestTiming.active());
+    }
+
+    @Test
+    @DisplayName("Should neither time nor report requests that are not sampled")
+    void doFilter_SkipsUnsampledRequests() throws Exception {
+        ServerTimingProperties properties = new ServerTimingProperties();
+        properties.setSampleRate(0);
+        ServerTimingFilter filter = new ServerTimingFilter(properties);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/socks/sorted"), response,
+                new MockFilterChain(new TimedServlet()));
+
+        assertNull(response.getHeader("Server-Timing"));
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Should render durations as milliseconds with microsecond precision")
+    void appendMillis_FormatsNanos() {
+        StringBuilder target = new StringBuilder();
+        RequestTiming.appendMillis(target, 12_034_567);
+        target.append(' ');
+        RequestTiming.appendMillis(target, 5_000);
+        assertEquals("12.034 0.005", target.toString());
+    }
+
+    private static class TimedServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            RequestTiming timing = RequestTiming.active();
+            if (timing != null) {
+                long service = timing.enter(Phase.SERVICE);
+                long repository = timing.enter(Phase.REPOSITORY);
+                long db = timing.enter(Phase.DB);
+                sleep();
+                timing.exit(Phase.DB, db);
+                timing.exit(Phase.REPOSITORY, repository);
+                timing.exit(Phase.SERVICE, service);
+                timing.markSerializationStart();
+                sleep();
+            }
+            response.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void sleep() {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.sellsocks.socksmanagement.upload;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvUploadStreamsTest {
+
+    private static final String CSV = "color,cottonPart,quantity\nblack,15,7\n";
+
+    @Test
+    @DisplayName("Should pass plain CSV through, including bodies shorter than any magic number")
+    void openReader_PlainCsv() throws IOException {
+        assertEquals(CSV, read(CSV.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("a", read(new byte[]{'a'}));
+        assertEquals("", read(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("Should decompress gzip content")
+    void openReader_Gzip() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(CSV, read(compressed.toByteArray()));
+    }
+
+    @Test
+    @DisplayName("Should decompress zstd content")
+    void openReader_Zstd() throws IOException {
+        byte[] content = CSV.getBytes(StandardCharsets.UTF_8);
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] compressed = new byte[compressor.maxCompressedLength(content.length)];
+        int length = compressor.compress(content, 0, content.length, compressed, 0, compressed.length);
+
+        assertEquals(CSV, read(Arrays.copyOf(compressed, length)));
+    }
+
+    @Test
+    @DisplayName("Should reject bytes that are not valid UTF-8")
+    void openReader_MalformedUtf8() {
+        byte[] content = {'r', 'e', 'd', (byte) 0xC3, ',', '1'};
+
+        assertThrows(MalformedInputException.class, () -> read(content));
+    }
+
+    private static String read(byte[] content) throws IOException {
+        StringWriter result = new StringWriter();
+        try (Reader reader = CsvUploadStreams.openReader(new ByteArrayInputStream(content))) {
+            reader.transferTo(result);
+        }
+        return result.toString();
+    }
+}
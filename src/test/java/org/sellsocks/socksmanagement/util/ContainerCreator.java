@@ -1,19 +1,82 @@
 package org.sellsocks.socksmanagement.util;
 
+import org.springframework.test.context.DynamicPropertyRegistry;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Testcontainers
 public class ContainerCreator {
 
+    private static final String TEST_SCHEMA = "schema_for_sock_controller.sql";
+
     public static final PostgreSQLContainer<?> POSTGRES_CONTAINER =
             new PostgreSQLContainer<>("postgres:latest")
                     .withDatabaseName("testdb")
                     .withUsername("admin")
                     .withPassword("admin")
-                    .withInitScript("schema_for_sock_controller.sql");
+                    .withInitScript(TEST_SCHEMA);
+
+    private static final Set<String> DATABASES = ConcurrentHashMap.newKeySet();
 
     static {
         POSTGRES_CONTAINER.start();
     }
+
+    /**
+     * Points the application at a database of its own in the shared container, for tests that commit their
+     * changes or migrate the schema with Liquibase and so cannot use testdb, which the transactional tests share.
+     * With {@code testSchema} the database gets the schema of testdb and Liquibase is turned off; without it the
+     * database starts empty and Liquibase builds it.
+     */
+    public static void registerOwnDatabase(DynamicPropertyRegistry registry, String database, boolean testSchema) {
+        if (DATABASES.add(database)) {
+            createDatabase(database, testSchema);
+        }
+        registry.add("spring.datasource.url", () -> jdbcUrl(database));
+        registry.add("spring.datasource.username", POSTGRES_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", POSTGRES_CONTAINER::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES_CONTAINER::getDriverClassName);
+        registry.add("socks.warmup.iterations", () -> 20);
+        if (testSchema) {
+            registry.add("spring.liquibase.enabled", () -> false);
+        }
+    }
+
+    private static void createDatabase(String database, boolean testSchema) {
+        try (Connection connection = connect(POSTGRES_CONTAINER.getJdbcUrl());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + database);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create test database " + database, e);
+        }
+        if (!testSchema) {
+            return;
+        }
+        try (InputStream schema = ContainerCreator.class.getClassLoader().getResourceAsStream(TEST_SCHEMA);
+             Connection connection = connect(jdbcUrl(database));
+             Statement statement = connection.createStatement()) {
+            statement.execute(new String(schema.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException("Failed to create the test schema in " + database, e);
+        }
+    }
+
+    private static Connection connect(String jdbcUrl) throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, POSTGRES_CONTAINER.getUsername(), POSTGRES_CONTAINER.getPassword());
+    }
+
+    private static String jdbcUrl(String database) {
+        return "jdbc:postgresql://" + POSTGRES_CONTAINER.getHost() + ":" +
+                POSTGRES_CONTAINER.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + database;
+    }
 }
@@ -88,4 +88,31 @@ public class SockParametersValidatorTest {
 
         assertEquals(CriteriaOperation.LESSTHAN, result);
     }
+
+    @Test
+    void shouldReturnDefaultWarehouseWhenNoWarehouseIsProvided() {
+        String result = validator.validateAndParseWarehouse(null);
+
+        assertEquals("MAIN", result);
+    }
+
+    @Test
+    void shouldReturnUppercaseWarehouseCode() {
+        String warehouse = " north_2 ";
+
+        String result = validator.validateAndParseWarehouse(warehouse);
+
+        assertEquals("NORTH_2", result);
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenInvalidWarehouseIsProvided() {
+        String warehouse = "north-2";
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> validator.validateAndParseWarehouse(warehouse));
+
+        assertEquals("Invalid warehouse code: north-2. It must start with a letter and contain at most 32 " +
+                "letters, digits or underscores", exception.getMessage());
+    }
 }
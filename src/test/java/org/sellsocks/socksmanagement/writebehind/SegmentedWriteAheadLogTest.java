@@ -0,0 +1,104 @@
+package org.sellsocks.socksmanagement.writebehind;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sellsocks.socksmanagement.model.dto.SockKey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.GREEN;
+import static org.sellsocks.socksmanagement.model.enums.SockColor.RED;
+
+public class SegmentedWriteAheadLogTest {
+
+    private static final long SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should acknowledge appends only after they are durable and readable")
+    void appendAndRead() throws IOException {
+        AtomicInteger durableCallbacks = new AtomicInteger();
+        try (SegmentedWriteAheadLog log = openLog()) {
+            List<CompletableFuture<Long>> futures = IntStream.range(0, 10)
+                    .mapToObj(i -> log.append(new IncomeLogEntry(new SockKey(RED, i), i + 1).encode(),
+                            durableCallbacks::incrementAndGet))
+                    .toList();
+            futures.forEach(CompletableFuture::join);
+
+            assertEquals(10, durableCallbacks.get());
+            assertEquals(10, log.durableEnd());
+
+            List<LogRecord> records = log.read(3, 100);
+            assertEquals(7, records.size());
+            assertEquals(3, records.get(0).offset());
+            IncomeLogEntry entry = IncomeLogEntry.decode(records.get(0).payload());
+            assertEquals(new SockKey(RED, 3), entry.key());
+            assertEquals(4, entry.quantity());
+        }
+    }
+
+    @Test
+    @DisplayName("Should roll over preallocated segments and recover the tail after reopening")
+    void rollAndRecover() throws IOException {
+        try (SegmentedWriteAheadLog log = openLog()) {
+            IntStream.range(0, 100)
+                    .mapToObj(i -> log.append(new IncomeLogEntry(new SockKey(GREEN, i % 101), 1).encode(), null))
+                    .toList()
+                    .forEach(CompletableFuture::join);
+        }
+        assertTrue(countSegments() > 1);
+
+        try (SegmentedWriteAheadLog log = openLog()) {
+            assertEquals(100, log.durableEnd());
+            assertEquals(100, readAll(log, 0).size());
+
+            long next = log.append(new IncomeLogEntry(new SockKey(GREEN, 1), 5).encode(), null).join();
+            assertEquals(100, next);
+            assertEquals(101, readAll(log, 0).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should delete segments that only contain applied records")
+    void deleteAppliedSegments() throws IOException {
+        try (SegmentedWriteAheadLog log = openLog()) {
+            IntStream.range(0, 100)
+                    .mapToObj(i -> log.append(new IncomeLogEntry(new SockKey(RED, 1), 1).encode(), null))
+                    .toList()
+                    .forEach(CompletableFuture::join);
+            long segmentsBefore = countSegments();
+
+            log.deleteSegmentsBefore(90);
+
+            assertTrue(countSegments() < segmentsBefore);
+            assertEquals(10, readAll(log, 90).size());
+        }
+    }
+
+    private SegmentedWriteAheadLog openLog() throws IOException {
+        return new SegmentedWriteAheadLog(directory, SEGMENT_SIZE, 16, Duration.ofMillis(1));
+    }
+
+    private List<LogRecord> readAll(SegmentedWriteAheadLog log, long fromOffset) throws IOException {
+        return log.read(fromOffset, Integer.MAX_VALUE);
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
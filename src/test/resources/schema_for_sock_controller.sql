@@ -1,13 +1,173 @@
+CREATE TABLE warehouse
+(
+    code       VARCHAR(32) PRIMARY KEY,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO warehouse (code)
+VALUES ('MAIN');
+
 CREATE TABLE sock
 (
-    id          BIGSERIAL PRIMARY KEY,
-    color       VARCHAR(32) NOT NULL,
-    cotton_part INTEGER     NOT NULL,
-    quantity    INTEGER     NOT NULL
+    id          BIGSERIAL    NOT NULL,
+    warehouse   VARCHAR(32)  NOT NULL DEFAULT 'MAIN',
+    color       VARCHAR(32)  NOT NULL,
+    cotton_part INTEGER      NOT NULL,
+    quantity    INTEGER      NOT NULL,
+    attributes  VARCHAR(512) NOT NULL DEFAULT '',
+    CONSTRAINT pk_sock PRIMARY KEY (id, warehouse),
+    CONSTRAINT unique_color_cotton_part_attributes_warehouse UNIQUE (color, cotton_part, attributes, warehouse)
+        INCLUDE (quantity, id),
+    CONSTRAINT ck_cotton_part_range CHECK (cotton_part >= 0 AND cotton_part <= 100)
+) PARTITION BY LIST (warehouse);
+
+CREATE TABLE sock_wh_main PARTITION OF sock FOR VALUES IN ('MAIN');
+
+CREATE INDEX idx_sock_cotton_part ON sock (cotton_part) INCLUDE (color, quantity, id, attributes, warehouse);
+CREATE INDEX idx_sock_quantity ON sock (quantity) INCLUDE (color, cotton_part, id, attributes, warehouse);
+
+CREATE TABLE sock_color_totals
+(
+    color    VARCHAR(32) NOT NULL,
+    stripe   SMALLINT    NOT NULL,
+    quantity BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_sock_color_totals PRIMARY KEY (color, stripe)
 );
 
+CREATE FUNCTION add_to_sock_color_totals(total_color VARCHAR, delta BIGINT) RETURNS VOID AS
+$$
+BEGIN
+    IF delta = 0 THEN
+        RETURN;
+    END IF;
+    INSERT INTO sock_color_totals (color, stripe, quantity)
+    VALUES (total_color,
+            pg_backend_pid() % COALESCE(NULLIF(current_setting('socks.totals_stripes', true), '')::INT, 16),
+            delta)
+    ON CONFLICT (color, stripe) DO UPDATE SET quantity = sock_color_totals.quantity + EXCLUDED.quantity;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION maintain_sock_color_totals() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM add_to_sock_color_totals(NEW.color, NEW.quantity);
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM add_to_sock_color_totals(OLD.color, -OLD.quantity);
+    ELSIF NEW.color = OLD.color THEN
+        PERFORM add_to_sock_color_totals(NEW.color, NEW.quantity - OLD.quantity);
+    ELSE
+        PERFORM add_to_sock_color_totals(OLD.color, -OLD.quantity);
+        PERFORM add_to_sock_color_totals(NEW.color, NEW.quantity);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_sock_color_totals
+    AFTER INSERT OR UPDATE OF color, quantity OR DELETE
+    ON sock
+    FOR EACH ROW
+EXECUTE FUNCTION maintain_sock_color_totals();
+
 INSERT INTO sock (color, cotton_part, quantity)
 VALUES ('PURPLE', 30, 42),
        ('PURPLE', 45, 42),
        ('BLACK', 15, 108);
 
+
+
+CREATE TABLE stock_movement
+(
+    id            BIGSERIAL   NOT NULL,
+    created_at    TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+    color         VARCHAR(32) NOT NULL,
+    cotton_part   INTEGER     NOT NULL,
+    delta         INTEGER     NOT NULL,
+    movement_type VARCHAR(32) NOT NULL,
+    warehouse     VARCHAR(32) NOT NULL DEFAULT 'MAIN',
+    attributes    VARCHAR(512) NOT NULL DEFAULT '',
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE stock_movement_default PARTITION OF stock_movement DEFAULT;
+
+CREATE TABLE stock_snapshot
+(
+    id       BIGSERIAL PRIMARY KEY,
+    taken_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE TABLE stock_snapshot_item
+(
+    snapshot_id BIGINT      NOT NULL REFERENCES stock_snapshot (id) ON DELETE CASCADE,
+    color       VARCHAR(32) NOT NULL,
+    cotton_part INTEGER     NOT NULL,
+    quantity    INTEGER     NOT NULL,
+    warehouse   VARCHAR(32) NOT NULL DEFAULT 'MAIN',
+    attributes  VARCHAR(512) NOT NULL DEFAULT '',
+    PRIMARY KEY (snapshot_id, warehouse, color, cotton_part, attributes)
+);
+
+CREATE TABLE write_behind_offset
+(
+    log_name       VARCHAR(64) PRIMARY KEY,
+    applied_offset BIGINT NOT NULL
+);
+
+CREATE TABLE outbox_event
+(
+    id            BIGSERIAL PRIMARY KEY,
+    created_at    TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+    aggregate_key VARCHAR(640) NOT NULL,
+    event_type    VARCHAR(32) NOT NULL,
+    payload       TEXT        NOT NULL,
+    warehouse     VARCHAR(32) NOT NULL DEFAULT 'MAIN',
+    attributes    VARCHAR(512) NOT NULL DEFAULT ''
+);
+
+CREATE INDEX idx_outbox_event_key_id ON outbox_event (aggregate_key, id);
+
+CREATE TABLE idempotency_record
+(
+    operation       VARCHAR(32)  NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    VARCHAR(64)  NOT NULL,
+    status          VARCHAR(16)  NOT NULL,
+    response_body   TEXT,
+    claim_token     UUID,
+    locked_until    TIMESTAMPTZ,
+    expires_at      TIMESTAMPTZ  NOT NULL,
+    PRIMARY KEY (operation, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_record_expires_at ON idempotency_record (expires_at);
+
+CREATE TABLE sock_reservation
+(
+    id          BIGSERIAL PRIMARY KEY,
+    color       VARCHAR(32) NOT NULL,
+    cotton_part INTEGER     NOT NULL,
+    quantity    INTEGER     NOT NULL,
+    status      VARCHAR(16) NOT NULL,
+    created_at  TIMESTAMPTZ NOT NULL,
+    expires_at  TIMESTAMPTZ NOT NULL,
+    warehouse   VARCHAR(32) NOT NULL DEFAULT 'MAIN'
+);
+
+CREATE INDEX idx_sock_reservation_active ON sock_reservation (warehouse, color, cotton_part)
+    INCLUDE (quantity, expires_at) WHERE status = 'ACTIVE';
+CREATE INDEX idx_sock_reservation_active_expiry ON sock_reservation (expires_at) WHERE status = 'ACTIVE';
+
+CREATE TABLE import_checkpoint
+(
+    file_name     VARCHAR(255) PRIMARY KEY,
+    file_size     BIGINT       NOT NULL,
+    modified_at   TIMESTAMPTZ  NOT NULL,
+    byte_offset   BIGINT       NOT NULL,
+    line_number   INTEGER      NOT NULL,
+    status        VARCHAR(16)  NOT NULL,
+    error_message VARCHAR(1024),
+    updated_at    TIMESTAMPTZ  NOT NULL
+);